@@ -35,9 +35,11 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
@@ -92,7 +94,15 @@ import javax.annotation.Nullable;
  * as it would break parsing of the configuration property.
  * </p>
  *
+ * <p>Optionally, a set of covered columns can be configured with {@link #COVERED_COLUMNS_CONF_KEY}. The values of
+ * covered columns are also stored in the index rows, so that reading those columns by index, with
+ * {@link #readByIndex(byte[], byte[], byte[][])} or {@link #scanByIndex(byte[], byte[], byte[], byte[][])},
+ * does not need to read the data table. This comes at the cost of updating the index rows whenever a covered
+ * column changes.
+ * </p>
+ *
  * @see #INDEX_COLUMNS_CONF_KEY
+ * @see #COVERED_COLUMNS_CONF_KEY
  */
 public class IndexedTable extends AbstractDataset implements Table {
   private static final Logger LOG = LoggerFactory.getLogger(IndexedTable.class);
@@ -103,10 +113,24 @@ public class IndexedTable extends AbstractDataset implements Table {
    */
   public static final String INDEX_COLUMNS_CONF_KEY = "columnsToIndex";
 
+  /**
+   * Configuration key for defining the names of the columns whose values are also stored in the index rows.
+   * Multiple column names should be listed as a comma-separated string, e.g. "column1,column2,etc".
+   */
+  public static final String COVERED_COLUMNS_CONF_KEY = "coveredColumns";
+
   /**
    * Column key used to store the existence of a row in the secondary index.
    */
   private static final byte[] IDX_COL = {'r'};
+  /**
+   * Prefix of the columns used to store the values of covered columns in the secondary index.
+   */
+  private static final byte[] COVERED_COL_PREFIX = {'c'};
+  /**
+   * Maximum number of index entries that are resolved against the data table with one multi-get.
+   */
+  private static final int RESOLVE_BATCH_SIZE = 100;
   private static final byte DELIMITER_BYTE = 0;
   private static final byte[] KEY_DELIMITER = new byte[] { DELIMITER_BYTE };
 
@@ -115,6 +139,10 @@ public class IndexedTable extends AbstractDataset implements Table {
   private Table table, index;
   // the secondary index column
   private SortedSet<byte[]> indexedColumns;
+  // the columns whose values are stored in the index rows
+  private SortedSet<byte[]> coveredColumns;
+  // the columns whose values are needed to maintain the index: the indexed and the covered columns
+  private SortedSet<byte[]> indexMaintainedColumns;
 
   /**
    * Configuration time constructor.
@@ -125,10 +153,28 @@ public class IndexedTable extends AbstractDataset implements Table {
    * @param columnsToIndex the names of the data columns to index
    */
   public IndexedTable(String name, Table table, Table index, SortedSet<byte[]> columnsToIndex) {
+    this(name, table, index, columnsToIndex, new TreeSet<>(Bytes.BYTES_COMPARATOR));
+  }
+
+  /**
+   * Configuration time constructor.
+   *
+   * @param name the name of the table
+   * @param table table to use as the table
+   * @param index table to use as the index
+   * @param columnsToIndex the names of the data columns to index
+   * @param coveredColumns the names of the data columns whose values are also stored in the index
+   */
+  public IndexedTable(String name, Table table, Table index, SortedSet<byte[]> columnsToIndex,
+                      SortedSet<byte[]> coveredColumns) {
     super(name, table, index);
     this.table = table;
     this.index = index;
     this.indexedColumns = columnsToIndex;
+    this.coveredColumns = coveredColumns;
+    this.indexMaintainedColumns = new TreeSet<>(Bytes.BYTES_COMPARATOR);
+    this.indexMaintainedColumns.addAll(columnsToIndex);
+    this.indexMaintainedColumns.addAll(coveredColumns);
     this.hasColumnWithDelimiter = hasDelimiterByte(columnsToIndex);
   }
 
@@ -203,11 +249,27 @@ public class IndexedTable extends AbstractDataset implements Table {
    * @throws java.lang.IllegalArgumentException if the given column is not configured for indexing.
    */
   public Scanner readByIndex(byte[] column, byte[] value) {
+    return readByIndex(column, value, null);
+  }
+
+  /**
+   * Reads the given columns of table rows by the given secondary index key. If all the requested columns are
+   * covered by the index, the rows are read from the index only. If no rows are indexed by the given key, then a
+   * {@link co.cask.cdap.api.dataset.table.Scanner} with no results will be returned.
+   *
+   * @param column the column to use for the index lookup
+   * @param value the value of the column to look up
+   * @param columns the columns to read, {@code null} to read all columns
+   * @return a Scanner returning rows from the data table, whose stored value for the given column matches the
+   * given value.
+   * @throws java.lang.IllegalArgumentException if the given column is not configured for indexing.
+   */
+  public Scanner readByIndex(byte[] column, byte[] value, @Nullable byte[][] columns) {
     assertIndexedColumn(column);
     byte[] rowKeyPrefix = Bytes.concat(column, KEY_DELIMITER, value, KEY_DELIMITER);
     byte[] stopRow = Bytes.stopKeyForPrefix(rowKeyPrefix);
     Scanner indexScan = index.scan(rowKeyPrefix, stopRow);
-    return new IndexScanner(indexScan, column, value);
+    return new IndexScanner(indexScan, column, value, columns);
   }
 
   /**
@@ -224,6 +286,26 @@ public class IndexedTable extends AbstractDataset implements Table {
    * @throws java.lang.IllegalArgumentException if the given column is not configured for indexing.
    */
   public Scanner scanByIndex(byte[] column, @Nullable byte[] startValue, @Nullable byte[] endValue) {
+    return scanByIndex(column, startValue, endValue, null);
+  }
+
+  /**
+   * Reads the given columns of table rows within the given secondary index key range. If all the requested columns
+   * are covered by the index, the rows are read from the index only. If no rows are indexed, falling within the
+   * given range, then a {@link co.cask.cdap.api.dataset.table.Scanner} with no results will be returned.
+   *
+   * @param column the column to use for the index lookup
+   * @param startValue the inclusive start of the range for which rows must fall within to be returned in the scan.
+   *                   {@code null} means start from first row of the table
+   * @param endValue the exclusive end of the range for which rows must fall within to be returned in the scan
+   *                 {@code null} means end with the last row of the table
+   * @param columns the columns to read, {@code null} to read all columns
+   * @return a Scanner returning rows from the data table, whose stored value for the given column is within the the
+   *         given range.
+   * @throws java.lang.IllegalArgumentException if the given column is not configured for indexing.
+   */
+  public Scanner scanByIndex(byte[] column, @Nullable byte[] startValue, @Nullable byte[] endValue,
+                             @Nullable byte[][] columns) {
     assertIndexedColumn(column);
     // KEY_DELIMITER is not used at the end of the rowKeys, because they are used for a range scan,
     // instead of a fixed-match lookup
@@ -232,7 +314,7 @@ public class IndexedTable extends AbstractDataset implements Table {
     byte[] stopRow = endValue == null ? Bytes.stopKeyForPrefix(Bytes.concat(column, KEY_DELIMITER)) :
       Bytes.concat(column, KEY_DELIMITER, endValue);
     Scanner indexScan = index.scan(startRow, stopRow);
-    return new IndexRangeScanner(indexScan, column, startValue, endValue);
+    return new IndexRangeScanner(indexScan, column, startValue, endValue, columns);
   }
 
   private void assertIndexedColumn(byte[] column) {
@@ -249,44 +331,162 @@ public class IndexedTable extends AbstractDataset implements Table {
    */
   @Override
   public void put(Put put) {
-    // if different value exists, remove current index ref
-    // add a new index ref unless same value already exists
-    byte[] dataRow = put.getRow();
-    // find which values need to be indexed
-    Map<byte[], byte[]> putColumns = put.getValues();
-    Set<byte[]> colsToIndex = new TreeSet<>(Bytes.BYTES_COMPARATOR);
-    for (Map.Entry<byte[], byte[]> putEntry : putColumns.entrySet()) {
-      if (indexedColumns.contains(putEntry.getKey())) {
-        colsToIndex.add(putEntry.getKey());
-      }
+    byte[][] columnsToRead = getColumnsToRead(put.getValues().keySet());
+    if (columnsToRead.length > 0) {
+      // first read the existing values to find which index entries have changed and need to be updated
+      Row existingRow = table.get(put.getRow(), columnsToRead);
+      updateIndex(put.getRow(), existingRow.getColumns(), put.getValues());
     }
 
-    if (!colsToIndex.isEmpty()) {
-      // first read the existing indexed values to find which have changed and need to be updated
-      Row existingRow = table.get(dataRow, colsToIndex.toArray(new byte[colsToIndex.size()][]));
-      for (Map.Entry<byte[], byte[]> entry : existingRow.getColumns().entrySet()) {
-        if (!Arrays.equals(entry.getValue(), putColumns.get(entry.getKey()))) {
-          index.delete(createIndexKey(dataRow, entry.getKey(), entry.getValue()), IDX_COL);
-        } else {
-          // value already indexed
-          colsToIndex.remove(entry.getKey());
-        }
-      }
+    // store the data row
+    table.put(put);
+  }
 
-      // add new index entries for all values that have changed or did not exist
-      for (byte[] col : colsToIndex) {
-        index.put(createIndexKey(dataRow, col, putColumns.get(col)), IDX_COL, dataRow);
+  /**
+   * Writes multiple puts to the data table, updating the indexes as for {@link #put(Put)}. The existing values
+   * of the indexed columns of all rows are read with a single multi-get, which makes this method preferable
+   * to multiple {@link #put(Put)} calls.
+   *
+   * @param puts The put operations to store
+   */
+  public void put(List<Put> puts) {
+    // Read all the columns needed to maintain the index, so that the state of a row is complete
+    // even if it is written by multiple puts
+    byte[][] allColumns = indexMaintainedColumns.toArray(new byte[indexMaintainedColumns.size()][]);
+    Map<byte[], Map<byte[], byte[]>> rowStates = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    List<Get> gets = new ArrayList<>();
+    for (Put put : puts) {
+      if (getColumnsToRead(put.getValues().keySet()).length > 0 && !rowStates.containsKey(put.getRow())) {
+        rowStates.put(put.getRow(), null);
+        gets.add(new Get(put.getRow(), allColumns));
+      }
+    }
+    if (!gets.isEmpty()) {
+      List<Row> existingRows = table.get(gets);
+      for (int i = 0; i < gets.size(); i++) {
+        rowStates.put(gets.get(i).getRow(), existingRows.get(i).getColumns());
       }
     }
 
-    // store the data row
-    table.put(put);
+    for (Put put : puts) {
+      Map<byte[], byte[]> existing = rowStates.get(put.getRow());
+      if (existing != null) {
+        rowStates.put(put.getRow(), updateIndex(put.getRow(), existing, put.getValues()));
+      }
+      table.put(put);
+    }
   }
 
   private byte[] createIndexKey(byte[] row, byte[] column, byte[] value) {
     return Bytes.concat(column, KEY_DELIMITER, value, KEY_DELIMITER, row);
   }
 
+  private byte[] createCoveredColumn(byte[] column) {
+    return Bytes.concat(COVERED_COL_PREFIX, column);
+  }
+
+  private boolean isIndexMaintained(byte[] column) {
+    return indexMaintainedColumns.contains(column);
+  }
+
+  /**
+   * Returns the columns whose existing values need to be read to update the index when the given columns change.
+   */
+  private byte[][] getColumnsToRead(Set<byte[]> changedColumns) {
+    Set<byte[]> columns = new TreeSet<>(Bytes.BYTES_COMPARATOR);
+    for (byte[] column : changedColumns) {
+      if (isIndexMaintained(column)) {
+        columns.add(column);
+      }
+    }
+    if (!columns.isEmpty() && !coveredColumns.isEmpty()) {
+      // The index rows to update are only known from the indexed values, and creating new index rows needs
+      // the values of all covered columns
+      columns.addAll(indexMaintainedColumns);
+    }
+    return columns.toArray(new byte[columns.size()][]);
+  }
+
+  /**
+   * Updates the index entries of a data row.
+   *
+   * @param row the data row key
+   * @param existing the existing values of the columns that are changed, and of all covered columns if any
+   * @param changes the new values of the changed columns, where a {@code null} value means the column is deleted
+   * @return the values of the columns after the change
+   */
+  private Map<byte[], byte[]> updateIndex(byte[] row, Map<byte[], byte[]> existing, Map<byte[], byte[]> changes) {
+    Map<byte[], byte[]> updated = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    updated.putAll(existing);
+    for (Map.Entry<byte[], byte[]> change : changes.entrySet()) {
+      if (change.getValue() == null) {
+        updated.remove(change.getKey());
+      } else {
+        updated.put(change.getKey(), change.getValue());
+      }
+    }
+
+    for (byte[] column : indexedColumns) {
+      byte[] oldValue = existing.get(column);
+      byte[] newValue = updated.get(column);
+      boolean unchanged = Arrays.equals(oldValue, newValue);
+
+      // if different value exists, remove current index ref
+      if (oldValue != null && !unchanged) {
+        deleteIndexEntry(row, column, oldValue);
+      }
+      if (newValue == null) {
+        continue;
+      }
+
+      byte[] indexKey = createIndexKey(row, column, newValue);
+      if (!unchanged) {
+        // add a new index ref, with the values of all covered columns
+        Put indexPut = new Put(indexKey, IDX_COL, row);
+        for (byte[] coveredColumn : coveredColumns) {
+          byte[] value = updated.get(coveredColumn);
+          if (value != null) {
+            indexPut.add(createCoveredColumn(coveredColumn), value);
+          }
+        }
+        index.put(indexPut);
+        continue;
+      }
+
+      // value already indexed, only update the covered columns that have changed
+      Put indexPut = new Put(indexKey);
+      List<byte[]> deletedColumns = new ArrayList<>();
+      for (byte[] coveredColumn : coveredColumns) {
+        byte[] value = updated.get(coveredColumn);
+        if (Arrays.equals(existing.get(coveredColumn), value)) {
+          continue;
+        }
+        if (value == null) {
+          deletedColumns.add(createCoveredColumn(coveredColumn));
+        } else {
+          indexPut.add(createCoveredColumn(coveredColumn), value);
+        }
+      }
+      if (!indexPut.getValues().isEmpty()) {
+        index.put(indexPut);
+      }
+      if (!deletedColumns.isEmpty()) {
+        index.delete(indexKey, deletedColumns.toArray(new byte[deletedColumns.size()][]));
+      }
+    }
+    return updated;
+  }
+
+  private void deleteIndexEntry(byte[] row, byte[] column, byte[] value) {
+    byte[][] indexColumns = new byte[coveredColumns.size() + 1][];
+    int i = 0;
+    indexColumns[i++] = IDX_COL;
+    for (byte[] coveredColumn : coveredColumns) {
+      indexColumns[i++] = createCoveredColumn(coveredColumn);
+    }
+    index.delete(createIndexKey(row, column, value), indexColumns);
+  }
+
   @Override
   public void put(byte[] row, byte[] column, byte[] value) {
     Put put = new Put(row);
@@ -327,7 +527,7 @@ public class IndexedTable extends AbstractDataset implements Table {
     }
 
     // delete all index entries
-    deleteIndexEntries(existingRow);
+    deleteIndexEntries(existingRow, existingRow.getColumns().keySet());
 
     // delete the row
     table.delete(row);
@@ -340,26 +540,35 @@ public class IndexedTable extends AbstractDataset implements Table {
 
   @Override
   public void delete(byte[] row, byte[][] columns) {
-    Row existingRow = table.get(row, columns);
+    Set<byte[]> deletedColumns = new TreeSet<>(Bytes.BYTES_COMPARATOR);
+    Collections.addAll(deletedColumns, columns);
+    Set<byte[]> columnsToRead = new TreeSet<>(Bytes.BYTES_COMPARATOR);
+    columnsToRead.addAll(deletedColumns);
+    Collections.addAll(columnsToRead, getColumnsToRead(deletedColumns));
+
+    Row existingRow = table.get(row, columnsToRead.toArray(new byte[columnsToRead.size()][]));
     if (existingRow.isEmpty()) {
       // no row to delete
       return;
     }
 
     // delete all index entries
-    deleteIndexEntries(existingRow);
+    deleteIndexEntries(existingRow, deletedColumns);
 
     // delete the row's columns
     table.delete(row, columns);
   }
 
-  private void deleteIndexEntries(Row existingRow) {
-    byte[] row = existingRow.getRow();
-    for (Map.Entry<byte[], byte[]> entry : existingRow.getColumns().entrySet()) {
-      if (indexedColumns.contains(entry.getKey())) {
-        index.delete(createIndexKey(row, entry.getKey(), entry.getValue()), IDX_COL);
+  private void deleteIndexEntries(Row existingRow, Set<byte[]> deletedColumns) {
+    Map<byte[], byte[]> changes = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    for (byte[] column : deletedColumns) {
+      if (isIndexMaintained(column)) {
+        changes.put(column, null);
       }
     }
+    if (!changes.isEmpty()) {
+      updateIndex(existingRow.getRow(), existingRow.getColumns(), changes);
+    }
   }
 
   /**
@@ -371,6 +580,26 @@ public class IndexedTable extends AbstractDataset implements Table {
    */
   @Override
   public boolean compareAndSwap(byte[] row, byte[] column, byte[] expected, byte[] newValue) {
+    if (!coveredColumns.isEmpty() && isIndexMaintained(column) && !Arrays.equals(expected, newValue)) {
+      // the index rows also store the covered columns, hence they must be read to update the index
+      byte[][] columnsToRead = getColumnsToRead(Collections.singleton(column));
+      Map<byte[], byte[]> existing = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+      existing.putAll(table.get(row, columnsToRead).getColumns());
+      if (!table.compareAndSwap(row, column, expected, newValue)) {
+        return false;
+      }
+      // the swap only succeeds if the current value is the expected one
+      if (expected == null) {
+        existing.remove(column);
+      } else {
+        existing.put(column, expected);
+      }
+      Map<byte[], byte[]> changes = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+      changes.put(column, newValue);
+      updateIndex(row, existing, changes);
+      return true;
+    }
+
     // if the swap is on a column other than the column key, then
     // the index is not affected - just execute the swap.
     // also, if the swap is on the index column, but the old value
@@ -439,9 +668,16 @@ public class IndexedTable extends AbstractDataset implements Table {
       throw new IllegalArgumentException("Size of columns and amounts arguments must match");
     }
 
-    Row existingRow = table.get(row, columns);
+    Set<byte[]> incrementedColumns = new TreeSet<>(Bytes.BYTES_COMPARATOR);
+    Collections.addAll(incrementedColumns, columns);
+    Set<byte[]> columnsToRead = new TreeSet<>(Bytes.BYTES_COMPARATOR);
+    columnsToRead.addAll(incrementedColumns);
+    Collections.addAll(columnsToRead, getColumnsToRead(incrementedColumns));
+
+    Row existingRow = table.get(row, columnsToRead.toArray(new byte[columnsToRead.size()][]));
     byte[][] updatedValues = new byte[columns.length][];
     NavigableMap<byte[], byte[]> result = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    Map<byte[], byte[]> indexChanges = new TreeMap<>(Bytes.BYTES_COMPARATOR);
 
     for (int i = 0; i < columns.length; i++) {
       long existingValue = 0L;
@@ -453,16 +689,16 @@ public class IndexedTable extends AbstractDataset implements Table {
                                             " column: " + Bytes.toStringBinary(columns[i]));
         }
         existingValue = Bytes.toLong(existingBytes);
-        if (indexedColumns.contains(columns[i])) {
-          index.delete(createIndexKey(row, columns[i], existingBytes), IDX_COL);
-        }
       }
       updatedValues[i] = Bytes.toBytes(existingValue + amounts[i]);
       result.put(columns[i], updatedValues[i]);
-      if (indexedColumns.contains(columns[i])) {
-        index.put(createIndexKey(row, columns[i], updatedValues[i]), IDX_COL, row);
+      if (isIndexMaintained(columns[i])) {
+        indexChanges.put(columns[i], updatedValues[i]);
       }
     }
+    if (!indexChanges.isEmpty()) {
+      updateIndex(row, existingRow.getColumns(), indexChanges);
+    }
 
     table.put(row, columns, updatedValues);
     return new Result(row, result);
@@ -493,14 +729,15 @@ public class IndexedTable extends AbstractDataset implements Table {
 
   /**
    * Increments (atomically) the specified row and column by the specified amount, without returning the new value.
-   * Note that performing this operation on an indexed column throws {@link java.lang.IllegalArgumentException}.
+   * Note that performing this operation on an indexed or covered column throws
+   * {@link java.lang.IllegalArgumentException}.
    *
    * @see Table#increment(byte[], byte[], long)
    */
   @Override
   public void increment(byte[] row, byte[] column, long amount) {
-    // read-less increments should not be used on indexed columns
-    if (indexedColumns.contains(column)) {
+    // read-less increments should not be used on indexed or covered columns
+    if (isIndexMaintained(column)) {
       throw new IllegalArgumentException("Read-less increment is not supported on indexed column '"
                                            + Bytes.toStringBinary(column) + "'");
     }
@@ -509,15 +746,16 @@ public class IndexedTable extends AbstractDataset implements Table {
 
   /**
    * Increments (atomically) the specified row and columns by the specified amounts, without returning the new values.
-   * Note that performing this operation on an indexed column throws {@link java.lang.IllegalArgumentException}.
+   * Note that performing this operation on an indexed or covered column throws
+   * {@link java.lang.IllegalArgumentException}.
    *
    * @see Table#increment(byte[], byte[][], long[])
    */
   @Override
   public void increment(byte[] row, byte[][] columns, long[] amounts) {
-    // read-less increments should not be used on indexed columns
+    // read-less increments should not be used on indexed or covered columns
     for (byte[] col : columns) {
-      if (indexedColumns.contains(col)) {
+      if (isIndexMaintained(col)) {
         throw new IllegalArgumentException("Read-less increment is not supported on indexed column '"
                                              + Bytes.toStringBinary(col) + "'");
       }
@@ -527,14 +765,15 @@ public class IndexedTable extends AbstractDataset implements Table {
 
   /**
    * Increments (atomically) the specified row and columns by the specified amounts, without returning the new values.
-   * Note that performing this operation on an indexed column throws {@link java.lang.IllegalArgumentException}.
+   * Note that performing this operation on an indexed or covered column throws
+   * {@link java.lang.IllegalArgumentException}.
    *
    * @see Table#increment(Increment)
    */
   @Override
   public void increment(Increment increment) {
     for (byte[] col : increment.getValues().keySet()) {
-      if (indexedColumns.contains(col)) {
+      if (isIndexMaintained(col)) {
         throw new IllegalArgumentException("Read-less increment is not supported on indexed column '"
                                              + Bytes.toStringBinary(col) + "'");
       }
@@ -595,10 +834,22 @@ public class IndexedTable extends AbstractDataset implements Table {
     // scanner over index table
     private final Scanner baseScanner;
     private final byte[] column;
-
-    public AbstractIndexScanner(Scanner baseScanner, byte[] column) {
+    // the columns to read, null for all columns
+    private final byte[][] columns;
+    // whether the requested columns can be read from the index rows
+    private final boolean covered;
+    // the columns to read from the data table, which includes the indexed column if it needs to be verified
+    private final byte[][] columnsToGet;
+    // rows that have been resolved but not returned yet
+    private final LinkedList<Row> resolved = new LinkedList<>();
+    private boolean indexExhausted;
+
+    public AbstractIndexScanner(Scanner baseScanner, byte[] column, @Nullable byte[][] columns) {
       this.baseScanner = baseScanner;
       this.column = column;
+      this.columns = columns;
+      this.covered = columns != null && !hasColumnWithDelimiter && isCovered(column, columns);
+      this.columnsToGet = getColumnsToGet(column, columns);
     }
 
     /**
@@ -612,9 +863,32 @@ public class IndexedTable extends AbstractDataset implements Table {
     @Nullable
     @Override
     public Row next() {
-      // TODO: retrieve results in batches to minimize RPC overhead (requires multi-get support in table)
-      // keep going until we hit a non-null, non-empty data row, or we exhaust the index
-      for (Row indexRow = baseScanner.next(); indexRow != null; indexRow = baseScanner.next()) {
+      // keep going until we hit a data row, or we exhaust the index
+      while (resolved.isEmpty() && !indexExhausted) {
+        resolveBatch();
+      }
+      // end of index if still empty
+      return resolved.poll();
+    }
+
+    @Override
+    public void close() {
+      baseScanner.close();
+    }
+
+    /**
+     * Reads up to {@link #RESOLVE_BATCH_SIZE} matching entries from the index and resolves them to data rows
+     * with a single multi-get, unless all requested columns are covered by the index.
+     */
+    private void resolveBatch() {
+      List<Get> gets = new ArrayList<>();
+      List<byte[]> columnValues = new ArrayList<>();
+      while (gets.size() < RESOLVE_BATCH_SIZE) {
+        Row indexRow = baseScanner.next();
+        if (indexRow == null) {
+          indexExhausted = true;
+          break;
+        }
         byte[] rowkey = indexRow.get(IDX_COL);
         if (rowkey == null) {
           LOG.warn("Row of Indexed table '{}' is missing index column. Row key: {}", getName(), indexRow.getRow());
@@ -625,33 +899,83 @@ public class IndexedTable extends AbstractDataset implements Table {
                                                 indexRow.getRow().length - rowkey.length - 1);
         // Verify that datarow matches the expected row key to avoid issues with column name or value
         // containing the delimiter used. This is a sufficient check, as long as columns don't contain the null byte.
-        if (matches(columnValue)) {
-          Row row = table.get(rowkey);
-          // If a column has null byte (the key delimiter) in it, then we need to check against the data row's column
-          // to be sure this row isn't a false positive in the scan.
-          // For reference, take a look at IndexedTableTest#testIndexKeyDelimiterAmbiguity
-          if (hasColumnWithDelimiter && !Bytes.equals(row.get(column), columnValue)) {
-            continue;
-          }
-          return row;
+        if (!matches(columnValue)) {
+          continue;
+        }
+        if (covered) {
+          resolved.add(createCoveredRow(rowkey, columnValue, indexRow));
+          continue;
         }
+        gets.add(columnsToGet == null ? new Get(rowkey) : new Get(rowkey, columnsToGet));
+        columnValues.add(columnValue);
+      }
+      if (gets.isEmpty()) {
+        return;
+      }
+
+      List<Row> rows = table.get(gets);
+      for (int i = 0; i < rows.size(); i++) {
+        Row row = rows.get(i);
+        // If a column has null byte (the key delimiter) in it, then we need to check against the data row's column
+        // to be sure this row isn't a false positive in the scan.
+        // For reference, take a look at IndexedTableTest#testIndexKeyDelimiterAmbiguity
+        if (hasColumnWithDelimiter && !Bytes.equals(row.get(column), columnValues.get(i))) {
+          continue;
+        }
+        resolved.add(columnsToGet == columns ? row : removeColumn(row, column));
       }
-      // end of index
-      return null;
     }
 
-    @Override
-    public void close() {
-      baseScanner.close();
+    private Row createCoveredRow(byte[] rowkey, byte[] columnValue, Row indexRow) {
+      Map<byte[], byte[]> values = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+      for (byte[] col : columns) {
+        byte[] value = Bytes.equals(col, column) ? columnValue : indexRow.get(createCoveredColumn(col));
+        if (value != null) {
+          values.put(col, value);
+        }
+      }
+      return new Result(rowkey, values);
+    }
+  }
+
+  private boolean isCovered(byte[] indexColumn, byte[][] columns) {
+    for (byte[] col : columns) {
+      if (!Bytes.equals(col, indexColumn) && !coveredColumns.contains(col)) {
+        return false;
+      }
     }
+    return true;
+  }
+
+  @Nullable
+  private byte[][] getColumnsToGet(byte[] indexColumn, @Nullable byte[][] columns) {
+    if (columns == null || !hasColumnWithDelimiter) {
+      return columns;
+    }
+    for (byte[] col : columns) {
+      if (Bytes.equals(col, indexColumn)) {
+        return columns;
+      }
+    }
+    // the indexed column is needed to verify the data row
+    byte[][] result = Arrays.copyOf(columns, columns.length + 1);
+    result[columns.length] = indexColumn;
+    return result;
+  }
+
+  private static Row removeColumn(Row row, byte[] column) {
+    Map<byte[], byte[]> values = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    values.putAll(row.getColumns());
+    values.remove(column);
+    return new Result(row.getRow(), values);
   }
 
   // scanner that matches column values based upon exact match
   private class IndexScanner extends AbstractIndexScanner {
     private final byte[] value;
 
-    public IndexScanner(Scanner baseScanner, byte[] column, byte[] value) {
-      super(baseScanner, column);
+    public IndexScanner(Scanner baseScanner, byte[] column, byte[] value, @Nullable byte[][] columns) {
+      super(baseScanner, column, columns);
       this.value = value;
     }
 
@@ -666,8 +990,9 @@ public class IndexedTable extends AbstractDataset implements Table {
     private final byte[] start;
     private final byte[] end;
 
-    public IndexRangeScanner(Scanner baseScanner, byte[] column, @Nullable byte[] start, @Nullable byte[] end) {
-      super(baseScanner, column);
+    public IndexRangeScanner(Scanner baseScanner, byte[] column, @Nullable byte[] start, @Nullable byte[] end,
+                             @Nullable byte[][] columns) {
+      super(baseScanner, column, columns);
       this.start = start;
       this.end = end;
     }
@@ -30,6 +30,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import javax.annotation.Nullable;
 
 /**
  * DatasetDefinition for {@link IndexedTable}.
@@ -74,6 +75,14 @@ public class IndexedTableDefinition
                                                             oldColumnsToIndex, columnNamesToIndex));
       }
     }
+
+    // the covered columns are stored in the index rows, hence they cannot change either
+    String coveredColumns = newProperties.getProperties().get(IndexedTable.COVERED_COLUMNS_CONF_KEY);
+    String oldCoveredColumns = currentSpec.getProperty(IndexedTable.COVERED_COLUMNS_CONF_KEY);
+    if (!parseOptionalColumns(coveredColumns).equals(parseOptionalColumns(oldCoveredColumns))) {
+      throw new IncompatibleUpdateException(String.format("Attempt to change covered columns from '%s' to '%s'",
+                                                          oldCoveredColumns, coveredColumns));
+    }
     return super.reconfigure(instanceName, newProperties, currentSpec);
   }
 
@@ -82,11 +91,12 @@ public class IndexedTableDefinition
                                  Map<String, String> arguments, ClassLoader classLoader) throws IOException {
 
     SortedSet<byte[]> columnsToIndex = parseColumns(spec.getProperty(IndexedTable.INDEX_COLUMNS_CONF_KEY));
+    SortedSet<byte[]> coveredColumns = parseOptionalColumns(spec.getProperty(IndexedTable.COVERED_COLUMNS_CONF_KEY));
 
     Table table = getDataset(datasetContext, "d", spec, arguments, classLoader);
     Table index = getDataset(datasetContext, "i", spec, arguments, classLoader);
 
-    return new IndexedTable(spec.getName(), table, index, columnsToIndex);
+    return new IndexedTable(spec.getName(), table, index, columnsToIndex, coveredColumns);
   }
 
   /**
@@ -100,4 +110,14 @@ public class IndexedTableDefinition
     }
     return columnsToIndex;
   }
+
+  /**
+   * Helper method to parse an optional list of column names, comma-separated.
+   */
+  private SortedSet<byte[]> parseOptionalColumns(@Nullable String value) {
+    if (value == null || value.isEmpty()) {
+      return new TreeSet<>(Bytes.BYTES_COMPARATOR);
+    }
+    return parseColumns(value);
+  }
 }
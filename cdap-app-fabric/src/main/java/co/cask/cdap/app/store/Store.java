@@ -109,6 +109,12 @@ public interface Store extends RuntimeStore {
    */
   List<RunRecordMeta> getRuns(ProgramRunStatus status, Predicate<RunRecordMeta> filter);
 
+  /**
+   * Fetches the run records of all runs that are either running or suspended.
+   * @return        map from run id to the run record
+   */
+  Map<ProgramRunId, RunRecordMeta> getActiveRuns();
+
   /**
    * Fetches the run record for particular run of a program.
    *
@@ -71,6 +71,7 @@ import co.cask.cdap.proto.id.ProgramRunId;
 import co.cask.http.HttpResponder;
 import com.google.common.base.Charsets;
 import com.google.common.base.Function;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.util.concurrent.Futures;
@@ -98,6 +99,7 @@ import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.DefaultValue;
@@ -546,12 +548,26 @@ public class ProgramLifecycleHttpHandler extends AbstractAppFabricHttpHandler {
 
     List<BatchProgram> programs = validateAndGetBatchInput(request, BATCH_PROGRAMS_TYPE);
 
-    List<BatchProgramStatus> statuses = new ArrayList<>(programs.size());
+    List<ProgramId> programIds = new ArrayList<>(programs.size());
     for (BatchProgram program : programs) {
-      ProgramId programId =
-        Ids.namespace(namespaceId).app(program.getAppId()).program(program.getProgramType(), program.getProgramId());
+      programIds.add(
+        Ids.namespace(namespaceId).app(program.getAppId()).program(program.getProgramType(), program.getProgramId()));
+    }
+    // Resolve the statuses of all programs at once, instead of looking up every program separately
+    Map<ProgramId, ProgramStatus> programStatuses = lifecycleService.getProgramStatuses(programIds);
+
+    List<BatchProgramStatus> statuses = new ArrayList<>(programs.size());
+    for (int i = 0; i < programs.size(); i++) {
+      BatchProgram program = programs.get(i);
+      ProgramStatus programStatus = programStatuses.get(programIds.get(i));
+      if (programStatus != null) {
+        statuses.add(new BatchProgramStatus(
+          program, HttpResponseStatus.OK.getCode(), null, programStatus.name()));
+        continue;
+      }
       try {
-        ProgramStatus programStatus = lifecycleService.getProgramStatus(programId);
+        // Either the program or its application doesn't exist, look it up again for the error message
+        programStatus = lifecycleService.getProgramStatus(programIds.get(i));
         statuses.add(new BatchProgramStatus(
           program, HttpResponseStatus.OK.getCode(), null, programStatus.name()));
       } catch (NotFoundException e) {
@@ -670,12 +686,23 @@ public class ProgramLifecycleHttpHandler extends AbstractAppFabricHttpHandler {
 
     List<BatchProgramStart> programs = validateAndGetBatchInput(request, BATCH_STARTS_TYPE);
 
-    List<BatchProgramResult> output = new ArrayList<>(programs.size());
+    // Issue all starts first, so that the programs are launched concurrently
+    List<ListenableFuture<ProgramRuntimeService.RuntimeInfo>> issuedStarts = new ArrayList<>(programs.size());
     for (BatchProgramStart program : programs) {
       ProgramId programId =
         Ids.namespace(namespaceId).app(program.getAppId()).program(program.getProgramType(), program.getProgramId());
       try {
-        lifecycleService.start(programId, program.getRuntimeargs(), false);
+        issuedStarts.add(lifecycleService.issueStart(programId, program.getRuntimeargs(), false));
+      } catch (Exception e) {
+        issuedStarts.add(Futures.<ProgramRuntimeService.RuntimeInfo>immediateFailedFuture(e));
+      }
+    }
+
+    List<BatchProgramResult> output = new ArrayList<>(programs.size());
+    for (int i = 0; i < programs.size(); i++) {
+      BatchProgramStart program = programs.get(i);
+      try {
+        waitForStart(issuedStarts.get(i));
         output.add(new BatchProgramResult(program, HttpResponseStatus.OK.getCode(), null));
       } catch (NotFoundException e) {
         output.add(new BatchProgramResult(program, HttpResponseStatus.NOT_FOUND.getCode(), e.getMessage()));
@@ -1183,6 +1210,18 @@ public class ProgramLifecycleHttpHandler extends AbstractAppFabricHttpHandler {
     return store.getServiceInstances(serviceId);
   }
 
+  /**
+   * Waits for an issued program start to complete, rethrowing the failure of the start as is.
+   */
+  private void waitForStart(ListenableFuture<ProgramRuntimeService.RuntimeInfo> issuedStart) throws Exception {
+    try {
+      issuedStart.get();
+    } catch (ExecutionException e) {
+      Throwables.propagateIfPossible(e.getCause(), Exception.class);
+      throw Throwables.propagate(e.getCause());
+    }
+  }
+
   private boolean isDebugAllowed(ProgramType programType) {
     return EnumSet.of(ProgramType.FLOW, ProgramType.SERVICE, ProgramType.WORKER).contains(programType);
   }
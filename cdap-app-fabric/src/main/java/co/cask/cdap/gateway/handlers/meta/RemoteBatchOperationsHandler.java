@@ -0,0 +1,95 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.gateway.handlers.meta;
+
+import co.cask.cdap.common.BadRequestException;
+import co.cask.cdap.common.internal.remote.MethodArgument;
+import co.cask.cdap.common.internal.remote.MethodCall;
+import co.cask.cdap.common.internal.remote.RemoteOpsClient;
+import co.cask.http.HttpResponder;
+import com.google.common.base.Charsets;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.google.inject.Inject;
+import org.jboss.netty.handler.codec.http.HttpRequest;
+import org.jboss.netty.handler.codec.http.HttpResponseStatus;
+
+import java.lang.reflect.Type;
+import java.util.Iterator;
+import java.util.List;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+
+/**
+ * The {@link co.cask.http.HttpHandler} for handling batches of operations queued by a {@link RemoteOpsClient}.
+ * Each operation is executed by the handler of the same operation when called on its own.
+ * Only idempotent operations are supported, since the client retries the whole batch if the request fails.
+ */
+@Path(AbstractRemoteSystemOpsHandler.VERSION + "/execute")
+public class RemoteBatchOperationsHandler extends AbstractRemoteSystemOpsHandler {
+
+  private static final Gson GSON = new Gson();
+  private static final Type METHOD_CALL_LIST_TYPE = new TypeToken<List<MethodCall>>() { }.getType();
+
+  private final RemoteLineageWriterHandler lineageWriterHandler;
+  private final RemoteUsageRegistryHandler usageRegistryHandler;
+  private final RemoteRuntimeStoreHandler runtimeStoreHandler;
+
+  @Inject
+  RemoteBatchOperationsHandler(RemoteLineageWriterHandler lineageWriterHandler,
+                               RemoteUsageRegistryHandler usageRegistryHandler,
+                               RemoteRuntimeStoreHandler runtimeStoreHandler) {
+    this.lineageWriterHandler = lineageWriterHandler;
+    this.usageRegistryHandler = usageRegistryHandler;
+    this.runtimeStoreHandler = runtimeStoreHandler;
+  }
+
+  @POST
+  @Path("/batch")
+  public void batch(HttpRequest request, HttpResponder responder) throws Exception {
+    List<MethodCall> calls = GSON.fromJson(request.getContent().toString(Charsets.UTF_8), METHOD_CALL_LIST_TYPE);
+    for (MethodCall call : calls) {
+      execute(call.getMethod(), call.getArguments().iterator());
+    }
+    responder.sendStatus(HttpResponseStatus.OK);
+  }
+
+  private void execute(String method, Iterator<MethodArgument> arguments) throws Exception {
+    switch (method) {
+      case "addDatasetAccess":
+        lineageWriterHandler.addDatasetAccess(arguments);
+        break;
+      case "addStreamAccess":
+        lineageWriterHandler.addStreamAccess(arguments);
+        break;
+      case "registerDataset":
+        usageRegistryHandler.registerDataset(arguments);
+        break;
+      case "registerStream":
+        usageRegistryHandler.registerStream(arguments);
+        break;
+      case "updateWorkflowToken":
+        runtimeStoreHandler.updateWorkflowToken(arguments);
+        break;
+      case "addWorkflowNodeState":
+        runtimeStoreHandler.addWorkflowNodeState(arguments);
+        break;
+      default:
+        throw new BadRequestException("Operation " + method + " is not supported in a batch.");
+    }
+  }
+}
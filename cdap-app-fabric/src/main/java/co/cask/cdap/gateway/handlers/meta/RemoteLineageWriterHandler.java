@@ -45,28 +45,30 @@ public class RemoteLineageWriterHandler extends AbstractRemoteSystemOpsHandler {
   @POST
   @Path("/addDatasetAccess")
   public void addDatasetAccess(HttpRequest request, HttpResponder responder) throws Exception {
-    Iterator<MethodArgument> arguments = parseArguments(request);
+    addDatasetAccess(parseArguments(request));
+    responder.sendStatus(HttpResponseStatus.OK);
+  }
 
+  void addDatasetAccess(Iterator<MethodArgument> arguments) throws Exception {
     Id.Run run = deserializeNext(arguments);
     Id.DatasetInstance datasetInstance = deserializeNext(arguments);
     AccessType accessType = deserializeNext(arguments);
     Id.NamespacedId component = deserializeNext(arguments);
     lineageWriter.addAccess(run, datasetInstance, accessType, component);
-
-    responder.sendStatus(HttpResponseStatus.OK);
   }
 
   @POST
   @Path("/addStreamAccess")
   public void addStreamAccess(HttpRequest request, HttpResponder responder) throws Exception {
-    Iterator<MethodArgument> arguments = parseArguments(request);
+    addStreamAccess(parseArguments(request));
+    responder.sendStatus(HttpResponseStatus.OK);
+  }
 
+  void addStreamAccess(Iterator<MethodArgument> arguments) throws Exception {
     Id.Run run = deserializeNext(arguments);
     Id.Stream stream = deserializeNext(arguments);
     AccessType accessType = deserializeNext(arguments);
     Id.NamespacedId component = deserializeNext(arguments);
     lineageWriter.addAccess(run, stream, accessType, component);
-
-    responder.sendStatus(HttpResponseStatus.OK);
   }
 }
@@ -121,24 +121,26 @@ public class RemoteRuntimeStoreHandler extends AbstractRemoteSystemOpsHandler {
   @POST
   @Path("/updateWorkflowToken")
   public void updateWorkflowToken(HttpRequest request, HttpResponder responder) throws Exception {
-    Iterator<MethodArgument> arguments = parseArguments(request);
+    updateWorkflowToken(parseArguments(request));
+    responder.sendStatus(HttpResponseStatus.OK);
+  }
 
+  void updateWorkflowToken(Iterator<MethodArgument> arguments) throws Exception {
     ProgramRunId workflowRunId = deserializeNext(arguments);
     WorkflowToken token = deserializeNext(arguments);
     store.updateWorkflowToken(workflowRunId, token);
-
-    responder.sendStatus(HttpResponseStatus.OK);
   }
 
   @POST
   @Path("/addWorkflowNodeState")
   public void addWorkflowNodeState(HttpRequest request, HttpResponder responder) throws Exception {
-    Iterator<MethodArgument> arguments = parseArguments(request);
+    addWorkflowNodeState(parseArguments(request));
+    responder.sendStatus(HttpResponseStatus.OK);
+  }
 
+  void addWorkflowNodeState(Iterator<MethodArgument> arguments) throws Exception {
     ProgramRunId workflowRunId = deserializeNext(arguments);
     WorkflowNodeStateDetail nodeStateDetail = deserializeNext(arguments);
     store.addWorkflowNodeState(workflowRunId, nodeStateDetail);
-
-    responder.sendStatus(HttpResponseStatus.OK);
   }
 }
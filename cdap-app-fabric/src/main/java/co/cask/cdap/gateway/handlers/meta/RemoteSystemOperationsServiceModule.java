@@ -38,6 +38,7 @@ public class RemoteSystemOperationsServiceModule extends PrivateModule {
       binder(), HttpHandler.class, Names.named(Constants.RemoteSystemOpService.HANDLERS_NAME));
 
     CommonHandlers.add(handlerBinder);
+    handlerBinder.addBinding().to(RemoteBatchOperationsHandler.class);
     handlerBinder.addBinding().to(RemoteLineageWriterHandler.class);
     handlerBinder.addBinding().to(RemotePrivilegeFetcherHandler.class);
     handlerBinder.addBinding().to(RemoteRuntimeStoreHandler.class);
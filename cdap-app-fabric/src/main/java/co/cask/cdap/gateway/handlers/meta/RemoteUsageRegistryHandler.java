@@ -44,24 +44,26 @@ public class RemoteUsageRegistryHandler extends AbstractRemoteSystemOpsHandler {
   @POST
   @Path("/registerDataset")
   public void registerDataset(HttpRequest request, HttpResponder responder) throws Exception {
-    Iterator<MethodArgument> arguments = parseArguments(request);
+    registerDataset(parseArguments(request));
+    responder.sendStatus(HttpResponseStatus.OK);
+  }
 
+  void registerDataset(Iterator<MethodArgument> arguments) throws Exception {
     Id.Program programId = deserializeNext(arguments);
     Id.DatasetInstance datasetInstance = deserializeNext(arguments);
     usageRegistry.register(programId, datasetInstance);
-
-    responder.sendStatus(HttpResponseStatus.OK);
   }
 
   @POST
   @Path("/registerStream")
   public void registerStream(HttpRequest request, HttpResponder responder) throws Exception {
-    Iterator<MethodArgument> arguments = parseArguments(request);
+    registerStream(parseArguments(request));
+    responder.sendStatus(HttpResponseStatus.OK);
+  }
 
+  void registerStream(Iterator<MethodArgument> arguments) throws Exception {
     Id.Program programId = deserializeNext(arguments);
     Id.Stream streamId = deserializeNext(arguments);
     usageRegistry.register(programId, streamId);
-
-    responder.sendStatus(HttpResponseStatus.OK);
   }
 }
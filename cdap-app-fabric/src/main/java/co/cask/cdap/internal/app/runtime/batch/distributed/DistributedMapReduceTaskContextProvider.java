@@ -19,6 +19,7 @@ package co.cask.cdap.internal.app.runtime.batch.distributed;
 import co.cask.cdap.api.metrics.MetricsCollectionService;
 import co.cask.cdap.app.guice.DistributedProgramRunnableModule;
 import co.cask.cdap.common.conf.CConfiguration;
+import co.cask.cdap.common.internal.remote.RemoteOpsQueue;
 import co.cask.cdap.internal.app.runtime.batch.MapReduceClassLoader;
 import co.cask.cdap.internal.app.runtime.batch.MapReduceTaskContextProvider;
 import co.cask.cdap.logging.appender.LogAppenderInitializer;
@@ -43,6 +44,7 @@ public final class DistributedMapReduceTaskContextProvider extends MapReduceTask
   private final ZKClientService zkClientService;
   private final KafkaClientService kafkaClientService;
   private final MetricsCollectionService metricsCollectionService;
+  private final RemoteOpsQueue remoteOpsQueue;
   private final LogAppenderInitializer logAppenderInitializer;
 
   public DistributedMapReduceTaskContextProvider(CConfiguration cConf, Configuration hConf) {
@@ -53,6 +55,7 @@ public final class DistributedMapReduceTaskContextProvider extends MapReduceTask
     this.zkClientService = injector.getInstance(ZKClientService.class);
     this.kafkaClientService = injector.getInstance(KafkaClientService.class);
     this.metricsCollectionService = injector.getInstance(MetricsCollectionService.class);
+    this.remoteOpsQueue = injector.getInstance(RemoteOpsQueue.class);
     this.logAppenderInitializer = injector.getInstance(LogAppenderInitializer.class);
   }
 
@@ -62,12 +65,15 @@ public final class DistributedMapReduceTaskContextProvider extends MapReduceTask
     try {
       List<ListenableFuture<State>> startFutures = Services.chainStart(zkClientService,
                                                                        kafkaClientService,
-                                                                       metricsCollectionService).get();
+                                                                       metricsCollectionService,
+                                                                       remoteOpsQueue).get();
       // All services should be started
       for (ListenableFuture<State> future : startFutures) {
         Preconditions.checkState(future.get() == State.RUNNING,
-                                 "Failed to start services: zkClient %s, kafkaClient %s, metricsCollection %s",
-                                 zkClientService.state(), kafkaClientService.state(), metricsCollectionService.state());
+                                 "Failed to start services: zkClient %s, kafkaClient %s, metricsCollection %s, " +
+                                   "remoteOpsQueue %s",
+                                 zkClientService.state(), kafkaClientService.state(), metricsCollectionService.state(),
+                                 remoteOpsQueue.state());
       }
       logAppenderInitializer.initialize();
     } catch (Exception e) {
@@ -91,7 +97,7 @@ public final class DistributedMapReduceTaskContextProvider extends MapReduceTask
       failure = e;
     }
     try {
-      Services.chainStop(metricsCollectionService, kafkaClientService, zkClientService).get();
+      Services.chainStop(remoteOpsQueue, metricsCollectionService, kafkaClientService, zkClientService).get();
     } catch (Exception e) {
       if (failure != null) {
         failure.addSuppressed(e);
@@ -28,6 +28,7 @@ import co.cask.cdap.app.runtime.ProgramOptions;
 import co.cask.cdap.app.runtime.ProgramResourceReporter;
 import co.cask.cdap.app.runtime.ProgramRunner;
 import co.cask.cdap.common.conf.CConfiguration;
+import co.cask.cdap.common.internal.remote.RemoteOpsQueue;
 import co.cask.cdap.common.io.Locations;
 import co.cask.cdap.common.lang.jar.BundleJarUtil;
 import co.cask.cdap.data.stream.StreamCoordinatorClient;
@@ -112,6 +113,7 @@ public abstract class AbstractProgramTwillRunnable<T extends ProgramRunner> impl
   private KafkaClientService kafkaClientService;
   private MetricsCollectionService metricsCollectionService;
   private StreamCoordinatorClient streamCoordinatorClient;
+  private RemoteOpsQueue remoteOpsQueue;
   private ProgramResourceReporter resourceReporter;
   private LogAppenderInitializer logAppenderInitializer;
   private CountDownLatch runlatch;
@@ -167,6 +169,7 @@ public abstract class AbstractProgramTwillRunnable<T extends ProgramRunner> impl
       kafkaClientService = injector.getInstance(KafkaClientService.class);
       metricsCollectionService = injector.getInstance(MetricsCollectionService.class);
       streamCoordinatorClient = injector.getInstance(StreamCoordinatorClient.class);
+      remoteOpsQueue = injector.getInstance(RemoteOpsQueue.class);
 
       // Initialize log appender
       logAppenderInitializer = injector.getInstance(LogAppenderInitializer.class);
@@ -264,8 +267,8 @@ public abstract class AbstractProgramTwillRunnable<T extends ProgramRunner> impl
   @Override
   public void run() {
     Futures.getUnchecked(
-      Services.chainStart(zkClientService, kafkaClientService,
-                          metricsCollectionService, streamCoordinatorClient, resourceReporter, authEnforcementService));
+      Services.chainStart(zkClientService, kafkaClientService, metricsCollectionService, streamCoordinatorClient,
+                          remoteOpsQueue, resourceReporter, authEnforcementService));
 
     LOG.info("Starting runnable: {}", name);
     controller = programRunner.run(program, programOpts);
@@ -331,7 +334,7 @@ public abstract class AbstractProgramTwillRunnable<T extends ProgramRunner> impl
       Closeables.closeQuietly(program);
     }
     Futures.getUnchecked(
-      Services.chainStop(authEnforcementService, resourceReporter, streamCoordinatorClient,
+      Services.chainStop(authEnforcementService, resourceReporter, remoteOpsQueue, streamCoordinatorClient,
                          metricsCollectionService, kafkaClientService, zkClientService));
     LOG.info("Runnable stopped: {}", name);
   }
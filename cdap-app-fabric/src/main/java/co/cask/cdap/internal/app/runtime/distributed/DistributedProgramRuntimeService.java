@@ -59,6 +59,7 @@ import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
 import com.google.common.collect.Table;
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
@@ -112,6 +113,9 @@ public final class DistributedProgramRuntimeService extends AbstractProgramRunti
   private final StreamAdmin streamAdmin;
   private final TransactionExecutorFactory txExecutorFactory;
   private final ProgramResourceReporter resourceReporter;
+  // Guards the creation of RuntimeInfo for live Twill applications that are not cached yet, so that
+  // a run is only resolved once, without blocking lookups of cached runs
+  private final Object liveRunsLock = new Object();
 
   @Inject
   DistributedProgramRuntimeService(ProgramRunnerFactory programRunnerFactory, TwillRunner twillRunner,
@@ -138,23 +142,35 @@ public final class DistributedProgramRuntimeService extends AbstractProgramRunti
     return null;
   }
 
-  // TODO SAGAR better data structure to support this efficiently
-  private synchronized boolean isTwillRunIdCached(RunId twillRunId) {
+  /**
+   * Returns the Twill RunIds of all cached {@link RuntimeInfo}.
+   */
+  private Set<RunId> getCachedTwillRunIds() {
+    Set<RunId> twillRunIds = Sets.newHashSet();
     for (RuntimeInfo runtimeInfo : getRuntimeInfos()) {
-      if (twillRunId.equals(runtimeInfo.getTwillRunId())) {
-        return true;
+      if (runtimeInfo.getTwillRunId() != null) {
+        twillRunIds.add(runtimeInfo.getTwillRunId());
       }
     }
-    return false;
+    return twillRunIds;
   }
 
   @Override
-  public synchronized RuntimeInfo lookup(Id.Program programId, final RunId runId) {
+  public RuntimeInfo lookup(Id.Program programId, final RunId runId) {
     RuntimeInfo runtimeInfo = super.lookup(programId, runId);
     if (runtimeInfo != null) {
       return runtimeInfo;
     }
 
+    synchronized (liveRunsLock) {
+      // Check again, the run may have been resolved by another thread
+      runtimeInfo = super.lookup(programId, runId);
+      return runtimeInfo == null ? lookupLive(programId, runId) : runtimeInfo;
+    }
+  }
+
+  @Nullable
+  private RuntimeInfo lookupLive(Id.Program programId, RunId runId) {
     // Goes through all live application and fill the twillProgramInfo table
     for (TwillRunner.LiveInfo liveInfo : twillRunner.lookupLive()) {
       String appName = liveInfo.getApplicationName();
@@ -185,7 +201,7 @@ public final class DistributedProgramRuntimeService extends AbstractProgramRunti
         if (!twillRunId.equals(twillRunIdFromRecord)) {
           continue;
         }
-        runtimeInfo = createRuntimeInfo(programId, controller, runId);
+        RuntimeInfo runtimeInfo = createRuntimeInfo(programId, controller, runId);
         if (runtimeInfo != null) {
           updateRuntimeInfo(programId.getType(), runId, runtimeInfo);
         } else {
@@ -198,9 +214,10 @@ public final class DistributedProgramRuntimeService extends AbstractProgramRunti
   }
 
   @Override
-  public synchronized Map<RunId, RuntimeInfo> list(ProgramType type) {
+  public Map<RunId, RuntimeInfo> list(ProgramType type) {
     Map<RunId, RuntimeInfo> result = Maps.newHashMap();
     result.putAll(super.list(type));
+    Set<RunId> cachedTwillRunIds = getCachedTwillRunIds();
 
     // Table holds the Twill RunId and TwillController associated with the program matching the input type
     Table<Id.Program, RunId, TwillController> twillProgramInfo = HashBasedTable.create();
@@ -218,7 +235,7 @@ public final class DistributedProgramRuntimeService extends AbstractProgramRunti
 
       for (TwillController controller : liveInfo.getControllers()) {
         RunId twillRunId = controller.getRunId();
-        if (isTwillRunIdCached(twillRunId)) {
+        if (cachedTwillRunIds.contains(twillRunId)) {
           continue;
         }
 
@@ -231,6 +248,27 @@ public final class DistributedProgramRuntimeService extends AbstractProgramRunti
       return ImmutableMap.copyOf(result);
     }
 
+    synchronized (liveRunsLock) {
+      // Runs resolved by other threads in the meantime are already in the cache
+      cachedTwillRunIds = getCachedTwillRunIds();
+      for (Table.Cell<Id.Program, RunId, TwillController> cell : Lists.newArrayList(twillProgramInfo.cellSet())) {
+        if (cachedTwillRunIds.contains(cell.getColumnKey())) {
+          twillProgramInfo.remove(cell.getRowKey(), cell.getColumnKey());
+        }
+      }
+      result.putAll(super.list(type));
+      if (!twillProgramInfo.isEmpty()) {
+        resolveLiveRuns(type, twillProgramInfo, result);
+      }
+    }
+    return ImmutableMap.copyOf(result);
+  }
+
+  /**
+   * Creates and caches the {@link RuntimeInfo} for the given live Twill applications that are not cached yet.
+   */
+  private void resolveLiveRuns(ProgramType type, Table<Id.Program, RunId, TwillController> twillProgramInfo,
+                               Map<RunId, RuntimeInfo> result) {
     final Set<RunId> twillRunIds = twillProgramInfo.columnKeySet();
     List<RunRecordMeta> activeRunRecords = store.getRuns(ProgramRunStatus.RUNNING, new Predicate<RunRecordMeta>() {
       @Override
@@ -257,8 +295,6 @@ public final class DistributedProgramRuntimeService extends AbstractProgramRunti
         LOG.warn("Unable to find program {} {}", type, entry.getKey());
       }
     }
-
-    return ImmutableMap.copyOf(result);
   }
 
   @Nullable
@@ -17,27 +17,21 @@
 package co.cask.cdap.internal.app.runtime.schedule;
 
 import co.cask.cdap.api.schedule.Schedule;
-import co.cask.cdap.app.store.Store;
-import co.cask.cdap.internal.app.runtime.ProgramOptionConstants;
-import co.cask.cdap.internal.app.store.RunRecordMeta;
+import co.cask.cdap.internal.app.services.ActiveRunRegistry;
 import co.cask.cdap.proto.Id;
-import co.cask.cdap.proto.ProgramRunStatus;
-import com.google.common.base.Predicate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Map;
-
 /**
  * Checks whether all schedule run constraints are met for the schedule to run.
  */
 class RunConstraintsChecker {
   private static final Logger LOG = LoggerFactory.getLogger(RunConstraintsChecker.class);
 
-  private final Store store;
+  private final ActiveRunRegistry activeRuns;
 
-  RunConstraintsChecker(Store store) {
-    this.store = store;
+  RunConstraintsChecker(ActiveRunRegistry activeRuns) {
+    this.activeRuns = activeRuns;
   }
 
   /**
@@ -51,22 +45,11 @@ class RunConstraintsChecker {
     Integer maxRuns = schedule.getRunConstraints().getMaxConcurrentRuns();
     if (maxRuns != null) {
       String scheduleName = schedule.getName();
-      Predicate<RunRecordMeta> scheduleFilter = getScheduleFilter(scheduleName);
       try {
-        int numRunning = store.getRuns(programId, ProgramRunStatus.RUNNING, 0, Long.MAX_VALUE, maxRuns,
-                                       scheduleFilter).size();
-        if (numRunning >= maxRuns) {
-          LOG.info("Skipping run of program {} from schedule {} because there are at least {} running runs.",
-                   programId, scheduleName, maxRuns);
-          return false;
-        }
-
-        int numSuspended = store.getRuns(programId, ProgramRunStatus.SUSPENDED, 0, Long.MAX_VALUE, maxRuns,
-                                         scheduleFilter).size();
-        if (numRunning + numSuspended >= maxRuns) {
-          LOG.info("Skipping run of program {} from schedule {} because there are " +
-                   "{} running runs and at least {} suspended runs.",
-                   programId, scheduleName, numRunning, numSuspended);
+        int numActive = activeRuns.getActiveRunCount(programId.toEntityId(), scheduleName);
+        if (numActive >= maxRuns) {
+          LOG.info("Skipping run of program {} from schedule {} because there are {} running or suspended runs.",
+                   programId, scheduleName, numActive);
           return false;
         }
       } catch (Exception e) {
@@ -78,18 +61,4 @@ class RunConstraintsChecker {
     }
     return true;
   }
-
-  private Predicate<RunRecordMeta> getScheduleFilter(final String scheduleName) {
-    return new Predicate<RunRecordMeta>() {
-      @Override
-      public boolean apply(RunRecordMeta input) {
-        Map<String, String> systemArgs = input.getSystemArgs();
-        if (systemArgs != null) {
-          String runScheduleName = systemArgs.get(ProgramOptionConstants.SCHEDULE_NAME);
-          return scheduleName.equals(runScheduleName);
-        }
-        return false;
-      }
-    };
-  }
 }
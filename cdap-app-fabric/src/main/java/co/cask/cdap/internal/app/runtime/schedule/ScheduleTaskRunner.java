@@ -59,7 +59,7 @@ public final class ScheduleTaskRunner {
     this.lifecycleService = lifecycleService;
     this.propertiesResolver = propertiesResolver;
     this.executorService = taskExecutor;
-    this.requirementsChecker = new RunConstraintsChecker(store);
+    this.requirementsChecker = new RunConstraintsChecker(lifecycleService.getActiveRunRegistry());
   }
 
   /**
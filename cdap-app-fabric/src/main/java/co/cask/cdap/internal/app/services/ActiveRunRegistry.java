@@ -0,0 +1,296 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.internal.app.services;
+
+import co.cask.cdap.app.store.Store;
+import co.cask.cdap.internal.app.runtime.ProgramOptionConstants;
+import co.cask.cdap.internal.app.store.RunRecordMeta;
+import co.cask.cdap.proto.ProgramRunStatus;
+import co.cask.cdap.proto.ProgramType;
+import co.cask.cdap.proto.id.ApplicationId;
+import co.cask.cdap.proto.id.ProgramId;
+import co.cask.cdap.proto.id.ProgramRunId;
+import com.google.common.base.Objects;
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Multiset;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
+
+/**
+ * An in-memory registry of the active runs of programs, that is, the runs that are either running or suspended.
+ * It is updated as the runs started by the {@link ProgramLifecycleService} change state, and answers questions
+ * such as how many runs a schedule has active without scanning the run records in the {@link Store}.
+ * <p>
+ * The registry can be rebuilt from the run records in the {@link Store} at any time. This is done lazily on first
+ * use and periodically afterwards, to pick up runs whose state is recorded elsewhere, such as programs started by a
+ * workflow in a distributed deployment. Updates that happen while a rebuild scans the store take precedence over
+ * the result of the scan, and a run that was added but not seen in the store yet is only removed when it finishes,
+ * since its run record is written asynchronously.
+ * </p>
+ */
+public final class ActiveRunRegistry {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ActiveRunRegistry.class);
+
+  private final Store store;
+  private final Object rebuildLock = new Object();
+
+  // All fields below are guarded by this
+  private final Map<ProgramRunId, ActiveRun> runs = new HashMap<>();
+  // number of active runs per program and schedule
+  private final Multiset<ScheduleKey> scheduledRuns = HashMultiset.create();
+  // number of runs in RUNNING state per program
+  private final Multiset<ProgramId> runningPrograms = HashMultiset.create();
+  // number of active workflow runs per application
+  private final Multiset<ApplicationId> activeWorkflows = HashMultiset.create();
+  // runs finished while a rebuild is scanning the store
+  private final Set<ProgramRunId> finishedRuns = new HashSet<>();
+  private long sequence;
+  private boolean rebuilding;
+
+  private volatile boolean loaded;
+
+  public ActiveRunRegistry(Store store) {
+    this.store = store;
+  }
+
+  /**
+   * Adds a run that just started.
+   *
+   * @param runId the id of the run
+   * @param scheduleName the name of the schedule that started the run, or {@code null} if not started by a schedule
+   */
+  public synchronized void addRun(ProgramRunId runId, @Nullable String scheduleName) {
+    ActiveRun existing = runs.get(runId);
+    if (existing != null) {
+      unindex(existing);
+    }
+    ActiveRun run = new ActiveRun(runId, scheduleName, ProgramRunStatus.RUNNING, ++sequence, false);
+    runs.put(runId, run);
+    index(run);
+  }
+
+  /**
+   * Updates the status of an active run, which is either {@link ProgramRunStatus#RUNNING} or
+   * {@link ProgramRunStatus#SUSPENDED}.
+   */
+  public synchronized void setStatus(ProgramRunId runId, ProgramRunStatus status) {
+    ActiveRun existing = runs.get(runId);
+    if (existing == null) {
+      return;
+    }
+    unindex(existing);
+    ActiveRun run = new ActiveRun(runId, existing.scheduleName, status, ++sequence, existing.recorded);
+    runs.put(runId, run);
+    index(run);
+  }
+
+  /**
+   * Removes a run that finished.
+   */
+  public synchronized void removeRun(ProgramRunId runId) {
+    ActiveRun run = runs.remove(runId);
+    if (run != null) {
+      unindex(run);
+    }
+    if (rebuilding) {
+      finishedRuns.add(runId);
+    }
+  }
+
+  /**
+   * Returns the number of active runs of the given program that were started by the given schedule.
+   */
+  public int getActiveRunCount(ProgramId programId, String scheduleName) {
+    ensureLoaded();
+    synchronized (this) {
+      return scheduledRuns.count(new ScheduleKey(programId, scheduleName));
+    }
+  }
+
+  /**
+   * Returns whether the given program has a run in {@link ProgramRunStatus#RUNNING} state.
+   */
+  public boolean isRunning(ProgramId programId) {
+    ensureLoaded();
+    synchronized (this) {
+      return runningPrograms.contains(programId);
+    }
+  }
+
+  /**
+   * Returns whether any workflow of the given application has an active run.
+   */
+  public boolean hasActiveWorkflows(ApplicationId applicationId) {
+    ensureLoaded();
+    synchronized (this) {
+      return activeWorkflows.contains(applicationId);
+    }
+  }
+
+  /**
+   * Rebuilds the registry from the run records in the {@link Store}.
+   */
+  public void rebuild() {
+    synchronized (rebuildLock) {
+      long startSequence;
+      synchronized (this) {
+        startSequence = sequence;
+        rebuilding = true;
+      }
+      try {
+        Map<ProgramRunId, RunRecordMeta> records = store.getActiveRuns();
+        synchronized (this) {
+          // Remove runs that are no longer active in the store, unless they were updated after the scan started
+          Iterator<ActiveRun> iterator = runs.values().iterator();
+          while (iterator.hasNext()) {
+            ActiveRun run = iterator.next();
+            if (run.recorded && run.sequence <= startSequence && !records.containsKey(run.runId)) {
+              unindex(run);
+              iterator.remove();
+            }
+          }
+          for (Map.Entry<ProgramRunId, RunRecordMeta> entry : records.entrySet()) {
+            ProgramRunId runId = entry.getKey();
+            ActiveRun existing = runs.get(runId);
+            if (finishedRuns.contains(runId)) {
+              continue;
+            }
+            if (existing != null && existing.sequence > startSequence) {
+              runs.put(runId, new ActiveRun(runId, existing.scheduleName, existing.status, existing.sequence, true));
+              continue;
+            }
+            if (existing != null) {
+              unindex(existing);
+            }
+            ActiveRun run = new ActiveRun(runId, getScheduleName(entry.getValue()),
+                                          entry.getValue().getStatus(), startSequence, true);
+            runs.put(runId, run);
+            index(run);
+          }
+          loaded = true;
+          LOG.trace("Rebuilt active run registry with {} active runs.", runs.size());
+        }
+      } finally {
+        synchronized (this) {
+          finishedRuns.clear();
+          rebuilding = false;
+        }
+      }
+    }
+  }
+
+  private void ensureLoaded() {
+    if (!loaded) {
+      rebuild();
+    }
+  }
+
+  private void index(ActiveRun run) {
+    updateIndex(run, 1);
+  }
+
+  private void unindex(ActiveRun run) {
+    updateIndex(run, -1);
+  }
+
+  private void updateIndex(ActiveRun run, int delta) {
+    ProgramId programId = run.runId.getParent();
+    if (run.scheduleName != null) {
+      add(scheduledRuns, new ScheduleKey(programId, run.scheduleName), delta);
+    }
+    if (run.status == ProgramRunStatus.RUNNING) {
+      add(runningPrograms, programId, delta);
+    }
+    if (programId.getType() == ProgramType.WORKFLOW) {
+      add(activeWorkflows, programId.getParent(), delta);
+    }
+  }
+
+  private static <T> void add(Multiset<T> multiset, T element, int delta) {
+    if (delta > 0) {
+      multiset.add(element, delta);
+    } else {
+      multiset.remove(element, -delta);
+    }
+  }
+
+  @Nullable
+  private static String getScheduleName(RunRecordMeta record) {
+    Map<String, String> systemArgs = record.getSystemArgs();
+    return systemArgs == null ? null : systemArgs.get(ProgramOptionConstants.SCHEDULE_NAME);
+  }
+
+  /**
+   * State of an active run.
+   */
+  private static final class ActiveRun {
+    private final ProgramRunId runId;
+    private final String scheduleName;
+    private final ProgramRunStatus status;
+    // the sequence number of the last update of this run
+    private final long sequence;
+    // whether the run record of this run has been seen in the store
+    private final boolean recorded;
+
+    private ActiveRun(ProgramRunId runId, @Nullable String scheduleName,
+                      ProgramRunStatus status, long sequence, boolean recorded) {
+      this.runId = runId;
+      this.scheduleName = scheduleName;
+      this.status = status;
+      this.sequence = sequence;
+      this.recorded = recorded;
+    }
+  }
+
+  /**
+   * Key for the runs of a program started by a schedule.
+   */
+  private static final class ScheduleKey {
+    private final ProgramId programId;
+    private final String scheduleName;
+
+    private ScheduleKey(ProgramId programId, String scheduleName) {
+      this.programId = programId;
+      this.scheduleName = scheduleName;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      ScheduleKey other = (ScheduleKey) o;
+      return programId.equals(other.programId) && scheduleName.equals(other.scheduleName);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(programId, scheduleName);
+    }
+  }
+}
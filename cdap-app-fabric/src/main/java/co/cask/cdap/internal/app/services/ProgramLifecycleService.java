@@ -47,6 +47,7 @@ import co.cask.cdap.proto.ProgramRunStatus;
 import co.cask.cdap.proto.ProgramStatus;
 import co.cask.cdap.proto.ProgramType;
 import co.cask.cdap.proto.RunRecord;
+import co.cask.cdap.proto.id.ApplicationId;
 import co.cask.cdap.proto.id.Ids;
 import co.cask.cdap.proto.id.NamespaceId;
 import co.cask.cdap.proto.id.ProgramId;
@@ -58,11 +59,18 @@ import co.cask.cdap.security.spi.authorization.UnauthorizedException;
 import co.cask.cdap.store.NamespaceStore;
 import com.google.common.base.Predicate;
 import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.common.collect.Collections2;
+import com.google.common.collect.ConcurrentHashMultiset;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Multiset;
 import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.AbstractIdleService;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.inject.Inject;
@@ -78,10 +86,13 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import javax.annotation.Nullable;
 
 /**
@@ -105,6 +116,12 @@ public class ProgramLifecycleService extends AbstractIdleService {
   private final String appFabricDir;
   private final PreferencesStore preferencesStore;
   private final AuthorizerInstantiator authorizerInstantiator;
+  private final ActiveRunRegistry activeRuns;
+  private final ListeningExecutorService launchExecutor;
+  // Locks for starting and stopping programs, so that operations on different programs don't block each other
+  private final LoadingCache<ProgramId, Lock> programLocks;
+  // Programs with launches that are queued or in progress
+  private final Multiset<ProgramId> pendingLaunches;
 
   @Inject
   ProgramLifecycleService(Store store, NamespaceStore nsStore, ProgramRuntimeService runtimeService,
@@ -121,6 +138,17 @@ public class ProgramLifecycleService extends AbstractIdleService {
     this.cConf = cConf;
     this.preferencesStore = preferencesStore;
     this.authorizerInstantiator = authorizerInstantiator;
+    this.activeRuns = new ActiveRunRegistry(store);
+    this.launchExecutor = MoreExecutors.listeningDecorator(
+      Executors.newFixedThreadPool(cConf.getInt(Constants.AppFabric.PROGRAM_LAUNCH_THREADS),
+                                   Threads.createDaemonThreadFactory("program-launcher-%d")));
+    this.programLocks = CacheBuilder.newBuilder().weakValues().build(new CacheLoader<ProgramId, Lock>() {
+      @Override
+      public Lock load(ProgramId programId) throws Exception {
+        return new ReentrantLock();
+      }
+    });
+    this.pendingLaunches = ConcurrentHashMultiset.create();
   }
 
   @Override
@@ -140,7 +168,16 @@ public class ProgramLifecycleService extends AbstractIdleService {
   protected void shutDown() throws Exception {
     LOG.info("Shutting down ProgramLifecycleService");
 
+    // Let launches that are already issued complete instead of interrupting them half way
+    launchExecutor.shutdown();
     scheduledExecutorService.shutdown();
+    try {
+      if (!launchExecutor.awaitTermination(30, TimeUnit.SECONDS)) {
+        LOG.warn("Timed out waiting for pending program launches to complete");
+      }
+    } catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+    }
     try {
       if (!scheduledExecutorService.awaitTermination(5, TimeUnit.SECONDS)) {
         scheduledExecutorService.shutdownNow();
@@ -150,6 +187,13 @@ public class ProgramLifecycleService extends AbstractIdleService {
     }
   }
 
+  /**
+   * Returns the {@link ActiveRunRegistry} that tracks the active runs of programs.
+   */
+  public ActiveRunRegistry getActiveRunRegistry() {
+    return activeRuns;
+  }
+
   /**
    * Returns the program status.
    * @param programId the id of the program for which the status call is made
@@ -162,19 +206,77 @@ public class ProgramLifecycleService extends AbstractIdleService {
     if (appSpec == null) {
       throw new NotFoundException(Ids.namespace(programId.getNamespace()).app(programId.getApplication()).toId());
     }
+    ProgramStatus status = getProgramStatus(programId, appSpec, findRuntimeInfo(programId));
+    if (status == null) {
+      // program doesn't exist
+      throw new NotFoundException(programId);
+    }
+    return status;
+  }
 
-    ProgramRuntimeService.RuntimeInfo runtimeInfo = findRuntimeInfo(programId);
+  /**
+   * Returns the statuses of the given programs. The specification of each application is read from the store once,
+   * and the running programs are listed once, instead of once for every program.
+   *
+   * @param programIds the ids of the programs for which the status call is made
+   * @return a map from program id to the status of the program. Programs that don't exist are not in the map.
+   */
+  public Map<ProgramId, ProgramStatus> getProgramStatuses(Collection<ProgramId> programIds) {
+    Set<ProgramType> types = EnumSet.noneOf(ProgramType.class);
+    Map<ApplicationId, ApplicationSpecification> appSpecs = new HashMap<>();
+    for (ProgramId programId : programIds) {
+      types.add(programId.getType());
+      ApplicationId appId = programId.getParent();
+      if (!appSpecs.containsKey(appId)) {
+        // The specification is null if the application doesn't exist
+        appSpecs.put(appId, store.getApplication(appId.toId()));
+      }
+    }
+
+    Map<ProgramId, RuntimeInfo> runtimeInfos = new HashMap<>();
+    if (!types.isEmpty()) {
+      for (RuntimeInfo runtimeInfo : runtimeService.listAll(types.toArray(new ProgramType[types.size()]))) {
+        ProgramId programId = runtimeInfo.getProgramId().toEntityId();
+        if (!runtimeInfos.containsKey(programId)) {
+          runtimeInfos.put(programId, runtimeInfo);
+        }
+      }
+    }
 
+    Map<ProgramId, ProgramStatus> statuses = new HashMap<>();
+    for (ProgramId programId : programIds) {
+      ApplicationSpecification appSpec = appSpecs.get(programId.getParent());
+      if (appSpec == null) {
+        continue;
+      }
+      ProgramStatus status = getProgramStatus(programId, appSpec, runtimeInfos.get(programId));
+      if (status != null) {
+        statuses.put(programId, status);
+      }
+    }
+    return statuses;
+  }
+
+  /**
+   * Returns the status of a program of the given application, or {@code null} if the program doesn't exist.
+   */
+  @Nullable
+  private ProgramStatus getProgramStatus(ProgramId programId, ApplicationSpecification appSpec,
+                                         @Nullable RuntimeInfo runtimeInfo) {
     if (runtimeInfo == null) {
       if (programId.getType() != ProgramType.WEBAPP) {
         //Runtime info not found. Check to see if the program exists.
-        ProgramSpecification spec = getProgramSpecification(programId);
+        ProgramSpecification spec = getProgramSpecification(programId, appSpec);
         if (spec == null) {
           // program doesn't exist
-          throw new NotFoundException(programId);
+          return null;
+        }
+        if (pendingLaunches.contains(programId)) {
+          // A launch of the program is queued or in progress
+          return ProgramStatus.RUNNING;
         }
         if ((programId.getType() == ProgramType.MAPREDUCE || programId.getType() == ProgramType.SPARK) &&
-          !store.getRuns(programId.toId(), ProgramRunStatus.RUNNING, 0, Long.MAX_VALUE, 1).isEmpty()) {
+          isRunningInWorkflow(programId)) {
           // MapReduce program exists and running as a part of Workflow
           return ProgramStatus.RUNNING;
         }
@@ -198,7 +300,24 @@ public class ProgramLifecycleService extends AbstractIdleService {
     if (appSpec == null) {
       return null;
     }
+    return getProgramSpecification(programId, appSpec);
+  }
+
+  /**
+   * Returns whether a MapReduce or Spark program is running as part of a workflow. Such runs are only recorded
+   * in the store, and in a distributed deployment they are not recorded by this process. Hence the store is only
+   * consulted if a workflow of the application is active.
+   */
+  private boolean isRunningInWorkflow(ProgramId programId) {
+    if (activeRuns.isRunning(programId)) {
+      return true;
+    }
+    return activeRuns.hasActiveWorkflows(programId.getParent()) &&
+      !store.getRuns(programId.toId(), ProgramRunStatus.RUNNING, 0, Long.MAX_VALUE, 1).isEmpty();
+  }
 
+  @Nullable
+  private ProgramSpecification getProgramSpecification(ProgramId programId, ApplicationSpecification appSpec) {
     String programName = programId.getProgram();
     ProgramType type = programId.getType();
     ProgramSpecification programSpec;
@@ -234,20 +353,76 @@ public class ProgramLifecycleService extends AbstractIdleService {
    *                               a user requires {@link Action#EXECUTE} on the program
    * @throws Exception if there were other exceptions checking if the current user is authorized to start the program
    */
-  public synchronized void start(ProgramId programId, Map<String, String> overrides, boolean debug) throws Exception {
-    Map<String, String> sysArgs = propertiesResolver.getSystemProperties(programId.toId());
-    Map<String, String> userArgs = propertiesResolver.getUserProperties(programId.toId());
+  public void start(ProgramId programId, Map<String, String> overrides, boolean debug) throws Exception {
+    try {
+      issueStart(programId, overrides, debug).get();
+    } catch (ExecutionException e) {
+      Throwables.propagateIfPossible(e.getCause(), Exception.class);
+      throw Throwables.propagate(e.getCause());
+    }
+  }
+
+  /**
+   * Issues a start of a Program with the specified argument overrides and returns a {@link ListenableFuture} that
+   * completes once the program is launched. Programs are launched by a bounded pool of launcher threads, hence
+   * launching one program doesn't block launching others, and launches beyond the pool size are queued. While its
+   * launch is queued or in progress, a program is reported as running.
+   *
+   * @param programId the {@link ProgramId} to start
+   * @param overrides the arguments to override in the program's configured user arguments before starting
+   * @param debug {@code true} if the program is to be started in debug mode, {@code false} otherwise
+   * @return a {@link ListenableFuture} with the {@link RuntimeInfo} of the launched program
+   * @throws ConflictException if the specified program is already running, and if concurrent runs are not allowed
+   * @throws NotFoundException if the specified program or the app it belongs to is not found in the specified namespace
+   * @throws UnauthorizedException if the logged in user is not authorized to start the program. To start a program,
+   *                               a user requires {@link Action#EXECUTE} on the program
+   * @throws Exception if there were other exceptions checking if the current user is authorized to start the program
+   */
+  public ListenableFuture<RuntimeInfo> issueStart(final ProgramId programId, @Nullable Map<String, String> overrides,
+                                                  final boolean debug) throws Exception {
+    authorizerInstantiator.get().enforce(programId, SecurityRequestContext.toPrincipal(), Action.EXECUTE);
+    final Map<String, String> sysArgs = propertiesResolver.getSystemProperties(programId.toId());
+    final Map<String, String> userArgs = propertiesResolver.getUserProperties(programId.toId());
     if (overrides != null) {
       userArgs.putAll(overrides);
     }
 
-    if (isRunning(programId) && !isConcurrentRunsAllowed(programId.getType())) {
-      throw new ConflictException(String.format("Program %s is already running", programId));
+    Lock lock = programLocks.getUnchecked(programId);
+    lock.lock();
+    try {
+      if (isRunning(programId) && !isConcurrentRunsAllowed(programId.getType())) {
+        throw new ConflictException(String.format("Program %s is already running", programId));
+      }
+      pendingLaunches.add(programId);
+    } finally {
+      lock.unlock();
     }
 
-    ProgramRuntimeService.RuntimeInfo runtimeInfo = start(programId, sysArgs, userArgs, debug);
-    if (runtimeInfo == null) {
-      throw new IOException(String.format("Failed to start program %s", programId));
+    // The launcher threads are shared, hence the user of the request has to be set explicitly
+    final String userId = SecurityRequestContext.getUserId();
+    final String userIP = SecurityRequestContext.getUserIP();
+    try {
+      return launchExecutor.submit(new Callable<RuntimeInfo>() {
+        @Override
+        public RuntimeInfo call() throws Exception {
+          SecurityRequestContext.setUserId(userId);
+          SecurityRequestContext.setUserIP(userIP);
+          try {
+            RuntimeInfo runtimeInfo = launch(programId, sysArgs, userArgs, debug);
+            if (runtimeInfo == null) {
+              throw new IOException(String.format("Failed to start program %s", programId));
+            }
+            return runtimeInfo;
+          } finally {
+            pendingLaunches.remove(programId);
+            SecurityRequestContext.setUserId(null);
+            SecurityRequestContext.setUserIP(null);
+          }
+        }
+      });
+    } catch (RuntimeException e) {
+      pendingLaunches.remove(programId);
+      throw e;
     }
   }
 
@@ -268,6 +443,15 @@ public class ProgramLifecycleService extends AbstractIdleService {
   public ProgramRuntimeService.RuntimeInfo start(final ProgramId programId, final Map<String, String> systemArgs,
                                                  final Map<String, String> userArgs, boolean debug) throws Exception {
     authorizerInstantiator.get().enforce(programId, SecurityRequestContext.toPrincipal(), Action.EXECUTE);
+    return launch(programId, systemArgs, userArgs, debug);
+  }
+
+  /**
+   * Launches a Program. Callers must have checked that the current user is authorized to start the program.
+   */
+  private ProgramRuntimeService.RuntimeInfo launch(final ProgramId programId, final Map<String, String> systemArgs,
+                                                   final Map<String, String> userArgs,
+                                                   boolean debug) throws Exception {
     ProgramDescriptor programDescriptor = store.loadProgram(programId.toId());
     BasicArguments systemArguments = new BasicArguments(systemArgs);
     BasicArguments userArguments = new BasicArguments(userArgs);
@@ -277,6 +461,9 @@ public class ProgramLifecycleService extends AbstractIdleService {
     final ProgramController controller = runtimeInfo.getController();
     final String runId = controller.getRunId().getId();
     final String twillRunId = runtimeInfo.getTwillRunId() == null ? null : runtimeInfo.getTwillRunId().getId();
+    final ProgramRunId programRunId = programId.run(runId);
+    // Register the run right away, so that a schedule firing again sees it even before its run record is written
+    activeRuns.addRun(programRunId, systemArgs.get(ProgramOptionConstants.SCHEDULE_NAME));
     if (programId.getType() != ProgramType.MAPREDUCE && programId.getType() != ProgramType.SPARK) {
       // MapReduce state recording is done by the MapReduceProgramRunner
       // TODO [JIRA: CDAP-2013] Same needs to be done for other programs as well
@@ -332,6 +519,42 @@ public class ProgramLifecycleService extends AbstractIdleService {
         }
       }, Threads.SAME_THREAD_EXECUTOR);
     }
+    // Added after the listener above, so that the registry is updated after the run record
+    controller.addListener(new AbstractListener() {
+      @Override
+      public void init(ProgramController.State state, @Nullable Throwable cause) {
+        if (state.isDone()) {
+          activeRuns.removeRun(programRunId);
+        } else if (state == ProgramController.State.SUSPENDED) {
+          suspended();
+        }
+      }
+
+      @Override
+      public void suspended() {
+        activeRuns.setStatus(programRunId, ProgramRunStatus.SUSPENDED);
+      }
+
+      @Override
+      public void resuming() {
+        activeRuns.setStatus(programRunId, ProgramRunStatus.RUNNING);
+      }
+
+      @Override
+      public void completed() {
+        activeRuns.removeRun(programRunId);
+      }
+
+      @Override
+      public void killed() {
+        activeRuns.removeRun(programRunId);
+      }
+
+      @Override
+      public void error(Throwable cause) {
+        activeRuns.removeRun(programRunId);
+      }
+    }, Threads.SAME_THREAD_EXECUTOR);
     return runtimeInfo;
   }
 
@@ -345,8 +568,14 @@ public class ProgramLifecycleService extends AbstractIdleService {
    * @throws InterruptedException if there was a problem while waiting for the stop call to complete
    * @throws ExecutionException if there was a problem while waiting for the stop call to complete
    */
-  public synchronized void stop(ProgramId programId) throws Exception {
-    stop(programId, null);
+  public void stop(ProgramId programId) throws Exception {
+    Lock lock = programLocks.getUnchecked(programId);
+    lock.lock();
+    try {
+      stop(programId, null);
+    } finally {
+      lock.unlock();
+    }
   }
 
   /**
@@ -813,6 +1042,8 @@ public class ProgramLifecycleService extends AbstractIdleService {
 
         // Lets update the running programs run records
         programLifecycleService.validateAndCorrectRunningRunRecords();
+        // Pick up corrected runs and runs recorded by other processes
+        programLifecycleService.activeRuns.rebuild();
 
         RunRecordsCorrectorRunnable.LOG.debug("End correcting invalid run records.");
       } catch (Throwable t) {
@@ -59,6 +59,7 @@ import org.slf4j.LoggerFactory;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -327,6 +328,28 @@ public class AppMetadataStore extends MetadataStoreDataset {
     return getRuns(null, status, Long.MIN_VALUE, Long.MAX_VALUE, Integer.MAX_VALUE, filter);
   }
 
+  /**
+   * Returns the run records of all runs that are either running or suspended, keyed by run id.
+   */
+  public Map<ProgramRunId, RunRecordMeta> getActiveRuns() {
+    Map<ProgramRunId, RunRecordMeta> activeRuns = new HashMap<>();
+    for (String recordType : new String[] { TYPE_RUN_RECORD_STARTED, TYPE_RUN_RECORD_SUSPENDED }) {
+      Map<MDSKey, RunRecordMeta> records = listKV(new MDSKey.Builder().add(recordType).build(), RunRecordMeta.class);
+      for (Map.Entry<MDSKey, RunRecordMeta> entry : records.entrySet()) {
+        // key is [recordType][namespace][app][programType][program][pid]
+        MDSKey.Splitter splitter = entry.getKey().split();
+        splitter.skipString();
+        String namespace = splitter.getString();
+        String application = splitter.getString();
+        ProgramType programType = ProgramType.valueOf(splitter.getString());
+        String program = splitter.getString();
+        activeRuns.put(new ProgramRunId(namespace, application, programType, program, entry.getValue().getPid()),
+                       entry.getValue());
+      }
+    }
+    return activeRuns;
+  }
+
   private MDSKey.Builder getProgramKeyBuilder(String recordType, @Nullable Id.Program program) {
     MDSKey.Builder builder = new MDSKey.Builder().add(recordType);
     if (program != null) {
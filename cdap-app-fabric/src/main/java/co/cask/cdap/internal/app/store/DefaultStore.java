@@ -436,6 +436,17 @@ public class DefaultStore implements Store {
       }, apps.get());
   }
 
+  @Override
+  public Map<ProgramRunId, RunRecordMeta> getActiveRuns() {
+    return appsTx.get().executeUnchecked(
+      new TransactionExecutor.Function<AppMetadataStore, Map<ProgramRunId, RunRecordMeta>>() {
+        @Override
+        public Map<ProgramRunId, RunRecordMeta> apply(AppMetadataStore mds) throws Exception {
+          return mds.getActiveRuns();
+        }
+      }, apps.get());
+  }
+
   /**
    * Returns run record for a given run.
    *
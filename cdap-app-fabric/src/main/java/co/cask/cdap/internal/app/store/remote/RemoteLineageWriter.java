@@ -18,6 +18,7 @@ package co.cask.cdap.internal.app.store.remote;
 
 import co.cask.cdap.common.conf.CConfiguration;
 import co.cask.cdap.common.internal.remote.RemoteOpsClient;
+import co.cask.cdap.common.internal.remote.RemoteOpsQueue;
 import co.cask.cdap.data2.metadata.lineage.AccessType;
 import co.cask.cdap.data2.metadata.writer.BasicLineageWriter;
 import co.cask.cdap.data2.metadata.writer.LineageWriter;
@@ -38,8 +39,8 @@ public class RemoteLineageWriter extends RemoteOpsClient implements LineageWrite
   private final ConcurrentMap<BasicLineageWriter.DataAccessKey, Boolean> registered = new ConcurrentHashMap<>();
 
   @Inject
-  RemoteLineageWriter(CConfiguration cConf, DiscoveryServiceClient discoveryClient) {
-    super(cConf, discoveryClient);
+  RemoteLineageWriter(CConfiguration cConf, DiscoveryServiceClient discoveryClient, RemoteOpsQueue queue) {
+    super(cConf, discoveryClient, queue);
   }
 
   @Override
@@ -54,7 +55,7 @@ public class RemoteLineageWriter extends RemoteOpsClient implements LineageWrite
     if (alreadyRegistered(run, datasetInstance, accessType, component)) {
       return;
     }
-    executeRequest("addDatasetAccess", run, datasetInstance, accessType, component);
+    executeAsync("addDatasetAccess", run, datasetInstance, accessType, component);
   }
 
   @Override
@@ -68,7 +69,7 @@ public class RemoteLineageWriter extends RemoteOpsClient implements LineageWrite
     if (alreadyRegistered(run, stream, accessType, component)) {
       return;
     }
-    executeRequest("addStreamAccess", run, stream, accessType, component);
+    executeAsync("addStreamAccess", run, stream, accessType, component);
   }
 
   private boolean alreadyRegistered(Id.Run run, Id.NamespacedId data, AccessType accessType,
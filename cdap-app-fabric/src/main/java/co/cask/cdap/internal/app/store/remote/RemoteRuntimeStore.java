@@ -20,6 +20,7 @@ import co.cask.cdap.api.workflow.WorkflowToken;
 import co.cask.cdap.app.store.RuntimeStore;
 import co.cask.cdap.common.conf.CConfiguration;
 import co.cask.cdap.common.internal.remote.RemoteOpsClient;
+import co.cask.cdap.common.internal.remote.RemoteOpsQueue;
 import co.cask.cdap.proto.BasicThrowable;
 import co.cask.cdap.proto.Id;
 import co.cask.cdap.proto.ProgramRunStatus;
@@ -38,8 +39,8 @@ import javax.annotation.Nullable;
 public class RemoteRuntimeStore extends RemoteOpsClient implements RuntimeStore {
 
   @Inject
-  RemoteRuntimeStore(CConfiguration cConf, DiscoveryServiceClient discoveryClient) {
-    super(cConf, discoveryClient);
+  RemoteRuntimeStore(CConfiguration cConf, DiscoveryServiceClient discoveryClient, RemoteOpsQueue queue) {
+    super(cConf, discoveryClient, queue);
   }
 
   @Override
@@ -78,11 +79,13 @@ public class RemoteRuntimeStore extends RemoteOpsClient implements RuntimeStore
 
   @Override
   public void updateWorkflowToken(ProgramRunId workflowRunId, WorkflowToken token) {
-    executeRequest("updateWorkflowToken", workflowRunId, token);
+    // Only the latest token of a workflow run needs to be sent
+    executeAsyncCoalesced(workflowRunId.toString(), "updateWorkflowToken", workflowRunId, token);
   }
 
   @Override
   public void addWorkflowNodeState(ProgramRunId workflowRunId, WorkflowNodeStateDetail nodeStateDetail) {
-    executeRequest("addWorkflowNodeState", workflowRunId, nodeStateDetail);
+    executeAsyncCoalesced(workflowRunId + ":" + nodeStateDetail.getNodeId(),
+                          "addWorkflowNodeState", workflowRunId, nodeStateDetail);
   }
 }
@@ -18,6 +18,7 @@ package co.cask.cdap.internal.app.store.remote;
 
 import co.cask.cdap.common.conf.CConfiguration;
 import co.cask.cdap.common.internal.remote.RemoteOpsClient;
+import co.cask.cdap.common.internal.remote.RemoteOpsQueue;
 import co.cask.cdap.data2.registry.DatasetUsageKey;
 import co.cask.cdap.data2.registry.RuntimeUsageRegistry;
 import co.cask.cdap.proto.Id;
@@ -36,8 +37,8 @@ public class RemoteRuntimeUsageRegistry extends RemoteOpsClient implements Runti
   private final ConcurrentMap<DatasetUsageKey, Boolean> registered = new ConcurrentHashMap<>();
 
   @Inject
-  RemoteRuntimeUsageRegistry(CConfiguration cConf, DiscoveryServiceClient discoveryClient) {
-    super(cConf, discoveryClient);
+  RemoteRuntimeUsageRegistry(CConfiguration cConf, DiscoveryServiceClient discoveryClient, RemoteOpsQueue queue) {
+    super(cConf, discoveryClient, queue);
   }
 
   @Override
@@ -73,12 +74,12 @@ public class RemoteRuntimeUsageRegistry extends RemoteOpsClient implements Runti
     if (alreadyRegistered(datasetInstanceId, programId)) {
       return;
     }
-    executeRequest("registerDataset", programId, datasetInstanceId);
+    executeAsync("registerDataset", programId, datasetInstanceId);
   }
 
   @Override
   public void register(Id.Program programId, Id.Stream streamId) {
-    executeRequest("registerStream", programId, streamId);
+    executeAsync("registerStream", programId, streamId);
   }
 
   private boolean alreadyRegistered(Id.DatasetInstance dataset, Id.Program owner) {
@@ -21,9 +21,11 @@ import co.cask.cdap.api.schedule.Schedules;
 import co.cask.cdap.app.store.Store;
 import co.cask.cdap.internal.AppFabricTestHelper;
 import co.cask.cdap.internal.app.runtime.ProgramOptionConstants;
+import co.cask.cdap.internal.app.services.ActiveRunRegistry;
 import co.cask.cdap.proto.Id;
 import co.cask.cdap.proto.ProgramRunStatus;
 import co.cask.cdap.proto.ProgramType;
+import co.cask.cdap.proto.id.ProgramRunId;
 import com.google.common.collect.ImmutableMap;
 import com.google.inject.Injector;
 import org.junit.Assert;
@@ -37,13 +39,15 @@ import java.util.Map;
 public class RunConstraintsCheckerTest {
   private static final Map<String, String> EMPTY_MAP = ImmutableMap.of();
   private static Store store;
+  private static ActiveRunRegistry activeRuns;
   private static RunConstraintsChecker requirementChecker;
 
   @BeforeClass
   public static void setupTestClass() {
     Injector injector = AppFabricTestHelper.getInjector();
     store = injector.getInstance(Store.class);
-    requirementChecker = new RunConstraintsChecker(store);
+    activeRuns = new ActiveRunRegistry(store);
+    requirementChecker = new RunConstraintsChecker(activeRuns);
   }
 
   @Test
@@ -58,27 +62,62 @@ public class RunConstraintsCheckerTest {
     // add a run for the schedule
     Map<String, String> systemArgs = ImmutableMap.of(ProgramOptionConstants.SCHEDULE_NAME, schedule.getName());
     store.setStart(programId, "pid1", System.currentTimeMillis(), null, EMPTY_MAP, systemArgs);
+    activeRuns.rebuild();
     Assert.assertTrue(requirementChecker.checkSatisfied(programId, schedule));
 
     // add a run for the program from a different schedule
     systemArgs = ImmutableMap.of(ProgramOptionConstants.SCHEDULE_NAME, "not" + schedule.getName());
     store.setStart(programId, "pid2", System.currentTimeMillis(), null, EMPTY_MAP, systemArgs);
+    activeRuns.rebuild();
     Assert.assertTrue(requirementChecker.checkSatisfied(programId, schedule));
 
     // add a run for the program that wasn't from a schedule
     store.setStart(programId, "pid3", System.currentTimeMillis(), null, EMPTY_MAP, EMPTY_MAP);
+    activeRuns.rebuild();
     Assert.assertTrue(requirementChecker.checkSatisfied(programId, schedule));
 
     // now add another run for the schedule, constraints should not be satisfied now
     systemArgs = ImmutableMap.of(ProgramOptionConstants.SCHEDULE_NAME, schedule.getName());
     store.setStart(programId, "pid4", System.currentTimeMillis(), null, EMPTY_MAP, systemArgs);
+    activeRuns.rebuild();
     Assert.assertFalse(requirementChecker.checkSatisfied(programId, schedule));
 
     // stop the first program, constraints should be satisfied now
     store.setStop(programId, "pid1", System.currentTimeMillis(), ProgramRunStatus.FAILED);
+    activeRuns.rebuild();
     Assert.assertTrue(requirementChecker.checkSatisfied(programId, schedule));
 
     store.setStop(programId, "pid4", System.currentTimeMillis(), ProgramRunStatus.KILLED);
+    activeRuns.rebuild();
+    Assert.assertTrue(requirementChecker.checkSatisfied(programId, schedule));
+  }
+
+  @Test
+  public void testMaxConcurrentRunsFromEvents() {
+    Schedule schedule = Schedules.builder("def")
+      .setMaxConcurrentRuns(2)
+      .createTimeSchedule("* * * * *");
+
+    Id.Program programId = Id.Program.from(Id.Namespace.DEFAULT, "app", ProgramType.WORKFLOW, "eventWorkflow");
+    ProgramRunId run1 = programId.toEntityId().run("run1");
+    ProgramRunId run2 = programId.toEntityId().run("run2");
+    Assert.assertTrue(requirementChecker.checkSatisfied(programId, schedule));
+
+    // runs that are not from the schedule don't count
+    activeRuns.addRun(programId.toEntityId().run("run0"), null);
+    activeRuns.addRun(run1, schedule.getName());
+    Assert.assertTrue(requirementChecker.checkSatisfied(programId, schedule));
+
+    // suspended runs count as well
+    activeRuns.addRun(run2, schedule.getName());
+    activeRuns.setStatus(run2, ProgramRunStatus.SUSPENDED);
+    Assert.assertFalse(requirementChecker.checkSatisfied(programId, schedule));
+
+    // a rebuild doesn't remove runs whose run records are not written yet
+    activeRuns.rebuild();
+    Assert.assertFalse(requirementChecker.checkSatisfied(programId, schedule));
+
+    activeRuns.removeRun(run1);
     Assert.assertTrue(requirementChecker.checkSatisfied(programId, schedule));
   }
 }
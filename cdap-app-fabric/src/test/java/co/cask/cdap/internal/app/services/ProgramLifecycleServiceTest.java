@@ -16,29 +16,48 @@
 package co.cask.cdap.internal.app.services;
 
 import co.cask.cdap.WordCountApp;
+import co.cask.cdap.app.program.ProgramDescriptor;
 import co.cask.cdap.app.runtime.ProgramController;
+import co.cask.cdap.app.runtime.ProgramOptions;
 import co.cask.cdap.app.runtime.ProgramRuntimeService;
 import co.cask.cdap.app.runtime.ProgramRuntimeService.RuntimeInfo;
 import co.cask.cdap.app.store.Store;
+import co.cask.cdap.common.ConflictException;
 import co.cask.cdap.common.app.RunIds;
+import co.cask.cdap.common.conf.CConfiguration;
 import co.cask.cdap.common.conf.Constants;
+import co.cask.cdap.common.namespace.NamespacedLocationFactory;
 import co.cask.cdap.common.utils.Tasks;
+import co.cask.cdap.config.PreferencesStore;
 import co.cask.cdap.internal.app.services.http.AppFabricTestBase;
 import co.cask.cdap.internal.app.store.DefaultStore;
 import co.cask.cdap.internal.app.store.RunRecordMeta;
 import co.cask.cdap.proto.Id;
+import co.cask.cdap.proto.ProgramLiveInfo;
 import co.cask.cdap.proto.ProgramRunStatus;
+import co.cask.cdap.proto.ProgramStatus;
 import co.cask.cdap.proto.ProgramType;
 import co.cask.cdap.proto.RunRecord;
+import co.cask.cdap.proto.id.ProgramId;
+import co.cask.cdap.security.authorization.AuthorizerInstantiator;
+import co.cask.cdap.store.NamespaceStore;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.AbstractIdleService;
+import com.google.common.util.concurrent.ListenableFuture;
 import org.apache.http.HttpResponse;
+import org.apache.twill.api.RunId;
 import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 
 
@@ -124,4 +143,110 @@ public class ProgramLifecycleServiceTest extends AppFabricTestBase {
     rr = runRecords.get(0);
     Assert.assertEquals(ProgramRunStatus.FAILED, rr.getStatus());
   }
+
+  @Test
+  public void testPendingAndFailedLaunch() throws Exception {
+    HttpResponse response = deploy(WordCountApp.class, Constants.Gateway.API_VERSION_3_TOKEN, TEST_NAMESPACE1);
+    Assert.assertEquals(200, response.getStatusLine().getStatusCode());
+
+    ProgramId flowId = Id.Program.from(TEST_NAMESPACE1, "WordCountApp", ProgramType.FLOW, "WordCountFlow").toEntityId();
+
+    // Use a runtime service with a launch that blocks until released, and then fails
+    CountDownLatch launchLatch = new CountDownLatch(1);
+    ProgramLifecycleService lifecycleService = new ProgramLifecycleService(
+      store, getInjector().getInstance(NamespaceStore.class), new FailingRuntimeService(launchLatch),
+      getInjector().getInstance(CConfiguration.class), getInjector().getInstance(PropertiesResolver.class),
+      getInjector().getInstance(NamespacedLocationFactory.class), getInjector().getInstance(PreferencesStore.class),
+      getInjector().getInstance(AuthorizerInstantiator.class));
+    lifecycleService.startAndWait();
+    try {
+      Assert.assertEquals(ProgramStatus.STOPPED, lifecycleService.getProgramStatus(flowId));
+
+      ListenableFuture<RuntimeInfo> future = lifecycleService.issueStart(flowId, null, false);
+
+      // While the launch is pending, the program is reported as running and can't be started again
+      Assert.assertEquals(ProgramStatus.RUNNING, lifecycleService.getProgramStatus(flowId));
+      Assert.assertEquals(ImmutableMap.of(flowId, ProgramStatus.RUNNING),
+                          lifecycleService.getProgramStatuses(ImmutableList.of(flowId)));
+      try {
+        lifecycleService.issueStart(flowId, null, false);
+        Assert.fail("Expected a ConflictException for a program with a pending launch");
+      } catch (ConflictException e) {
+        // expected
+      }
+
+      // Once the launch fails, the failure is reported by the future and the program is stopped
+      launchLatch.countDown();
+      try {
+        future.get(10, TimeUnit.SECONDS);
+        Assert.fail("Expected the launch to fail");
+      } catch (ExecutionException e) {
+        Assert.assertEquals(FailingRuntimeService.FAILURE_MESSAGE, e.getCause().getMessage());
+      }
+      Assert.assertEquals(ProgramStatus.STOPPED, lifecycleService.getProgramStatus(flowId));
+    } finally {
+      launchLatch.countDown();
+      lifecycleService.stopAndWait();
+    }
+  }
+
+  /**
+   * A {@link ProgramRuntimeService} without running programs, with a launch that fails after the given latch is
+   * released.
+   */
+  private static final class FailingRuntimeService extends AbstractIdleService implements ProgramRuntimeService {
+
+    private static final String FAILURE_MESSAGE = "Launch failed";
+
+    private final CountDownLatch launchLatch;
+
+    FailingRuntimeService(CountDownLatch launchLatch) {
+      this.launchLatch = launchLatch;
+    }
+
+    @Override
+    protected void startUp() throws Exception {
+      // no-op
+    }
+
+    @Override
+    protected void shutDown() throws Exception {
+      // no-op
+    }
+
+    @Override
+    public RuntimeInfo run(ProgramDescriptor programDescriptor, ProgramOptions options) {
+      try {
+        launchLatch.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      throw new IllegalStateException(FAILURE_MESSAGE);
+    }
+
+    @Override
+    public RuntimeInfo lookup(Id.Program programId, RunId runId) {
+      return null;
+    }
+
+    @Override
+    public Map<RunId, RuntimeInfo> list(ProgramType type) {
+      return ImmutableMap.of();
+    }
+
+    @Override
+    public Map<RunId, RuntimeInfo> list(Id.Program program) {
+      return ImmutableMap.of();
+    }
+
+    @Override
+    public ProgramLiveInfo getLiveInfo(Id.Program programId) {
+      return null;
+    }
+
+    @Override
+    public List<RuntimeInfo> listAll(ProgramType... types) {
+      return ImmutableList.of();
+    }
+  }
 }
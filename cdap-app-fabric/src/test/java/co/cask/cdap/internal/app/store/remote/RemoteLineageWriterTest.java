@@ -68,6 +68,7 @@ public class RemoteLineageWriterTest extends AppFabricTestBase {
 
     // test null serialization
     remoteLineageWriter.addAccess(runId.toId(), datasetId.toId(), AccessType.READ, null);
+    remoteLineageWriter.flush();
     expectedRelations.add(new Relation(datasetId.toId(), flowId.toId(), AccessType.READ, twillRunId));
 
     Assert.assertEquals(ImmutableSet.of(flowId.toId(), datasetId.toId()), lineageStore.getEntitiesForRun(runId.toId()));
@@ -76,12 +77,14 @@ public class RemoteLineageWriterTest extends AppFabricTestBase {
                         lineageStore.getRelations(flowId.toId(), now, now + 1, Predicates.<Relation>alwaysTrue()));
 
     remoteLineageWriter.addAccess(runId.toId(), streamId.toId(), AccessType.READ);
+    remoteLineageWriter.flush();
     expectedRelations.add(new Relation(streamId.toId(), flowId.toId(), AccessType.READ, twillRunId));
 
     Assert.assertEquals(expectedRelations,
                         lineageStore.getRelations(flowId.toId(), now, now + 1, Predicates.<Relation>alwaysTrue()));
 
     remoteLineageWriter.addAccess(runId.toId(), streamId.toId(), AccessType.WRITE);
+    remoteLineageWriter.flush();
     expectedRelations.add(new Relation(streamId.toId(), flowId.toId(), AccessType.WRITE, twillRunId));
 
     Assert.assertEquals(expectedRelations,
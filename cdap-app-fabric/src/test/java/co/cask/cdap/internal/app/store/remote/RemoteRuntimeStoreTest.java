@@ -17,8 +17,11 @@
 package co.cask.cdap.internal.app.store.remote;
 
 import co.cask.cdap.api.workflow.NodeStatus;
+import co.cask.cdap.api.workflow.WorkflowToken;
 import co.cask.cdap.common.app.RunIds;
+import co.cask.cdap.common.internal.remote.RemoteOpsQueue;
 import co.cask.cdap.internal.app.runtime.ProgramOptionConstants;
+import co.cask.cdap.internal.app.runtime.workflow.BasicWorkflowToken;
 import co.cask.cdap.internal.app.services.http.AppFabricTestBase;
 import co.cask.cdap.internal.app.store.DefaultStore;
 import co.cask.cdap.internal.app.store.RunRecordMeta;
@@ -145,4 +148,35 @@ public class RemoteRuntimeStoreTest extends AppFabricTestBase {
     Assert.assertEquals(NodeStatus.FAILED, workflowNodeStateDetail.getNodeStatus());
     Assert.assertEquals(failureCause, workflowNodeStateDetail.getFailureCause());
   }
+
+  @Test
+  public void testWorkflowTokenUpdates() {
+    // operations are only queued while the queue is running
+    RemoteOpsQueue queue = getInjector().getInstance(RemoteOpsQueue.class);
+    queue.startAndWait();
+    try {
+      Id.Workflow workflowId = Id.Workflow.from(Id.Namespace.DEFAULT, "test_app", "test_token_workflow");
+      long startTime = System.currentTimeMillis() / 1000;
+      String pid = RunIds.generate(startTime * 1000).getId();
+      Map<String, String> args = ImmutableMap.of();
+      runtimeStore.setStart(workflowId, pid, startTime, null, args, args);
+
+      ProgramRunId workflowRunId = workflowId.toEntityId().run(pid);
+      BasicWorkflowToken token = new BasicWorkflowToken(1);
+      token.setCurrentNode("node");
+      token.put("key", "first");
+      runtimeStore.updateWorkflowToken(workflowRunId, token);
+      token.put("key", "second");
+      runtimeStore.updateWorkflowToken(workflowRunId, token);
+      // token updates are serialized when queued, hence this change is not sent
+      token.put("key", "third");
+
+      // queued updates are sent before the run is stopped
+      runtimeStore.setStop(workflowId, pid, startTime + 1, ProgramRunStatus.COMPLETED);
+      WorkflowToken storedToken = store.getWorkflowToken(workflowId, pid);
+      Assert.assertEquals("second", storedToken.get("key").toString());
+    } finally {
+      queue.stopAndWait();
+    }
+  }
 }
@@ -60,6 +60,7 @@ public class RemoteRuntimeUsageRegistryTest extends AppFabricTestBase {
 
     Id.DatasetInstance datasetId1 = Id.DatasetInstance.from(Id.Namespace.DEFAULT, "test_dataset1");
     runtimeUsageRegistry.register(flowId1, datasetId1);
+    runtimeUsageRegistry.flush();
 
     ImmutableSet<Id.DatasetInstance> datasetsUsedByFlow1 = ImmutableSet.of(datasetId1);
     Assert.assertEquals(datasetsUsedByFlow1, usageRegistry.getDatasets(appId));
@@ -76,6 +77,7 @@ public class RemoteRuntimeUsageRegistryTest extends AppFabricTestBase {
     runtimeUsageRegistry.register(flowId2, datasetId1);
     runtimeUsageRegistry.register(flowId2, datasetId2);
     runtimeUsageRegistry.register(flowId2, streamId);
+    runtimeUsageRegistry.flush();
 
     ImmutableSet<Id.DatasetInstance> datasetsUsedByFlow2 = ImmutableSet.of(datasetId1, datasetId2);
     ImmutableSet<Id.Stream> streamsUsedByFlow2 = ImmutableSet.of(streamId);
@@ -0,0 +1,61 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.dq.functions;
+
+import co.cask.cdap.dq.DataQualityWritable;
+import co.cask.cdap.dq.sketch.HyperLogLog;
+
+/**
+ * Distinct Count Aggregation Function. Estimates the number of distinct values with a HyperLogLog sketch, which
+ * has a fixed size and a relative standard error of about 1.6%. Unlike {@link UniqueValues}, the aggregations of
+ * different time ranges can be combined without keeping all values.
+ */
+public class DistinctCount implements BasicAggregationFunction, CombinableAggregationFunction<Long> {
+  private static final int PRECISION = 12;
+  private final HyperLogLog sketch = new HyperLogLog(PRECISION);
+  private HyperLogLog aggregatedSketch;
+
+  @Override
+  public void combine(byte[] value) {
+    HyperLogLog other = HyperLogLog.fromBytes(value);
+    if (aggregatedSketch == null) {
+      aggregatedSketch = other;
+    } else {
+      aggregatedSketch.merge(other);
+    }
+  }
+
+  @Override
+  public Long deserialize(byte[] value) {
+    return HyperLogLog.fromBytes(value).estimate();
+  }
+
+  @Override
+  public Long retrieveAggregation() {
+    return aggregatedSketch == null ? null : aggregatedSketch.estimate();
+  }
+
+  @Override
+  public void add(DataQualityWritable value) {
+    sketch.add(value.get().toString());
+  }
+
+  @Override
+  public byte[] aggregate() {
+    return sketch.toBytes();
+  }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.dq.functions;
+
+import co.cask.cdap.api.common.Bytes;
+import co.cask.cdap.dq.DataQualityWritable;
+import co.cask.cdap.dq.sketch.CountMinSketch;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Frequent Values Aggregation Function. Estimates the most frequent values and their number of occurrences with a
+ * count-min sketch, and keeps the values with the highest estimates as candidates. Unlike
+ * {@link DiscreteValuesHistogram}, the size of the aggregation is bounded no matter how many distinct values there
+ * are. When aggregations are combined, the candidates of all aggregations are estimated again with the combined
+ * sketch.
+ */
+public class FrequentValues implements BasicAggregationFunction, CombinableAggregationFunction<Map<String, Long>> {
+  private static final int TOP_K = 10;
+  private static final int DEPTH = 4;
+  private static final int WIDTH = 1024;
+  private static final Comparator<Map.Entry<String, Long>> DESCENDING_COUNT =
+    new Comparator<Map.Entry<String, Long>>() {
+      @Override
+      public int compare(Map.Entry<String, Long> o1, Map.Entry<String, Long> o2) {
+        int cmp = Long.compare(o2.getValue(), o1.getValue());
+        return cmp != 0 ? cmp : o1.getKey().compareTo(o2.getKey());
+      }
+    };
+
+  private final CountMinSketch sketch = new CountMinSketch(DEPTH, WIDTH);
+  private final Map<String, Long> candidates = new HashMap<>();
+  private CountMinSketch aggregatedSketch;
+  private final Map<String, Long> aggregatedCandidates = new HashMap<>();
+
+  @Override
+  public void combine(byte[] value) {
+    CountMinSketch otherSketch = readSketch(value);
+    if (aggregatedSketch == null) {
+      aggregatedSketch = otherSketch;
+    } else {
+      aggregatedSketch.merge(otherSketch);
+    }
+    for (String candidate : readCandidates(value).keySet()) {
+      aggregatedCandidates.put(candidate, 0L);
+    }
+    // the estimates of the existing candidates change as well, so all of them have to be estimated again
+    for (Map.Entry<String, Long> entry : aggregatedCandidates.entrySet()) {
+      entry.setValue(aggregatedSketch.estimate(entry.getKey()));
+    }
+    retainTopK(aggregatedCandidates);
+  }
+
+  @Override
+  public Map<String, Long> deserialize(byte[] value) {
+    return sortByCount(readCandidates(value));
+  }
+
+  @Override
+  public Map<String, Long> retrieveAggregation() {
+    return aggregatedSketch == null ? null : sortByCount(aggregatedCandidates);
+  }
+
+  @Override
+  public void add(DataQualityWritable value) {
+    String key = value.get().toString();
+    sketch.add(key);
+    long estimate = sketch.estimate(key);
+    if (candidates.containsKey(key) || candidates.size() < TOP_K) {
+      candidates.put(key, estimate);
+      return;
+    }
+    Map.Entry<String, Long> least = Collections.max(candidates.entrySet(), DESCENDING_COUNT);
+    if (estimate > least.getValue()) {
+      candidates.remove(least.getKey());
+      candidates.put(key, estimate);
+    }
+  }
+
+  /**
+   * Serializes the sketch followed by the candidates and their estimated counts.
+   */
+  @Override
+  public byte[] aggregate() {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      byte[] sketchBytes = sketch.toBytes();
+      out.writeInt(sketchBytes.length);
+      out.write(sketchBytes);
+      out.writeInt(candidates.size());
+      for (Map.Entry<String, Long> entry : candidates.entrySet()) {
+        byte[] key = Bytes.toBytes(entry.getKey());
+        out.writeInt(key.length);
+        out.write(key);
+        out.writeLong(entry.getValue());
+      }
+    } catch (IOException e) {
+      // can't happen with a byte array output
+      throw new IllegalStateException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static CountMinSketch readSketch(byte[] value) {
+    int length = Bytes.toInt(value, 0);
+    return CountMinSketch.fromBytes(Arrays.copyOfRange(value, Bytes.SIZEOF_INT, Bytes.SIZEOF_INT + length));
+  }
+
+  private static Map<String, Long> readCandidates(byte[] value) {
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(value))) {
+      in.skipBytes(in.readInt());
+      int size = in.readInt();
+      Map<String, Long> candidates = new HashMap<>();
+      for (int i = 0; i < size; i++) {
+        byte[] key = new byte[in.readInt()];
+        in.readFully(key);
+        candidates.put(Bytes.toString(key), in.readLong());
+      }
+      return candidates;
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Invalid frequent values aggregation", e);
+    }
+  }
+
+  private static void retainTopK(Map<String, Long> counts) {
+    if (counts.size() <= TOP_K) {
+      return;
+    }
+    List<Map.Entry<String, Long>> entries = new ArrayList<>(counts.entrySet());
+    Collections.sort(entries, DESCENDING_COUNT);
+    for (Map.Entry<String, Long> entry : entries.subList(TOP_K, entries.size())) {
+      counts.remove(entry.getKey());
+    }
+  }
+
+  private static Map<String, Long> sortByCount(Map<String, Long> counts) {
+    List<Map.Entry<String, Long>> entries = new ArrayList<>(counts.entrySet());
+    Collections.sort(entries, DESCENDING_COUNT);
+    Map<String, Long> sorted = new LinkedHashMap<>();
+    for (Map.Entry<String, Long> entry : entries) {
+      sorted.put(entry.getKey(), entry.getValue());
+    }
+    return sorted;
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.dq.functions;
+
+import co.cask.cdap.dq.DataQualityWritable;
+import co.cask.cdap.dq.sketch.TDigest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Quantiles Aggregation Function. Estimates the minimum, the maximum and the 1st, 5th, 25th, 50th, 75th, 95th and
+ * 99th percentiles of numeric values with a t-digest sketch, which has a bounded size and can be combined across
+ * time ranges.
+ */
+public class Quantiles implements BasicAggregationFunction, CombinableAggregationFunction<Map<String, Double>> {
+  private static final double COMPRESSION = 100;
+  private static final double[] QUANTILES = { 0.01, 0.05, 0.25, 0.5, 0.75, 0.95, 0.99 };
+  private final TDigest digest = new TDigest(COMPRESSION);
+  private TDigest aggregatedDigest;
+
+  @Override
+  public void combine(byte[] value) {
+    TDigest other = TDigest.fromBytes(value);
+    if (aggregatedDigest == null) {
+      aggregatedDigest = other;
+    } else {
+      aggregatedDigest.merge(other);
+    }
+  }
+
+  @Override
+  public Map<String, Double> deserialize(byte[] value) {
+    return toQuantiles(TDigest.fromBytes(value));
+  }
+
+  @Override
+  public Map<String, Double> retrieveAggregation() {
+    return aggregatedDigest == null ? null : toQuantiles(aggregatedDigest);
+  }
+
+  @Override
+  public void add(DataQualityWritable value) {
+    digest.add(Double.parseDouble(value.get().toString()));
+  }
+
+  @Override
+  public byte[] aggregate() {
+    return digest.toBytes();
+  }
+
+  private static Map<String, Double> toQuantiles(TDigest digest) {
+    Map<String, Double> quantiles = new LinkedHashMap<>();
+    if (digest.getCount() == 0) {
+      return quantiles;
+    }
+    quantiles.put("min", digest.quantile(0));
+    for (double quantile : QUANTILES) {
+      quantiles.put(String.valueOf(quantile), digest.quantile(quantile));
+    }
+    quantiles.put("max", digest.quantile(1));
+    return quantiles;
+  }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.dq.sketch;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Count-min sketch for estimating the frequency of values. It keeps {@code depth} rows of {@code width} counters,
+ * with one counter per row incremented for each value. The estimate of a value is the minimum of its counters, which
+ * never underestimates the frequency and overestimates it by at most {@code 2 * total / width} with probability
+ * {@code 1 - 2^-depth}. Sketches of the same dimensions can be merged.
+ */
+public final class CountMinSketch {
+
+  private static final byte VERSION = 1;
+  private static final long SEED = 0x9e3779b97f4a7c15L;
+
+  private final int depth;
+  private final int width;
+  private final long[][] counters;
+  private long total;
+
+  public CountMinSketch(int depth, int width) {
+    if (depth <= 0 || width <= 0) {
+      throw new IllegalArgumentException(String.format("Depth and width must be positive, but are %d and %d",
+                                                       depth, width));
+    }
+    this.depth = depth;
+    this.width = width;
+    this.counters = new long[depth][width];
+  }
+
+  /**
+   * Adds an occurrence of a value to the sketch.
+   */
+  public void add(String value) {
+    add(value, 1);
+  }
+
+  /**
+   * Adds a number of occurrences of a value to the sketch.
+   */
+  public void add(String value, long count) {
+    if (count < 0) {
+      throw new IllegalArgumentException("Count must not be negative, but is " + count);
+    }
+    long hash1 = Hashes.hash(value);
+    long hash2 = Hashes.mix(hash1 ^ SEED);
+    for (int i = 0; i < depth; i++) {
+      counters[i][index(hash1, hash2, i)] += count;
+    }
+    total += count;
+  }
+
+  /**
+   * Returns the estimated number of occurrences of a value.
+   */
+  public long estimate(String value) {
+    long hash1 = Hashes.hash(value);
+    long hash2 = Hashes.mix(hash1 ^ SEED);
+    long estimate = Long.MAX_VALUE;
+    for (int i = 0; i < depth; i++) {
+      estimate = Math.min(estimate, counters[i][index(hash1, hash2, i)]);
+    }
+    return estimate;
+  }
+
+  /**
+   * Returns the total number of occurrences of all values added to the sketch.
+   */
+  public long getTotal() {
+    return total;
+  }
+
+  /**
+   * Merges another sketch into this one.
+   *
+   * @throws IllegalArgumentException if the other sketch has different dimensions
+   */
+  public void merge(CountMinSketch other) {
+    if (other.depth != depth || other.width != width) {
+      throw new IllegalArgumentException(String.format("Cannot merge sketch of %dx%d into one of %dx%d",
+                                                       other.depth, other.width, depth, width));
+    }
+    for (int i = 0; i < depth; i++) {
+      for (int j = 0; j < width; j++) {
+        counters[i][j] += other.counters[i][j];
+      }
+    }
+    total += other.total;
+  }
+
+  /**
+   * Serializes the sketch as the version, the dimensions, the total and the counters. Most counters are small,
+   * so they are written as variable length longs.
+   */
+  public byte[] toBytes() {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 + depth * width);
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeByte(VERSION);
+      out.writeInt(depth);
+      out.writeInt(width);
+      VarInts.writeVarLong(out, total);
+      for (long[] row : counters) {
+        for (long counter : row) {
+          VarInts.writeVarLong(out, counter);
+        }
+      }
+    } catch (IOException e) {
+      // can't happen with a byte array output
+      throw new IllegalStateException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Deserializes a sketch created by {@link #toBytes()}.
+   *
+   * @throws IllegalArgumentException if the bytes are not a valid sketch
+   */
+  public static CountMinSketch fromBytes(byte[] bytes) {
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+      if (in.readByte() != VERSION) {
+        throw new IllegalArgumentException("Invalid serialized count-min sketch");
+      }
+      CountMinSketch sketch = new CountMinSketch(in.readInt(), in.readInt());
+      sketch.total = VarInts.readVarLong(in);
+      for (long[] row : sketch.counters) {
+        for (int j = 0; j < row.length; j++) {
+          row[j] = VarInts.readVarLong(in);
+        }
+      }
+      return sketch;
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Invalid serialized count-min sketch", e);
+    }
+  }
+
+  private int index(long hash1, long hash2, int row) {
+    return (int) (((hash1 + row * hash2) & Long.MAX_VALUE) % width);
+  }
+}
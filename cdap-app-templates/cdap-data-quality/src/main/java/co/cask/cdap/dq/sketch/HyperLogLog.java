@@ -0,0 +1,131 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.dq.sketch;
+
+import java.nio.ByteBuffer;
+
+/**
+ * HyperLogLog sketch for estimating the number of distinct values. It uses {@code 2^precision} one byte registers,
+ * and has a relative standard error of about {@code 1.04 / sqrt(2^precision)}. Sketches of the same precision can
+ * be merged, which gives the same result as adding all values to a single sketch.
+ */
+public final class HyperLogLog {
+
+  private static final byte VERSION = 1;
+
+  private final int precision;
+  private final byte[] registers;
+
+  public HyperLogLog(int precision) {
+    if (precision < 4 || precision > 16) {
+      throw new IllegalArgumentException("Precision must be between 4 and 16, but is " + precision);
+    }
+    this.precision = precision;
+    this.registers = new byte[1 << precision];
+  }
+
+  /**
+   * Adds a value to the sketch.
+   */
+  public void add(String value) {
+    long hash = Hashes.hash(value);
+    int index = (int) (hash >>> (Long.SIZE - precision));
+    // the sentinel bit bounds the rank in case all remaining bits are zero
+    long remaining = (hash << precision) | (1L << (precision - 1));
+    byte rank = (byte) (Long.numberOfLeadingZeros(remaining) + 1);
+    if (rank > registers[index]) {
+      registers[index] = rank;
+    }
+  }
+
+  /**
+   * Merges another sketch into this one.
+   *
+   * @throws IllegalArgumentException if the other sketch has a different precision
+   */
+  public void merge(HyperLogLog other) {
+    if (other.precision != precision) {
+      throw new IllegalArgumentException(String.format("Cannot merge sketch of precision %d into one of precision %d",
+                                                       other.precision, precision));
+    }
+    for (int i = 0; i < registers.length; i++) {
+      if (other.registers[i] > registers[i]) {
+        registers[i] = other.registers[i];
+      }
+    }
+  }
+
+  /**
+   * Returns the estimated number of distinct values added to the sketch.
+   */
+  public long estimate() {
+    int m = registers.length;
+    double sum = 0;
+    int zeros = 0;
+    for (byte register : registers) {
+      sum += 1.0 / (1L << register);
+      if (register == 0) {
+        zeros++;
+      }
+    }
+    double estimate = alpha(m) * m * m / sum;
+    if (estimate <= 2.5 * m && zeros > 0) {
+      // linear counting is more accurate for small cardinalities
+      estimate = m * Math.log((double) m / zeros);
+    }
+    return Math.round(estimate);
+  }
+
+  /**
+   * Serializes the sketch as the version, the precision and the registers.
+   */
+  public byte[] toBytes() {
+    ByteBuffer buffer = ByteBuffer.allocate(2 + registers.length);
+    buffer.put(VERSION).put((byte) precision).put(registers);
+    return buffer.array();
+  }
+
+  /**
+   * Deserializes a sketch created by {@link #toBytes()}.
+   *
+   * @throws IllegalArgumentException if the bytes are not a valid sketch
+   */
+  public static HyperLogLog fromBytes(byte[] bytes) {
+    if (bytes.length < 2 || bytes[0] != VERSION) {
+      throw new IllegalArgumentException("Invalid serialized HyperLogLog sketch");
+    }
+    HyperLogLog sketch = new HyperLogLog(bytes[1]);
+    if (bytes.length != 2 + sketch.registers.length) {
+      throw new IllegalArgumentException("Invalid serialized HyperLogLog sketch");
+    }
+    System.arraycopy(bytes, 2, sketch.registers, 0, sketch.registers.length);
+    return sketch;
+  }
+
+  private static double alpha(int m) {
+    switch (m) {
+      case 16:
+        return 0.673;
+      case 32:
+        return 0.697;
+      case 64:
+        return 0.709;
+      default:
+        return 0.7213 / (1 + 1.079 / m);
+    }
+  }
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.dq.sketch;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * t-digest sketch for estimating quantiles. Values are summarized by centroids, which are small near the extreme
+ * quantiles and larger around the median, so that the estimates of extreme quantiles are the most accurate.
+ * The number of centroids is bounded by about twice the compression. Sketches can be merged by merging their
+ * centroids.
+ */
+public final class TDigest {
+
+  private static final byte VERSION = 1;
+  private static final Comparator<Centroid> MEAN_COMPARATOR = new Comparator<Centroid>() {
+    @Override
+    public int compare(Centroid o1, Centroid o2) {
+      return Double.compare(o1.mean, o2.mean);
+    }
+  };
+
+  private final double compression;
+  private final int maxUnmerged;
+  private List<Centroid> centroids;
+  private final List<Centroid> unmerged;
+  private long count;
+  private double min;
+  private double max;
+
+  public TDigest(double compression) {
+    if (compression < 10) {
+      throw new IllegalArgumentException("Compression must be at least 10, but is " + compression);
+    }
+    this.compression = compression;
+    this.maxUnmerged = (int) (5 * compression);
+    this.centroids = new ArrayList<>();
+    this.unmerged = new ArrayList<>();
+    this.min = Double.POSITIVE_INFINITY;
+    this.max = Double.NEGATIVE_INFINITY;
+  }
+
+  /**
+   * Adds a value to the sketch.
+   */
+  public void add(double value) {
+    if (Double.isNaN(value)) {
+      throw new IllegalArgumentException("Cannot add NaN to a t-digest");
+    }
+    add(value, 1);
+  }
+
+  /**
+   * Merges another sketch into this one.
+   */
+  public void merge(TDigest other) {
+    other.compress();
+    for (Centroid centroid : other.centroids) {
+      add(centroid.mean, centroid.count);
+    }
+    min = Math.min(min, other.min);
+    max = Math.max(max, other.max);
+  }
+
+  /**
+   * Returns the number of values added to the sketch.
+   */
+  public long getCount() {
+    return count;
+  }
+
+  /**
+   * Returns the estimated value at the given quantile, or {@link Double#NaN} if the sketch is empty.
+   *
+   * @param quantile the quantile, between 0 and 1
+   */
+  public double quantile(double quantile) {
+    if (quantile < 0 || quantile > 1) {
+      throw new IllegalArgumentException("Quantile must be between 0 and 1, but is " + quantile);
+    }
+    compress();
+    if (centroids.isEmpty()) {
+      return Double.NaN;
+    }
+
+    // the position of the quantile among all values. Each centroid is considered to be centered at the middle of
+    // the values it summarizes, and the values between centroid centers are interpolated.
+    double index = quantile * count;
+    Centroid first = centroids.get(0);
+    if (index <= first.count / 2.0) {
+      return interpolate(min, first.mean, index / (first.count / 2.0));
+    }
+    double seen = 0;
+    for (int i = 0; i < centroids.size() - 1; i++) {
+      Centroid left = centroids.get(i);
+      Centroid right = centroids.get(i + 1);
+      double leftCenter = seen + left.count / 2.0;
+      double rightCenter = seen + left.count + right.count / 2.0;
+      if (index <= rightCenter) {
+        return interpolate(left.mean, right.mean, (index - leftCenter) / (rightCenter - leftCenter));
+      }
+      seen += left.count;
+    }
+    Centroid last = centroids.get(centroids.size() - 1);
+    double lastCenter = count - last.count / 2.0;
+    return interpolate(last.mean, max, Math.min(1.0, (index - lastCenter) / (last.count / 2.0)));
+  }
+
+  /**
+   * Serializes the sketch as the version, the compression, the minimum, the maximum and the centroids.
+   */
+  public byte[] toBytes() {
+    compress();
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(32 + 12 * centroids.size());
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeByte(VERSION);
+      out.writeDouble(compression);
+      out.writeDouble(min);
+      out.writeDouble(max);
+      out.writeInt(centroids.size());
+      for (Centroid centroid : centroids) {
+        out.writeDouble(centroid.mean);
+        VarInts.writeVarLong(out, centroid.count);
+      }
+    } catch (IOException e) {
+      // can't happen with a byte array output
+      throw new IllegalStateException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Deserializes a sketch created by {@link #toBytes()}.
+   *
+   * @throws IllegalArgumentException if the bytes are not a valid sketch
+   */
+  public static TDigest fromBytes(byte[] bytes) {
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+      if (in.readByte() != VERSION) {
+        throw new IllegalArgumentException("Invalid serialized t-digest");
+      }
+      TDigest digest = new TDigest(in.readDouble());
+      digest.min = in.readDouble();
+      digest.max = in.readDouble();
+      int size = in.readInt();
+      for (int i = 0; i < size; i++) {
+        double mean = in.readDouble();
+        long count = VarInts.readVarLong(in);
+        digest.centroids.add(new Centroid(mean, count));
+        digest.count += count;
+      }
+      return digest;
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Invalid serialized t-digest", e);
+    }
+  }
+
+  private void add(double mean, long weight) {
+    unmerged.add(new Centroid(mean, weight));
+    count += weight;
+    min = Math.min(min, mean);
+    max = Math.max(max, mean);
+    if (unmerged.size() >= maxUnmerged) {
+      compress();
+    }
+  }
+
+  /**
+   * Merges the unmerged centroids with the existing ones. Neighboring centroids are combined as long as the combined
+   * centroid doesn't exceed the size limit {@code 4 * count * q * (1 - q) / compression} at its quantile {@code q}.
+   */
+  private void compress() {
+    if (unmerged.isEmpty()) {
+      return;
+    }
+    List<Centroid> all = new ArrayList<>(centroids.size() + unmerged.size());
+    all.addAll(centroids);
+    all.addAll(unmerged);
+    unmerged.clear();
+    Collections.sort(all, MEAN_COMPARATOR);
+
+    List<Centroid> merged = new ArrayList<>();
+    Centroid current = all.get(0);
+    long seen = 0;
+    for (int i = 1; i < all.size(); i++) {
+      Centroid next = all.get(i);
+      double quantile = (seen + (current.count + next.count) / 2.0) / count;
+      double limit = Math.max(1, 4 * count * quantile * (1 - quantile) / compression);
+      if (current.count + next.count <= limit) {
+        current = current.combine(next);
+      } else {
+        merged.add(current);
+        seen += current.count;
+        current = next;
+      }
+    }
+    merged.add(current);
+    centroids = merged;
+  }
+
+  private static double interpolate(double from, double to, double fraction) {
+    return from + (to - from) * fraction;
+  }
+
+  /**
+   * Mean and number of the values summarized by a centroid.
+   */
+  private static final class Centroid {
+    private final double mean;
+    private final long count;
+
+    private Centroid(double mean, long count) {
+      this.mean = mean;
+      this.count = count;
+    }
+
+    private Centroid combine(Centroid other) {
+      long combinedCount = count + other.count;
+      return new Centroid(mean + (other.mean - mean) * other.count / combinedCount, combinedCount);
+    }
+  }
+}
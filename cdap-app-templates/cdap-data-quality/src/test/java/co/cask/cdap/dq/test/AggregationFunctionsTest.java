@@ -19,8 +19,11 @@ package co.cask.cdap.dq.test;
 import co.cask.cdap.api.common.Bytes;
 import co.cask.cdap.dq.DataQualityWritable;
 import co.cask.cdap.dq.functions.DiscreteValuesHistogram;
+import co.cask.cdap.dq.functions.DistinctCount;
+import co.cask.cdap.dq.functions.FrequentValues;
 import co.cask.cdap.dq.functions.HistogramWithBucketing;
 import co.cask.cdap.dq.functions.Mean;
+import co.cask.cdap.dq.functions.Quantiles;
 import co.cask.cdap.dq.functions.StandardDeviation;
 import co.cask.cdap.dq.functions.UniqueValues;
 import com.google.common.collect.Maps;
@@ -34,7 +37,9 @@ import org.junit.Test;
 
 import java.lang.reflect.Type;
 import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -207,5 +212,83 @@ public class AggregationFunctionsTest {
 
     Assert.assertEquals(histogramWithBucketing.histogram, expectedMap);
   }
-}
 
+  @Test
+  public void distinctCountCombineAggregationTest() throws Exception {
+    // two overlapping ranges of values, 15000 distinct values in total
+    DistinctCount first = new DistinctCount();
+    DistinctCount second = new DistinctCount();
+    for (int i = 0; i < 10000; i++) {
+      first.add(text("value" + i));
+      second.add(text("value" + (i + 5000)));
+    }
+    Assert.assertEquals(10000, first.deserialize(first.aggregate()), 500);
+
+    DistinctCount combined = new DistinctCount();
+    Assert.assertNull(combined.retrieveAggregation());
+    combined.combine(first.aggregate());
+    combined.combine(second.aggregate());
+    Assert.assertEquals(15000, combined.retrieveAggregation(), 750);
+  }
+
+  @Test
+  public void quantilesCombineAggregationTest() throws Exception {
+    List<Quantiles> parts = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      parts.add(new Quantiles());
+    }
+    for (int i = 1; i <= 100000; i++) {
+      DataQualityWritable value = new DataQualityWritable();
+      value.set(new DoubleWritable(i));
+      parts.get(i % parts.size()).add(value);
+    }
+
+    Quantiles combined = new Quantiles();
+    for (Quantiles part : parts) {
+      combined.combine(part.aggregate());
+    }
+    Map<String, Double> quantiles = combined.retrieveAggregation();
+    Assert.assertEquals(1.0, quantiles.get("min"), 0);
+    Assert.assertEquals(100000.0, quantiles.get("max"), 0);
+    Assert.assertEquals(1000.0, quantiles.get("0.01"), 100);
+    Assert.assertEquals(50000.0, quantiles.get("0.5"), 1000);
+    Assert.assertEquals(99000.0, quantiles.get("0.99"), 100);
+  }
+
+  @Test
+  public void frequentValuesCombineAggregationTest() throws Exception {
+    // "a" is the most frequent value of the first part, but "b" is the most frequent value overall
+    FrequentValues first = new FrequentValues();
+    FrequentValues second = new FrequentValues();
+    for (int i = 0; i < 150; i++) {
+      first.add(text("a"));
+    }
+    for (int i = 0; i < 100; i++) {
+      first.add(text("b"));
+      second.add(text("b"));
+    }
+    for (int i = 0; i < 1000; i++) {
+      first.add(text("first" + i));
+      second.add(text("second" + i));
+    }
+
+    Map<String, Long> firstValues = first.deserialize(first.aggregate());
+    Assert.assertEquals(10, firstValues.size());
+    Assert.assertEquals("a", firstValues.keySet().iterator().next());
+
+    FrequentValues combined = new FrequentValues();
+    combined.combine(first.aggregate());
+    combined.combine(second.aggregate());
+    Map<String, Long> combinedValues = combined.retrieveAggregation();
+    Assert.assertEquals(10, combinedValues.size());
+    Assert.assertEquals("b", combinedValues.keySet().iterator().next());
+    Assert.assertTrue(combinedValues.get("b") >= 200);
+    Assert.assertTrue(combinedValues.get("a") >= 150);
+  }
+
+  private static DataQualityWritable text(String value) {
+    DataQualityWritable writable = new DataQualityWritable();
+    writable.set(new Text(value));
+    return writable;
+  }
+}
@@ -253,7 +253,7 @@ public class SmartWorkflow extends AbstractWorkflow {
         datasetName = UUID.randomUUID().toString();
         connectorDatasets.put(connectorName, datasetName);
         // add the local dataset
-        ConnectorSource connectorSource = new ConnectorSource(datasetName, null);
+        ConnectorSource connectorSource = new ConnectorSource(datasetName);
         connectorSource.configure(getConfigurer());
       }
     }
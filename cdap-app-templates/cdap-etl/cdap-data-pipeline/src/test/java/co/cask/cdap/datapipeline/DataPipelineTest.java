@@ -34,6 +34,7 @@ import co.cask.cdap.etl.mock.batch.MockSink;
 import co.cask.cdap.etl.mock.batch.MockSource;
 import co.cask.cdap.etl.mock.batch.NodeStatesAction;
 import co.cask.cdap.etl.mock.batch.aggregator.FieldCountAggregator;
+import co.cask.cdap.etl.mock.batch.aggregator.FieldSumAggregator;
 import co.cask.cdap.etl.mock.batch.aggregator.IdentityAggregator;
 import co.cask.cdap.etl.mock.batch.joiner.MockJoiner;
 import co.cask.cdap.etl.mock.test.HydratorTestBase;
@@ -54,9 +55,11 @@ import co.cask.cdap.test.DataSetManager;
 import co.cask.cdap.test.StreamManager;
 import co.cask.cdap.test.TestConfiguration;
 import co.cask.cdap.test.WorkflowManager;
+import com.google.common.collect.HashMultiset;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Multiset;
 import com.google.common.collect.Sets;
 import org.junit.After;
 import org.junit.Assert;
@@ -395,6 +398,16 @@ public class DataPipelineTest extends HydratorTestBase {
     testParallelAggregators(Engine.SPARK);
   }
 
+  @Test
+  public void testMapRedCombinableAggregator() throws Exception {
+    testCombinableAggregator(Engine.MAPREDUCE);
+  }
+
+  @Test
+  public void testSparkCombinableAggregator() throws Exception {
+    testCombinableAggregator(Engine.SPARK);
+  }
+
   private void testSequentialAggregators(Engine engine) throws Exception {
     String sourceName = "linearAggInput-" + engine.name();
     String sinkName = "linearAggOutput-" + engine.name();
@@ -550,6 +563,63 @@ public class DataPipelineTest extends HydratorTestBase {
     validateMetric(5, appId, "sink2.records.in");
   }
 
+  private void testCombinableAggregator(Engine engine) throws Exception {
+    String sourceName = "combAggInput-" + engine.name();
+    String sinkName = "combAggOutput-" + engine.name();
+
+    ETLBatchConfig etlConfig = ETLBatchConfig.builder("* * * * *")
+      .setEngine(engine)
+      .addStage(new ETLStage("source", MockSource.getPlugin(sourceName)))
+      .addStage(new ETLStage("agg", FieldSumAggregator.getPlugin("user", "item")))
+      .addStage(new ETLStage("sink", MockSink.getPlugin(sinkName)))
+      .addConnection("source", "agg")
+      .addConnection("agg", "sink")
+      .build();
+
+    AppRequest<ETLBatchConfig> appRequest = new AppRequest<>(APP_ARTIFACT, etlConfig);
+    Id.Application appId = Id.Application.from(Id.Namespace.DEFAULT, "CombinableAggApp-" + engine);
+    ApplicationManager appManager = deployApplication(appId, appRequest);
+    Schema inputSchema = Schema.recordOf(
+      "testRecord",
+      Schema.Field.of("user", Schema.of(Schema.Type.STRING)),
+      Schema.Field.of("item", Schema.of(Schema.Type.LONG))
+    );
+
+    DataSetManager<Table> inputManager = getDataset(Id.Namespace.DEFAULT, sourceName);
+    MockSource.writeInput(inputManager, ImmutableList.of(
+      StructuredRecord.builder(inputSchema).set("user", "samuel").set("item", 1L).build(),
+      StructuredRecord.builder(inputSchema).set("user", "samuel").set("item", 2L).build(),
+      StructuredRecord.builder(inputSchema).set("user", "john").set("item", 4L).build(),
+      StructuredRecord.builder(inputSchema).set("user", "samuel").set("item", 3L).build(),
+      StructuredRecord.builder(inputSchema).set("user", "john").set("item", 3L).build(),
+      StructuredRecord.builder(inputSchema).set("user", "bob").set("item", 5L).build()));
+
+    // with at most 2 groups in memory, the mapper emits partial aggregates both while transforming and at the end
+    WorkflowManager workflowManager = appManager.getWorkflowManager(SmartWorkflow.NAME);
+    workflowManager.start(ImmutableMap.of("cdap.etl.combine.max.groups", "2"));
+    workflowManager.waitForFinish(5, TimeUnit.MINUTES);
+
+    Schema outputSchema = Schema.recordOf(
+      "user.sum",
+      Schema.Field.of("user", Schema.of(Schema.Type.STRING)),
+      Schema.Field.of("item", Schema.of(Schema.Type.LONG))
+    );
+
+    DataSetManager<Table> sinkManager = getDataset(sinkName);
+    Set<StructuredRecord> expected = ImmutableSet.of(
+      StructuredRecord.builder(outputSchema).set("user", "samuel").set("item", 6L).build(),
+      StructuredRecord.builder(outputSchema).set("user", "john").set("item", 7L).build(),
+      StructuredRecord.builder(outputSchema).set("user", "bob").set("item", 5L).build());
+    Set<StructuredRecord> actual = Sets.newHashSet(MockSink.readOutput(sinkManager));
+    Assert.assertEquals(expected, actual);
+
+    validateMetric(6, appId, "source.records.out");
+    validateMetric(6, appId, "agg.records.in");
+    validateMetric(3, appId, "agg.aggregator.groups");
+    validateMetric(3, appId, "agg.records.out");
+    validateMetric(3, appId, "sink.records.in");
+  }
+
   @Test
   public void testSparkSinkAndCompute() throws Exception {
     // use the SparkSink to train a model
@@ -733,7 +803,16 @@ public class DataPipelineTest extends HydratorTestBase {
   }
 
   @Test
-  public void testInnerJoin() throws Exception {
+  public void testMapRedInnerJoin() throws Exception {
+    testInnerJoin(Engine.MAPREDUCE);
+  }
+
+  @Test
+  public void testSparkInnerJoin() throws Exception {
+    testInnerJoin(Engine.SPARK);
+  }
+
+  private void testInnerJoin(Engine engine) throws Exception {
     Schema inputSchema1 = Schema.recordOf(
       "customerRecord",
       Schema.Field.of("customer_id", Schema.of(Schema.Type.STRING)),
@@ -756,16 +835,16 @@ public class DataPipelineTest extends HydratorTestBase {
     );
 
     ETLBatchConfig etlConfig = ETLBatchConfig.builder("* * * * *")
-      .addStage(new ETLStage("source1", MockSource.getPlugin("source1InnerJoinInput")))
-      .addStage(new ETLStage("source2", MockSource.getPlugin("source2InnerJoinInput")))
-      .addStage(new ETLStage("source3", MockSource.getPlugin("source3InnerJoinInput")))
+      .addStage(new ETLStage("source1", MockSource.getPlugin("source1InnerJoinInput-" + engine.name())))
+      .addStage(new ETLStage("source2", MockSource.getPlugin("source2InnerJoinInput-" + engine.name())))
+      .addStage(new ETLStage("source3", MockSource.getPlugin("source3InnerJoinInput-" + engine.name())))
       .addStage(new ETLStage("t1", FieldsPrefixTransform.getPlugin("", inputSchema1.toString())))
       .addStage(new ETLStage("t2", FieldsPrefixTransform.getPlugin("", inputSchema2.toString())))
       .addStage(new ETLStage("t3", FieldsPrefixTransform.getPlugin("", inputSchema3.toString())))
       .addStage(new ETLStage("testJoiner", MockJoiner.getPlugin("t1.customer_id=t2.cust_id=t3.c_id&" +
                                                                   "t1.customer_name=t2.cust_name=t3.c_name",
                                                                 "t1,t2,t3", "")))
-      .addStage(new ETLStage("sink1", MockSink.getPlugin("innerJoinOutput")))
+      .addStage(new ETLStage("sink1", MockSink.getPlugin("innerJoinOutput-" + engine.name())))
       .addConnection("source1", "t1")
       .addConnection("source2", "t2")
       .addConnection("source3", "t3")
@@ -773,11 +852,11 @@ public class DataPipelineTest extends HydratorTestBase {
       .addConnection("t2", "testJoiner")
       .addConnection("t3", "testJoiner")
       .addConnection("testJoiner", "sink1")
-      .setEngine(Engine.MAPREDUCE)
+      .setEngine(engine)
       .build();
 
     AppRequest<ETLBatchConfig> appRequest = new AppRequest<>(APP_ARTIFACT, etlConfig);
-    Id.Application appId = Id.Application.from(Id.Namespace.DEFAULT, "JoinerApp");
+    Id.Application appId = Id.Application.from(Id.Namespace.DEFAULT, "JoinerApp-" + engine.name());
     ApplicationManager appManager = deployApplication(appId, appRequest);
 
     Schema outSchema = Schema.recordOf(
@@ -811,11 +890,11 @@ public class DataPipelineTest extends HydratorTestBase {
       .set("c_name", "jane").build();
 
     // write one record to each source
-    DataSetManager<Table> inputManager = getDataset(Id.Namespace.DEFAULT, "source1InnerJoinInput");
+    DataSetManager<Table> inputManager = getDataset(Id.Namespace.DEFAULT, "source1InnerJoinInput-" + engine.name());
     MockSource.writeInput(inputManager, ImmutableList.of(recordSamuel, recordBob, recordJane));
-    inputManager = getDataset(Id.Namespace.DEFAULT, "source2InnerJoinInput");
+    inputManager = getDataset(Id.Namespace.DEFAULT, "source2InnerJoinInput-" + engine.name());
     MockSource.writeInput(inputManager, ImmutableList.of(recordCar, recordBike));
-    inputManager = getDataset(Id.Namespace.DEFAULT, "source3InnerJoinInput");
+    inputManager = getDataset(Id.Namespace.DEFAULT, "source3InnerJoinInput-" + engine.name());
     MockSource.writeInput(inputManager, ImmutableList.of(recordTrasCar, recordTrasBike));
 
     WorkflowManager workflowManager = appManager.getWorkflowManager(SmartWorkflow.NAME);
@@ -833,7 +912,7 @@ public class DataPipelineTest extends HydratorTestBase {
       .set("item_id", "22").set("item_price", 100L).set("cust_id", "3").set("cust_name", "jane")
       .set("t_id", "2").set("c_id", "3").set("c_name", "jane").build();
 
-    DataSetManager<Table> sinkManager = getDataset("innerJoinOutput");
+    DataSetManager<Table> sinkManager = getDataset("innerJoinOutput-" + engine.name());
     Set<StructuredRecord> expected = ImmutableSet.of(joinRecordSamuel, joinRecordJane);
     Set<StructuredRecord> actual = Sets.newHashSet(MockSink.readOutput(sinkManager));
     Assert.assertEquals(expected, actual);
@@ -843,7 +922,31 @@ public class DataPipelineTest extends HydratorTestBase {
   }
 
   @Test
-  public void testOuterJoin() throws Exception {
+  public void testMapRedOuterJoin() throws Exception {
+    testOuterJoin(Engine.MAPREDUCE);
+  }
+
+  @Test
+  public void testSparkOuterJoin() throws Exception {
+    testOuterJoin(Engine.SPARK);
+  }
+
+  @Test
+  public void testMapRedBroadcastOuterJoin() throws Exception {
+    testOuterJoin(Engine.MAPREDUCE, "t2,t3", "Broadcast");
+  }
+
+  @Test
+  public void testSparkBroadcastOuterJoin() throws Exception {
+    testOuterJoin(Engine.SPARK, "t2,t3", "Broadcast");
+  }
+
+  private void testOuterJoin(Engine engine) throws Exception {
+    testOuterJoin(engine, "", "");
+  }
+
+  private void testOuterJoin(Engine engine, String broadcastInputs, String namePrefix) throws Exception {
+    String suffix = namePrefix + engine.name();
     Schema inputSchema1 = Schema.recordOf(
       "customerRecord",
       Schema.Field.of("customer_id", Schema.of(Schema.Type.STRING)),
@@ -866,15 +969,16 @@ public class DataPipelineTest extends HydratorTestBase {
     );
 
     ETLBatchConfig etlConfig = ETLBatchConfig.builder("* * * * *")
-      .addStage(new ETLStage("source1", MockSource.getPlugin("source1OuterJoinInput")))
-      .addStage(new ETLStage("source2", MockSource.getPlugin("source2OuterJoinInput")))
-      .addStage(new ETLStage("source3", MockSource.getPlugin("source3OuterJoinInput")))
+      .addStage(new ETLStage("source1", MockSource.getPlugin("source1OuterJoinInput-" + suffix)))
+      .addStage(new ETLStage("source2", MockSource.getPlugin("source2OuterJoinInput-" + suffix)))
+      .addStage(new ETLStage("source3", MockSource.getPlugin("source3OuterJoinInput-" + suffix)))
       .addStage(new ETLStage("t1", FieldsPrefixTransform.getPlugin("", inputSchema1.toString())))
       .addStage(new ETLStage("t2", FieldsPrefixTransform.getPlugin("", inputSchema2.toString())))
       .addStage(new ETLStage("t3", FieldsPrefixTransform.getPlugin("", inputSchema3.toString())))
       .addStage(new ETLStage("testJoiner", MockJoiner.getPlugin("t1.customer_id=t2.cust_id=t3.c_id&" +
-                                                                  "t1.customer_name=t2.cust_name=t3.c_name", "t1", "")))
-      .addStage(new ETLStage("sink1", MockSink.getPlugin("outerJoinOutput")))
+                                                                  "t1.customer_name=t2.cust_name=t3.c_name", "t1", "",
+                                                                broadcastInputs, null)))
+      .addStage(new ETLStage("sink1", MockSink.getPlugin("outerJoinOutput-" + suffix)))
       .addConnection("source1", "t1")
       .addConnection("source2", "t2")
       .addConnection("source3", "t3")
@@ -882,11 +986,11 @@ public class DataPipelineTest extends HydratorTestBase {
       .addConnection("t2", "testJoiner")
       .addConnection("t3", "testJoiner")
       .addConnection("testJoiner", "sink1")
-      .setEngine(Engine.MAPREDUCE)
+      .setEngine(engine)
       .build();
 
     AppRequest<ETLBatchConfig> appRequest = new AppRequest<>(APP_ARTIFACT, etlConfig);
-    Id.Application appId = Id.Application.from(Id.Namespace.DEFAULT, "JoinerApp");
+    Id.Application appId = Id.Application.from(Id.Namespace.DEFAULT, "JoinerApp-" + suffix);
     ApplicationManager appManager = deployApplication(appId, appRequest);
 
     Schema outSchema = Schema.recordOf(
@@ -923,11 +1027,11 @@ public class DataPipelineTest extends HydratorTestBase {
       .set("c_name", "jane").build();
 
     // write one record to each source
-    DataSetManager<Table> inputManager = getDataset(Id.Namespace.DEFAULT, "source1OuterJoinInput");
+    DataSetManager<Table> inputManager = getDataset(Id.Namespace.DEFAULT, "source1OuterJoinInput-" + suffix);
     MockSource.writeInput(inputManager, ImmutableList.of(recordSamuel, recordBob, recordJane, recordMartha));
-    inputManager = getDataset(Id.Namespace.DEFAULT, "source2OuterJoinInput");
+    inputManager = getDataset(Id.Namespace.DEFAULT, "source2OuterJoinInput-" + suffix);
     MockSource.writeInput(inputManager, ImmutableList.of(recordCar, recordBike));
-    inputManager = getDataset(Id.Namespace.DEFAULT, "source3OuterJoinInput");
+    inputManager = getDataset(Id.Namespace.DEFAULT, "source3OuterJoinInput-" + suffix);
     MockSource.writeInput(inputManager, ImmutableList.of(recordTrasCar, recordTrasPlane, recordTrasBike));
 
     WorkflowManager workflowManager = appManager.getWorkflowManager(SmartWorkflow.NAME);
@@ -952,7 +1056,7 @@ public class DataPipelineTest extends HydratorTestBase {
     StructuredRecord joinRecordMartha = StructuredRecord.builder(outSchema)
       .set("customer_id", "4").set("customer_name", "martha").build();
 
-    DataSetManager<Table> sinkManager = getDataset("outerJoinOutput");
+    DataSetManager<Table> sinkManager = getDataset("outerJoinOutput-" + suffix);
     Set<StructuredRecord> expected = ImmutableSet.of(joinRecordSamuel, joinRecordJane, joinRecordBob, joinRecordMartha);
     Set<StructuredRecord> actual = Sets.newHashSet(MockSink.readOutput(sinkManager));
     Assert.assertEquals(expected, actual);
@@ -961,6 +1065,91 @@ public class DataPipelineTest extends HydratorTestBase {
     validateMetric(4, appId, "sink1.records.in");
   }
 
+  @Test
+  public void testSparkSkewedJoin() throws Exception {
+    Schema customerSchema = Schema.recordOf(
+      "customerRecord",
+      Schema.Field.of("customer_id", Schema.of(Schema.Type.STRING)),
+      Schema.Field.of("customer_name", Schema.of(Schema.Type.STRING))
+    );
+
+    Schema itemSchema = Schema.recordOf(
+      "itemRecord",
+      Schema.Field.of("item_id", Schema.of(Schema.Type.STRING)),
+      Schema.Field.of("cust_id", Schema.of(Schema.Type.STRING))
+    );
+
+    ETLBatchConfig etlConfig = ETLBatchConfig.builder("* * * * *")
+      .addStage(new ETLStage("source1", MockSource.getPlugin("source1SkewedJoinInput")))
+      .addStage(new ETLStage("source2", MockSource.getPlugin("source2SkewedJoinInput")))
+      .addStage(new ETLStage("t1", FieldsPrefixTransform.getPlugin("", customerSchema.toString())))
+      .addStage(new ETLStage("t2", FieldsPrefixTransform.getPlugin("", itemSchema.toString())))
+      .addStage(new ETLStage("testJoiner", MockJoiner.getPlugin("t1.customer_id=t2.cust_id", "t1,t2", "", "", 4)))
+      .addStage(new ETLStage("sink1", MockSink.getPlugin("skewedJoinOutput")))
+      .addConnection("source1", "t1")
+      .addConnection("source2", "t2")
+      .addConnection("t1", "testJoiner")
+      .addConnection("t2", "testJoiner")
+      .addConnection("testJoiner", "sink1")
+      .setEngine(Engine.SPARK)
+      .build();
+
+    AppRequest<ETLBatchConfig> appRequest = new AppRequest<>(APP_ARTIFACT, etlConfig);
+    Id.Application appId = Id.Application.from(Id.Namespace.DEFAULT, "SkewedJoinerApp");
+    ApplicationManager appManager = deployApplication(appId, appRequest);
+
+    Schema outSchema = Schema.recordOf(
+      "join.output",
+      Schema.Field.of("customer_id", Schema.of(Schema.Type.STRING)),
+      Schema.Field.of("customer_name", Schema.of(Schema.Type.STRING)),
+      Schema.Field.of("item_id", Schema.of(Schema.Type.STRING)),
+      Schema.Field.of("cust_id", Schema.of(Schema.Type.STRING)));
+
+    StructuredRecord recordSamuel = StructuredRecord.builder(customerSchema).set("customer_id", "1")
+      .set("customer_name", "samuel").build();
+    StructuredRecord recordBob = StructuredRecord.builder(customerSchema).set("customer_id", "2")
+      .set("customer_name", "bob").build();
+    StructuredRecord recordJane = StructuredRecord.builder(customerSchema).set("customer_id", "3")
+      .set("customer_name", "jane").build();
+
+    // samuel has many equal items, which makes his join key skewed
+    StructuredRecord recordCar = StructuredRecord.builder(itemSchema).set("item_id", "11").set("cust_id", "1").build();
+    StructuredRecord recordBike = StructuredRecord.builder(itemSchema).set("item_id", "22").set("cust_id", "2").build();
+    List<StructuredRecord> items = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      items.add(recordCar);
+    }
+    items.add(recordBike);
+
+    DataSetManager<Table> inputManager = getDataset(Id.Namespace.DEFAULT, "source1SkewedJoinInput");
+    MockSource.writeInput(inputManager, ImmutableList.of(recordSamuel, recordBob, recordJane));
+    inputManager = getDataset(Id.Namespace.DEFAULT, "source2SkewedJoinInput");
+    MockSource.writeInput(inputManager, items);
+
+    WorkflowManager workflowManager = appManager.getWorkflowManager(SmartWorkflow.NAME);
+    workflowManager.start(ImmutableMap.of("cdap.etl.join.skewed.key.records", "100"));
+    workflowManager.waitForFinish(5, TimeUnit.MINUTES);
+
+    StructuredRecord joinRecordSamuel = StructuredRecord.builder(outSchema)
+      .set("customer_id", "1").set("customer_name", "samuel").set("item_id", "11").set("cust_id", "1").build();
+    StructuredRecord joinRecordBob = StructuredRecord.builder(outSchema)
+      .set("customer_id", "2").set("customer_name", "bob").set("item_id", "22").set("cust_id", "2").build();
+
+    DataSetManager<Table> sinkManager = getDataset("skewedJoinOutput");
+    Multiset<StructuredRecord> expected = HashMultiset.create();
+    expected.add(joinRecordSamuel, 1000);
+    expected.add(joinRecordBob);
+    Multiset<StructuredRecord> actual = HashMultiset.create(MockSink.readOutput(sinkManager));
+    Assert.assertEquals(expected, actual);
+
+    // sampling the inputs for skewed join keys must not read the sources again
+    validateMetric(3, appId, "source1.records.out");
+    validateMetric(1001, appId, "source2.records.out");
+    validateMetric(1001, appId, "t2.records.out");
+    validateMetric(1001, appId, "testJoiner.records.out");
+    validateMetric(1001, appId, "sink1.records.in");
+  }
+
   private void validateMetric(long expected, Id.Application appId,
                               String metric) throws TimeoutException, InterruptedException {
     Map<String, String> tags = ImmutableMap.of(Constants.Metrics.Tag.NAMESPACE, appId.getNamespaceId(),
@@ -33,14 +33,15 @@ public final class CacheConfig {
   }
 
   /**
-   * @return expiry after write in seconds
+   * @return expiry after write in seconds, or 0 if entries never expire
    */
   public long getExpirySeconds() {
     return expirySeconds;
   }
 
   /**
-   * @return maximum number of elements in the cache
+   * @return maximum number of elements in the cache, or 0 to use a default maximum. Keys without a value are
+   * cached as well and count towards the maximum
    */
   public int getMaxSize() {
     return maxSize;
@@ -0,0 +1,54 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.etl.api;
+
+import co.cask.cdap.api.annotation.Beta;
+
+import java.util.Iterator;
+
+/**
+ * An {@link Aggregator} whose group values can be partially aggregated before they are grouped, which greatly
+ * reduces the amount of data that needs to be grouped for aggregations like count, sum, min or max.
+ * <p>
+ * Each group value is the initial partial aggregate for its group. Partial aggregates of the same group
+ * are combined with {@link #merge(Object, Object, Object)}, in any order and any number of times, before they are
+ * passed to {@link #aggregate(Object, Iterator, Emitter)}. A partial aggregate therefore has the same type as
+ * the group values, and {@link #aggregate(Object, Iterator, Emitter)} must produce the same result no matter
+ * whether it is given the original group values or partial aggregates of them. For example, an aggregator that
+ * counts the records in each group would use group values that carry a count, with {@code merge} adding the
+ * counts and {@code aggregate} summing them up.
+ * </p>
+ *
+ * @param <GROUP_KEY> Type of group key
+ * @param <GROUP_VALUE> Type of values to group, which is also the type of partial aggregates
+ * @param <OUT> Type of output object
+ */
+@Beta
+public interface CombinableAggregator<GROUP_KEY, GROUP_VALUE, OUT> extends Aggregator<GROUP_KEY, GROUP_VALUE, OUT> {
+
+  /**
+   * Merges two partial aggregates of the same group into one. The function must be associative and commutative,
+   * and must not modify the given values, since a group value can be part of more than one group.
+   *
+   * @param groupKey the key for the group
+   * @param value1 a partial aggregate of the group
+   * @param value2 another partial aggregate of the group
+   * @return the partial aggregate of both values
+   * @throws Exception if there is some error merging
+   */
+  GROUP_VALUE merge(GROUP_KEY groupKey, GROUP_VALUE value1, GROUP_VALUE value2) throws Exception;
+}
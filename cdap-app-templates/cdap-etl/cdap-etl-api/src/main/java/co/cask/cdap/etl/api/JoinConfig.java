@@ -16,11 +16,16 @@
 
 package co.cask.cdap.etl.api;
 
+import co.cask.cdap.api.annotation.Beta;
+
+import java.util.Collections;
+
 /**
  * Join configuration to hold information about join to be performed
  */
 public class JoinConfig {
   private Iterable<String> requiredInputs;
+  private Iterable<String> broadcastInputs;
 
   /**
    * Creates new instance of {@link JoinConfig}
@@ -30,7 +35,22 @@ public class JoinConfig {
    * meet join criteria.
    */
   public JoinConfig(Iterable<String> requiredInputs) {
+    this(requiredInputs, Collections.<String>emptyList());
+  }
+
+  /**
+   * Creates new instance of {@link JoinConfig}
+   * @param requiredInputs iterable of input stage names. This will be used to find out type of the join.
+   * @param broadcastInputs iterable of input stage names that are small enough to be held in memory.
+   * This is an experimental hint. The Spark engine broadcasts these inputs and joins them without a shuffle,
+   * so the largest input should never be included. The MapReduce engine still joins on the reduce side, and only
+   * uses the hint to decide in which order the records of a join key are iterated.
+   * @see #JoinConfig(Iterable)
+   */
+  @Beta
+  public JoinConfig(Iterable<String> requiredInputs, Iterable<String> broadcastInputs) {
     this.requiredInputs = requiredInputs;
+    this.broadcastInputs = broadcastInputs;
   }
 
   /**
@@ -40,4 +60,13 @@ public class JoinConfig {
   public Iterable<String> getRequiredInputs() {
     return requiredInputs;
   }
+
+  /**
+   * Returns inputs that are small enough to be held in memory.
+   * @return iterable of broadcast inputs
+   */
+  @Beta
+  public Iterable<String> getBroadcastInputs() {
+    return broadcastInputs == null ? Collections.<String>emptyList() : broadcastInputs;
+  }
 }
@@ -37,6 +37,7 @@ public class LookupTableConfig {
   private final Map<String, String> datasetProperties;
   private final CacheConfig cacheConfig;
   private final boolean cacheEnabled;
+  private final boolean preloadEnabled;
 
   /**
    * @param type type of lookup table
@@ -46,10 +47,24 @@ public class LookupTableConfig {
    */
   public LookupTableConfig(TableType type, CacheConfig cacheConfig,
                            Map<String, String> datasetProperties, boolean cacheEnabled) {
+    this(type, cacheConfig, datasetProperties, cacheEnabled, false);
+  }
+
+  /**
+   * @param type type of lookup table
+   * @param cacheConfig cache config
+   * @param datasetProperties runtime dataset properties
+   * @param cacheEnabled true if caching is desired
+   * @param preloadEnabled true if the whole table should be loaded into memory when the lookup is created.
+   *                       This should only be used for small tables, and takes precedence over caching.
+   */
+  public LookupTableConfig(TableType type, CacheConfig cacheConfig,
+                           Map<String, String> datasetProperties, boolean cacheEnabled, boolean preloadEnabled) {
     this.type = type;
     this.cacheConfig = cacheConfig;
     this.datasetProperties = datasetProperties;
     this.cacheEnabled = cacheEnabled;
+    this.preloadEnabled = preloadEnabled;
   }
 
   /**
@@ -71,6 +86,10 @@ public class LookupTableConfig {
     return cacheEnabled;
   }
 
+  public boolean isPreloadEnabled() {
+    return preloadEnabled;
+  }
+
   public CacheConfig getCacheConfig() {
     return cacheConfig;
   }
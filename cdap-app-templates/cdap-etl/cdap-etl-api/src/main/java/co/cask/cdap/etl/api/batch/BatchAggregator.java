@@ -36,6 +36,8 @@ import java.util.Iterator;
  * it must implement Hadoop's org.apache.hadoop.io.Writable interface.
  * If the aggregator is being used in spark, both the group key and value must implement the
  * {@link java.io.Serializable} interface.
+ * A BatchAggregator can also implement {@link co.cask.cdap.etl.api.CombinableAggregator} to have its group values
+ * partially aggregated before they are shuffled.
  *
  * @param <GROUP_KEY> group key type. Must be a supported type
  * @param <GROUP_VALUE> group value type. Must be a supported type
@@ -56,10 +56,10 @@ public class PipelinePluginInstantiator {
   public <T> T newPluginInstance(String stageName, MacroEvaluator macroEvaluator) throws InstantiationException {
     if (connectorSources.contains(stageName)) {
       String datasetName = phaseSpec.getConnectorDatasets().get(stageName);
-      return (T) new ConnectorSource(datasetName, null);
+      return (T) new ConnectorSource(datasetName);
     } else if (connectorSinks.contains(stageName)) {
       String datasetName = phaseSpec.getConnectorDatasets().get(stageName);
-      return (T) new ConnectorSink(datasetName, phaseSpec.getPhaseName(), true);
+      return (T) new ConnectorSink(datasetName, phaseSpec.getPhaseName());
     }
 
     return pluginContext.newPluginInstance(stageName, macroEvaluator);
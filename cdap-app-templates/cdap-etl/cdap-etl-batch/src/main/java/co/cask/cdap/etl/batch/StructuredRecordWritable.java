@@ -19,20 +19,75 @@ package co.cask.cdap.etl.batch;
 import co.cask.cdap.api.common.Bytes;
 import co.cask.cdap.api.data.format.StructuredRecord;
 import co.cask.cdap.api.data.schema.Schema;
-import co.cask.cdap.format.StructuredRecordStringConverter;
+import co.cask.cdap.api.data.schema.SchemaHash;
+import co.cask.cdap.internal.io.SchemaTypeAdapter;
+import com.google.common.collect.Lists;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import org.apache.hadoop.conf.Configurable;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.DataOutputBuffer;
 import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.io.WritableComparator;
+import org.apache.hadoop.io.WritableUtils;
 
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.annotation.Nullable;
 
 /**
  * Wrapper around a {@link StructuredRecord} so that it can be used as the output key and/or value of a mapper.
- * This is not very performant and must be improved soon (CDAP-5347).
+ * <p>
+ * Records are serialized in a compact binary format. The schema of the record is identified by its
+ * {@link SchemaHash} if it was registered for the job through {@link #registerSchemas(Configuration, Iterable)},
+ * and is written in full otherwise. The values are written in schema order without any field names, with integers
+ * as variable length longs, strings and bytes with a variable length prefix, and map entries sorted by key so that
+ * equal records always have the same serialized form. This makes it possible to group records by comparing their
+ * serialized bytes with the {@link Comparator} registered for this class, without deserializing them.
+ * </p>
  */
-public class StructuredRecordWritable implements WritableComparable<StructuredRecordWritable> {
+public class StructuredRecordWritable implements WritableComparable<StructuredRecordWritable>, Configurable {
+
+  /**
+   * Configuration key for the schemas registered for the job.
+   */
+  public static final String SCHEMAS_KEY = "cdap.etl.structured.record.schemas";
+
+  private static final Gson GSON = new GsonBuilder()
+    .registerTypeAdapter(Schema.class, new SchemaTypeAdapter())
+    .create();
+  private static final Type SCHEMA_LIST_TYPE = new TypeToken<List<Schema>>() { }.getType();
+
+  // Leading byte of the serialized form, telling how the schema is stored
+  private static final byte SCHEMA_HASH = 0;
+  private static final byte SCHEMA_INLINE = 1;
+  private static final int SCHEMA_HASH_SIZE = 16;
+
+  // Schemas registered for the jobs running in this JVM, keyed by hash
+  private static final ConcurrentMap<SchemaHash, Schema> SCHEMAS = new ConcurrentHashMap<>();
+
+  static {
+    WritableComparator.define(StructuredRecordWritable.class, new Comparator());
+  }
+
   private StructuredRecord record;
+  private Configuration conf;
 
   // required by Hadoop
   @SuppressWarnings("unused")
@@ -43,6 +98,53 @@ public class StructuredRecordWritable implements WritableComparable<StructuredRe
     this.record = record;
   }
 
+  /**
+   * Registers the given schemas for a job, so that records of those schemas are serialized with the schema hash
+   * instead of the full schema. Must be called when configuring the job.
+   */
+  public static void registerSchemas(Configuration conf, Iterable<Schema> schemas) {
+    List<Schema> registered = getRegisteredSchemas(conf);
+    for (Schema schema : schemas) {
+      if (!registered.contains(schema)) {
+        registered.add(schema);
+      }
+    }
+    conf.set(SCHEMAS_KEY, GSON.toJson(registered, SCHEMA_LIST_TYPE));
+  }
+
+  /**
+   * Makes the schemas registered in the given job configuration known to this JVM. Must be called by tasks before
+   * any record is serialized. Instances created by Hadoop through {@link #setConf(Configuration)} do it implicitly.
+   */
+  public static void loadSchemas(Configuration conf) {
+    for (Schema schema : getRegisteredSchemas(conf)) {
+      SCHEMAS.putIfAbsent(schema.getSchemaHash(), schema);
+    }
+  }
+
+  private static List<Schema> getRegisteredSchemas(Configuration conf) {
+    String schemas = conf.get(SCHEMAS_KEY);
+    if (schemas == null) {
+      return new ArrayList<>();
+    }
+    return GSON.fromJson(schemas, SCHEMA_LIST_TYPE);
+  }
+
+  /**
+   * Writes the fields of the given record in the same binary format as {@link #write(DataOutput)}, but without the
+   * schema. It can be read back with {@link #readRecord(DataInput, Schema)} given the schema of the record.
+   */
+  public static void writeRecord(DataOutput out, StructuredRecord record) throws IOException {
+    writeValue(out, record.getSchema(), record);
+  }
+
+  /**
+   * Reads a record written by {@link #writeRecord(DataOutput, StructuredRecord)}.
+   */
+  public static StructuredRecord readRecord(DataInput in, Schema schema) throws IOException {
+    return (StructuredRecord) readValue(in, schema);
+  }
+
   public void set(StructuredRecord record) {
     this.record = record;
   }
@@ -51,35 +153,66 @@ public class StructuredRecordWritable implements WritableComparable<StructuredRe
     return record;
   }
 
-  @SuppressWarnings("ConstantConditions")
+  @Override
+  public void setConf(Configuration conf) {
+    this.conf = conf;
+    loadSchemas(conf);
+  }
+
+  @Override
+  public Configuration getConf() {
+    return conf;
+  }
+
   @Override
   public void write(DataOutput out) throws IOException {
-    String schemaStr = record.getSchema().toString();
-    String recordStr = StructuredRecordStringConverter.toJsonString(record);
-    out.writeInt(schemaStr.length());
-    out.write(Bytes.toBytes(schemaStr));
-    out.writeInt(recordStr.length());
-    out.write(Bytes.toBytes(recordStr));
+    Schema schema = record.getSchema();
+    SchemaHash schemaHash = schema.getSchemaHash();
+    if (SCHEMAS.containsKey(schemaHash)) {
+      out.writeByte(SCHEMA_HASH);
+      out.write(schemaHash.toByteArray());
+    } else {
+      out.writeByte(SCHEMA_INLINE);
+      writeBytes(out, Bytes.toBytes(schema.toString()));
+    }
+    writeRecord(out, record);
   }
 
   @Override
   public void readFields(DataInput in) throws IOException {
-    int schemaLen = in.readInt();
-    byte[] schemaBytes = new byte[schemaLen];
-    in.readFully(schemaBytes, 0, schemaLen);
-    String schemaStr = Bytes.toString(schemaBytes);
-    Schema schema = Schema.parseJson(schemaStr);
-
-    int recordLen = in.readInt();
-    byte[] recordBytes = new byte[recordLen];
-    in.readFully(recordBytes, 0, recordLen);
-    String recordStr = Bytes.toString(recordBytes);
-    this.record = StructuredRecordStringConverter.fromJsonString(recordStr, schema);
+    Schema schema;
+    byte schemaType = in.readByte();
+    if (schemaType == SCHEMA_HASH) {
+      byte[] hashBytes = new byte[SCHEMA_HASH_SIZE];
+      in.readFully(hashBytes);
+      SchemaHash schemaHash = new SchemaHash(ByteBuffer.wrap(hashBytes));
+      schema = SCHEMAS.get(schemaHash);
+      if (schema == null) {
+        throw new IOException("Schema with hash " + schemaHash + " is not registered");
+      }
+    } else if (schemaType == SCHEMA_INLINE) {
+      schema = Schema.parseJson(Bytes.toString(readBytes(in)));
+    } else {
+      throw new IOException("Invalid serialized record with schema type " + schemaType);
+    }
+    this.record = readRecord(in, schema);
   }
 
+  /**
+   * Compares the serialized form of the records, consistent with the {@link Comparator}.
+   */
   @Override
   public int compareTo(StructuredRecordWritable o) {
-    return Integer.compare(hashCode(), o.hashCode());
+    try {
+      DataOutputBuffer buffer = new DataOutputBuffer();
+      write(buffer);
+      DataOutputBuffer otherBuffer = new DataOutputBuffer();
+      o.write(otherBuffer);
+      return WritableComparator.compareBytes(buffer.getData(), 0, buffer.getLength(),
+                                             otherBuffer.getData(), 0, otherBuffer.getLength());
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to serialize record for comparison", e);
+    }
   }
 
   @Override
@@ -100,4 +233,231 @@ public class StructuredRecordWritable implements WritableComparable<StructuredRe
   public int hashCode() {
     return record != null ? record.hashCode() : 0;
   }
+
+  private static void writeValue(DataOutput out, Schema schema, @Nullable Object value) throws IOException {
+    if (value == null && schema.getType() != Schema.Type.NULL && schema.getType() != Schema.Type.UNION) {
+      throw new IOException("Null value for non-nullable schema " + schema);
+    }
+    switch (schema.getType()) {
+      case NULL:
+        break;
+      case BOOLEAN:
+        out.writeBoolean((Boolean) value);
+        break;
+      case INT:
+      case LONG:
+        WritableUtils.writeVLong(out, ((Number) value).longValue());
+        break;
+      case FLOAT:
+        out.writeInt(Float.floatToIntBits(((Number) value).floatValue()));
+        break;
+      case DOUBLE:
+        out.writeLong(Double.doubleToLongBits(((Number) value).doubleValue()));
+        break;
+      case BYTES:
+        writeBytes(out, value instanceof ByteBuffer ? Bytes.toBytes((ByteBuffer) value) : (byte[]) value);
+        break;
+      case STRING:
+        writeBytes(out, Bytes.toBytes((String) value));
+        break;
+      case ENUM:
+        String enumValue = value instanceof Enum ? ((Enum) value).name() : value.toString();
+        int idx = schema.getEnumIndex(enumValue);
+        if (idx < 0) {
+          throw new IOException("Invalid enum value " + enumValue + " for schema " + schema);
+        }
+        WritableUtils.writeVInt(out, idx);
+        break;
+      case ARRAY:
+        Collection<?> collection = value instanceof Collection ? (Collection<?>) value : toList(value);
+        WritableUtils.writeVInt(out, collection.size());
+        for (Object element : collection) {
+          writeValue(out, schema.getComponentSchema(), element);
+        }
+        break;
+      case MAP:
+        // Sort the entries by their serialized keys, so that equal maps are always serialized the same way
+        SortedMap<byte[], Object> entries = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+        for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+          DataOutputBuffer keyBuffer = new DataOutputBuffer();
+          writeValue(keyBuffer, schema.getMapSchema().getKey(), entry.getKey());
+          entries.put(Arrays.copyOf(keyBuffer.getData(), keyBuffer.getLength()), entry.getValue());
+        }
+        WritableUtils.writeVInt(out, entries.size());
+        for (Map.Entry<byte[], Object> entry : entries.entrySet()) {
+          out.write(entry.getKey());
+          writeValue(out, schema.getMapSchema().getValue(), entry.getValue());
+        }
+        break;
+      case RECORD:
+        StructuredRecord record = (StructuredRecord) value;
+        for (Schema.Field field : schema.getFields()) {
+          writeValue(out, field.getSchema(), record.get(field.getName()));
+        }
+        break;
+      case UNION:
+        int unionIdx = findUnionIndex(schema, value);
+        WritableUtils.writeVInt(out, unionIdx);
+        writeValue(out, schema.getUnionSchema(unionIdx), value);
+        break;
+      default:
+        throw new IOException("Unsupported schema " + schema);
+    }
+  }
+
+  @Nullable
+  private static Object readValue(DataInput in, Schema schema) throws IOException {
+    switch (schema.getType()) {
+      case NULL:
+        return null;
+      case BOOLEAN:
+        return in.readBoolean();
+      case INT:
+        return (int) WritableUtils.readVLong(in);
+      case LONG:
+        return WritableUtils.readVLong(in);
+      case FLOAT:
+        return Float.intBitsToFloat(in.readInt());
+      case DOUBLE:
+        return Double.longBitsToDouble(in.readLong());
+      case BYTES:
+        return readBytes(in);
+      case STRING:
+        return Bytes.toString(readBytes(in));
+      case ENUM:
+        // Same as the json conversion, there is no standard container to represent enum type
+        return schema.getEnumValue(WritableUtils.readVInt(in));
+      case ARRAY:
+        int size = WritableUtils.readVInt(in);
+        List<Object> list = Lists.newArrayListWithCapacity(size);
+        for (int i = 0; i < size; i++) {
+          list.add(readValue(in, schema.getComponentSchema()));
+        }
+        return list;
+      case MAP:
+        int entries = WritableUtils.readVInt(in);
+        Map<Object, Object> map = new HashMap<>();
+        for (int i = 0; i < entries; i++) {
+          Object key = readValue(in, schema.getMapSchema().getKey());
+          map.put(key, readValue(in, schema.getMapSchema().getValue()));
+        }
+        return map;
+      case RECORD:
+        StructuredRecord.Builder builder = StructuredRecord.builder(schema);
+        for (Schema.Field field : schema.getFields()) {
+          builder.set(field.getName(), readValue(in, field.getSchema()));
+        }
+        return builder.build();
+      case UNION:
+        int unionIdx = WritableUtils.readVInt(in);
+        if (unionIdx < 0 || unionIdx >= schema.getUnionSchemas().size()) {
+          throw new IOException("Invalid union index " + unionIdx + " for schema " + schema);
+        }
+        return readValue(in, schema.getUnionSchema(unionIdx));
+      default:
+        throw new IOException("Unsupported schema " + schema);
+    }
+  }
+
+  private static void writeBytes(DataOutput out, byte[] bytes) throws IOException {
+    WritableUtils.writeVInt(out, bytes.length);
+    out.write(bytes);
+  }
+
+  private static byte[] readBytes(DataInput in) throws IOException {
+    byte[] bytes = new byte[WritableUtils.readVInt(in)];
+    in.readFully(bytes);
+    return bytes;
+  }
+
+  private static List<?> toList(Object array) throws IOException {
+    if (!array.getClass().isArray()) {
+      throw new IOException("Expects either Collection or array. Got: " + array.getClass());
+    }
+    int length = Array.getLength(array);
+    List<Object> list = new ArrayList<>(length);
+    for (int i = 0; i < length; i++) {
+      list.add(Array.get(array, i));
+    }
+    return list;
+  }
+
+  /**
+   * Finds the branch of the union schema for the given value by matching the type only, the same as the json
+   * conversion of {@link StructuredRecord}.
+   */
+  private static int findUnionIndex(Schema unionSchema, @Nullable Object value) throws IOException {
+    Schema.Type type = getSchemaType(value);
+    List<Schema> schemas = unionSchema.getUnionSchemas();
+    for (int i = 0; i < schemas.size(); i++) {
+      if (schemas.get(i).getType() == type) {
+        return i;
+      }
+    }
+    // Enum values are represented as strings after deserialization
+    if (type == Schema.Type.STRING) {
+      for (int i = 0; i < schemas.size(); i++) {
+        if (schemas.get(i).getType() == Schema.Type.ENUM) {
+          return i;
+        }
+      }
+    }
+    throw new IOException("Value type " + type + " not valid in union: " + unionSchema);
+  }
+
+  private static Schema.Type getSchemaType(@Nullable Object value) throws IOException {
+    if (value == null) {
+      return Schema.Type.NULL;
+    }
+    if (value instanceof Boolean) {
+      return Schema.Type.BOOLEAN;
+    }
+    if (value instanceof Byte || value instanceof Short || value instanceof Integer) {
+      return Schema.Type.INT;
+    }
+    if (value instanceof Long) {
+      return Schema.Type.LONG;
+    }
+    if (value instanceof Float) {
+      return Schema.Type.FLOAT;
+    }
+    if (value instanceof Double) {
+      return Schema.Type.DOUBLE;
+    }
+    if (value instanceof String) {
+      return Schema.Type.STRING;
+    }
+    if (value instanceof Enum) {
+      return Schema.Type.ENUM;
+    }
+    if (value instanceof ByteBuffer || value instanceof byte[]) {
+      return Schema.Type.BYTES;
+    }
+    if (value instanceof StructuredRecord) {
+      return Schema.Type.RECORD;
+    }
+    if (value instanceof Collection || value.getClass().isArray()) {
+      return Schema.Type.ARRAY;
+    }
+    if (value instanceof Map) {
+      return Schema.Type.MAP;
+    }
+    throw new IOException("Unsupported value type " + value.getClass());
+  }
+
+  /**
+   * A {@link WritableComparator} that compares serialized {@link StructuredRecordWritable} without deserializing
+   * them. Records are equal if and only if their serialized forms are equal.
+   */
+  public static final class Comparator extends WritableComparator {
+
+    public Comparator() {
+      super(StructuredRecordWritable.class);
+    }
+
+    @Override
+    public int compare(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2) {
+      return compareBytes(b1, s1, l1, b2, s2, l2);
+    }
+  }
 }
@@ -0,0 +1,101 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.etl.batch.connector;
+
+import co.cask.cdap.api.data.schema.Schema;
+import co.cask.cdap.etl.batch.StructuredRecordWritable;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.SequenceFileRecordReader;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Input format for the files written by {@link ConnectorOutputFormat}. Files are splittable at the sync markers of
+ * the sequence files, whether they are compressed or not.
+ */
+public class ConnectorInputFormat extends FileInputFormat<NullWritable, StructuredRecordWritable> {
+
+  @Override
+  public RecordReader<NullWritable, StructuredRecordWritable> createRecordReader(InputSplit split,
+                                                                                  TaskAttemptContext context) {
+    return new ConnectorRecordReader();
+  }
+
+  /**
+   * Reads records from a connector file.
+   */
+  private static final class ConnectorRecordReader extends RecordReader<NullWritable, StructuredRecordWritable> {
+    private final SequenceFileRecordReader<Text, BytesWritable> reader = new SequenceFileRecordReader<>();
+    // schemas are parsed once per distinct key
+    private final Map<Text, Schema> schemas = new HashMap<>();
+    private final DataInputBuffer in = new DataInputBuffer();
+    private StructuredRecordWritable value;
+
+    @Override
+    public void initialize(InputSplit split, TaskAttemptContext context) throws IOException, InterruptedException {
+      reader.initialize(split, context);
+    }
+
+    @Override
+    public boolean nextKeyValue() throws IOException, InterruptedException {
+      if (!reader.nextKeyValue()) {
+        value = null;
+        return false;
+      }
+      Text schemaKey = reader.getCurrentKey();
+      Schema schema = schemas.get(schemaKey);
+      if (schema == null) {
+        schema = Schema.parseJson(schemaKey.toString());
+        // the reader reuses the key object
+        schemas.put(new Text(schemaKey), schema);
+      }
+      BytesWritable bytes = reader.getCurrentValue();
+      in.reset(bytes.getBytes(), bytes.getLength());
+      value = new StructuredRecordWritable(StructuredRecordWritable.readRecord(in, schema));
+      return true;
+    }
+
+    @Override
+    public NullWritable getCurrentKey() {
+      return NullWritable.get();
+    }
+
+    @Override
+    public StructuredRecordWritable getCurrentValue() {
+      return value;
+    }
+
+    @Override
+    public float getProgress() throws IOException {
+      return reader.getProgress();
+    }
+
+    @Override
+    public void close() throws IOException {
+      reader.close();
+    }
+  }
+}
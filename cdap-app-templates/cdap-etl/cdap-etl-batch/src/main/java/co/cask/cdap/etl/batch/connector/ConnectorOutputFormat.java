@@ -0,0 +1,109 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.etl.batch.connector;
+
+import co.cask.cdap.api.data.format.StructuredRecord;
+import co.cask.cdap.api.data.schema.Schema;
+import co.cask.cdap.etl.batch.StructuredRecordWritable;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.DefaultCodec;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.util.ReflectionUtils;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Output format for the files of a connector between pipeline phases. Files are written as {@link SequenceFile}s,
+ * with the schema of a record as key and the record as value. Records are written in the binary format of
+ * {@link StructuredRecordWritable#writeRecord(java.io.DataOutput, StructuredRecord)}.
+ * <p>
+ * If output compression is enabled, the files are block compressed with the codec configured for the job.
+ * Since keys are compressed separately from the values in a block, the schema repeated in every key takes up
+ * almost no space. The sync markers of the sequence file keep the files splittable, compressed or not.
+ * </p>
+ */
+public class ConnectorOutputFormat extends FileOutputFormat<NullWritable, StructuredRecordWritable> {
+
+  @Override
+  public RecordWriter<NullWritable, StructuredRecordWritable> getRecordWriter(TaskAttemptContext job)
+    throws IOException, InterruptedException {
+    Configuration conf = job.getConfiguration();
+    SequenceFile.CompressionType compressionType = SequenceFile.CompressionType.NONE;
+    CompressionCodec codec = null;
+    if (getCompressOutput(job)) {
+      compressionType = SequenceFile.CompressionType.BLOCK;
+      Class<? extends CompressionCodec> codecClass = getOutputCompressorClass(job, DefaultCodec.class);
+      codec = ReflectionUtils.newInstance(codecClass, conf);
+    }
+    Path file = getDefaultWorkFile(job, "");
+    SequenceFile.Writer writer = SequenceFile.createWriter(conf,
+                                                           SequenceFile.Writer.file(file),
+                                                           SequenceFile.Writer.keyClass(Text.class),
+                                                           SequenceFile.Writer.valueClass(BytesWritable.class),
+                                                           SequenceFile.Writer.compression(compressionType, codec),
+                                                           SequenceFile.Writer.progressable(job));
+    return new ConnectorRecordWriter(writer);
+  }
+
+  /**
+   * Writes records to a connector file.
+   */
+  private static final class ConnectorRecordWriter extends RecordWriter<NullWritable, StructuredRecordWritable> {
+    private final SequenceFile.Writer writer;
+    private final Map<Schema, Text> schemaKeys;
+    private final DataOutputBuffer buffer;
+    private final BytesWritable value;
+
+    private ConnectorRecordWriter(SequenceFile.Writer writer) {
+      this.writer = writer;
+      this.schemaKeys = new HashMap<>();
+      this.buffer = new DataOutputBuffer();
+      this.value = new BytesWritable();
+    }
+
+    @Override
+    public void write(NullWritable key, StructuredRecordWritable value) throws IOException {
+      StructuredRecord record = value.get();
+      Schema schema = record.getSchema();
+      Text schemaKey = schemaKeys.get(schema);
+      if (schemaKey == null) {
+        schemaKey = new Text(schema.toString());
+        schemaKeys.put(schema, schemaKey);
+      }
+      buffer.reset();
+      StructuredRecordWritable.writeRecord(buffer, record);
+      this.value.set(buffer.getData(), 0, buffer.getLength());
+      writer.append(schemaKey, this.value);
+    }
+
+    @Override
+    public void close(TaskAttemptContext context) throws IOException {
+      writer.close();
+    }
+  }
+}
@@ -17,18 +17,15 @@
 package co.cask.cdap.etl.batch.connector;
 
 import co.cask.cdap.api.data.format.StructuredRecord;
-import co.cask.cdap.api.data.schema.Schema;
 import co.cask.cdap.api.dataset.lib.KeyValue;
 import co.cask.cdap.api.dataset.lib.PartitionKey;
 import co.cask.cdap.api.dataset.lib.PartitionedFileSetArguments;
 import co.cask.cdap.etl.api.Emitter;
 import co.cask.cdap.etl.api.batch.BatchSink;
 import co.cask.cdap.etl.api.batch.BatchSinkContext;
-import co.cask.cdap.format.StructuredRecordStringConverter;
+import co.cask.cdap.etl.batch.StructuredRecordWritable;
 import org.apache.hadoop.io.NullWritable;
-import org.apache.hadoop.io.Text;
 
-import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -44,17 +41,16 @@ import java.util.Map;
  * This is because we don't want this to show up as a plugin that users can select and use, and also because
  * it uses features not exposed in the etl api (local workflow datasets).
  *
- * TODO: improve storage format. It is currently a json of the record but that is obviously not ideal
+ * Records are written in the binary format of {@link ConnectorOutputFormat}, as sequence files that are block
+ * compressed by default.
  */
-public class ConnectorSink extends BatchSink<StructuredRecord, NullWritable, Text> {
+public class ConnectorSink extends BatchSink<StructuredRecord, NullWritable, StructuredRecordWritable> {
   private final String datasetName;
   private final String phaseName;
-  private final boolean writeSchema;
 
-  public ConnectorSink(String datasetName, String phaseName, boolean writeSchema) {
+  public ConnectorSink(String datasetName, String phaseName) {
     this.datasetName = datasetName;
     this.phaseName = phaseName;
-    this.writeSchema = writeSchema;
   }
 
   @Override
@@ -66,18 +62,8 @@ public class ConnectorSink extends BatchSink<StructuredRecord, NullWritable, Tex
   }
 
   @Override
-  public void transform(StructuredRecord input, Emitter<KeyValue<NullWritable, Text>> emitter) throws Exception {
-    if (writeSchema) {
-      input = modifyRecord(input);
-    }
-    emitter.emit(new KeyValue<>(NullWritable.get(), new Text(StructuredRecordStringConverter.toJsonString(input))));
-  }
-
-  private StructuredRecord modifyRecord(StructuredRecord input) throws IOException {
-    Schema inputSchema = input.getSchema();
-    return StructuredRecord.builder(ConnectorSource.RECORD_WITH_SCHEMA)
-      .set("schema", inputSchema.toString())
-      .set("record", StructuredRecordStringConverter.toJsonString(input))
-      .build();
+  public void transform(StructuredRecord input,
+                        Emitter<KeyValue<NullWritable, StructuredRecordWritable>> emitter) throws Exception {
+    emitter.emit(new KeyValue<>(NullWritable.get(), new StructuredRecordWritable(input)));
   }
 }
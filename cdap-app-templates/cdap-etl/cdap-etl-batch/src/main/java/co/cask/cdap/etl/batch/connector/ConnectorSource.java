@@ -18,7 +18,6 @@ package co.cask.cdap.etl.batch.connector;
 
 import co.cask.cdap.api.data.batch.Input;
 import co.cask.cdap.api.data.format.StructuredRecord;
-import co.cask.cdap.api.data.schema.Schema;
 import co.cask.cdap.api.dataset.lib.KeyValue;
 import co.cask.cdap.api.dataset.lib.PartitionDetail;
 import co.cask.cdap.api.dataset.lib.PartitionFilter;
@@ -30,15 +29,12 @@ import co.cask.cdap.api.workflow.WorkflowConfigurer;
 import co.cask.cdap.etl.api.Emitter;
 import co.cask.cdap.etl.api.batch.BatchSource;
 import co.cask.cdap.etl.api.batch.BatchSourceContext;
-import co.cask.cdap.format.StructuredRecordStringConverter;
-import org.apache.hadoop.io.LongWritable;
-import org.apache.hadoop.io.Text;
-import org.apache.hadoop.mapreduce.lib.input.TextInputFormat;
-import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
+import co.cask.cdap.etl.batch.StructuredRecordWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
 
 import java.util.HashMap;
 import java.util.Map;
-import javax.annotation.Nullable;
 
 /**
  * Internal batch source used as a connector between pipeline phases.
@@ -52,20 +48,14 @@ import javax.annotation.Nullable;
  * This is because we don't want this to show up as a plugin that users can select and use, and also because
  * it uses features not exposed in the etl api (local workflow datasets).
  *
- * TODO: improve storage format. It is currently a json of the record but that is obviously not ideal
+ * Records are stored in the binary format of {@link ConnectorOutputFormat}, as sequence files that are block
+ * compressed by default and can be split.
  */
-public class ConnectorSource extends BatchSource<LongWritable, Text, StructuredRecord> {
-  static final Schema RECORD_WITH_SCHEMA = Schema.recordOf(
-    "record",
-    Schema.Field.of("schema", Schema.of(Schema.Type.STRING)),
-    Schema.Field.of("record", Schema.of(Schema.Type.STRING)));
+public class ConnectorSource extends BatchSource<NullWritable, StructuredRecordWritable, StructuredRecord> {
   private final String datasetName;
-  @Nullable
-  private final Schema schema;
 
-  public ConnectorSource(String datasetName, @Nullable Schema schema) {
+  public ConnectorSource(String datasetName) {
     this.datasetName = datasetName;
-    this.schema = schema;
   }
 
   // not the standard configurePipeline method. Need a workflowConfigurer to create a local dataset
@@ -77,8 +67,9 @@ public class ConnectorSource extends BatchSource<LongWritable, Text, StructuredR
     workflowConfigurer.createLocalDataset(datasetName, PartitionedFileSet.class,
                                           PartitionedFileSetProperties.builder()
                                             .setPartitioning(partitioning)
-                                            .setInputFormat(TextInputFormat.class)
-                                            .setOutputFormat(TextOutputFormat.class)
+                                            .setInputFormat(ConnectorInputFormat.class)
+                                            .setOutputFormat(ConnectorOutputFormat.class)
+                                            .setOutputProperty(FileOutputFormat.COMPRESS, "true")
                                             .build());
   }
 
@@ -93,19 +84,9 @@ public class ConnectorSource extends BatchSource<LongWritable, Text, StructuredR
   }
 
   @Override
-  public void transform(KeyValue<LongWritable, Text> input,
+  public void transform(KeyValue<NullWritable, StructuredRecordWritable> input,
                         Emitter<StructuredRecord> emitter) throws Exception {
-    StructuredRecord output;
-    String inputStr = input.getValue().toString();
-    if (schema == null) {
-      StructuredRecord recordWithSchema =
-        StructuredRecordStringConverter.fromJsonString(inputStr, RECORD_WITH_SCHEMA);
-      Schema outputSchema = Schema.parseJson((String) recordWithSchema.get("schema"));
-      output = StructuredRecordStringConverter.fromJsonString((String) recordWithSchema.get("record"), outputSchema);
-    } else {
-      output = StructuredRecordStringConverter.fromJsonString(inputStr, schema);
-    }
-    emitter.emit(output);
+    emitter.emit(input.getValue().get());
   }
 
 }
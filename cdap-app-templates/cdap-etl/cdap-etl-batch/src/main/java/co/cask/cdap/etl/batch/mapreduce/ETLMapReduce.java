@@ -37,6 +37,7 @@ import co.cask.cdap.etl.api.batch.BatchSourceContext;
 import co.cask.cdap.etl.batch.BatchPhaseSpec;
 import co.cask.cdap.etl.batch.LoggedBatchConfigurable;
 import co.cask.cdap.etl.batch.PipelinePluginInstantiator;
+import co.cask.cdap.etl.batch.StructuredRecordWritable;
 import co.cask.cdap.etl.batch.conversion.WritableConversion;
 import co.cask.cdap.etl.batch.conversion.WritableConversions;
 import co.cask.cdap.etl.common.CompositeFinisher;
@@ -69,8 +70,10 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -84,6 +87,12 @@ public class ETLMapReduce extends AbstractMapReduce {
   static final String SINK_OUTPUTS_KEY = "cdap.etl.sink.outputs";
   static final String MAP_KEY_CLASS = "cdap.etl.map.key.class";
   static final String MAP_VAL_CLASS = "cdap.etl.map.val.class";
+  // maximum number of groups partially aggregated in memory by a mapper, 0 to disable partial aggregation
+  static final String COMBINE_MAX_GROUPS_KEY = "cdap.etl.combine.max.groups";
+  static final int DEFAULT_COMBINE_MAX_GROUPS = 10000;
+  // maximum number of records of a join key buffered in memory by a reducer before spilling to local disk
+  static final String JOIN_MAX_IN_MEMORY_RECORDS_KEY = "cdap.etl.join.max.in.memory.records";
+  static final int DEFAULT_JOIN_MAX_IN_MEMORY_RECORDS = 100000;
   static final Type RUNTIME_ARGS_TYPE = new TypeToken<Map<String, Map<String, String>>>() { }.getType();
   static final Type INPUT_ALIAS_TYPE = new TypeToken<Map<String, String>>() { }.getType();
   static final Type SINK_OUTPUTS_TYPE = new TypeToken<Map<String, SinkOutput>>() { }.getType();
@@ -228,7 +237,16 @@ public class ETLMapReduce extends AbstractMapReduce {
                                                                    BatchJoiner.PLUGIN_TYPE);
     if (!reducers.isEmpty()) {
       job.setReducerClass(ETLReducer.class);
-      String reducerName = reducers.iterator().next().getName();
+      StageInfo reducerInfo = reducers.iterator().next();
+      String reducerName = reducerInfo.getName();
+      // records going into the reducer are shuffled, register their schemas to avoid serializing them for each record
+      List<Schema> shuffleSchemas = new ArrayList<>();
+      for (Schema inputSchema : reducerInfo.getInputSchemas().values()) {
+        if (inputSchema != null) {
+          shuffleSchemas.add(inputSchema);
+        }
+      }
+      StructuredRecordWritable.registerSchemas(hConf, shuffleSchemas);
       Class<?> outputKeyClass;
       Class<?> outputValClass;
       if (!phaseSpec.getPhase().getStagesOfType(BatchAggregator.PLUGIN_TYPE).isEmpty()) {
@@ -289,6 +307,14 @@ public class ETLMapReduce extends AbstractMapReduce {
     }
 
     hConf.set(RUNTIME_ARGS_KEY, GSON.toJson(runtimeArgs));
+    String combineMaxGroups = context.getRuntimeArguments().get(COMBINE_MAX_GROUPS_KEY);
+    if (combineMaxGroups != null) {
+      hConf.setInt(COMBINE_MAX_GROUPS_KEY, Integer.parseInt(combineMaxGroups));
+    }
+    String joinMaxInMemoryRecords = context.getRuntimeArguments().get(JOIN_MAX_IN_MEMORY_RECORDS_KEY);
+    if (joinMaxInMemoryRecords != null) {
+      hConf.setInt(JOIN_MAX_IN_MEMORY_RECORDS_KEY, Integer.parseInt(joinMaxInMemoryRecords));
+    }
   }
 
   private Class<?> getOutputKeyClass(String reducerName, Class<?> outputKeyClass) {
@@ -358,6 +384,15 @@ public class ETLMapReduce extends AbstractMapReduce {
       }
     }
 
+    @Override
+    protected void cleanup(Mapper.Context context) throws IOException, InterruptedException {
+      try {
+        transformRunner.flush();
+      } catch (Exception e) {
+        Throwables.propagate(e);
+      }
+    }
+
     @Override
     public void destroy() {
       transformRunner.destroy();
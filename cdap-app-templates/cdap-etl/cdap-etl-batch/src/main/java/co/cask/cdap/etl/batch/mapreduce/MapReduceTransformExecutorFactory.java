@@ -20,6 +20,7 @@ import co.cask.cdap.api.dataset.lib.KeyValue;
 import co.cask.cdap.api.mapreduce.MapReduceTaskContext;
 import co.cask.cdap.api.metrics.Metrics;
 import co.cask.cdap.etl.api.Aggregator;
+import co.cask.cdap.etl.api.CombinableAggregator;
 import co.cask.cdap.etl.api.Emitter;
 import co.cask.cdap.etl.api.JoinElement;
 import co.cask.cdap.etl.api.Joiner;
@@ -34,10 +35,13 @@ import co.cask.cdap.etl.batch.TransformExecutorFactory;
 import co.cask.cdap.etl.batch.conversion.WritableConversion;
 import co.cask.cdap.etl.batch.conversion.WritableConversions;
 import co.cask.cdap.etl.batch.join.Join;
+import co.cask.cdap.etl.batch.join.JoinElementSerializer;
+import co.cask.cdap.etl.common.BufferingTransformation;
 import co.cask.cdap.etl.common.DatasetContextLookupProvider;
 import co.cask.cdap.etl.common.DefaultEmitter;
 import co.cask.cdap.etl.common.DefaultMacroEvaluator;
 import co.cask.cdap.etl.common.DefaultStageMetrics;
+import co.cask.cdap.etl.common.TrackedBufferingTransform;
 import co.cask.cdap.etl.common.TrackedEmitter;
 import co.cask.cdap.etl.common.TrackedTransform;
 import co.cask.cdap.etl.common.TransformDetail;
@@ -46,9 +50,14 @@ import com.google.common.collect.Iterators;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.io.WritableUtils;
 import org.apache.hadoop.mapreduce.JobContext;
 import org.apache.hadoop.mapreduce.Mapper;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
@@ -65,6 +74,11 @@ public class MapReduceTransformExecutorFactory<T> extends TransformExecutorFacto
   private final String mapOutputKeyClassName;
   private final String mapOutputValClassName;
   private final boolean isMapper;
+  private final int combineMaxGroups;
+  private final int joinMaxInMemoryRecords;
+  private final Configuration hConf;
+  // shared by all stages, so that they share cached and preloaded lookups
+  private final DatasetContextLookupProvider lookupProvider;
 
   public MapReduceTransformExecutorFactory(MapReduceTaskContext taskContext,
                                            PipelinePluginInstantiator pluginInstantiator,
@@ -81,6 +95,11 @@ public class MapReduceTransformExecutorFactory<T> extends TransformExecutorFacto
     this.mapOutputKeyClassName = hConf.get(ETLMapReduce.MAP_KEY_CLASS);
     this.mapOutputValClassName = hConf.get(ETLMapReduce.MAP_VAL_CLASS);
     this.isMapper = hadoopContext instanceof Mapper.Context;
+    this.combineMaxGroups = hConf.getInt(ETLMapReduce.COMBINE_MAX_GROUPS_KEY, ETLMapReduce.DEFAULT_COMBINE_MAX_GROUPS);
+    this.joinMaxInMemoryRecords = hConf.getInt(ETLMapReduce.JOIN_MAX_IN_MEMORY_RECORDS_KEY,
+                                               ETLMapReduce.DEFAULT_JOIN_MAX_IN_MEMORY_RECORDS);
+    this.hConf = hConf;
+    this.lookupProvider = new DatasetContextLookupProvider(taskContext);
   }
 
   @Override
@@ -89,8 +108,7 @@ public class MapReduceTransformExecutorFactory<T> extends TransformExecutorFacto
     if (stageRuntimeArgs == null) {
       stageRuntimeArgs = new HashMap<>();
     }
-    return new MapReduceRuntimeContext(taskContext, metrics, new DatasetContextLookupProvider(taskContext),
-                                       stageName, stageRuntimeArgs);
+    return new MapReduceRuntimeContext(taskContext, metrics, lookupProvider, stageName, stageRuntimeArgs);
   }
 
   private BatchJoinerRuntimeContext createJoinerRuntimeContext(String stageName) {
@@ -98,7 +116,7 @@ public class MapReduceTransformExecutorFactory<T> extends TransformExecutorFacto
     if (stageRuntimeArgs == null) {
       stageRuntimeArgs = new HashMap<>();
     }
-    return new MapReduceJoinerRuntimeContext(taskContext, metrics, new DatasetContextLookupProvider(taskContext),
+    return new MapReduceJoinerRuntimeContext(taskContext, metrics, lookupProvider,
                                              stageName, stageRuntimeArgs, perStageInputSchemas.get(stageName),
                                              outputSchema);
   }
@@ -114,7 +132,14 @@ public class MapReduceTransformExecutorFactory<T> extends TransformExecutorFacto
       BatchRuntimeContext runtimeContext = createRuntimeContext(stageName);
       batchAggregator.initialize(runtimeContext);
       StageMetrics stageMetrics = new DefaultStageMetrics(metrics, stageName);
-      if (isMapper) {
+      if (isMapper && batchAggregator instanceof CombinableAggregator && combineMaxGroups > 0) {
+        // same metrics as the emit key step
+        return new TrackedBufferingTransform<>(
+          new MapperCombiningAggregatorTransformation((CombinableAggregator<?, ?, ?>) batchAggregator,
+                                                      mapOutputKeyClassName, mapOutputValClassName,
+                                                      combineMaxGroups, hConf),
+          stageMetrics, TrackedTransform.RECORDS_IN, null);
+      } else if (isMapper) {
         return getTrackedEmitKeyStep(new MapperAggregatorTransformation(batchAggregator, mapOutputKeyClassName,
                                                                         mapOutputValClassName), stageMetrics);
       } else {
@@ -132,7 +157,8 @@ public class MapReduceTransformExecutorFactory<T> extends TransformExecutorFacto
       } else {
         return getTrackedMergeStep(new ReducerJoinerTransformation(batchJoiner, mapOutputKeyClassName,
                                                                    mapOutputValClassName,
-                                                                   runtimeContext.getInputSchemas().size()),
+                                                                   runtimeContext.getInputSchemas().size(),
+                                                                   hConf, joinMaxInMemoryRecords),
                                    stageMetrics);
       }
     }
@@ -184,7 +210,8 @@ public class MapReduceTransformExecutorFactory<T> extends TransformExecutorFacto
   }
 
   /**
-   * A Transformation that uses an join's emit method to emit joinResults.
+   * A Transformation that uses an join's emit method to emit joinResults. Records of join keys with more than the
+   * maximum number of in memory records are spilled to the local temporary directory of the task.
    *
    * @param <JOIN_KEY> type of join key
    * @param <INPUT_RECORD> type of input record
@@ -198,9 +225,13 @@ public class MapReduceTransformExecutorFactory<T> extends TransformExecutorFacto
     private final WritableConversion<JOIN_KEY, REDUCE_KEY> keyConversion;
     private final WritableConversion<INPUT_RECORD, REDUCE_VALUE> inputConversion;
     private final int numOfInputs;
+    private final int maxInMemoryRecords;
+    private final JoinElementSerializer<INPUT_RECORD> serializer;
+    private final File spillDir;
 
     ReducerJoinerTransformation(Joiner<JOIN_KEY, INPUT_RECORD, OUT> joiner, String joinKeyClassName,
-                                String joinInputClassName, int numOfInputs) {
+                                String joinInputClassName, int numOfInputs, final Configuration hConf,
+                                int maxInMemoryRecords) {
       this.joiner = joiner;
       WritableConversion<JOIN_KEY, REDUCE_KEY> keyConversion = WritableConversions.getConversion(joinKeyClassName);
       WritableConversion<INPUT_RECORD, REDUCE_VALUE> inputConversion =
@@ -209,6 +240,24 @@ public class MapReduceTransformExecutorFactory<T> extends TransformExecutorFacto
       this.inputConversion = inputConversion == null ?
         new CastConversion<INPUT_RECORD, REDUCE_VALUE>() : inputConversion;
       this.numOfInputs = numOfInputs;
+      this.maxInMemoryRecords = maxInMemoryRecords;
+      this.spillDir = new File(System.getProperty("java.io.tmpdir"));
+      this.serializer = new JoinElementSerializer<INPUT_RECORD>() {
+        @Override
+        public void serialize(JoinElement<INPUT_RECORD> joinElement, DataOutput out) throws IOException {
+          new TaggedWritable<>(joinElement.getStageName(), inputConversion.toWritable(joinElement.getInputRecord()))
+            .write(out);
+        }
+
+        @Override
+        public JoinElement<INPUT_RECORD> deserialize(DataInput in) throws IOException {
+          TaggedWritable<REDUCE_VALUE> taggedWritable = new TaggedWritable<>();
+          taggedWritable.setConf(hConf);
+          taggedWritable.readFields(in);
+          return new JoinElement<>(taggedWritable.getStageName(),
+                                   inputConversion.fromWritable(taggedWritable.getRecord()));
+        }
+      };
     }
 
     @Override
@@ -224,7 +273,8 @@ public class MapReduceTransformExecutorFactory<T> extends TransformExecutorFacto
         }
       });
 
-      Join join = new Join(joiner, joinKey, inputIterator, numOfInputs, emitter);
+      Join<JOIN_KEY, INPUT_RECORD, OUT> join = new Join<>(joiner, joinKey, inputIterator, numOfInputs, emitter,
+                                                          serializer, maxInMemoryRecords, spillDir);
       join.joinRecords();
     }
   }
@@ -271,6 +321,80 @@ public class MapReduceTransformExecutorFactory<T> extends TransformExecutorFacto
     }
   }
 
+  /**
+   * A Transformation that uses a combinable aggregator's groupBy and merge methods to partially aggregate the
+   * group values in the mapper. Partial aggregates are kept in memory, and are only emitted when the number of
+   * groups in memory reaches a limit, or when the transformation is flushed at the end of the mapper.
+   * Since group keys and values may be reused by the stages before, they are copied before they are kept.
+   *
+   * @param <GROUP_KEY> type of group key output by the aggregator
+   * @param <GROUP_VAL> type of group value used by the aggregator
+   * @param <OUT_KEY> type of output key for mapreduce. Must implement WritableComparable
+   * @param <OUT_VAL> type of output value for mapreduce. Must implement Writable
+   */
+  private static class MapperCombiningAggregatorTransformation<GROUP_KEY, GROUP_VAL, OUT_KEY extends Writable,
+    OUT_VAL extends Writable> implements BufferingTransformation<GROUP_VAL, KeyValue<OUT_KEY, OUT_VAL>> {
+    private final CombinableAggregator<GROUP_KEY, GROUP_VAL, ?> aggregator;
+    private final DefaultEmitter<GROUP_KEY> groupKeyEmitter;
+    private final WritableConversion<GROUP_KEY, OUT_KEY> keyConversion;
+    private final WritableConversion<GROUP_VAL, OUT_VAL> valConversion;
+    private final int maxGroups;
+    private final Map<GROUP_KEY, GROUP_VAL> partialAggregates;
+    private final Configuration hConf;
+
+    MapperCombiningAggregatorTransformation(CombinableAggregator<GROUP_KEY, GROUP_VAL, ?> aggregator,
+                                            String groupKeyClassName, String groupValClassName, int maxGroups,
+                                            Configuration hConf) {
+      this.aggregator = aggregator;
+      this.groupKeyEmitter = new DefaultEmitter<>();
+      WritableConversion<GROUP_KEY, OUT_KEY> keyConversion = WritableConversions.getConversion(groupKeyClassName);
+      WritableConversion<GROUP_VAL, OUT_VAL> valConversion = WritableConversions.getConversion(groupValClassName);
+      this.keyConversion = keyConversion == null ? new CastConversion<GROUP_KEY, OUT_KEY>() : keyConversion;
+      this.valConversion = valConversion == null ? new CastConversion<GROUP_VAL, OUT_VAL>() : valConversion;
+      this.maxGroups = maxGroups;
+      this.partialAggregates = new HashMap<>();
+      this.hConf = hConf;
+    }
+
+    @Override
+    public void transform(GROUP_VAL input, Emitter<KeyValue<OUT_KEY, OUT_VAL>> emitter) throws Exception {
+      groupKeyEmitter.reset();
+      aggregator.groupBy(input, groupKeyEmitter);
+      GROUP_VAL inputCopy = null;
+      for (GROUP_KEY groupKey : groupKeyEmitter.getEntries()) {
+        GROUP_VAL partialAggregate = partialAggregates.get(groupKey);
+        if (partialAggregate == null) {
+          inputCopy = inputCopy == null ? copy(input, valConversion) : inputCopy;
+          partialAggregates.put(copy(groupKey, keyConversion), inputCopy);
+          continue;
+        }
+        GROUP_VAL merged = aggregator.merge(groupKey, partialAggregate, input);
+        if (merged == input) {
+          // merge may return the input as is
+          inputCopy = inputCopy == null ? copy(input, valConversion) : inputCopy;
+          merged = inputCopy;
+        }
+        partialAggregates.put(groupKey, merged);
+      }
+      if (partialAggregates.size() >= maxGroups) {
+        flush(emitter);
+      }
+    }
+
+    @Override
+    public void flush(Emitter<KeyValue<OUT_KEY, OUT_VAL>> emitter) throws Exception {
+      for (Map.Entry<GROUP_KEY, GROUP_VAL> entry : partialAggregates.entrySet()) {
+        emitter.emit(new KeyValue<>(keyConversion.toWritable(entry.getKey()),
+                                    valConversion.toWritable(entry.getValue())));
+      }
+      partialAggregates.clear();
+    }
+
+    private <V, W extends Writable> V copy(V value, WritableConversion<V, W> conversion) {
+      return conversion.fromWritable(WritableUtils.clone(conversion.toWritable(value), hConf));
+    }
+  }
+
   /**
    * A Transformation that uses an aggregator's aggregate method. Supports applying a function to the types
    * send as input to the aggregator. These functions are used when the aggregator takes group keys that are not
@@ -26,6 +26,7 @@ import co.cask.cdap.etl.api.batch.BatchAggregator;
 import co.cask.cdap.etl.api.batch.BatchJoiner;
 import co.cask.cdap.etl.batch.BatchPhaseSpec;
 import co.cask.cdap.etl.batch.PipelinePluginInstantiator;
+import co.cask.cdap.etl.batch.StructuredRecordWritable;
 import co.cask.cdap.etl.batch.TransformExecutorFactory;
 import co.cask.cdap.etl.common.Constants;
 import co.cask.cdap.etl.common.Destroyables;
@@ -75,6 +76,8 @@ public class TransformRunner<KEY, VALUE> {
                          Metrics metrics) throws Exception {
     JobContext jobContext = context.getHadoopContext();
     Configuration hConf = jobContext.getConfiguration();
+    // schemas of shuffled records must be known before any record is serialized
+    StructuredRecordWritable.loadSchemas(hConf);
 
     // figure out whether we are writing to a single output or to multiple outputs
     Map<String, String> properties = context.getSpecification().getProperties();
@@ -164,7 +167,17 @@ public class TransformRunner<KEY, VALUE> {
 
   public void transform(KEY key, VALUE value) throws Exception {
     KeyValue<KEY, VALUE> input = new KeyValue<>(key, value);
-    TransformResponse transformResponse = transformExecutor.runOneIteration(input);
+    write(transformExecutor.runOneIteration(input));
+  }
+
+  /**
+   * Writes out the output held back by the transformations. Must be called once all input has been transformed.
+   */
+  public void flush() throws Exception {
+    write(transformExecutor.runFlush());
+  }
+
+  private void write(TransformResponse transformResponse) throws Exception {
     for (Map.Entry<String, Collection<Object>> transformedEntry : transformResponse.getSinksResults().entrySet()) {
       for (Object transformedRecord : transformedEntry.getValue()) {
         outputWriter.write(transformedEntry.getKey(), (KeyValue<Object, Object>) transformedRecord);
@@ -0,0 +1,178 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.etl.batch;
+
+import co.cask.cdap.api.data.format.StructuredRecord;
+import co.cask.cdap.api.data.schema.Schema;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.hadoop.io.WritableComparator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Tests for {@link StructuredRecordWritable}.
+ */
+public class StructuredRecordWritableTest {
+
+  private static final Schema INNER_SCHEMA = Schema.recordOf(
+    "inner",
+    Schema.Field.of("d", Schema.of(Schema.Type.DOUBLE)),
+    Schema.Field.of("e", Schema.enumWith("A", "B")));
+
+  private static final Schema SCHEMA = Schema.recordOf(
+    "record",
+    Schema.Field.of("i", Schema.of(Schema.Type.INT)),
+    Schema.Field.of("l", Schema.of(Schema.Type.LONG)),
+    Schema.Field.of("s", Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+    Schema.Field.of("b", Schema.of(Schema.Type.BYTES)),
+    Schema.Field.of("f", Schema.of(Schema.Type.FLOAT)),
+    Schema.Field.of("bool", Schema.of(Schema.Type.BOOLEAN)),
+    Schema.Field.of("arr", Schema.arrayOf(Schema.of(Schema.Type.STRING))),
+    Schema.Field.of("map", Schema.mapOf(Schema.of(Schema.Type.STRING), Schema.of(Schema.Type.LONG))),
+    Schema.Field.of("inner", Schema.nullableOf(INNER_SCHEMA)));
+
+  @Test
+  public void testSerialization() throws IOException {
+    StructuredRecord record = createRecord("abc", ImmutableMap.of("x", 1L, "y", -2L));
+    assertRecordEquals(record, roundTrip(record));
+
+    StructuredRecord withNulls = StructuredRecord.builder(SCHEMA)
+      .set("i", 0).set("l", Long.MIN_VALUE).set("b", new byte[0]).set("f", -1.5f).set("bool", false)
+      .set("arr", ImmutableList.of()).set("map", ImmutableMap.of())
+      .build();
+    assertRecordEquals(withNulls, roundTrip(withNulls));
+
+    // Registered schemas are written by hash, which is smaller than the schema
+    int inlineSize = serialize(new StructuredRecordWritable(record)).getLength();
+    Configuration conf = new Configuration();
+    StructuredRecordWritable.registerSchemas(conf, ImmutableList.of(SCHEMA));
+    StructuredRecordWritable.loadSchemas(conf);
+    int registeredSize = serialize(new StructuredRecordWritable(record)).getLength();
+    Assert.assertTrue(registeredSize < inlineSize);
+    assertRecordEquals(record, roundTrip(record));
+  }
+
+  @Test
+  public void testRawComparator() throws IOException {
+    WritableComparator comparator = WritableComparator.get(StructuredRecordWritable.class);
+    Assert.assertTrue(comparator instanceof StructuredRecordWritable.Comparator);
+
+    // Equal maps with a different iteration order must compare as equal
+    Map<String, Long> map1 = new LinkedHashMap<>();
+    map1.put("x", 1L);
+    map1.put("y", 2L);
+    Map<String, Long> map2 = new LinkedHashMap<>();
+    map2.put("y", 2L);
+    map2.put("x", 1L);
+    StructuredRecordWritable writable1 = new StructuredRecordWritable(createRecord("abc", map1));
+    StructuredRecordWritable writable2 = new StructuredRecordWritable(createRecord("abc", map2));
+    StructuredRecordWritable writable3 = new StructuredRecordWritable(createRecord("abd", map1));
+
+    Assert.assertEquals(0, compare(comparator, writable1, writable2));
+    Assert.assertEquals(0, writable1.compareTo(writable2));
+    Assert.assertNotEquals(0, compare(comparator, writable1, writable3));
+    Assert.assertEquals(Integer.signum(writable1.compareTo(writable3)),
+                        Integer.signum(compare(comparator, writable1, writable3)));
+    Assert.assertEquals(-Integer.signum(compare(comparator, writable1, writable3)),
+                        Integer.signum(compare(comparator, writable3, writable1)));
+  }
+
+  @Test
+  public void testMapKeys() throws IOException {
+    // Keys that have the same string representation are distinct entries
+    Schema schema = Schema.recordOf(
+      "keys",
+      Schema.Field.of("map", Schema.mapOf(Schema.unionOf(Schema.of(Schema.Type.INT), Schema.of(Schema.Type.STRING)),
+                                          Schema.of(Schema.Type.STRING))));
+    Map<Object, String> map1 = new LinkedHashMap<>();
+    map1.put(1, "int");
+    map1.put("1", "string");
+    map1.put(2, "two");
+    StructuredRecord record1 = StructuredRecord.builder(schema).set("map", map1).build();
+    assertRecordEquals(record1, roundTrip(record1));
+
+    // Equal maps are serialized the same way, regardless of the iteration order
+    Map<Object, String> map2 = new LinkedHashMap<>();
+    map2.put(2, "two");
+    map2.put("1", "string");
+    map2.put(1, "int");
+    StructuredRecord record2 = StructuredRecord.builder(schema).set("map", map2).build();
+    DataOutputBuffer out1 = serialize(new StructuredRecordWritable(record1));
+    DataOutputBuffer out2 = serialize(new StructuredRecordWritable(record2));
+    Assert.assertEquals(0, WritableComparator.compareBytes(out1.getData(), 0, out1.getLength(),
+                                                           out2.getData(), 0, out2.getLength()));
+  }
+
+  private void assertRecordEquals(StructuredRecord expected, StructuredRecord actual) {
+    Assert.assertEquals(expected.getSchema(), actual.getSchema());
+    for (Schema.Field field : expected.getSchema().getFields()) {
+      Object expectedValue = expected.get(field.getName());
+      Object actualValue = actual.get(field.getName());
+      // byte arrays don't implement equals
+      if (expectedValue instanceof byte[]) {
+        Assert.assertArrayEquals((byte[]) expectedValue, (byte[]) actualValue);
+      } else {
+        Assert.assertEquals(expectedValue, actualValue);
+      }
+    }
+  }
+
+  private StructuredRecord createRecord(String str, Map<String, Long> map) {
+    return StructuredRecord.builder(SCHEMA)
+      .set("i", 5)
+      .set("l", 1234567890123L)
+      .set("s", str)
+      .set("b", new byte[] { 1, 2, 3 })
+      .set("f", 3.5f)
+      .set("bool", true)
+      .set("arr", ImmutableList.of("a", "b"))
+      .set("map", new HashMap<>(map))
+      .set("inner", StructuredRecord.builder(INNER_SCHEMA).set("d", 2.25d).set("e", "B").build())
+      .build();
+  }
+
+  private int compare(WritableComparator comparator,
+                      StructuredRecordWritable w1, StructuredRecordWritable w2) throws IOException {
+    DataOutputBuffer out1 = serialize(w1);
+    DataOutputBuffer out2 = serialize(w2);
+    return comparator.compare(out1.getData(), 0, out1.getLength(), out2.getData(), 0, out2.getLength());
+  }
+
+  private DataOutputBuffer serialize(StructuredRecordWritable writable) throws IOException {
+    DataOutputBuffer out = new DataOutputBuffer();
+    writable.write(out);
+    return out;
+  }
+
+  private StructuredRecord roundTrip(StructuredRecord record) throws IOException {
+    DataOutputBuffer out = serialize(new StructuredRecordWritable(record));
+    DataInputBuffer in = new DataInputBuffer();
+    in.reset(out.getData(), out.getLength());
+    StructuredRecordWritable writable = new StructuredRecordWritable();
+    writable.readFields(in);
+    return writable.get();
+  }
+}
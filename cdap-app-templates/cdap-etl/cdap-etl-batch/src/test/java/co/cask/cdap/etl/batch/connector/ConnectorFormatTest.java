@@ -0,0 +1,151 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.etl.batch.connector;
+
+import co.cask.cdap.api.data.format.StructuredRecord;
+import co.cask.cdap.api.data.schema.Schema;
+import co.cask.cdap.etl.batch.StructuredRecordWritable;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.TaskType;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.task.TaskAttemptContextImpl;
+import org.junit.Assert;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests for {@link ConnectorOutputFormat} and {@link ConnectorInputFormat}.
+ */
+public class ConnectorFormatTest {
+
+  @ClassRule
+  public static final TemporaryFolder TMP_FOLDER = new TemporaryFolder();
+
+  private static final Schema PURCHASE_SCHEMA = Schema.recordOf(
+    "purchase",
+    Schema.Field.of("user", Schema.of(Schema.Type.STRING)),
+    Schema.Field.of("price", Schema.nullableOf(Schema.of(Schema.Type.DOUBLE))));
+
+  private static final Schema USER_SCHEMA = Schema.recordOf(
+    "user",
+    Schema.Field.of("name", Schema.of(Schema.Type.STRING)),
+    Schema.Field.of("age", Schema.of(Schema.Type.INT)));
+
+  @Test
+  public void testUncompressed() throws Exception {
+    testRoundTrip(false, 100, 1);
+  }
+
+  @Test
+  public void testCompressed() throws Exception {
+    testRoundTrip(true, 100, 1);
+  }
+
+  @Test
+  public void testUncompressedSplits() throws Exception {
+    testRoundTrip(false, 1000, 5);
+  }
+
+  @Test
+  public void testCompressedSplits() throws Exception {
+    testRoundTrip(true, 1000, 5);
+  }
+
+  private void testRoundTrip(boolean compress, int numRecords, int splitsPerFile) throws Exception {
+    List<StructuredRecord> records = new ArrayList<>();
+    for (int i = 0; i < numRecords; i++) {
+      records.add(StructuredRecord.builder(PURCHASE_SCHEMA)
+                    .set("user", "user" + i)
+                    .set("price", i % 2 == 0 ? null : i * 1.5d)
+                    .build());
+      records.add(StructuredRecord.builder(USER_SCHEMA).set("name", "user" + i).set("age", i).build());
+    }
+
+    Configuration conf = new Configuration();
+    conf.setBoolean(FileOutputFormat.COMPRESS, compress);
+    // use small compressed blocks, so that a compressed file has several blocks to split at
+    conf.setInt("io.seqfile.compress.blocksize", 1024);
+    Path outputPath = new Path(TMP_FOLDER.newFolder().toURI());
+    conf.set(FileOutputFormat.OUTDIR, outputPath.toString());
+    TaskAttemptContext context = new TaskAttemptContextImpl(conf, new TaskAttemptID("test", 1, TaskType.MAP, 0, 0));
+
+    RecordWriter<NullWritable, StructuredRecordWritable> writer =
+      new ConnectorOutputFormat().getRecordWriter(context);
+    for (StructuredRecord record : records) {
+      writer.write(NullWritable.get(), new StructuredRecordWritable(record));
+    }
+    writer.close(context);
+
+    FileSystem fs = outputPath.getFileSystem(conf);
+    List<StructuredRecord> readRecords = new ArrayList<>();
+    int nonEmptySplits = 0;
+    for (FileStatus status : listFiles(fs, outputPath)) {
+      long splitSize = (status.getLen() + splitsPerFile - 1) / splitsPerFile;
+      for (long start = 0; start < status.getLen(); start += splitSize) {
+        RecordReader<NullWritable, StructuredRecordWritable> reader =
+          new ConnectorInputFormat().createRecordReader(null, context);
+        reader.initialize(new FileSplit(status.getPath(), start, Math.min(splitSize, status.getLen() - start), null),
+                          context);
+        int readBefore = readRecords.size();
+        while (reader.nextKeyValue()) {
+          readRecords.add(reader.getCurrentValue().get());
+        }
+        reader.close();
+        if (readRecords.size() > readBefore) {
+          nonEmptySplits++;
+        }
+      }
+    }
+    // every split after the first one starts at a sync marker, hence is read independently of the other splits
+    Assert.assertTrue(nonEmptySplits >= Math.min(2, splitsPerFile));
+
+    Assert.assertEquals(records.size(), readRecords.size());
+    for (int i = 0; i < records.size(); i++) {
+      StructuredRecord expected = records.get(i);
+      StructuredRecord actual = readRecords.get(i);
+      Assert.assertEquals(expected.getSchema(), actual.getSchema());
+      for (Schema.Field field : expected.getSchema().getFields()) {
+        Assert.assertEquals(expected.get(field.getName()), actual.get(field.getName()));
+      }
+    }
+  }
+
+  private List<FileStatus> listFiles(FileSystem fs, Path path) throws Exception {
+    List<FileStatus> files = new ArrayList<>();
+    for (FileStatus status : fs.listStatus(path)) {
+      if (status.isDirectory()) {
+        files.addAll(listFiles(fs, status.getPath()));
+      } else if (!status.getPath().getName().startsWith(".")) {
+        files.add(status);
+      }
+    }
+    return files;
+  }
+}
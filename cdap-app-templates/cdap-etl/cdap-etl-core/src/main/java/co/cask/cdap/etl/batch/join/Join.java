@@ -0,0 +1,174 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.etl.batch.join;
+
+import co.cask.cdap.etl.api.Emitter;
+import co.cask.cdap.etl.api.JoinConfig;
+import co.cask.cdap.etl.api.JoinElement;
+import co.cask.cdap.etl.api.Joiner;
+import com.google.common.collect.Sets;
+import com.google.common.io.Closeables;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
+
+/**
+ * Performs join operation. All records of a join key are buffered per input stage, and the cartesian product of the
+ * buffered records is merged by the joiner. If a serializer is given, buffered records beyond the in memory limit are
+ * spilled to local disk, so that skewed join keys do not exhaust memory. This applies to the broadcast inputs of the
+ * {@link JoinConfig} as well, since they are only a hint and may be larger than expected.
+ *
+ * @param <JOIN_KEY> type of join key
+ * @param <INPUT_RECORD> type of input record
+ * @param <OUT> type of output of mapreduce
+ */
+
+public class Join<JOIN_KEY, INPUT_RECORD, OUT> {
+  private Joiner<JOIN_KEY, INPUT_RECORD, OUT> joiner;
+  private JOIN_KEY joinKey;
+  private Iterator<JoinElement<INPUT_RECORD>> iterator;
+  private Emitter<OUT> emitter;
+  private final int numOfInputs;
+  private final JoinElementSerializer<INPUT_RECORD> serializer;
+  private final int maxInMemoryRecords;
+  private final File spillDir;
+
+  public Join(Joiner<JOIN_KEY, INPUT_RECORD, OUT> joiner, JOIN_KEY joinKey,
+              Iterator<JoinElement<INPUT_RECORD>> iterator, int numOfInputs, Emitter<OUT> emitter) throws Exception {
+    this(joiner, joinKey, iterator, numOfInputs, emitter, null, Integer.MAX_VALUE, null);
+  }
+
+  /**
+   * Creates a join that spills records to disk.
+   *
+   * @param serializer serializer for spilling records, or {@code null} to keep all records in memory
+   * @param maxInMemoryRecords maximum number of records of the join key to keep in memory
+   * @param spillDir local directory to create spill files in
+   */
+  public Join(Joiner<JOIN_KEY, INPUT_RECORD, OUT> joiner, JOIN_KEY joinKey,
+              Iterator<JoinElement<INPUT_RECORD>> iterator, int numOfInputs, Emitter<OUT> emitter,
+              @Nullable JoinElementSerializer<INPUT_RECORD> serializer, int maxInMemoryRecords,
+              @Nullable File spillDir) throws Exception {
+    this.joiner = joiner;
+    this.joinKey = joinKey;
+    this.iterator = iterator;
+    this.numOfInputs = numOfInputs;
+    this.emitter = emitter;
+    this.serializer = serializer;
+    this.maxInMemoryRecords = maxInMemoryRecords;
+    this.spillDir = spillDir;
+  }
+
+  public void joinRecords() throws Exception {
+    JoinConfig joinConfig = joiner.getJoinConfig();
+    Set<String> requiredInputs = Sets.newHashSet(joinConfig.getRequiredInputs());
+    Set<String> broadcastInputs = Sets.newHashSet(joinConfig.getBroadcastInputs());
+    Map<String, SpillableJoinElements<INPUT_RECORD>> perStageJoinElements = getPerStageJoinElements();
+    try {
+      // As we get intersection of records from all stages present in required inputs, if any of the required
+      // inputs has no records for the join key, then there is nothing to emit.
+      if (!perStageJoinElements.keySet().containsAll(requiredInputs)) {
+        return;
+      }
+
+      join(perStageJoinElements, broadcastInputs);
+    } finally {
+      for (SpillableJoinElements<INPUT_RECORD> joinElements : perStageJoinElements.values()) {
+        Closeables.closeQuietly(joinElements);
+      }
+    }
+  }
+
+  private Map<String, SpillableJoinElements<INPUT_RECORD>> getPerStageJoinElements() throws Exception {
+    Map<String, SpillableJoinElements<INPUT_RECORD>> perStageJoinElements = new HashMap<>(numOfInputs);
+    int inMemoryRecords = 0;
+    try {
+      while (iterator.hasNext()) {
+        JoinElement<INPUT_RECORD> joinElement = iterator.next();
+        String stageName = joinElement.getStageName();
+        SpillableJoinElements<INPUT_RECORD> joinElements = perStageJoinElements.get(stageName);
+        if (joinElements == null) {
+          joinElements = new SpillableJoinElements<>(serializer, spillDir);
+          perStageJoinElements.put(stageName, joinElements);
+        }
+        if (serializer != null && inMemoryRecords >= maxInMemoryRecords) {
+          joinElements.spill(joinElement);
+        } else {
+          joinElements.add(joinElement);
+          inMemoryRecords++;
+        }
+      }
+    } catch (Exception e) {
+      for (SpillableJoinElements<INPUT_RECORD> joinElements : perStageJoinElements.values()) {
+        Closeables.closeQuietly(joinElements);
+      }
+      throw e;
+    }
+    return perStageJoinElements;
+  }
+
+  private void join(Map<String, SpillableJoinElements<INPUT_RECORD>> perStageJoinElements,
+                    final Set<String> broadcastInputs) throws Exception {
+    List<Map.Entry<String, SpillableJoinElements<INPUT_RECORD>>> entries =
+      new ArrayList<>(perStageJoinElements.entrySet());
+    // inputs further down the list are iterated over once per combination of records from the inputs before them.
+    // Hence spilled inputs go first so that they are read from disk as few times as possible, followed by the other
+    // inputs from the largest to the smallest, and broadcast inputs that are held in memory go last.
+    Collections.sort(entries, new Comparator<Map.Entry<String, SpillableJoinElements<INPUT_RECORD>>>() {
+      @Override
+      public int compare(Map.Entry<String, SpillableJoinElements<INPUT_RECORD>> o1,
+                         Map.Entry<String, SpillableJoinElements<INPUT_RECORD>> o2) {
+        int cmp = Boolean.compare(o2.getValue().isSpilled(), o1.getValue().isSpilled());
+        if (cmp != 0) {
+          return cmp;
+        }
+        cmp = Boolean.compare(broadcastInputs.contains(o1.getKey()), broadcastInputs.contains(o2.getKey()));
+        return cmp != 0 ? cmp : Integer.compare(o2.getValue().size(), o1.getValue().size());
+      }
+    });
+    List<SpillableJoinElements<INPUT_RECORD>> list = new ArrayList<>(entries.size());
+    for (Map.Entry<String, SpillableJoinElements<INPUT_RECORD>> entry : entries) {
+      list.add(entry.getValue());
+    }
+    ArrayList<JoinElement<INPUT_RECORD>> joinRow = new ArrayList<>();
+    getCartesianProduct(list, 0, joinRow);
+  }
+
+  // TODO use iterative algorithm instead of recursion
+  private void getCartesianProduct(List<? extends Iterable<JoinElement<INPUT_RECORD>>> list, int index,
+                                   List<JoinElement<INPUT_RECORD>> joinRow) throws Exception {
+    // every join row has a record from each of the inputs, which include all of the required inputs
+    if (index == list.size()) {
+      emitter.emit(joiner.merge(joinKey, joinRow));
+      return;
+    }
+
+    for (JoinElement<INPUT_RECORD> joinElement : list.get(index)) {
+      joinRow.add(joinElement);
+      getCartesianProduct(list, index + 1, joinRow);
+      joinRow.remove(joinRow.size() - 1);
+    }
+  }
+}
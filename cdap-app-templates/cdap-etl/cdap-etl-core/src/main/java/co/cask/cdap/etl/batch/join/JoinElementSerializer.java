@@ -0,0 +1,41 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.etl.batch.join;
+
+import co.cask.cdap.etl.api.JoinElement;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Serializes {@link JoinElement}s so that they can be spilled to local disk during a join.
+ *
+ * @param <INPUT_RECORD> type of input record
+ */
+public interface JoinElementSerializer<INPUT_RECORD> {
+
+  /**
+   * Writes the given join element to the output.
+   */
+  void serialize(JoinElement<INPUT_RECORD> joinElement, DataOutput out) throws IOException;
+
+  /**
+   * Reads a join element written by {@link #serialize(JoinElement, DataOutput)}.
+   */
+  JoinElement<INPUT_RECORD> deserialize(DataInput in) throws IOException;
+}
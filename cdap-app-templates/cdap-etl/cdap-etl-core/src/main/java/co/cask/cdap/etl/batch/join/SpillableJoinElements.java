@@ -0,0 +1,139 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.etl.batch.join;
+
+import co.cask.cdap.etl.api.JoinElement;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterators;
+import com.google.common.io.Closeables;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Buffers the {@link JoinElement}s of one input stage for a single join key, so that they can be iterated
+ * over multiple times while computing the join. Elements are either kept in memory or spilled to a file in a local
+ * directory. The spill file is created lazily and deleted when the buffer is closed.
+ *
+ * @param <INPUT_RECORD> type of input record
+ */
+final class SpillableJoinElements<INPUT_RECORD> implements Iterable<JoinElement<INPUT_RECORD>>, Closeable {
+  private final JoinElementSerializer<INPUT_RECORD> serializer;
+  private final File spillDir;
+  private final List<JoinElement<INPUT_RECORD>> inMemory;
+  private final List<Closeable> openInputs;
+  private File spillFile;
+  private DataOutputStream spillOutput;
+  private int spilled;
+
+  SpillableJoinElements(JoinElementSerializer<INPUT_RECORD> serializer, File spillDir) {
+    this.serializer = serializer;
+    this.spillDir = spillDir;
+    this.inMemory = new ArrayList<>();
+    this.openInputs = new ArrayList<>();
+  }
+
+  /**
+   * Adds an element to the in memory buffer.
+   */
+  void add(JoinElement<INPUT_RECORD> joinElement) {
+    inMemory.add(joinElement);
+  }
+
+  /**
+   * Adds an element to the spill file.
+   */
+  void spill(JoinElement<INPUT_RECORD> joinElement) throws IOException {
+    if (spillOutput == null) {
+      spillFile = File.createTempFile("join", ".spill", spillDir);
+      spillOutput = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(spillFile)));
+    }
+    serializer.serialize(joinElement, spillOutput);
+    spilled++;
+  }
+
+  /**
+   * Returns the number of elements in this buffer.
+   */
+  int size() {
+    return inMemory.size() + spilled;
+  }
+
+  /**
+   * Returns whether any element has been spilled to disk.
+   */
+  boolean isSpilled() {
+    return spilled > 0;
+  }
+
+  @Override
+  public Iterator<JoinElement<INPUT_RECORD>> iterator() {
+    if (spilled == 0) {
+      return inMemory.iterator();
+    }
+    try {
+      spillOutput.flush();
+      final DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(spillFile)));
+      openInputs.add(input);
+      Iterator<JoinElement<INPUT_RECORD>> spilledIterator = new AbstractIterator<JoinElement<INPUT_RECORD>>() {
+        private int read;
+
+        @Override
+        protected JoinElement<INPUT_RECORD> computeNext() {
+          if (read == spilled) {
+            Closeables.closeQuietly(input);
+            openInputs.remove(input);
+            return endOfData();
+          }
+          read++;
+          try {
+            return serializer.deserialize(input);
+          } catch (IOException e) {
+            throw new RuntimeException("Failed to read join elements from spill file " + spillFile, e);
+          }
+        }
+      };
+      return Iterators.concat(inMemory.iterator(), spilledIterator);
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to open spill file " + spillFile, e);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    for (Closeable input : openInputs) {
+      Closeables.closeQuietly(input);
+    }
+    openInputs.clear();
+    if (spillOutput != null) {
+      Closeables.closeQuietly(spillOutput);
+      if (!spillFile.delete()) {
+        spillFile.deleteOnExit();
+      }
+    }
+  }
+}
@@ -15,18 +15,63 @@
  */
 package co.cask.cdap.etl.common;
 
+import co.cask.cdap.api.common.Bytes;
 import co.cask.cdap.api.dataset.Dataset;
+import co.cask.cdap.api.dataset.lib.CloseableIterator;
+import co.cask.cdap.api.dataset.lib.KeyValue;
 import co.cask.cdap.api.dataset.lib.KeyValueTable;
+import co.cask.cdap.etl.api.CacheConfig;
+import co.cask.cdap.etl.api.ConfigurableLookupProvider;
 import co.cask.cdap.etl.api.Lookup;
-import co.cask.cdap.etl.api.LookupProvider;
+import co.cask.cdap.etl.api.LookupTableConfig;
 import co.cask.cdap.etl.api.lookup.KeyValueTableLookup;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
 import javax.annotation.Nullable;
 
 /**
- * {@link Lookup} that provides common functionality.
+ * {@link Lookup} that provides common functionality. Cached and preloaded lookups are shared by all the stages
+ * that provide them with the same table and config through the same instance, which is meant to be created once
+ * per task.
  */
-public abstract class AbstractLookupProvider implements LookupProvider {
+public abstract class AbstractLookupProvider implements ConfigurableLookupProvider {
+
+  private final Map<ConfiguredLookupKey, Lookup<?>> configuredLookups = new HashMap<>();
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public synchronized <T> Lookup<T> provide(String table, LookupTableConfig config) {
+    if (config.getType() != LookupTableConfig.TableType.DATASET) {
+      throw new IllegalArgumentException(String.format("Lookup table type %s of table %s is not supported",
+                                                       config.getType(), table));
+    }
+    if (!config.isPreloadEnabled() && !config.isCacheEnabled()) {
+      return provide(table, config.getDatasetProperties());
+    }
+
+    ConfiguredLookupKey key = new ConfiguredLookupKey(table, config);
+    Lookup<T> lookup = (Lookup<T>) configuredLookups.get(key);
+    if (lookup == null) {
+      if (config.isPreloadEnabled()) {
+        lookup = new PreloadedLookup<>(this.<T>getAll(table, config.getDatasetProperties()));
+      } else {
+        lookup = new CachingLookup<>(this.<T>provide(table, config.getDatasetProperties()), config.getCacheConfig());
+      }
+      configuredLookups.put(key, lookup);
+    }
+    return lookup;
+  }
+
+  /**
+   * Reads the entire contents of the given lookup table.
+   *
+   * @param table the name of the table
+   * @param arguments arguments for initializing the table
+   * @return a map from key to value
+   */
+  protected abstract <T> Map<String, T> getAll(String table, Map<String, String> arguments);
 
   @SuppressWarnings("unchecked")
   protected <T> Lookup<T> getLookup(String table, @Nullable Dataset dataset) {
@@ -40,4 +85,60 @@ public abstract class AbstractLookupProvider implements LookupProvider {
       throw new RuntimeException(String.format("Dataset %s does not support lookup", table));
     }
   }
+
+  /**
+   * Reads the entire contents of the given dataset, which must support lookup.
+   */
+  @SuppressWarnings("unchecked")
+  protected <T> Map<String, T> readAll(String table, @Nullable Dataset dataset) {
+    // validates that the dataset exists and supports lookup
+    getLookup(table, dataset);
+
+    Map<String, T> result = new HashMap<>();
+    try (CloseableIterator<KeyValue<byte[], byte[]>> iterator = ((KeyValueTable) dataset).scan(null, null)) {
+      while (iterator.hasNext()) {
+        KeyValue<byte[], byte[]> entry = iterator.next();
+        result.put(Bytes.toString(entry.getKey()), (T) Bytes.toString(entry.getValue()));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Identifies a cached or preloaded lookup by the table and the parts of the config that affect its contents.
+   */
+  private static final class ConfiguredLookupKey {
+    private final String table;
+    private final Map<String, String> arguments;
+    private final boolean preload;
+    private final long expirySeconds;
+    private final int maxSize;
+
+    ConfiguredLookupKey(String table, LookupTableConfig config) {
+      CacheConfig cacheConfig = config.getCacheConfig();
+      this.table = table;
+      this.arguments = config.getDatasetProperties();
+      this.preload = config.isPreloadEnabled();
+      this.expirySeconds = preload || cacheConfig == null ? 0 : cacheConfig.getExpirySeconds();
+      this.maxSize = preload || cacheConfig == null ? 0 : cacheConfig.getMaxSize();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      ConfiguredLookupKey that = (ConfiguredLookupKey) o;
+      return preload == that.preload && expirySeconds == that.expirySeconds && maxSize == that.maxSize
+        && table.equals(that.table) && Objects.equals(arguments, that.arguments);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(table, arguments, preload, expirySeconds, maxSize);
+    }
+  }
 }
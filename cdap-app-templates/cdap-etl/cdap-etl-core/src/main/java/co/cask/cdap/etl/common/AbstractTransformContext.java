@@ -20,8 +20,10 @@ import co.cask.cdap.api.macro.MacroEvaluator;
 import co.cask.cdap.api.metrics.Metrics;
 import co.cask.cdap.api.plugin.PluginContext;
 import co.cask.cdap.api.plugin.PluginProperties;
+import co.cask.cdap.etl.api.ConfigurableLookupProvider;
 import co.cask.cdap.etl.api.Lookup;
 import co.cask.cdap.etl.api.LookupProvider;
+import co.cask.cdap.etl.api.LookupTableConfig;
 import co.cask.cdap.etl.api.StageMetrics;
 import co.cask.cdap.etl.api.TransformContext;
 import co.cask.cdap.etl.log.LogContext;
@@ -129,4 +131,13 @@ public abstract class AbstractTransformContext implements TransformContext {
   public <T> Lookup<T> provide(String table, Map<String, String> arguments) {
     return lookup.provide(table, arguments);
   }
+
+  @Override
+  public <T> Lookup<T> provide(String table, LookupTableConfig config) {
+    if (lookup instanceof ConfigurableLookupProvider) {
+      return ((ConfigurableLookupProvider) lookup).provide(table, config);
+    }
+    // providers that cannot be configured only provide plain lookups
+    return lookup.provide(table, config.getDatasetProperties());
+  }
 }
@@ -0,0 +1,38 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.etl.common;
+
+import co.cask.cdap.etl.api.Emitter;
+import co.cask.cdap.etl.api.Transformation;
+
+/**
+ * A {@link Transformation} that may hold back some of its output, which has to be emitted through
+ * {@link #flush(Emitter)} once all input has been transformed.
+ *
+ * @param <IN> type of input
+ * @param <OUT> type of output
+ */
+public interface BufferingTransformation<IN, OUT> extends Transformation<IN, OUT> {
+
+  /**
+   * Emits all the output held back by this transformation.
+   *
+   * @param emitter the emitter to emit the output to
+   * @throws Exception if there is some error emitting the output
+   */
+  void flush(Emitter<OUT> emitter) throws Exception;
+}
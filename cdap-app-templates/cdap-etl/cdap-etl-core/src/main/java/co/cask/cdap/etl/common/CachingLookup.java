@@ -0,0 +1,99 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.etl.common;
+
+import co.cask.cdap.etl.api.CacheConfig;
+import co.cask.cdap.etl.api.Lookup;
+import com.google.common.base.Optional;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+
+/**
+ * {@link Lookup} that caches the values of another {@link Lookup} in memory, including the keys that have no value.
+ * The values of keys missing from the cache are fetched with a single batch lookup. The cache is always bounded,
+ * by {@link #DEFAULT_MAX_SIZE} entries unless the {@link CacheConfig} gives a maximum size.
+ *
+ * @param <T> the type of object that will be returned for a lookup
+ */
+public class CachingLookup<T> implements Lookup<T> {
+
+  public static final int DEFAULT_MAX_SIZE = 10000;
+
+  private final Lookup<T> delegate;
+  private final Cache<String, Optional<T>> cache;
+
+  public CachingLookup(Lookup<T> delegate, @Nullable CacheConfig cacheConfig) {
+    this.delegate = delegate;
+    if (cacheConfig == null) {
+      cacheConfig = new CacheConfig();
+    }
+    CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder()
+      .maximumSize(cacheConfig.getMaxSize() > 0 ? cacheConfig.getMaxSize() : DEFAULT_MAX_SIZE);
+    if (cacheConfig.getExpirySeconds() > 0) {
+      builder.expireAfterWrite(cacheConfig.getExpirySeconds(), TimeUnit.SECONDS);
+    }
+    this.cache = builder.build();
+  }
+
+  @Override
+  public T lookup(String key) {
+    Optional<T> value = cache.getIfPresent(key);
+    if (value == null) {
+      value = Optional.fromNullable(delegate.lookup(key));
+      cache.put(key, value);
+    }
+    return value.orNull();
+  }
+
+  @Override
+  public Map<String, T> lookup(String... keys) {
+    return lookup(ImmutableSet.copyOf(keys));
+  }
+
+  @Override
+  public Map<String, T> lookup(Set<String> keys) {
+    Map<String, T> result = new HashMap<>();
+    Map<String, Optional<T>> cached = cache.getAllPresent(keys);
+    for (Map.Entry<String, Optional<T>> entry : cached.entrySet()) {
+      if (entry.getValue().isPresent()) {
+        result.put(entry.getKey(), entry.getValue().get());
+      }
+    }
+    if (cached.size() == keys.size()) {
+      return result;
+    }
+
+    Set<String> missing = ImmutableSet.copyOf(Sets.difference(keys, cached.keySet()));
+    Map<String, T> values = delegate.lookup(missing);
+    for (String key : missing) {
+      T value = values.get(key);
+      cache.put(key, Optional.fromNullable(value));
+      if (value != null) {
+        result.put(key, value);
+      }
+    }
+    return result;
+  }
+}
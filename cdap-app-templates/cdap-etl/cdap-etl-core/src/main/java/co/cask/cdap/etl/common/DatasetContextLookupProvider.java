@@ -37,4 +37,9 @@ public class DatasetContextLookupProvider extends AbstractLookupProvider {
   public <T> Lookup<T> provide(String table, Map<String, String> arguments) {
     return getLookup(table, context.getDataset(table, arguments));
   }
+
+  @Override
+  protected <T> Map<String, T> getAll(String table, Map<String, String> arguments) {
+    return readAll(table, context.getDataset(table, arguments));
+  }
 }
@@ -0,0 +1,49 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.etl.common;
+
+import co.cask.cdap.etl.api.Emitter;
+import co.cask.cdap.etl.api.StageMetrics;
+
+import javax.annotation.Nullable;
+
+/**
+ * A {@link TrackedTransform} for a {@link BufferingTransformation}. Output that is flushed is tracked the same
+ * way as output emitted while transforming.
+ *
+ * @param <IN> Type of input object
+ * @param <OUT> Type of output object
+ */
+public class TrackedBufferingTransform<IN, OUT> extends TrackedTransform<IN, OUT>
+  implements BufferingTransformation<IN, OUT> {
+  private final BufferingTransformation<IN, OUT> transform;
+  private final StageMetrics metrics;
+  private final String metricOutName;
+
+  public TrackedBufferingTransform(BufferingTransformation<IN, OUT> transform, StageMetrics metrics,
+                                   @Nullable String metricInName, @Nullable String metricOutName) {
+    super(transform, metrics, metricInName, metricOutName);
+    this.transform = transform;
+    this.metrics = metrics;
+    this.metricOutName = metricOutName;
+  }
+
+  @Override
+  public void flush(Emitter<OUT> emitter) throws Exception {
+    transform.flush(metricOutName == null ? emitter : new TrackedEmitter<>(emitter, metrics, metricOutName));
+  }
+}
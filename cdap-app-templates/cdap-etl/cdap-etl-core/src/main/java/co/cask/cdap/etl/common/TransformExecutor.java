@@ -49,7 +49,21 @@ public class TransformExecutor<IN> implements Destroyable {
       // no prevStage for starting points
       executeTransformation("", stageName, ImmutableList.of(input));
     }
+    return getTransformResponse();
+  }
+
+  /**
+   * Emits the output held back by {@link BufferingTransformation BufferingTransformations}, and runs it through
+   * the rest of the pipeline. Must be called once all input has been transformed.
+   */
+  public TransformResponse runFlush() throws Exception {
+    for (String stageName : startingPoints) {
+      flushTransformation(stageName);
+    }
+    return getTransformResponse();
+  }
 
+  private TransformResponse getTransformResponse() {
     Map<String, Collection<Object>> terminalNodeEntriesMap = new HashMap<>();
     Map<String, Collection<InvalidEntry<Object>>> errors = new HashMap<>();
 
@@ -96,6 +110,28 @@ public class TransformExecutor<IN> implements Destroyable {
 
   }
 
+  @SuppressWarnings("unchecked")
+  private void flushTransformation(String stageName) throws Exception {
+    TransformDetail transformDetail = transformDetailMap.get(stageName);
+    Transformation<?, Object> transformation = transformDetail.getTransformation();
+    Collection<String> nextStages = transformDetail.getNextStages();
+
+    if (transformation instanceof BufferingTransformation) {
+      if (!nextStages.isEmpty()) {
+        transformDetail.getEntries().clear();
+      }
+      ((BufferingTransformation<?, Object>) transformation).flush(transformDetail);
+      for (String nextStage : nextStages) {
+        executeTransformation(stageName, nextStage, transformDetail.getEntries());
+      }
+    }
+
+    // a stage is flushed again every time it is reached, so that it is flushed after all the stages before it
+    for (String nextStage : nextStages) {
+      flushTransformation(nextStage);
+    }
+  }
+
   public void resetEmitter() {
     for (TransformDetail transformDetailEntry : transformDetailMap.values()) {
       transformDetailEntry.resetEmitter();
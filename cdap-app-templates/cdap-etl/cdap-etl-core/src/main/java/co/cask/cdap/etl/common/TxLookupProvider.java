@@ -80,6 +80,22 @@ public class TxLookupProvider extends AbstractLookupProvider {
     };
   }
 
+  @Override
+  protected <T> Map<String, T> getAll(final String table, final Map<String, String> arguments) {
+    try {
+      final AtomicReference<Map<String, T>> result = new AtomicReference<>();
+      tx.execute(new TxRunnable() {
+        @Override
+        public void run(DatasetContext context) throws Exception {
+          result.set(TxLookupProvider.this.<T>readAll(table, context.getDataset(table, arguments)));
+        }
+      });
+      return result.get();
+    } catch (TransactionFailureException e) {
+      throw new RuntimeException("Failed to execute transaction", e);
+    }
+  }
+
   @Nullable
   private <T, R> R executeLookup(final String table, final Map<String, String> arguments,
                                  final Function<Lookup<T>, R> func) {
@@ -0,0 +1,158 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.etl.batch.join;
+
+import co.cask.cdap.etl.api.Emitter;
+import co.cask.cdap.etl.api.InvalidEntry;
+import co.cask.cdap.etl.api.JoinConfig;
+import co.cask.cdap.etl.api.JoinElement;
+import co.cask.cdap.etl.api.Joiner;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Assert;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Tests for {@link Join}.
+ */
+public class JoinTest {
+
+  @ClassRule
+  public static final TemporaryFolder TMP_FOLDER = new TemporaryFolder();
+
+  private static final JoinElementSerializer<String> SERIALIZER = new JoinElementSerializer<String>() {
+    @Override
+    public void serialize(JoinElement<String> joinElement, DataOutput out) throws IOException {
+      out.writeUTF(joinElement.getStageName());
+      out.writeUTF(joinElement.getInputRecord());
+    }
+
+    @Override
+    public JoinElement<String> deserialize(DataInput in) throws IOException {
+      return new JoinElement<>(in.readUTF(), in.readUTF());
+    }
+  };
+
+  private static final List<JoinElement<String>> ELEMENTS = ImmutableList.of(
+    new JoinElement<>("customers", "alice"),
+    new JoinElement<>("purchases", "book"),
+    new JoinElement<>("purchases", "pen"),
+    new JoinElement<>("purchases", "lamp"),
+    new JoinElement<>("items", "shop"));
+
+  private static final Set<String> INNER_JOIN = ImmutableSet.of(
+    "alice,book,shop", "alice,lamp,shop", "alice,pen,shop");
+
+  @Test
+  public void testInMemoryJoin() throws Exception {
+    Assert.assertEquals(INNER_JOIN, join(ELEMENTS, new JoinConfig(ImmutableList.of("customers", "purchases", "items")),
+                                         null, Integer.MAX_VALUE, null));
+  }
+
+  @Test
+  public void testSpilledJoin() throws Exception {
+    File spillDir = TMP_FOLDER.newFolder();
+    // everything but the first record is spilled
+    Assert.assertEquals(INNER_JOIN, join(ELEMENTS, new JoinConfig(ImmutableList.of("customers", "purchases", "items")),
+                                         SERIALIZER, 1, spillDir));
+    // broadcast inputs are spilled as well once the limit is reached
+    Assert.assertEquals(INNER_JOIN, join(ELEMENTS, new JoinConfig(ImmutableList.of("customers", "purchases", "items"),
+                                                                  ImmutableList.of("customers", "items")),
+                                         SERIALIZER, 0, spillDir));
+    // spill files are removed after the join
+    Assert.assertEquals(0, spillDir.list().length);
+  }
+
+  @Test
+  public void testOuterJoin() throws Exception {
+    // full outer join
+    Assert.assertEquals(INNER_JOIN, join(ELEMENTS, new JoinConfig(Collections.<String>emptyList()),
+                                         SERIALIZER, 2, TMP_FOLDER.newFolder()));
+    Assert.assertEquals(ImmutableSet.of("book", "lamp", "pen"),
+                        join(ELEMENTS.subList(1, 4), new JoinConfig(Collections.<String>emptyList()),
+                             null, Integer.MAX_VALUE, null));
+    // a required input has no records for the key
+    Assert.assertEquals(ImmutableSet.<String>of(),
+                        join(ELEMENTS.subList(0, 4), new JoinConfig(ImmutableList.of("items")),
+                             SERIALIZER, 2, TMP_FOLDER.newFolder()));
+    Assert.assertEquals(ImmutableSet.of("alice,book", "alice,lamp", "alice,pen"),
+                        join(ELEMENTS.subList(0, 4), new JoinConfig(ImmutableList.of("purchases")),
+                             SERIALIZER, 2, TMP_FOLDER.newFolder()));
+  }
+
+  private Set<String> join(List<JoinElement<String>> elements, final JoinConfig joinConfig,
+                           JoinElementSerializer<String> serializer, int maxInMemoryRecords,
+                           File spillDir) throws Exception {
+    Joiner<String, String, String> joiner = new Joiner<String, String, String>() {
+      @Override
+      public String joinOn(String stageName, String inputRecord) {
+        return "key";
+      }
+
+      @Override
+      public JoinConfig getJoinConfig() {
+        return joinConfig;
+      }
+
+      @Override
+      public String merge(String joinKey, Iterable<JoinElement<String>> joinResult) {
+        // sort by stage name so that the result doesn't depend on the order of the inputs
+        TreeSet<String> stages = new TreeSet<>();
+        List<String> records = new ArrayList<>();
+        for (JoinElement<String> joinElement : joinResult) {
+          stages.add(joinElement.getStageName());
+        }
+        for (String stage : stages) {
+          for (JoinElement<String> joinElement : joinResult) {
+            if (joinElement.getStageName().equals(stage)) {
+              records.add(joinElement.getInputRecord());
+            }
+          }
+        }
+        return com.google.common.base.Joiner.on(',').join(records);
+      }
+    };
+
+    final Set<String> results = new TreeSet<>();
+    Emitter<String> emitter = new Emitter<String>() {
+      @Override
+      public void emit(String value) {
+        results.add(value);
+      }
+
+      @Override
+      public void emitError(InvalidEntry<String> invalidEntry) {
+        throw new UnsupportedOperationException();
+      }
+    };
+    new Join<>(joiner, "key", elements.iterator(), 3, emitter, serializer, maxInMemoryRecords, spillDir)
+      .joinRecords();
+    return results;
+  }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.etl.common;
+
+import co.cask.cdap.etl.api.CacheConfig;
+import co.cask.cdap.etl.api.Lookup;
+import co.cask.cdap.etl.api.LookupTableConfig;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tests for {@link CachingLookup}.
+ */
+public class CachingLookupTest {
+
+  @Test
+  public void testCache() {
+    CountingLookup delegate = new CountingLookup(ImmutableMap.of("a", "1", "b", "2", "c", "3"));
+    Lookup<String> lookup = new CachingLookup<>(delegate, new CacheConfig(0, 100));
+
+    Assert.assertEquals("1", lookup.lookup("a"));
+    Assert.assertEquals("1", lookup.lookup("a"));
+    Assert.assertNull(lookup.lookup("x"));
+    Assert.assertNull(lookup.lookup("x"));
+    Assert.assertEquals(2, delegate.lookups.size());
+
+    // only the keys that are not cached are looked up, with a single batch lookup
+    Assert.assertEquals(ImmutableMap.of("a", "1", "b", "2", "c", "3"), lookup.lookup("a", "b", "c", "x", "y"));
+    Assert.assertEquals(3, delegate.lookups.size());
+    Assert.assertEquals(ImmutableSet.of("b", "c", "y"), delegate.lookups.get(2));
+
+    Assert.assertEquals(ImmutableMap.of("b", "2"), lookup.lookup(ImmutableSet.of("b", "y")));
+    Assert.assertEquals(3, delegate.lookups.size());
+  }
+
+  @Test
+  public void testMaxSize() {
+    CountingLookup delegate = new CountingLookup(ImmutableMap.of("a", "1", "b", "2"));
+    Lookup<String> lookup = new CachingLookup<>(delegate, new CacheConfig(0, 1));
+
+    Assert.assertEquals("1", lookup.lookup("a"));
+    Assert.assertEquals("2", lookup.lookup("b"));
+    // "a" got evicted
+    Assert.assertEquals("1", lookup.lookup("a"));
+    Assert.assertEquals(3, delegate.lookups.size());
+  }
+
+  @Test
+  public void testDefaultConfig() {
+    CountingLookup delegate = new CountingLookup(ImmutableMap.of("a", "1"));
+    Lookup<String> lookup = new CachingLookup<>(delegate, null);
+
+    Assert.assertEquals("1", lookup.lookup("a"));
+    Assert.assertEquals("1", lookup.lookup("a"));
+    Assert.assertEquals(1, delegate.lookups.size());
+  }
+
+  @Test
+  public void testSharedLookups() {
+    final CountingLookup delegate = new CountingLookup(ImmutableMap.of("a", "1"));
+    AbstractLookupProvider provider = new AbstractLookupProvider() {
+      @Override
+      protected <T> Map<String, T> getAll(String table, Map<String, String> arguments) {
+        throw new UnsupportedOperationException();
+      }
+
+      @SuppressWarnings("unchecked")
+      @Override
+      public <T> Lookup<T> provide(String table, Map<String, String> arguments) {
+        return (Lookup<T>) delegate;
+      }
+    };
+
+    LookupTableConfig config = new LookupTableConfig(LookupTableConfig.TableType.DATASET, new CacheConfig(0, 100),
+                                                     ImmutableMap.<String, String>of(), true);
+    Lookup<String> lookup1 = provider.provide("table", config);
+    Lookup<String> lookup2 = provider.provide("table", config);
+    // stages of a task that use the same table and config share the cache
+    Assert.assertSame(lookup1, lookup2);
+    Assert.assertEquals("1", lookup1.lookup("a"));
+    Assert.assertEquals("1", lookup2.lookup("a"));
+    Assert.assertEquals(1, delegate.lookups.size());
+
+    Assert.assertNotSame(lookup1, provider.provide("table2", config));
+    Assert.assertNotSame(lookup1, provider.provide("table", new LookupTableConfig(
+      LookupTableConfig.TableType.DATASET, new CacheConfig(10, 100), ImmutableMap.<String, String>of(), true)));
+  }
+
+  @Test
+  public void testPreloaded() {
+    Lookup<String> lookup = new PreloadedLookup<>(ImmutableMap.of("a", "1", "b", "2"));
+    Assert.assertEquals("1", lookup.lookup("a"));
+    Assert.assertNull(lookup.lookup("x"));
+    Assert.assertEquals(ImmutableMap.of("b", "2"), lookup.lookup("b", "x"));
+  }
+
+  /**
+   * Lookup backed by a map, which records the keys of every lookup.
+   */
+  private static final class CountingLookup implements Lookup<String> {
+    private final Map<String, String> values;
+    private final List<Set<String>> lookups = new ArrayList<>();
+
+    private CountingLookup(Map<String, String> values) {
+      this.values = values;
+    }
+
+    @Override
+    public String lookup(String key) {
+      lookups.add(ImmutableSet.of(key));
+      return values.get(key);
+    }
+
+    @Override
+    public Map<String, String> lookup(String... keys) {
+      return lookup(ImmutableSet.copyOf(keys));
+    }
+
+    @Override
+    public Map<String, String> lookup(Set<String> keys) {
+      lookups.add(ImmutableSet.copyOf(keys));
+      Map<String, String> result = new HashMap<>();
+      for (String key : keys) {
+        if (values.containsKey(key)) {
+          result.put(key, values.get(key));
+        }
+      }
+      return result;
+    }
+  }
+}
@@ -109,6 +109,8 @@ public class ETLWorker extends AbstractWorker {
 
   @SuppressWarnings("unused")
   private Metrics metrics;
+  // shared by all stages, so that they share cached and preloaded lookups
+  private TxLookupProvider lookupProvider;
 
   private RealtimeSource<Object> source;
   private String sourceStageName;
@@ -213,6 +215,7 @@ public class ETLWorker extends AbstractWorker {
 
     PipelinePhase pipeline = GSON.fromJson(properties.get(Constants.PIPELINEID), PipelinePhase.class);
     Map<String, TransformDetail> transformationMap = new HashMap<>();
+    lookupProvider = new TxLookupProvider(context);
 
     initializeSource(context, pipeline);
 
@@ -228,7 +231,7 @@ public class ETLWorker extends AbstractWorker {
     source = context.newPluginInstance(sourceName);
     source = new LoggedRealtimeSource<>(sourceName, source);
     WorkerRealtimeContext sourceContext = new WorkerRealtimeContext(
-      context, metrics, new TxLookupProvider(context), sourceName);
+      context, metrics, lookupProvider, sourceName);
     sourceStageName = sourceName;
     LOG.debug("Source Class : {}", source.getClass().getName());
     source.initialize(sourceContext);
@@ -245,7 +248,7 @@ public class ETLWorker extends AbstractWorker {
       RealtimeSink sink = context.newPluginInstance(sinkName);
       sink = new LoggedRealtimeSink(sinkName, sink);
       WorkerRealtimeContext sinkContext = new WorkerRealtimeContext(
-        context, metrics, new TxLookupProvider(context), sinkName);
+        context, metrics, lookupProvider, sinkName);
       LOG.debug("Sink Class : {}", sink.getClass().getName());
       sink.initialize(sinkContext);
       sink = new TrackedRealtimeSink(sink, new DefaultStageMetrics(metrics, sinkName));
@@ -281,7 +284,7 @@ public class ETLWorker extends AbstractWorker {
         Transform<?, ?> transform = context.newPluginInstance(transformName);
         transform = new LoggedTransform<>(transformName, transform);
         WorkerRealtimeContext transformContext = new WorkerRealtimeContext(
-          context, metrics, new TxLookupProvider(context), transformName);
+          context, metrics, lookupProvider, transformName);
         LOG.debug("Transform Class : {}", transform.getClass().getName());
         transform.initialize(transformContext);
         StageMetrics stageMetrics = new DefaultStageMetrics(metrics, transformName);
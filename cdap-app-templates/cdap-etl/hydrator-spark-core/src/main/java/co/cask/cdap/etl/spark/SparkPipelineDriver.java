@@ -17,6 +17,8 @@
 package co.cask.cdap.etl.spark;
 
 import co.cask.cdap.api.spark.JavaSparkExecutionContext;
+import co.cask.cdap.etl.api.CombinableAggregator;
+import co.cask.cdap.etl.api.JoinConfig;
 import co.cask.cdap.etl.api.Transform;
 import co.cask.cdap.etl.api.batch.BatchAggregator;
 import co.cask.cdap.etl.api.batch.BatchJoiner;
@@ -27,16 +29,17 @@ import co.cask.cdap.etl.common.PipelinePhase;
 import co.cask.cdap.etl.planner.StageInfo;
 import co.cask.cdap.etl.spark.function.AggregatorAggregateFunction;
 import co.cask.cdap.etl.spark.function.AggregatorGroupByFunction;
+import co.cask.cdap.etl.spark.function.AggregatorMergeFunction;
 import co.cask.cdap.etl.spark.function.BatchSinkFunction;
 import co.cask.cdap.etl.spark.function.PluginFunctionContext;
 import co.cask.cdap.etl.spark.function.TransformFunction;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
-import java.util.List;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
+import javax.annotation.Nullable;
 
 /**
  * Base Spark program to run a Hydrator pipeline.
@@ -56,9 +59,24 @@ public abstract class SparkPipelineDriver<T> {
   protected abstract T handleSparkCompute(String stageName, T inputData,
                                           SparkCompute<Object, Object> plugin) throws Exception;
 
+  /**
+   * Handles an aggregator stage. The merge function is only given if the aggregator is a
+   * {@link CombinableAggregator}, in which case group values should be merged before they are grouped.
+   */
   protected abstract T handleAggregator(String stageName, T inputData,
                                         AggregatorGroupByFunction groupByFunction,
-                                        AggregatorAggregateFunction aggregateFunction);
+                                        AggregatorAggregateFunction aggregateFunction,
+                                        @Nullable AggregatorMergeFunction mergeFunction);
+
+  /**
+   * Handles a joiner stage. The records of each input are keyed with the join key, and the records of each join
+   * key from all inputs are merged by the joiner.
+   *
+   * @param inputs the data of each input stage of the joiner
+   * @param joinConfig the join config of the joiner
+   */
+  protected abstract T handleJoin(String stageName, Map<String, T> inputs, JoinConfig joinConfig,
+                                  PluginFunctionContext pluginFunctionContext);
 
   protected abstract void handleBatchSink(String stageName, T inputData, BatchSinkFunction sinkFunction);
 
@@ -74,23 +92,33 @@ public abstract class SparkPipelineDriver<T> {
 
       T stageData = null;
 
-      List<T> inputDataCollections = new ArrayList<>();
+      Map<String, T> inputDataCollections = new LinkedHashMap<>();
       for (String inputStageName : stageInfo.getInputs()) {
-        inputDataCollections.add(stageDataCollections.get(inputStageName));
+        inputDataCollections.put(inputStageName, stageDataCollections.get(inputStageName));
       }
 
       // if this stage has multiple inputs, and is not a joiner plugin,
       // initialize the stageRDD as the union of all input RDDs.
-      if (!inputDataCollections.isEmpty()) {
-        Iterator<T> inputRDDIter = inputDataCollections.iterator();
+      if (!inputDataCollections.isEmpty() && !BatchJoiner.PLUGIN_TYPE.equals(pluginType)) {
+        Iterator<T> inputRDDIter = inputDataCollections.values().iterator();
         stageData = inputRDDIter.next();
         while (inputRDDIter.hasNext()) {
           stageData = union(stageData, inputRDDIter.next());
         }
       }
 
-      PluginFunctionContext pluginFunctionContext = new PluginFunctionContext(stageName, sec);
-      if (stageData == null) {
+      PluginFunctionContext pluginFunctionContext = new PluginFunctionContext(stageInfo, sec);
+      if (BatchJoiner.PLUGIN_TYPE.equals(pluginType)) {
+        BatchJoiner<?, ?, ?> joiner = sec.getPluginContext().newPluginInstance(stageName);
+        joiner.initialize(pluginFunctionContext.createJoinerRuntimeContext());
+        JoinConfig joinConfig;
+        try {
+          joinConfig = joiner.getJoinConfig();
+        } finally {
+          joiner.destroy();
+        }
+        stageData = handleJoin(stageName, inputDataCollections, joinConfig, pluginFunctionContext);
+      } else if (stageData == null) {
         // this if-else is nested inside the stageRDD null check to avoid warnings about stageRDD possibly being
         // null in the other else-if conditions
         if (sourcePluginType.equals(pluginType)) {
@@ -109,11 +137,12 @@ public abstract class SparkPipelineDriver<T> {
         SparkSink<Object> sparkSink = sec.getPluginContext().newPluginInstance(stageName);
         handleSparkSink(stageName, stageData, sparkSink);
       } else if (BatchAggregator.PLUGIN_TYPE.equals(pluginType)) {
+        Class<?> aggregatorClass = sec.getPluginContext().loadPluginClass(stageName);
         stageData = handleAggregator(stageName, stageData,
                                      new AggregatorGroupByFunction(pluginFunctionContext),
-                                     new AggregatorAggregateFunction(pluginFunctionContext));
-      } else if (BatchJoiner.PLUGIN_TYPE.equals(pluginType)) {
-        // CDAP-6196 implement joins
+                                     new AggregatorAggregateFunction(pluginFunctionContext),
+                                     CombinableAggregator.class.isAssignableFrom(aggregatorClass) ?
+                                       new AggregatorMergeFunction(pluginFunctionContext) : null);
       } else {
         throw new IllegalStateException(String.format("Stage %s is of unsupported plugin type %s.",
                                                       stageName, pluginType));
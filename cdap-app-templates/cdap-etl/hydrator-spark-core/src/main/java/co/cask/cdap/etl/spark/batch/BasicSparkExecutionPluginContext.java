@@ -25,6 +25,7 @@ import co.cask.cdap.api.plugin.PluginContext;
 import co.cask.cdap.api.spark.JavaSparkExecutionContext;
 import co.cask.cdap.api.stream.StreamEventDecoder;
 import co.cask.cdap.etl.api.Lookup;
+import co.cask.cdap.etl.api.LookupTableConfig;
 import co.cask.cdap.etl.api.batch.SparkExecutionPluginContext;
 import co.cask.cdap.etl.common.AbstractTransformContext;
 import org.apache.spark.api.java.JavaPairRDD;
@@ -161,4 +162,9 @@ public class BasicSparkExecutionPluginContext extends AbstractTransformContext i
   public <T> Lookup<T> provide(String table, Map<String, String> arguments) {
     throw new UnsupportedOperationException("Lookup not supported in Spark");
   }
+
+  @Override
+  public <T> Lookup<T> provide(String table, LookupTableConfig config) {
+    throw new UnsupportedOperationException("Lookup not supported in Spark");
+  }
 }
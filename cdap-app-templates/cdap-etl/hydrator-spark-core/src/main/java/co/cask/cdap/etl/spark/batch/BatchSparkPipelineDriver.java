@@ -21,6 +21,7 @@ import co.cask.cdap.api.data.DatasetContext;
 import co.cask.cdap.api.data.schema.Schema;
 import co.cask.cdap.api.spark.JavaSparkExecutionContext;
 import co.cask.cdap.api.spark.JavaSparkMain;
+import co.cask.cdap.etl.api.JoinConfig;
 import co.cask.cdap.etl.api.StageMetrics;
 import co.cask.cdap.etl.api.batch.BatchSource;
 import co.cask.cdap.etl.api.batch.SparkCompute;
@@ -33,30 +34,59 @@ import co.cask.cdap.etl.common.SetMultimapCodec;
 import co.cask.cdap.etl.spark.SparkPipelineDriver;
 import co.cask.cdap.etl.spark.function.AggregatorAggregateFunction;
 import co.cask.cdap.etl.spark.function.AggregatorGroupByFunction;
+import co.cask.cdap.etl.spark.function.AggregatorMergeFunction;
 import co.cask.cdap.etl.spark.function.BatchSinkFunction;
 import co.cask.cdap.etl.spark.function.BatchSourceFunction;
+import co.cask.cdap.etl.spark.function.JoinMergeFunction;
+import co.cask.cdap.etl.spark.function.JoinOnFunction;
 import co.cask.cdap.etl.spark.function.PluginFunctionContext;
+import co.cask.cdap.etl.spark.function.SaltedJoinKey;
 import co.cask.cdap.etl.spark.function.TransformFunction;
 import co.cask.cdap.internal.io.SchemaTypeAdapter;
 import com.google.common.collect.SetMultimap;
+import com.google.common.collect.Sets;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.reflect.TypeToken;
 import org.apache.spark.api.java.JavaPairRDD;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.JavaSparkContext;
+import org.apache.spark.api.java.function.Function;
+import org.apache.spark.api.java.function.Function2;
+import org.apache.spark.api.java.function.PairFlatMapFunction;
+import org.apache.spark.api.java.function.PairFunction;
+import org.apache.spark.broadcast.Broadcast;
+import org.apache.spark.storage.StorageLevel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import scala.Tuple2;
 
 import java.io.DataInputStream;
 import java.io.FileInputStream;
 import java.io.InputStream;
 import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
 
 /**
  * Batch Spark pipeline driver.
  */
 public class BatchSparkPipelineDriver extends SparkPipelineDriver<JavaRDD<Object>>
   implements JavaSparkMain, TxRunnable {
+  // number of records of a join key in one input above which the records are spread over multiple groups.
+  // Skewed join keys are only looked for if this is set, since the inputs have to be sampled to find them.
+  static final String JOIN_SKEWED_KEY_RECORDS_KEY = "cdap.etl.join.skewed.key.records";
+  // fraction of the records of the joiner inputs that is sampled to find skewed join keys
+  private static final double JOIN_SAMPLE_FRACTION = 0.01;
+
+  private static final Logger LOG = LoggerFactory.getLogger(BatchSparkPipelineDriver.class);
   private static final Type MAP_TYPE = new TypeToken<Map<String, String>>() { }.getType();
   private static final Gson GSON = new GsonBuilder()
     .registerTypeAdapter(SetMultimap.class, new SetMultimapCodec<>())
@@ -69,6 +99,8 @@ public class BatchSparkPipelineDriver extends SparkPipelineDriver<JavaRDD<Object
   private transient SparkBatchSinkFactory sinkFactory;
   private transient DatasetContext datasetContext;
   private transient Map<String, Integer> stagePartitions;
+  // joiner inputs persisted to sample them, which are unpersisted once the pipeline has computed the joins
+  private transient List<JavaRDD<Object>> sampledJoinInputs;
 
   @Override
   protected JavaRDD<Object> union(JavaRDD<Object> input1, JavaRDD<Object> input2) {
@@ -132,14 +164,152 @@ public class BatchSparkPipelineDriver extends SparkPipelineDriver<JavaRDD<Object
   @Override
   protected JavaRDD<Object> handleAggregator(String stageName, JavaRDD<Object> inputData,
                                              AggregatorGroupByFunction groupByFunction,
-                                             AggregatorAggregateFunction aggregateFunction) {
+                                             AggregatorAggregateFunction aggregateFunction,
+                                             @Nullable AggregatorMergeFunction mergeFunction) {
     Integer partitions = stagePartitions.get(stageName);
     JavaPairRDD<Object, Object> keyedRDD = inputData.flatMapToPair(groupByFunction);
-    JavaPairRDD<Object, Iterable<Object>> groupedRDD = partitions == null ?
-      keyedRDD.groupByKey() : keyedRDD.groupByKey(partitions);
+    JavaPairRDD<Object, Iterable<Object>> groupedRDD;
+    if (mergeFunction == null) {
+      groupedRDD = partitions == null ? keyedRDD.groupByKey() : keyedRDD.groupByKey(partitions);
+    } else {
+      // reduceByKey merges values on the map side before shuffling. The merge function needs the group key,
+      // which is not passed by Spark, hence it is carried in the values
+      JavaPairRDD<Object, Tuple2<Object, Object>> pairRDD = keyedRDD.mapToPair(new KeyedValueFunction());
+      JavaPairRDD<Object, Tuple2<Object, Object>> mergedRDD = partitions == null ?
+        pairRDD.reduceByKey(mergeFunction) : pairRDD.reduceByKey(mergeFunction, partitions);
+      groupedRDD = mergedRDD.mapValues(new SingletonValueFunction());
+    }
     return groupedRDD.flatMap(aggregateFunction);
   }
 
+  /**
+   * Joins the inputs of a joiner. Records of broadcast inputs are collected and broadcast, so that the records
+   * of the other inputs are joined with them without shuffling the broadcast inputs. If a single input is left,
+   * its records are joined without any shuffle. Otherwise the records of the other inputs are grouped by join key.
+   * If enabled with {@link #JOIN_SKEWED_KEY_RECORDS_KEY}, join keys that are found to be skewed by sampling the
+   * inputs are salted, so that their records are joined by multiple tasks.
+   */
+  @Override
+  protected JavaRDD<Object> handleJoin(String stageName, Map<String, JavaRDD<Object>> inputs, JoinConfig joinConfig,
+                                       PluginFunctionContext pluginFunctionContext) {
+    Set<String> broadcastInputs = Sets.newHashSet(joinConfig.getBroadcastInputs());
+    broadcastInputs.retainAll(inputs.keySet());
+    // Join keys that only have records in broadcast inputs are never joined,
+    // which is only correct if one of the required inputs is not broadcast.
+    if (broadcastInputs.size() == inputs.size()
+      || Sets.difference(Sets.newHashSet(joinConfig.getRequiredInputs()), broadcastInputs).isEmpty()) {
+      if (!broadcastInputs.isEmpty()) {
+        LOG.debug("Not broadcasting inputs {} of joiner '{}' since all required inputs are broadcast.",
+                  broadcastInputs, stageName);
+      }
+      broadcastInputs.clear();
+    }
+
+    Map<String, JavaRDD<Object>> shuffledInputs = new LinkedHashMap<>();
+    Map<Object, List<Tuple2<String, Object>>> broadcastRecords = new HashMap<>();
+    for (Map.Entry<String, JavaRDD<Object>> input : inputs.entrySet()) {
+      if (!broadcastInputs.contains(input.getKey())) {
+        shuffledInputs.put(input.getKey(), input.getValue());
+        continue;
+      }
+      JavaPairRDD<Object, Tuple2<String, Object>> keyedInput =
+        input.getValue().flatMapToPair(new JoinOnFunction(pluginFunctionContext, input.getKey()));
+      for (Tuple2<Object, Tuple2<String, Object>> record : keyedInput.collect()) {
+        List<Tuple2<String, Object>> records = broadcastRecords.get(record._1());
+        if (records == null) {
+          records = new ArrayList<>();
+          broadcastRecords.put(record._1(), records);
+        }
+        records.add(record._2());
+      }
+    }
+    Broadcast<Map<Object, List<Tuple2<String, Object>>>> broadcast =
+      broadcastRecords.isEmpty() ? null : jsc.broadcast(broadcastRecords);
+
+    if (shuffledInputs.size() == 1) {
+      // Each record of the input is joined with the broadcast records of its join key on its own,
+      // which gives the same result as joining all records of the join key at once
+      Map.Entry<String, JavaRDD<Object>> input = shuffledInputs.entrySet().iterator().next();
+      return input.getValue()
+        .flatMapToPair(new JoinOnFunction(pluginFunctionContext, input.getKey()))
+        .mapValues(new SingletonRecordFunction())
+        .flatMap(new JoinMergeFunction(pluginFunctionContext, inputs.size(), broadcast, null));
+    }
+
+    Integer partitions = stagePartitions.get(stageName);
+    int maxSalts = partitions == null ? jsc.defaultParallelism() : partitions;
+    int skewedKeyRecords = getSkewedKeyRecords();
+
+    // Salt the skewed join keys of the input with the most records of skewed join keys
+    String saltedInput = null;
+    Map<Object, Integer> saltedKeys = new HashMap<>();
+    if (maxSalts > 1 && skewedKeyRecords > 0) {
+      long maxSampledRecords = 0L;
+      for (Map.Entry<String, JavaRDD<Object>> input : shuffledInputs.entrySet()) {
+        // The input is computed again by the join, which must not read the sources or emit the metrics again
+        if (input.getValue().getStorageLevel().equals(StorageLevel.NONE())) {
+          input.getValue().persist(StorageLevel.MEMORY_AND_DISK());
+          sampledJoinInputs.add(input.getValue());
+        }
+        Map<Object, Long> skewedKeys = sampleSkewedKeys(input.getKey(), input.getValue(), skewedKeyRecords,
+                                                        pluginFunctionContext);
+        long sampledRecords = 0L;
+        for (long count : skewedKeys.values()) {
+          sampledRecords += count;
+        }
+        if (sampledRecords > maxSampledRecords) {
+          maxSampledRecords = sampledRecords;
+          saltedInput = input.getKey();
+          saltedKeys.clear();
+          for (Map.Entry<Object, Long> skewedKey : skewedKeys.entrySet()) {
+            long estimatedRecords = (long) (skewedKey.getValue() / JOIN_SAMPLE_FRACTION);
+            saltedKeys.put(skewedKey.getKey(), (int) Math.min(maxSalts, estimatedRecords / skewedKeyRecords + 1));
+          }
+        }
+      }
+    }
+    Broadcast<Map<Object, Integer>> salts = null;
+    if (saltedInput != null) {
+      LOG.info("Salting {} skewed join keys of input '{}' of joiner '{}'.", saltedKeys.size(), saltedInput, stageName);
+      salts = jsc.broadcast(saltedKeys);
+    }
+
+    JavaPairRDD<Object, Tuple2<String, Object>> keyedRecords = null;
+    for (Map.Entry<String, JavaRDD<Object>> input : shuffledInputs.entrySet()) {
+      JavaPairRDD<Object, Tuple2<String, Object>> keyedInput =
+        input.getValue().flatMapToPair(new JoinOnFunction(pluginFunctionContext, input.getKey()));
+      if (salts != null) {
+        keyedInput = input.getKey().equals(saltedInput) ?
+          JavaPairRDD.fromJavaRDD(keyedInput.mapPartitionsWithIndex(new SaltFunction(salts), true)) :
+          keyedInput.flatMapToPair(new ReplicateFunction(salts));
+      }
+      keyedRecords = keyedRecords == null ? keyedInput : keyedRecords.union(keyedInput);
+    }
+    JavaPairRDD<Object, Iterable<Tuple2<String, Object>>> groupedRecords =
+      partitions == null ? keyedRecords.groupByKey() : keyedRecords.groupByKey(partitions);
+    return groupedRecords.flatMap(new JoinMergeFunction(pluginFunctionContext, inputs.size(), broadcast, saltedInput));
+  }
+
+  /**
+   * Returns the join keys of the given input that have at least the given number of records, estimated from a
+   * sample of the input, with the number of sampled records of each key.
+   */
+  private Map<Object, Long> sampleSkewedKeys(String inputStageName, JavaRDD<Object> input, int skewedKeyRecords,
+                                             PluginFunctionContext pluginFunctionContext) {
+    long minSampledRecords = (long) Math.ceil(skewedKeyRecords * JOIN_SAMPLE_FRACTION);
+    return new HashMap<>(input.sample(false, JOIN_SAMPLE_FRACTION)
+                           .flatMapToPair(new JoinOnFunction(pluginFunctionContext, inputStageName, false))
+                           .mapValues(new OneFunction())
+                           .reduceByKey(new SumFunction())
+                           .filter(new MinCountFunction(minSampledRecords))
+                           .collectAsMap());
+  }
+
+  private int getSkewedKeyRecords() {
+    String skewedKeyRecords = sec.getRuntimeArguments().get(JOIN_SKEWED_KEY_RECORDS_KEY);
+    return skewedKeyRecords == null ? 0 : Integer.parseInt(skewedKeyRecords);
+  }
+
   @Override
   public void run(JavaSparkExecutionContext sec) throws Exception {
     this.jsc = new JavaSparkContext();
@@ -162,6 +332,162 @@ public class BatchSparkPipelineDriver extends SparkPipelineDriver<JavaRDD<Object
       stagePartitions = GSON.fromJson(new DataInputStream(is).readUTF(), MAP_TYPE);
     }
     datasetContext = context;
-    runPipeline(phaseSpec.getPhase(), BatchSource.PLUGIN_TYPE, sec);
+    sampledJoinInputs = new ArrayList<>();
+    try {
+      runPipeline(phaseSpec.getPhase(), BatchSource.PLUGIN_TYPE, sec);
+    } finally {
+      // The sinks have been written, hence the joins are computed and their inputs are not needed anymore
+      for (JavaRDD<Object> input : sampledJoinInputs) {
+        input.unpersist(false);
+      }
+      sampledJoinInputs.clear();
+    }
+  }
+
+  /**
+   * Function that turns a (key, value) pair into a (key, (key, value)) pair.
+   */
+  private static final class KeyedValueFunction
+    implements PairFunction<Tuple2<Object, Object>, Object, Tuple2<Object, Object>> {
+
+    @Override
+    public Tuple2<Object, Tuple2<Object, Object>> call(Tuple2<Object, Object> keyValue) {
+      return new Tuple2<>(keyValue._1(), keyValue);
+    }
+  }
+
+  /**
+   * Function that turns a (key, value) pair into an {@link Iterable} of the value.
+   */
+  private static final class SingletonValueFunction implements Function<Tuple2<Object, Object>, Iterable<Object>> {
+
+    @Override
+    public Iterable<Object> call(Tuple2<Object, Object> keyValue) {
+      return Collections.singletonList(keyValue._2());
+    }
+  }
+
+  /**
+   * Function that turns a record into an {@link Iterable} of the record.
+   */
+  private static final class SingletonRecordFunction
+    implements Function<Tuple2<String, Object>, Iterable<Tuple2<String, Object>>> {
+
+    @Override
+    public Iterable<Tuple2<String, Object>> call(Tuple2<String, Object> record) {
+      return Collections.singletonList(record);
+    }
+  }
+
+  /**
+   * Function that replaces the join keys of the records of a partition of the salted input with a
+   * {@link SaltedJoinKey} if the join key is skewed. The records of skewed join keys get salts round robin, starting
+   * at the partition index, so that equal records are spread as well. The salt of a record only depends on the
+   * partition and the position of the record in it, so that it doesn't change if the partition is recomputed.
+   */
+  private static final class SaltFunction
+    implements Function2<Integer, Iterator<Tuple2<Object, Tuple2<String, Object>>>,
+                         Iterator<Tuple2<Object, Tuple2<String, Object>>>> {
+    private final Broadcast<Map<Object, Integer>> salts;
+
+    private SaltFunction(Broadcast<Map<Object, Integer>> salts) {
+      this.salts = salts;
+    }
+
+    @Override
+    public Iterator<Tuple2<Object, Tuple2<String, Object>>> call(
+      final Integer partition, final Iterator<Tuple2<Object, Tuple2<String, Object>>> keyedRecords) {
+      final Map<Object, Integer> keySalts = salts.value();
+      return new Iterator<Tuple2<Object, Tuple2<String, Object>>>() {
+        private int position = partition;
+
+        @Override
+        public boolean hasNext() {
+          return keyedRecords.hasNext();
+        }
+
+        @Override
+        public Tuple2<Object, Tuple2<String, Object>> next() {
+          Tuple2<Object, Tuple2<String, Object>> keyedRecord = keyedRecords.next();
+          Integer numSalts = keySalts.get(keyedRecord._1());
+          if (numSalts == null) {
+            return keyedRecord;
+          }
+          int salt = (position++ & Integer.MAX_VALUE) % numSalts;
+          return new Tuple2<Object, Tuple2<String, Object>>(new SaltedJoinKey(keyedRecord._1(), salt),
+                                                            keyedRecord._2());
+        }
+
+        @Override
+        public void remove() {
+          throw new UnsupportedOperationException("Remove is not supported");
+        }
+      };
+    }
+  }
+
+  /**
+   * Function that emits a record of an input that is not salted once for every salt of its join key if the join
+   * key is skewed, so that it is joined with all records of the salted input.
+   */
+  private static final class ReplicateFunction
+    implements PairFlatMapFunction<Tuple2<Object, Tuple2<String, Object>>, Object, Tuple2<String, Object>> {
+    private final Broadcast<Map<Object, Integer>> salts;
+
+    private ReplicateFunction(Broadcast<Map<Object, Integer>> salts) {
+      this.salts = salts;
+    }
+
+    @Override
+    public Iterable<Tuple2<Object, Tuple2<String, Object>>> call(Tuple2<Object, Tuple2<String, Object>> keyedRecord) {
+      Integer numSalts = salts.value().get(keyedRecord._1());
+      if (numSalts == null) {
+        return Collections.singletonList(keyedRecord);
+      }
+      List<Tuple2<Object, Tuple2<String, Object>>> saltedRecords = new ArrayList<>(numSalts);
+      for (int salt = 0; salt < numSalts; salt++) {
+        saltedRecords.add(new Tuple2<Object, Tuple2<String, Object>>(new SaltedJoinKey(keyedRecord._1(), salt),
+                                                                     keyedRecord._2()));
+      }
+      return saltedRecords;
+    }
+  }
+
+  /**
+   * Function that maps a value to one.
+   */
+  private static final class OneFunction implements Function<Tuple2<String, Object>, Long> {
+
+    @Override
+    public Long call(Tuple2<String, Object> record) {
+      return 1L;
+    }
+  }
+
+  /**
+   * Function that sums two counts.
+   */
+  private static final class SumFunction implements Function2<Long, Long, Long> {
+
+    @Override
+    public Long call(Long count1, Long count2) {
+      return count1 + count2;
+    }
+  }
+
+  /**
+   * Function that keeps the keys with at least the given count.
+   */
+  private static final class MinCountFunction implements Function<Tuple2<Object, Long>, Boolean> {
+    private final long minCount;
+
+    private MinCountFunction(long minCount) {
+      this.minCount = minCount;
+    }
+
+    @Override
+    public Boolean call(Tuple2<Object, Long> keyCount) {
+      return keyCount._2() >= minCount;
+    }
   }
 }
@@ -22,6 +22,7 @@ import co.cask.cdap.api.spark.AbstractSpark;
 import co.cask.cdap.api.spark.SparkClientContext;
 import co.cask.cdap.etl.api.batch.BatchAggregator;
 import co.cask.cdap.etl.api.batch.BatchConfigurable;
+import co.cask.cdap.etl.api.batch.BatchJoiner;
 import co.cask.cdap.etl.api.batch.BatchSink;
 import co.cask.cdap.etl.api.batch.BatchSinkContext;
 import co.cask.cdap.etl.api.batch.BatchSource;
@@ -29,6 +30,7 @@ import co.cask.cdap.etl.api.batch.BatchSourceContext;
 import co.cask.cdap.etl.api.batch.SparkPluginContext;
 import co.cask.cdap.etl.api.batch.SparkSink;
 import co.cask.cdap.etl.batch.AbstractAggregatorContext;
+import co.cask.cdap.etl.batch.AbstractJoinerContext;
 import co.cask.cdap.etl.batch.BatchPhaseSpec;
 import co.cask.cdap.etl.common.CompositeFinisher;
 import co.cask.cdap.etl.common.Constants;
@@ -133,6 +135,13 @@ public class ETLSpark extends AbstractSpark {
         aggregator.prepareRun(aggregatorContext);
         finishers.add(aggregator, aggregatorContext);
         stagePartitions.put(stageName, aggregatorContext.getNumPartitions());
+      } else if (BatchJoiner.PLUGIN_TYPE.equals(pluginType)) {
+        BatchJoiner joiner = context.newPluginInstance(stageName, evaluator);
+        AbstractJoinerContext joinerContext =
+          new SparkJoinerContext(context, new DatasetContextLookupProvider(context), stageName);
+        joiner.prepareRun(joinerContext);
+        finishers.add(joiner, joinerContext);
+        stagePartitions.put(stageName, joinerContext.getNumPartitions());
       }
     }
 
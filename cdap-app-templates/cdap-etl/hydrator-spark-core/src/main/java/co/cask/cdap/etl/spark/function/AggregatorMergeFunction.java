@@ -0,0 +1,47 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.etl.spark.function;
+
+import co.cask.cdap.etl.api.CombinableAggregator;
+import co.cask.cdap.etl.api.batch.BatchAggregator;
+import org.apache.spark.api.java.function.Function2;
+import scala.Tuple2;
+
+/**
+ * Function that uses a {@link CombinableAggregator} to merge partial aggregates of a group. Spark only gives the
+ * values to the merge function, hence the values are the (group key, partial aggregate) pairs.
+ */
+public class AggregatorMergeFunction
+  implements Function2<Tuple2<Object, Object>, Tuple2<Object, Object>, Tuple2<Object, Object>> {
+  private final PluginFunctionContext pluginFunctionContext;
+  private transient CombinableAggregator<Object, Object, Object> aggregator;
+
+  public AggregatorMergeFunction(PluginFunctionContext pluginFunctionContext) {
+    this.pluginFunctionContext = pluginFunctionContext;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public Tuple2<Object, Object> call(Tuple2<Object, Object> value1, Tuple2<Object, Object> value2) throws Exception {
+    if (aggregator == null) {
+      BatchAggregator<Object, Object, Object> batchAggregator = pluginFunctionContext.createPlugin();
+      batchAggregator.initialize(pluginFunctionContext.createBatchRuntimeContext());
+      aggregator = (CombinableAggregator<Object, Object, Object>) batchAggregator;
+    }
+    return new Tuple2<>(value1._1(), aggregator.merge(value1._1(), value1._2(), value2._2()));
+  }
+}
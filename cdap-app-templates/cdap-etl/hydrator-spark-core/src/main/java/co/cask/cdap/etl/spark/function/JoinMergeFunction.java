@@ -0,0 +1,163 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.etl.spark.function;
+
+import co.cask.cdap.etl.api.Emitter;
+import co.cask.cdap.etl.api.JoinConfig;
+import co.cask.cdap.etl.api.JoinElement;
+import co.cask.cdap.etl.api.Joiner;
+import co.cask.cdap.etl.api.StageMetrics;
+import co.cask.cdap.etl.api.Transformation;
+import co.cask.cdap.etl.api.batch.BatchJoiner;
+import co.cask.cdap.etl.batch.join.Join;
+import co.cask.cdap.etl.common.DefaultEmitter;
+import co.cask.cdap.etl.common.TrackedTransform;
+import com.google.common.base.Function;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Sets;
+import org.apache.spark.api.java.function.FlatMapFunction;
+import org.apache.spark.broadcast.Broadcast;
+import scala.Tuple2;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
+
+/**
+ * Function that uses a BatchJoiner to merge the records of a join key from all inputs of the joiner.
+ * Records of broadcast inputs are not part of the group, they are looked up by join key in the broadcast records.
+ * The records of the other inputs are part of every group of a {@link SaltedJoinKey}, hence only join rows that
+ * contain a record of the salted input are merged for it.
+ */
+public class JoinMergeFunction implements FlatMapFunction<Tuple2<Object, Iterable<Tuple2<String, Object>>>, Object> {
+  private final PluginFunctionContext pluginFunctionContext;
+  private final int numOfInputs;
+  private final Broadcast<Map<Object, List<Tuple2<String, Object>>>> broadcastRecords;
+  private final String saltedInput;
+  private transient TrackedTransform<Tuple2<Object, Iterable<Tuple2<String, Object>>>, Object> joinTransform;
+  private transient TrackedTransform<Tuple2<Object, Iterable<Tuple2<String, Object>>>, Object> saltedJoinTransform;
+  private transient DefaultEmitter<Object> emitter;
+
+  /**
+   * Creates a merge function.
+   *
+   * @param numOfInputs number of inputs of the joiner
+   * @param broadcastRecords records of the broadcast inputs by join key, or {@code null} if there are none
+   * @param saltedInput name of the input that is salted for skewed join keys, or {@code null} if no key is salted
+   */
+  public JoinMergeFunction(PluginFunctionContext pluginFunctionContext, int numOfInputs,
+                           @Nullable Broadcast<Map<Object, List<Tuple2<String, Object>>>> broadcastRecords,
+                           @Nullable String saltedInput) {
+    this.pluginFunctionContext = pluginFunctionContext;
+    this.numOfInputs = numOfInputs;
+    this.broadcastRecords = broadcastRecords;
+    this.saltedInput = saltedInput;
+  }
+
+  @Override
+  public Iterable<Object> call(Tuple2<Object, Iterable<Tuple2<String, Object>>> input) throws Exception {
+    if (joinTransform == null) {
+      BatchJoiner<Object, Object, Object> joiner = pluginFunctionContext.createPlugin();
+      joiner.initialize(pluginFunctionContext.createJoinerRuntimeContext());
+      StageMetrics stageMetrics = pluginFunctionContext.createStageMetrics();
+      joinTransform = new TrackedTransform<>(new JoinTransform<>(joiner, numOfInputs),
+                                             stageMetrics, null, TrackedTransform.RECORDS_OUT);
+      if (saltedInput != null) {
+        saltedJoinTransform = new TrackedTransform<>(
+          new JoinTransform<>(new SaltedInputJoiner<>(joiner, saltedInput), numOfInputs),
+          stageMetrics, null, TrackedTransform.RECORDS_OUT);
+      }
+      emitter = new DefaultEmitter<>();
+    }
+
+    Object joinKey = input._1();
+    TrackedTransform<Tuple2<Object, Iterable<Tuple2<String, Object>>>, Object> transform = joinTransform;
+    if (joinKey instanceof SaltedJoinKey) {
+      joinKey = ((SaltedJoinKey) joinKey).getKey();
+      transform = saltedJoinTransform;
+    }
+    Iterable<Tuple2<String, Object>> records = input._2();
+    if (broadcastRecords != null) {
+      List<Tuple2<String, Object>> joinKeyBroadcastRecords = broadcastRecords.value().get(joinKey);
+      if (joinKeyBroadcastRecords != null) {
+        records = Iterables.concat(records, joinKeyBroadcastRecords);
+      }
+    }
+
+    emitter.reset();
+    transform.transform(new Tuple2<>(joinKey, records), emitter);
+    return emitter.getEntries();
+  }
+
+  private static class JoinTransform<JOIN_KEY, INPUT_RECORD, OUT>
+    implements Transformation<Tuple2<JOIN_KEY, Iterable<Tuple2<String, INPUT_RECORD>>>, OUT> {
+    private final Joiner<JOIN_KEY, INPUT_RECORD, OUT> joiner;
+    private final int numOfInputs;
+
+    public JoinTransform(Joiner<JOIN_KEY, INPUT_RECORD, OUT> joiner, int numOfInputs) {
+      this.joiner = joiner;
+      this.numOfInputs = numOfInputs;
+    }
+
+    @Override
+    public void transform(Tuple2<JOIN_KEY, Iterable<Tuple2<String, INPUT_RECORD>>> input,
+                          Emitter<OUT> emitter) throws Exception {
+      Iterator<JoinElement<INPUT_RECORD>> joinElements = Iterators.transform(
+        input._2().iterator(), new Function<Tuple2<String, INPUT_RECORD>, JoinElement<INPUT_RECORD>>() {
+          @Override
+          public JoinElement<INPUT_RECORD> apply(Tuple2<String, INPUT_RECORD> record) {
+            return new JoinElement<>(record._1(), record._2());
+          }
+        });
+      new Join<>(joiner, input._1(), joinElements, numOfInputs, emitter).joinRecords();
+    }
+  }
+
+  /**
+   * A {@link Joiner} that additionally requires a record from the salted input in every join row.
+   */
+  private static class SaltedInputJoiner<JOIN_KEY, INPUT_RECORD, OUT> implements Joiner<JOIN_KEY, INPUT_RECORD, OUT> {
+    private final Joiner<JOIN_KEY, INPUT_RECORD, OUT> joiner;
+    private final String saltedInput;
+
+    SaltedInputJoiner(Joiner<JOIN_KEY, INPUT_RECORD, OUT> joiner, String saltedInput) {
+      this.joiner = joiner;
+      this.saltedInput = saltedInput;
+    }
+
+    @Override
+    public JOIN_KEY joinOn(String stageName, INPUT_RECORD inputRecord) throws Exception {
+      return joiner.joinOn(stageName, inputRecord);
+    }
+
+    @Override
+    public JoinConfig getJoinConfig() throws Exception {
+      JoinConfig joinConfig = joiner.getJoinConfig();
+      Set<String> requiredInputs = Sets.newHashSet(joinConfig.getRequiredInputs());
+      requiredInputs.add(saltedInput);
+      return new JoinConfig(requiredInputs, joinConfig.getBroadcastInputs());
+    }
+
+    @Override
+    public OUT merge(JOIN_KEY joinKey, Iterable<JoinElement<INPUT_RECORD>> joinResult) throws Exception {
+      return joiner.merge(joinKey, joinResult);
+    }
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.etl.spark.function;
+
+import co.cask.cdap.etl.api.Emitter;
+import co.cask.cdap.etl.api.Transformation;
+import co.cask.cdap.etl.api.batch.BatchJoiner;
+import co.cask.cdap.etl.common.DefaultEmitter;
+import co.cask.cdap.etl.common.TrackedTransform;
+import org.apache.spark.api.java.function.PairFlatMapFunction;
+import scala.Tuple2;
+
+/**
+ * Function that uses a BatchJoiner to key the records of one input of the joiner by the join key. Records are
+ * tagged with the name of the input stage, which is needed to merge them.
+ */
+public class JoinOnFunction implements PairFlatMapFunction<Object, Object, Tuple2<String, Object>> {
+  private final PluginFunctionContext pluginFunctionContext;
+  private final String inputStageName;
+  private final boolean trackRecordsIn;
+  private transient TrackedTransform<Object, Tuple2<Object, Tuple2<String, Object>>> joinOnFunction;
+  private transient DefaultEmitter<Tuple2<Object, Tuple2<String, Object>>> emitter;
+
+  public JoinOnFunction(PluginFunctionContext pluginFunctionContext, String inputStageName) {
+    this(pluginFunctionContext, inputStageName, true);
+  }
+
+  /**
+   * Creates a function that only counts records in if {@code trackRecordsIn} is true. Records that are keyed
+   * more than once, such as the samples of an input, must only be counted once.
+   */
+  public JoinOnFunction(PluginFunctionContext pluginFunctionContext, String inputStageName, boolean trackRecordsIn) {
+    this.pluginFunctionContext = pluginFunctionContext;
+    this.inputStageName = inputStageName;
+    this.trackRecordsIn = trackRecordsIn;
+  }
+
+  @Override
+  public Iterable<Tuple2<Object, Tuple2<String, Object>>> call(Object input) throws Exception {
+    if (joinOnFunction == null) {
+      BatchJoiner<Object, Object, Object> joiner = pluginFunctionContext.createPlugin();
+      joiner.initialize(pluginFunctionContext.createJoinerRuntimeContext());
+      joinOnFunction = new TrackedTransform<>(new JoinOnTransform<>(joiner, inputStageName),
+                                              pluginFunctionContext.createStageMetrics(),
+                                              trackRecordsIn ? TrackedTransform.RECORDS_IN : null,
+                                              null);
+      emitter = new DefaultEmitter<>();
+    }
+    emitter.reset();
+    joinOnFunction.transform(input, emitter);
+    return emitter.getEntries();
+  }
+
+  private static class JoinOnTransform<JOIN_KEY, INPUT_RECORD>
+    implements Transformation<INPUT_RECORD, Tuple2<JOIN_KEY, Tuple2<String, INPUT_RECORD>>> {
+    private final BatchJoiner<JOIN_KEY, INPUT_RECORD, ?> joiner;
+    private final String inputStageName;
+
+    public JoinOnTransform(BatchJoiner<JOIN_KEY, INPUT_RECORD, ?> joiner, String inputStageName) {
+      this.joiner = joiner;
+      this.inputStageName = inputStageName;
+    }
+
+    @Override
+    public void transform(INPUT_RECORD input,
+                          Emitter<Tuple2<JOIN_KEY, Tuple2<String, INPUT_RECORD>>> emitter) throws Exception {
+      JOIN_KEY key = joiner.joinOn(inputStageName, input);
+      emitter.emit(new Tuple2<>(key, new Tuple2<>(inputStageName, input)));
+    }
+  }
+}
@@ -16,15 +16,20 @@
 
 package co.cask.cdap.etl.spark.function;
 
+import co.cask.cdap.api.data.schema.Schema;
 import co.cask.cdap.api.metrics.Metrics;
 import co.cask.cdap.api.plugin.PluginContext;
 import co.cask.cdap.api.spark.JavaSparkExecutionContext;
 import co.cask.cdap.etl.api.StageMetrics;
+import co.cask.cdap.etl.api.batch.BatchJoinerRuntimeContext;
 import co.cask.cdap.etl.api.batch.BatchRuntimeContext;
 import co.cask.cdap.etl.common.DefaultStageMetrics;
+import co.cask.cdap.etl.planner.StageInfo;
 import co.cask.cdap.etl.spark.batch.SparkBatchRuntimeContext;
+import co.cask.cdap.etl.spark.batch.SparkJoinerRuntimeContext;
 
 import java.io.Serializable;
+import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -39,13 +44,21 @@ public class PluginFunctionContext implements Serializable {
   private final Metrics metrics;
   private final long logicalStartTime;
   private final Map<String, String> runtimeArgs;
+  private final Map<String, Schema> inputSchemas;
+  private final Schema outputSchema;
 
-  public PluginFunctionContext(String stageName, JavaSparkExecutionContext sec) {
-    this.stageName = stageName;
+  public PluginFunctionContext(StageInfo stageInfo, JavaSparkExecutionContext sec) {
+    this.stageName = stageInfo.getName();
     this.pluginContext = sec.getPluginContext();
     this.metrics = sec.getMetrics();
     this.logicalStartTime = sec.getLogicalStartTime();
     this.runtimeArgs = sec.getRuntimeArguments();
+    this.inputSchemas = new HashMap<>(stageInfo.getInputSchemas());
+    this.outputSchema = stageInfo.getOutputSchema();
+  }
+
+  public String getStageName() {
+    return stageName;
   }
 
   public <T> T createPlugin() throws Exception {
@@ -59,4 +72,9 @@ public class PluginFunctionContext implements Serializable {
   public BatchRuntimeContext createBatchRuntimeContext() {
     return new SparkBatchRuntimeContext(pluginContext, metrics, logicalStartTime, runtimeArgs, stageName);
   }
+
+  public BatchJoinerRuntimeContext createJoinerRuntimeContext() {
+    return new SparkJoinerRuntimeContext(pluginContext, metrics, logicalStartTime, runtimeArgs, stageName,
+                                         inputSchemas, outputSchema);
+  }
 }
@@ -0,0 +1,71 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.etl.spark.function;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Join key of a skewed join key, which is spread over multiple groups by adding a salt to the key. Each group
+ * of a skewed join key contains a share of the records of the salted input, and all the records of the other
+ * inputs for the join key.
+ */
+public final class SaltedJoinKey implements Serializable {
+
+  private static final long serialVersionUID = 5410627395683196519L;
+
+  private final Object key;
+  private final int salt;
+
+  public SaltedJoinKey(Object key, int salt) {
+    this.key = key;
+    this.salt = salt;
+  }
+
+  public Object getKey() {
+    return key;
+  }
+
+  public int getSalt() {
+    return salt;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    SaltedJoinKey that = (SaltedJoinKey) o;
+    return salt == that.salt && Objects.equals(key, that.key);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(key, salt);
+  }
+
+  @Override
+  public String toString() {
+    return "SaltedJoinKey{" +
+      "key=" + key +
+      ", salt=" + salt +
+      '}';
+  }
+}
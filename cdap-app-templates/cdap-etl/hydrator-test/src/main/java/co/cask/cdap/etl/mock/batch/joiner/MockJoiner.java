@@ -28,12 +28,14 @@ import co.cask.cdap.etl.api.JoinElement;
 import co.cask.cdap.etl.api.PipelineConfigurer;
 import co.cask.cdap.etl.api.StageConfigurer;
 import co.cask.cdap.etl.api.batch.BatchJoiner;
+import co.cask.cdap.etl.api.batch.BatchJoinerContext;
 import co.cask.cdap.etl.api.batch.BatchJoinerRuntimeContext;
 import co.cask.cdap.etl.proto.v2.ETLPlugin;
 import com.google.common.base.Splitter;
 import com.google.common.collect.Iterables;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -63,6 +65,13 @@ public class MockJoiner extends BatchJoiner<StructuredRecord, StructuredRecord,
     config.validateConfig();
   }
 
+  @Override
+  public void prepareRun(BatchJoinerContext context) throws Exception {
+    if (config.numPartitions != null) {
+      context.setNumPartitions(config.numPartitions);
+    }
+  }
+
   @Override
   public void initialize(BatchJoinerRuntimeContext context) throws Exception {
     inputSchemas = context.getInputSchemas();
@@ -94,7 +103,7 @@ public class MockJoiner extends BatchJoiner<StructuredRecord, StructuredRecord,
 
   @Override
   public JoinConfig getJoinConfig() {
-    return new JoinConfig(config.getRequiredInputs());
+    return new JoinConfig(config.getRequiredInputs(), config.getBroadcastInputs());
   }
 
   @Override
@@ -142,12 +151,17 @@ public class MockJoiner extends BatchJoiner<StructuredRecord, StructuredRecord,
     private final String selectedFields;
     @Nullable
     private final String requiredInputs;
-
+    @Nullable
+    private final String broadcastInputs;
+    @Nullable
+    private final Integer numPartitions;
 
     public Config() {
       this.joinKeys = "joinKeys";
       this.selectedFields = "selectedFields";
       this.requiredInputs = "requiredInputs";
+      this.broadcastInputs = null;
+      this.numPartitions = null;
     }
 
     private void validateConfig() {
@@ -199,6 +213,11 @@ public class MockJoiner extends BatchJoiner<StructuredRecord, StructuredRecord,
     private Iterable<String> getRequiredInputs() {
       return Splitter.on(',').trimResults().omitEmptyStrings().split(requiredInputs);
     }
+
+    private Iterable<String> getBroadcastInputs() {
+      return broadcastInputs == null ?
+        Collections.<String>emptyList() : Splitter.on(',').trimResults().omitEmptyStrings().split(broadcastInputs);
+    }
   }
 
   public static ETLPlugin getPlugin(String joinKeys, String requiredInputs, String selectedFields) {
@@ -209,11 +228,26 @@ public class MockJoiner extends BatchJoiner<StructuredRecord, StructuredRecord,
     return new ETLPlugin("MockJoiner", BatchJoiner.PLUGIN_TYPE, properties, null);
   }
 
+  public static ETLPlugin getPlugin(String joinKeys, String requiredInputs, String selectedFields,
+                                    String broadcastInputs, @Nullable Integer numPartitions) {
+    Map<String, String> properties = new HashMap<>();
+    properties.put("joinKeys", joinKeys);
+    properties.put("requiredInputs", requiredInputs);
+    properties.put("selectedFields", selectedFields);
+    properties.put("broadcastInputs", broadcastInputs);
+    if (numPartitions != null) {
+      properties.put("numPartitions", String.valueOf(numPartitions));
+    }
+    return new ETLPlugin("MockJoiner", BatchJoiner.PLUGIN_TYPE, properties, null);
+  }
+
   private static PluginClass getPluginClass() {
     Map<String, PluginPropertyField> properties = new HashMap<>();
     properties.put("joinKeys", new PluginPropertyField("joinKeys", "", "string", true, false));
     properties.put("requiredInputs", new PluginPropertyField("requiredInputs", "", "string", true, false));
     properties.put("selectedFields", new PluginPropertyField("selectedFields", "", "string", true, false));
+    properties.put("broadcastInputs", new PluginPropertyField("broadcastInputs", "", "string", false, false));
+    properties.put("numPartitions", new PluginPropertyField("numPartitions", "", "int", false, false));
     return new PluginClass(BatchJoiner.PLUGIN_TYPE, "MockJoiner", "", MockJoiner.class.getName(),
                            "config", properties);
   }
@@ -24,6 +24,9 @@ import co.cask.cdap.client.util.RESTClient;
 import co.cask.cdap.common.BadRequestException;
 import co.cask.cdap.common.StreamNotFoundException;
 import co.cask.cdap.common.UnauthenticatedException;
+import co.cask.cdap.common.io.BinaryDecoder;
+import co.cask.cdap.common.io.Decoder;
+import co.cask.cdap.common.stream.StreamEventDataCodec;
 import co.cask.cdap.common.stream.StreamEventTypeAdapter;
 import co.cask.cdap.common.utils.TimeMathParser;
 import co.cask.cdap.internal.io.SchemaTypeAdapter;
@@ -39,6 +42,7 @@ import co.cask.common.http.ObjectResponse;
 import com.google.common.base.Charsets;
 import com.google.common.base.Function;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteStreams;
 import com.google.common.io.Files;
 import com.google.common.io.InputSupplier;
 import com.google.common.reflect.TypeToken;
@@ -53,6 +57,7 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.net.URLEncoder;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -405,20 +410,7 @@ public class StreamClient {
     URL url = config.resolveNamespacedURLV3(streamId.getNamespace(),
                                             String.format("streams/%s/events?start=%d&end=%d&limit=%d",
                                                           streamId.getId(), startTime, endTime, limit));
-    HttpURLConnection urlConn = (HttpURLConnection) url.openConnection();
-    AccessToken accessToken = config.getAccessToken();
-    if (accessToken != null) {
-      urlConn.setRequestProperty(HttpHeaders.AUTHORIZATION, accessToken.getTokenType() + " " + accessToken.getValue());
-    }
-
-    if (urlConn instanceof HttpsURLConnection && !config.isVerifySSLCert()) {
-      try {
-        HttpRequests.disableCertCheck((HttpsURLConnection) urlConn);
-      } catch (Exception e) {
-        // TODO: Log "Got exception while disabling SSL certificate check for request.getURL()"
-      }
-    }
-
+    HttpURLConnection urlConn = openConnection(url);
     try {
       if (urlConn.getResponseCode() == HttpURLConnection.HTTP_UNAUTHORIZED) {
         throw new UnauthenticatedException("Unauthorized status code received from the server.");
@@ -447,6 +439,95 @@ public class StreamClient {
     }
   }
 
+  /**
+   * Reads events from a stream using the binary fetch format, which is more compact and faster to decode than
+   * the JSON format. Large time ranges can be paged through by passing the offset returned by one call to the next.
+   *
+   * @param streamId ID of the stream
+   * @param start Timestamp in milliseconds or now-xs format to start reading event from (inclusive)
+   * @param end Timestamp in milliseconds or now-xs format for the last event to read (exclusive)
+   * @param limit Maximum number of events to read
+   * @param offset Offset returned by a previous call to resume reading from, or {@code null} to start reading
+   *               from the start time
+   * @param callback Callback to invoke for each stream event read. If the callback function returns {@code false}
+   *                 upon invocation, it will stops the reading
+   * @return the offset to resume reading from after the last event read, or {@code null} if no event was read or
+   *         the reading was stopped by the callback
+   * @throws IOException If fails to read from stream
+   * @throws StreamNotFoundException If the given stream does not exists
+   * @throws BadRequestException If the given offset is invalid, e.g. because the stream was truncated since
+   */
+  @Nullable
+  public String getEvents(Id.Stream streamId, String start, String end, int limit, @Nullable String offset,
+                          Function<? super StreamEvent, Boolean> callback)
+    throws IOException, StreamNotFoundException, UnauthenticatedException, BadRequestException {
+
+    long startTime = TimeMathParser.parseTime(start, TimeUnit.MILLISECONDS);
+    long endTime = TimeMathParser.parseTime(end, TimeUnit.MILLISECONDS);
+
+    String path = String.format("streams/%s/events?start=%d&end=%d&limit=%d&format=avro",
+                                streamId.getId(), startTime, endTime, limit);
+    if (offset != null) {
+      path += "&offset=" + URLEncoder.encode(offset, Charsets.UTF_8.name());
+    }
+    HttpURLConnection urlConn = openConnection(config.resolveNamespacedURLV3(streamId.getNamespace(), path));
+    try {
+      if (urlConn.getResponseCode() == HttpURLConnection.HTTP_UNAUTHORIZED) {
+        throw new UnauthenticatedException("Unauthorized status code received from the server.");
+      }
+      if (urlConn.getResponseCode() == HttpURLConnection.HTTP_NOT_FOUND) {
+        throw new StreamNotFoundException(streamId);
+      }
+      if (urlConn.getResponseCode() == HttpURLConnection.HTTP_BAD_REQUEST) {
+        InputStream errorStream = urlConn.getErrorStream();
+        String message = errorStream == null ? urlConn.getResponseMessage()
+                                             : new String(ByteStreams.toByteArray(errorStream), Charsets.UTF_8);
+        throw new BadRequestException("Bad request: " + message);
+      }
+      if (urlConn.getResponseCode() == HttpURLConnection.HTTP_NO_CONTENT) {
+        return null;
+      }
+
+      // The response is blocks of stream events, terminated by an empty block, followed by the resume offset
+      InputStream inputStream = urlConn.getInputStream();
+      Decoder decoder = new BinaryDecoder(inputStream);
+      long count = decoder.readLong();
+      while (count > 0) {
+        for (long i = 0; i < count; i++) {
+          long timestamp = decoder.readLong();
+          Boolean result = callback.apply(new StreamEvent(StreamEventDataCodec.decode(decoder), timestamp));
+          if (result == null || !result) {
+            drain(inputStream);
+            return null;
+          }
+        }
+        count = decoder.readLong();
+      }
+      String nextOffset = decoder.readString();
+      drain(inputStream);
+      return nextOffset;
+    } finally {
+      urlConn.disconnect();
+    }
+  }
+
+  private HttpURLConnection openConnection(URL url) throws IOException {
+    HttpURLConnection urlConn = (HttpURLConnection) url.openConnection();
+    AccessToken accessToken = config.getAccessToken();
+    if (accessToken != null) {
+      urlConn.setRequestProperty(HttpHeaders.AUTHORIZATION, accessToken.getTokenType() + " " + accessToken.getValue());
+    }
+
+    if (urlConn instanceof HttpsURLConnection && !config.isVerifySSLCert()) {
+      try {
+        HttpRequests.disableCertCheck((HttpsURLConnection) urlConn);
+      } catch (Exception e) {
+        // TODO: Log "Got exception while disabling SSL certificate check for request.getURL()"
+      }
+    }
+    return urlConn;
+  }
+
   /**
    * Writes stream event using the given URL. The write maybe sync or async, depending on the URL.
    */
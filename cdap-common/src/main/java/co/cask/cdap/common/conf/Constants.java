@@ -131,6 +131,7 @@ public final class Constants {
     public static final String MAPREDUCE_JOB_CLIENT_CONNECT_MAX_RETRIES = "mapreduce.jobclient.connect.max.retries";
     public static final String MAPREDUCE_INCLUDE_CUSTOM_CLASSES = "mapreduce.include.custom.format.classes";
     public static final String PROGRAM_RUNID_CORRECTOR_INTERVAL_SECONDS = "app.program.runid.corrector.interval";
+    public static final String PROGRAM_LAUNCH_THREADS = "app.program.launch.threads";
     public static final String SYSTEM_ARTIFACTS_DIR = "app.artifact.dir";
     public static final String PROGRAM_EXTRA_CLASSPATH = "app.program.extra.classpath";
     public static final String SPARK_YARN_CLIENT_REWRITE = "app.program.spark.yarn.client.rewrite.enabled";
@@ -228,6 +229,16 @@ public final class Constants {
       public static final String MAX_INSTANCES = "data.tx.max.instances";
     }
 
+    /**
+     * Invalid transaction list pruning configuration.
+     */
+    public static final class Prune {
+      public static final String ENABLE = "data.tx.prune.enable";
+      public static final String INTERVAL = "data.tx.prune.interval";
+      public static final String TX_MAX_LIFETIME = "data.tx.prune.tx.max.lifetime";
+      public static final long DEFAULT_TX_MAX_LIFETIME = 86400L;
+    }
+
     public static final String SERVICE_DESCRIPTION = "Service that maintains transaction states.";
   }
 
@@ -329,6 +340,7 @@ public final class Constants {
     public static final String FILE_PREFIX = "stream.file.prefix";
     public static final String INSTANCE_FILE_PREFIX = "stream.instance.file.prefix";
     public static final String CONSUMER_TABLE_PRESPLITS = "stream.consumer.table.presplits";
+    public static final String FIFO_CLAIM_RANGE_SIZE = "stream.consumer.fifo.claim.range.size";
     public static final String FILE_CLEANUP_PERIOD = "stream.file.cleanup.period";
     public static final String BATCH_BUFFER_THRESHOLD = "stream.batch.buffer.threshold";
     public static final String NOTIFICATION_THRESHOLD = "stream.notification.threshold";
@@ -460,13 +472,22 @@ public final class Constants {
     // Key prefix for retention seconds. The actual key is suffixed by the table resolution.
     public static final String RETENTION_SECONDS = "metrics.data.table.retention.resolution";
 
+    // Roll-up of the coarser resolutions from the finest resolution, instead of writing all resolutions online
+    public static final String ROLLUP_ENABLED = "metrics.rollup.enabled";
+    public static final String ROLLUP_INTERVAL_SECONDS = "metrics.rollup.interval.seconds";
+    public static final String ROLLUP_DELAY_SECONDS = "metrics.rollup.delay.seconds";
+
     public static final String SERVER_ADDRESS = "metrics.query.bind.address";
     public static final String SERVER_PORT = "metrics.query.bind.port";
 
     public static final String KAFKA_TOPIC_PREFIX = "metrics.kafka.topic.prefix";
     public static final String KAFKA_PARTITION_SIZE = "metrics.kafka.partition.size";
+    public static final String KAFKA_COMPACT_FORMAT_ENABLED = "metrics.kafka.compact.format.enabled";
     public static final String KAFKA_CONSUMER_PERSIST_THRESHOLD = "metrics.kafka.consumer.persist.threshold";
     public static final String KAFKA_META_TABLE = "metrics.kafka.meta.table";
+    // Coalescing of metrics in the metrics processor before they are written, disabled if the size is 0
+    public static final String PROCESSOR_BUFFER_SIZE = "metrics.processor.buffer.size";
+    public static final String PROCESSOR_BUFFER_FLUSH_INTERVAL_MS = "metrics.processor.buffer.flush.interval.ms";
 
     public static final String DEFAULT_KAFKA_META_TABLE = "metrics.kafka.meta";
     public static final String DEFAULT_KAFKA_TOPIC_PREFIX = "metrics";
@@ -576,6 +597,8 @@ public final class Constants {
       public static final class Log {
         public static final String PROCESS_DELAY = "log.process.delay";
         public static final String PROCESS_MESSAGES_COUNT = "log.process.message.count";
+        // Followed by the Kafka partition number
+        public static final String PARTITION_PROCESS_DELAY_PREFIX = "log.process.delay.partition.";
       }
     }
 
@@ -843,6 +866,8 @@ public final class Constants {
   public static final class Notification {
     public static final String TRANSPORT_SYSTEM = "notification.transport.system";
     public static final String KAFKA_TOPIC = "notification.kafka.topic";
+    public static final String KAFKA_PUBLISH_BATCH_SIZE = "notification.kafka.publish.batch.size";
+    public static final String KAFKA_PUBLISH_LINGER_MS = "notification.kafka.publish.linger.ms";
 
     /**
      * Notifications in Streams constants.
@@ -980,6 +1005,8 @@ public final class Constants {
     public static final String SERVICE_DESCRIPTION = "Service to perform system operations through HTTP requests.";
     public static final String SERVICE_BIND_ADDRESS = "remote.system.op.service.bind.address";
     public static final String HANDLERS_NAME = "remote.system.op.handlers";
+    public static final String CLIENT_BATCH_SIZE = "remote.system.op.client.batch.size";
+    public static final String CLIENT_FLUSH_DELAY_MS = "remote.system.op.client.flush.delay.ms";
   }
 
   /**
@@ -0,0 +1,41 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.common.internal.remote;
+
+import java.util.List;
+
+/**
+ * Allows for simple serialization/deserialization of a method call, used to execute multiple operations
+ * in a single request.
+ */
+public final class MethodCall {
+  private final String method;
+  private final List<MethodArgument> arguments;
+
+  public MethodCall(String method, List<MethodArgument> arguments) {
+    this.method = method;
+    this.arguments = arguments;
+  }
+
+  public String getMethod() {
+    return method;
+  }
+
+  public List<MethodArgument> getArguments() {
+    return arguments;
+  }
+}
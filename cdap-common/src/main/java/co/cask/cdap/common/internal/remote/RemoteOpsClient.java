@@ -53,6 +53,17 @@ import javax.annotation.Nullable;
 
 /**
  * Common HTTP client functionality for remote operations from programs.
+ * <p>
+ * Besides executing a request synchronously through {@link #executeRequest(String, Object...)}, operations that
+ * are idempotent and whose completion the caller doesn't depend on can be queued through
+ * {@link #executeAsync(String, Object...)} or {@link #executeAsyncCoalesced(String, String, Object...)} in the
+ * {@link RemoteOpsQueue} given to the client, which sends them in batches. Without a queue, or when the queue is
+ * not running, they are executed synchronously.
+ * </p>
+ * <p>
+ * The queue is flushed before any synchronous request is made, so that the server sees the operations in order.
+ * If flushing fails, the synchronous request fails as well.
+ * </p>
  */
 public class RemoteOpsClient {
 
@@ -64,9 +75,15 @@ public class RemoteOpsClient {
 
   private final Supplier<EndpointStrategy> endpointStrategySupplier;
   private final HttpRequestConfig httpRequestConfig;
+  private final RemoteOpsQueue queue;
 
   @Inject
-  protected RemoteOpsClient(CConfiguration cConf, final DiscoveryServiceClient discoveryClient) {
+  protected RemoteOpsClient(CConfiguration cConf, DiscoveryServiceClient discoveryClient) {
+    this(cConf, discoveryClient, null);
+  }
+
+  protected RemoteOpsClient(CConfiguration cConf, final DiscoveryServiceClient discoveryClient,
+                            @Nullable RemoteOpsQueue queue) {
     this.endpointStrategySupplier = Suppliers.memoize(new Supplier<EndpointStrategy>() {
       @Override
       public EndpointStrategy get() {
@@ -76,13 +93,59 @@ public class RemoteOpsClient {
 
     int httpClientTimeoutMs = cConf.getInt(Constants.HTTP_CLIENT_TIMEOUT_MS);
     this.httpRequestConfig = new HttpRequestConfig(httpClientTimeoutMs, httpClientTimeoutMs);
+    this.queue = queue;
   }
 
   protected HttpResponse executeRequest(String methodName, Object... arguments) {
+    // Send the queued operations first, so that the server sees them before this one
+    flush();
     return doRequest("execute/" + methodName, HttpMethod.POST, ImmutableMap.<String, String>of(),
                      GSON.toJson(createArguments(arguments)));
   }
 
+  /**
+   * Queues an operation to be executed asynchronously in a batch. If the operation cannot be queued, it is executed
+   * synchronously.
+   */
+  protected void executeAsync(String methodName, Object... arguments) {
+    enqueue(null, methodName, arguments);
+  }
+
+  /**
+   * Queues an operation to be executed asynchronously in a batch. A queued operation of the same method with the
+   * same coalescing key that has not been sent yet is replaced by this operation, which is useful for operations
+   * that overwrite state, such as updating a workflow token. If the operation cannot be queued, it is executed
+   * synchronously.
+   */
+  protected void executeAsyncCoalesced(String coalescingKey, String methodName, Object... arguments) {
+    enqueue(methodName + ":" + coalescingKey, methodName, arguments);
+  }
+
+  /**
+   * Sends all queued operations to the remote system operation service.
+   *
+   * @throws RuntimeException if failed to send the operations. Operations that were not sent remain queued.
+   */
+  public void flush() {
+    if (queue != null) {
+      queue.flush();
+    }
+  }
+
+  /**
+   * Executes the given operations in a single request to the batch endpoint of the remote system operation service.
+   */
+  void executeBatch(List<MethodCall> calls) {
+    doRequest("execute/batch", HttpMethod.POST, ImmutableMap.<String, String>of(), GSON.toJson(calls));
+  }
+
+  private void enqueue(@Nullable String coalescingKey, String methodName, Object... arguments) {
+    // Arguments are serialized right away, since they can be mutable, such as a workflow token
+    if (queue == null || !queue.enqueue(coalescingKey, new MethodCall(methodName, createArguments(arguments)))) {
+      executeRequest(methodName, arguments);
+    }
+  }
+
   private String resolve(String resource) {
     Discoverable discoverable = endpointStrategySupplier.get().pick(3L, TimeUnit.SECONDS);
     if (discoverable == null) {
@@ -0,0 +1,263 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.common.internal.remote;
+
+import co.cask.cdap.common.conf.CConfiguration;
+import co.cask.cdap.common.conf.Constants;
+import com.google.common.base.Function;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.AbstractIdleService;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import org.apache.twill.common.Threads;
+import org.apache.twill.discovery.DiscoveryServiceClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+
+/**
+ * Queues the asynchronous operations of {@link RemoteOpsClient}s and sends them together in a single request to the
+ * batch endpoint of the remote system operation service, either after a short delay or once enough operations are
+ * queued.
+ * <p>
+ * One instance is shared by all the clients of a program container, and it is flushed before any synchronous request
+ * of a client, so that the server sees the operations in order, for example the lineage of a program run before its
+ * stop state. Operations are only queued while this service is running, and the queued operations are sent when it
+ * stops.
+ * </p>
+ * <p>
+ * Operations that failed to be sent are retried with an exponential backoff. If too many operations are pending, for
+ * example because the service is unavailable, a client queuing another operation sends them right away and fails if
+ * that is still not possible.
+ * </p>
+ */
+@Singleton
+public class RemoteOpsQueue extends AbstractIdleService {
+
+  private static final Logger LOG = LoggerFactory.getLogger(RemoteOpsQueue.class);
+
+  private static final long MAX_RETRY_DELAY_MS = TimeUnit.SECONDS.toMillis(30);
+  // Maximum number of pending operations, as a number of batches
+  private static final int MAX_PENDING_BATCHES = 100;
+
+  private final RemoteOpsClient client;
+  private final int batchSize;
+  private final long flushDelayMs;
+
+  // Queued operations, keyed by the coalescing key or by a unique sequence id.
+  // Also guards the call sequence, the flush executor and whether a flush is scheduled.
+  private final LinkedHashMap<String, PendingCall> pendingCalls = new LinkedHashMap<>();
+  // Held while sending batches, so that batches are sent in order
+  private final Object flushLock = new Object();
+  private long callSequence;
+  private boolean flushScheduled;
+  private ScheduledExecutorService flushExecutor;
+
+  @Inject
+  RemoteOpsQueue(CConfiguration cConf, DiscoveryServiceClient discoveryClient) {
+    this.client = new RemoteOpsClient(cConf, discoveryClient);
+    this.batchSize = cConf.getInt(Constants.RemoteSystemOpService.CLIENT_BATCH_SIZE);
+    this.flushDelayMs = cConf.getLong(Constants.RemoteSystemOpService.CLIENT_FLUSH_DELAY_MS);
+  }
+
+  @Override
+  protected void startUp() throws Exception {
+    synchronized (pendingCalls) {
+      flushExecutor = Executors.newSingleThreadScheduledExecutor(
+        Threads.createDaemonThreadFactory("remote-ops-flusher"));
+    }
+  }
+
+  @Override
+  protected void shutDown() throws Exception {
+    synchronized (pendingCalls) {
+      // Operations queued from now on are sent synchronously
+      flushExecutor.shutdownNow();
+    }
+    // Fails the service if the queued operations cannot be sent
+    flush();
+  }
+
+  /**
+   * Queues an operation. A queued operation with the same coalescing key that has not been sent yet is replaced by
+   * the given one.
+   *
+   * @return {@code true} if the operation is queued, or {@code false} if the caller has to execute it synchronously,
+   *         because batching is disabled or this service is not running
+   * @throws RuntimeException if too many operations are pending and they cannot be sent
+   */
+  boolean enqueue(@Nullable String coalescingKey, MethodCall call) {
+    if (batchSize <= 1) {
+      return false;
+    }
+    if (isFull()) {
+      // Rather than queuing even more operations, send the pending ones, which fails the caller if not possible
+      flush();
+    }
+    synchronized (pendingCalls) {
+      if (flushExecutor == null || flushExecutor.isShutdown()) {
+        return false;
+      }
+      PendingCall pendingCall = new PendingCall(call);
+      if (coalescingKey == null) {
+        pendingCalls.put("#" + callSequence++, pendingCall);
+      } else {
+        // Remove first so that the operation moves to the end of the queue
+        pendingCalls.remove(coalescingKey);
+        pendingCalls.put(coalescingKey, pendingCall);
+      }
+      if (pendingCalls.size() == batchSize) {
+        scheduleFlush(0L);
+      } else if (!flushScheduled) {
+        scheduleFlush(flushDelayMs);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Sends all queued operations to the remote system operation service.
+   *
+   * @throws RuntimeException if failed to send the operations. Operations that were not sent remain queued.
+   */
+  public void flush() {
+    synchronized (flushLock) {
+      List<PendingCall> calls;
+      synchronized (pendingCalls) {
+        calls = new ArrayList<>(pendingCalls.values());
+        pendingCalls.clear();
+      }
+
+      int sent = 0;
+      for (List<PendingCall> batch : createBatches(calls)) {
+        try {
+          client.executeBatch(Lists.transform(batch, PendingCall.TO_METHOD_CALL));
+        } catch (RuntimeException e) {
+          for (PendingCall call : batch) {
+            call.failures++;
+          }
+          requeue(calls.subList(sent, calls.size()));
+          throw e;
+        }
+        sent += batch.size();
+      }
+    }
+  }
+
+  private boolean isFull() {
+    synchronized (pendingCalls) {
+      return pendingCalls.size() >= batchSize * MAX_PENDING_BATCHES;
+    }
+  }
+
+  /**
+   * Splits the given calls into batches. Calls that failed before are sent on their own, so that an operation
+   * which the service fails to execute does not fail the other operations.
+   */
+  private List<List<PendingCall>> createBatches(List<PendingCall> calls) {
+    List<List<PendingCall>> batches = new ArrayList<>();
+    List<PendingCall> batch = new ArrayList<>();
+    for (PendingCall call : calls) {
+      if (call.failures > 0) {
+        if (!batch.isEmpty()) {
+          batches.add(batch);
+          batch = new ArrayList<>();
+        }
+        batches.add(Collections.singletonList(call));
+        continue;
+      }
+      batch.add(call);
+      if (batch.size() >= batchSize) {
+        batches.add(batch);
+        batch = new ArrayList<>();
+      }
+    }
+    if (!batch.isEmpty()) {
+      batches.add(batch);
+    }
+    return batches;
+  }
+
+  private void requeue(List<PendingCall> calls) {
+    synchronized (pendingCalls) {
+      // Put the unsent operations in front of operations queued in the meantime, but don't override those
+      LinkedHashMap<String, PendingCall> newCalls = new LinkedHashMap<>(pendingCalls);
+      pendingCalls.clear();
+      int maxFailures = 0;
+      for (PendingCall call : calls) {
+        maxFailures = Math.max(maxFailures, call.failures);
+        pendingCalls.put("#" + callSequence++, call);
+      }
+      pendingCalls.putAll(newCalls);
+      if (!flushScheduled && !pendingCalls.isEmpty()) {
+        // Back off exponentially, so that the service is not flooded with retries during an outage
+        scheduleFlush(Math.min(MAX_RETRY_DELAY_MS, flushDelayMs << Math.min(maxFailures, 16)));
+      }
+    }
+  }
+
+  // must be called while holding the pendingCalls lock
+  private void scheduleFlush(long delayMs) {
+    if (flushExecutor == null || flushExecutor.isShutdown()) {
+      // Not running, the operations are sent when the service stops or before the next synchronous request
+      return;
+    }
+    flushScheduled = true;
+    flushExecutor.schedule(new Runnable() {
+      @Override
+      public void run() {
+        synchronized (pendingCalls) {
+          flushScheduled = false;
+        }
+        try {
+          flush();
+        } catch (Exception e) {
+          // The operations that were not sent have been queued again, with another flush scheduled
+          LOG.warn("Failed to flush remote operations, will retry", e);
+        }
+      }
+    }, delayMs, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * An operation waiting to be sent, with the number of failed attempts to send it.
+   */
+  private static final class PendingCall {
+
+    private static final Function<PendingCall, MethodCall> TO_METHOD_CALL = new Function<PendingCall, MethodCall>() {
+      @Override
+      public MethodCall apply(PendingCall pendingCall) {
+        return pendingCall.call;
+      }
+    };
+
+    private final MethodCall call;
+    private int failures;
+
+    private PendingCall(MethodCall call) {
+      this.call = call;
+    }
+  }
+}
@@ -29,10 +29,10 @@ import java.nio.ByteBuffer;
 public final class BufferedEncoder implements Encoder {
 
   private final Encoder encoder;
-  private final ByteArrayOutputStream output;
+  private final RangeByteArrayOutputStream output;
 
   public BufferedEncoder(int size, Function<OutputStream, Encoder> encoderFactory) {
-    output = new ByteArrayOutputStream(size);
+    output = new RangeByteArrayOutputStream(size);
     encoder = encoderFactory.apply(output);
   }
 
@@ -51,6 +51,17 @@ public final class BufferedEncoder implements Encoder {
     output.reset();
   }
 
+  /**
+   * Writes a range of the buffered bytes into the given OutputStream. The internal buffer is not reset.
+   *
+   * @param out The output stream to write to.
+   * @param off Offset in the buffered bytes to start writing from.
+   * @param len Number of bytes to write.
+   */
+  public void writeTo(OutputStream out, int off, int len) throws IOException {
+    output.writeTo(out, off, len);
+  }
+
   public int size() {
     return output.size();
   }
@@ -125,4 +136,21 @@ public final class BufferedEncoder implements Encoder {
   public Encoder writeBytes(ByteBuffer bytes) throws IOException {
     return encoder.writeBytes(bytes);
   }
+
+  /**
+   * A {@link ByteArrayOutputStream} that can write a range of its content without copying.
+   */
+  private static final class RangeByteArrayOutputStream extends ByteArrayOutputStream {
+
+    RangeByteArrayOutputStream(int size) {
+      super(size);
+    }
+
+    synchronized void writeTo(OutputStream out, int off, int len) throws IOException {
+      if (off < 0 || len < 0 || off + len > count) {
+        throw new IndexOutOfBoundsException("Invalid range [" + off + ", " + (off + len) + ") of size " + count);
+      }
+      out.write(buf, off, len);
+    }
+  }
 }
@@ -0,0 +1,137 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package co.cask.cdap.data.benchmark;
+
+import co.cask.cdap.api.dataset.DatasetAdmin;
+import co.cask.cdap.api.dataset.DatasetContext;
+import co.cask.cdap.api.dataset.DatasetProperties;
+import co.cask.cdap.api.dataset.DatasetSpecification;
+import co.cask.cdap.api.dataset.table.ConflictDetection;
+import co.cask.cdap.api.dataset.table.Table;
+import co.cask.cdap.common.conf.CConfiguration;
+import co.cask.cdap.common.conf.Constants;
+import co.cask.cdap.common.utils.DirUtils;
+import co.cask.cdap.data2.dataset2.lib.table.BufferingTable;
+import co.cask.cdap.data2.dataset2.lib.table.inmemory.InMemoryTable;
+import co.cask.cdap.data2.dataset2.lib.table.inmemory.InMemoryTableAdmin;
+import co.cask.cdap.data2.dataset2.lib.table.leveldb.LevelDBTable;
+import co.cask.cdap.data2.dataset2.lib.table.leveldb.LevelDBTableAdmin;
+import co.cask.cdap.data2.dataset2.lib.table.leveldb.LevelDBTableDefinition;
+import co.cask.cdap.data2.dataset2.lib.table.leveldb.LevelDBTableService;
+import co.cask.tephra.TransactionAware;
+import co.cask.tephra.TransactionContext;
+import co.cask.tephra.TransactionManager;
+import co.cask.tephra.inmemory.InMemoryTxSystemClient;
+import com.google.common.io.Files;
+import org.apache.hadoop.conf.Configuration;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Base class for benchmarks that operate on {@link BufferingTable}. It provides tables of the implementation
+ * selected by the {@code tableType} parameter, and an in-memory transaction system to operate them.
+ */
+@State(Scope.Benchmark)
+public abstract class AbstractTableBenchmark {
+
+  private static final DatasetContext CONTEXT = DatasetContext.from("benchmark");
+
+  @Param({ "inmemory", "leveldb" })
+  public String tableType;
+
+  private CConfiguration cConf;
+  private File dataDir;
+  private LevelDBTableService levelDBService;
+  private TransactionManager txManager;
+  private InMemoryTxSystemClient txClient;
+  private final List<DatasetAdmin> admins = new ArrayList<>();
+
+  /**
+   * Starts the transaction manager and prepares the table service. Must be called by the setup of subclasses.
+   */
+  protected void setupTables() throws IOException {
+    dataDir = Files.createTempDir();
+    cConf = CConfiguration.create();
+    cConf.set(Constants.CFG_LOCAL_DATA_DIR, dataDir.getAbsolutePath());
+    cConf.set(Constants.CFG_DATA_LEVELDB_DIR, new File(dataDir, "ldb").getAbsolutePath());
+
+    if ("leveldb".equals(tableType)) {
+      levelDBService = new LevelDBTableService();
+      levelDBService.setConfiguration(cConf);
+    } else if (!"inmemory".equals(tableType)) {
+      throw new IllegalArgumentException("Unsupported table type " + tableType);
+    }
+
+    txManager = new TransactionManager(new Configuration());
+    txManager.startAndWait();
+    txClient = new InMemoryTxSystemClient(txManager);
+  }
+
+  @TearDown
+  public void tearDownTables() throws IOException {
+    if (txManager != null) {
+      txManager.stopAndWait();
+    }
+    for (DatasetAdmin admin : admins) {
+      admin.drop();
+    }
+    admins.clear();
+    if (levelDBService != null) {
+      levelDBService.close();
+      levelDBService = null;
+    }
+    if (dataDir != null) {
+      DirUtils.deleteDirectoryContents(dataDir);
+    }
+  }
+
+  /**
+   * Creates a new table of the configured type.
+   */
+  protected BufferingTable createTable(String name) throws IOException {
+    if (levelDBService != null) {
+      DatasetSpecification spec = new LevelDBTableDefinition("benchmark").configure(name, DatasetProperties.EMPTY);
+      createTable(new LevelDBTableAdmin(CONTEXT, spec, levelDBService, cConf));
+      spec = DatasetSpecification.builder(name, "table")
+        .property(Table.PROPERTY_CONFLICT_LEVEL, ConflictDetection.ROW.name())
+        .build();
+      return new LevelDBTable(CONTEXT, name, levelDBService, cConf, spec);
+    }
+    createTable(new InMemoryTableAdmin(CONTEXT, name, cConf));
+    return new InMemoryTable(CONTEXT, name, cConf);
+  }
+
+  private void createTable(DatasetAdmin admin) throws IOException {
+    admin.create();
+    admins.add(admin);
+  }
+
+  /**
+   * Creates a {@link TransactionContext} for executing operations on the given {@link TransactionAware}s.
+   */
+  protected TransactionContext createTransactionContext(TransactionAware... txAwares) {
+    return new TransactionContext(txClient, txAwares);
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.data.benchmark;
+
+import co.cask.cdap.api.common.Bytes;
+import co.cask.cdap.api.dataset.table.Row;
+import co.cask.cdap.api.dataset.table.Scanner;
+import co.cask.cdap.data2.dataset2.lib.table.BufferingTable;
+import co.cask.tephra.TransactionContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the get, put, scan and increment operations of {@link BufferingTable}. Every invocation runs
+ * in its own transaction, so that the cost of buffering, conflict detection and persisting is included.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class BufferingTableBenchmark extends AbstractTableBenchmark {
+
+  private static final int ROWS = 10000;
+  private static final int SCAN_ROWS = 100;
+  private static final int BATCH_SIZE = 100;
+  private static final byte[] COLUMN = Bytes.toBytes("c");
+  private static final byte[] COUNTER_ROW = Bytes.toBytes("counter");
+
+  private final Random random = new Random(0);
+
+  private BufferingTable table;
+  private TransactionContext txContext;
+  private byte[] value;
+  private long nextRow;
+
+  @Setup
+  public void setup() throws Exception {
+    setupTables();
+    table = createTable("buffering");
+    txContext = createTransactionContext(table);
+    value = new byte[100];
+    random.nextBytes(value);
+
+    // Populate the rows used by the read benchmarks
+    txContext.start();
+    for (int i = 0; i < ROWS; i++) {
+      table.put(getRowKey(i), COLUMN, value);
+    }
+    txContext.finish();
+    nextRow = ROWS;
+  }
+
+  @Benchmark
+  public void put() throws Exception {
+    txContext.start();
+    table.put(getRowKey(nextRow++), COLUMN, value);
+    txContext.finish();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH_SIZE)
+  public void putBatch() throws Exception {
+    txContext.start();
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      table.put(getRowKey(nextRow++), COLUMN, value);
+    }
+    txContext.finish();
+  }
+
+  @Benchmark
+  public void get(Blackhole blackhole) throws Exception {
+    txContext.start();
+    blackhole.consume(table.get(getRowKey(random.nextInt(ROWS)), COLUMN));
+    txContext.finish();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(SCAN_ROWS)
+  public void scan(Blackhole blackhole) throws Exception {
+    int start = random.nextInt(ROWS - SCAN_ROWS);
+    txContext.start();
+    try (Scanner scanner = table.scan(getRowKey(start), getRowKey(start + SCAN_ROWS))) {
+      Row row = scanner.next();
+      while (row != null) {
+        blackhole.consume(row);
+        row = scanner.next();
+      }
+    }
+    txContext.finish();
+  }
+
+  @Benchmark
+  public void increment(Blackhole blackhole) throws Exception {
+    txContext.start();
+    blackhole.consume(table.incrementAndGet(COUNTER_ROW, COLUMN, 1L));
+    txContext.finish();
+  }
+
+  private static byte[] getRowKey(long i) {
+    return Bytes.toBytes(i);
+  }
+}
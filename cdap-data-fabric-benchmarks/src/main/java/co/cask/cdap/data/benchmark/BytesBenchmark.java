@@ -0,0 +1,84 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.data.benchmark;
+
+import co.cask.cdap.api.common.Bytes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the comparison methods of {@link Bytes}, which are used for all row key comparisons.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class BytesBenchmark {
+
+  @Param({ "8", "64", "1024" })
+  public int length;
+
+  private byte[] left;
+  private byte[] right;
+  private byte[] prefixed;
+
+  @Setup
+  public void setup() {
+    Random random = new Random(0);
+    left = new byte[length];
+    random.nextBytes(left);
+    // Only the last byte differs, so that the whole array needs to be compared
+    right = Arrays.copyOf(left, length);
+    right[length - 1]++;
+    prefixed = Arrays.copyOf(left, length * 2);
+  }
+
+  @Benchmark
+  public int compare() {
+    return Bytes.compareTo(left, right);
+  }
+
+  @Benchmark
+  public boolean equal() {
+    return Bytes.equals(left, right);
+  }
+
+  @Benchmark
+  public boolean startsWith() {
+    return Bytes.startsWith(prefixed, left);
+  }
+
+  @Benchmark
+  public int hash() {
+    return Bytes.hashCode(left);
+  }
+}
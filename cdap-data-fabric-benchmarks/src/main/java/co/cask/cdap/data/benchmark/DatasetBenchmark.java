@@ -0,0 +1,185 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.data.benchmark;
+
+import co.cask.cdap.api.common.Bytes;
+import co.cask.cdap.api.data.schema.Schema;
+import co.cask.cdap.api.dataset.lib.IndexedTable;
+import co.cask.cdap.api.dataset.lib.KeyValueTable;
+import co.cask.cdap.api.dataset.lib.ObjectMappedTableProperties;
+import co.cask.cdap.api.dataset.table.Put;
+import co.cask.cdap.api.dataset.table.Row;
+import co.cask.cdap.api.dataset.table.Scanner;
+import co.cask.cdap.data2.dataset2.lib.table.ObjectMappedTableDataset;
+import co.cask.cdap.internal.io.TypeRepresentation;
+import co.cask.tephra.TransactionContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the common operations of {@link KeyValueTable}, {@link IndexedTable} and
+ * {@link ObjectMappedTableDataset}. Every invocation runs in its own transaction.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class DatasetBenchmark extends AbstractTableBenchmark {
+
+  private static final int ROWS = 10000;
+  private static final int INDEX_VALUES = 100;
+  private static final byte[] INDEXED_COLUMN = Bytes.toBytes("idx");
+  private static final byte[] VALUE_COLUMN = Bytes.toBytes("v");
+
+  private final Random random = new Random(0);
+
+  private KeyValueTable kvTable;
+  private IndexedTable indexedTable;
+  private ObjectMappedTableDataset<Record> objectTable;
+  private TransactionContext kvTxContext;
+  private TransactionContext indexedTxContext;
+  private TransactionContext objectTxContext;
+  private byte[] value;
+  private long nextRow;
+
+  @Setup
+  public void setup() throws Exception {
+    setupTables();
+    kvTable = new KeyValueTable("kv", createTable("kv"));
+
+    TreeSet<byte[]> indexedColumns = new TreeSet<>(Bytes.BYTES_COMPARATOR);
+    indexedColumns.add(INDEXED_COLUMN);
+    indexedTable = new IndexedTable("indexed", createTable("indexed.d"), createTable("indexed.i"), indexedColumns);
+
+    Map<String, String> properties = ObjectMappedTableProperties.builder()
+      .setType(Record.class).build().getProperties();
+    Schema schema = ObjectMappedTableProperties.getObjectSchema(properties);
+    objectTable = new ObjectMappedTableDataset<>("object", createTable("object"), new TypeRepresentation(Record.class),
+                                                 schema, getClass().getClassLoader());
+
+    kvTxContext = createTransactionContext(kvTable);
+    indexedTxContext = createTransactionContext(indexedTable);
+    objectTxContext = createTransactionContext(objectTable);
+    value = new byte[100];
+    random.nextBytes(value);
+
+    // Populate the rows used by the read benchmarks
+    kvTxContext.start();
+    indexedTxContext.start();
+    objectTxContext.start();
+    for (int i = 0; i < ROWS; i++) {
+      byte[] key = Bytes.toBytes((long) i);
+      kvTable.write(key, value);
+      indexedTable.put(createIndexedPut(key, i));
+      objectTable.write(key, new Record(i));
+    }
+    kvTxContext.finish();
+    indexedTxContext.finish();
+    objectTxContext.finish();
+    nextRow = ROWS;
+  }
+
+  @Benchmark
+  public void kvWrite() throws Exception {
+    kvTxContext.start();
+    kvTable.write(Bytes.toBytes(nextRow++), value);
+    kvTxContext.finish();
+  }
+
+  @Benchmark
+  public void kvRead(Blackhole blackhole) throws Exception {
+    kvTxContext.start();
+    blackhole.consume(kvTable.read(Bytes.toBytes((long) random.nextInt(ROWS))));
+    kvTxContext.finish();
+  }
+
+  @Benchmark
+  public void indexedPut() throws Exception {
+    long row = nextRow++;
+    indexedTxContext.start();
+    indexedTable.put(createIndexedPut(Bytes.toBytes(row), row));
+    indexedTxContext.finish();
+  }
+
+  @Benchmark
+  public void indexedReadByIndex(Blackhole blackhole) throws Exception {
+    indexedTxContext.start();
+    try (Scanner scanner = indexedTable.readByIndex(INDEXED_COLUMN, getIndexValue(random.nextInt(INDEX_VALUES)))) {
+      Row row = scanner.next();
+      while (row != null) {
+        blackhole.consume(row);
+        row = scanner.next();
+      }
+    }
+    indexedTxContext.finish();
+  }
+
+  @Benchmark
+  public void objectWrite() throws Exception {
+    long row = nextRow++;
+    objectTxContext.start();
+    objectTable.write(Bytes.toBytes(row), new Record(row));
+    objectTxContext.finish();
+  }
+
+  @Benchmark
+  public void objectRead(Blackhole blackhole) throws Exception {
+    objectTxContext.start();
+    blackhole.consume(objectTable.read(Bytes.toBytes((long) random.nextInt(ROWS))));
+    objectTxContext.finish();
+  }
+
+  private Put createIndexedPut(byte[] key, long row) {
+    return new Put(key)
+      .add(INDEXED_COLUMN, getIndexValue(row % INDEX_VALUES))
+      .add(VALUE_COLUMN, value);
+  }
+
+  private static byte[] getIndexValue(long i) {
+    return Bytes.toBytes("value" + i);
+  }
+
+  /**
+   * Object stored in the {@link ObjectMappedTableDataset}.
+   */
+  public static final class Record {
+    private final long id;
+    private final String name;
+    private final double score;
+    private final int count;
+
+    public Record(long id) {
+      this.id = id;
+      this.name = "record" + id;
+      this.score = id / 3.0d;
+      this.count = (int) id;
+    }
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.data.benchmark;
+
+import co.cask.cdap.api.common.Bytes;
+import co.cask.cdap.common.utils.ImmutablePair;
+import co.cask.cdap.data2.dataset2.lib.table.FuzzyRowFilter;
+import com.google.common.collect.ImmutableList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for {@link FuzzyRowFilter}, with row keys of the form {@code <4 bytes id><8 bytes timestamp>}
+ * and a filter that matches a fixed id with any timestamp.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class FuzzyRowFilterBenchmark {
+
+  private FuzzyRowFilter filter;
+  private byte[] matchingRow;
+  private byte[] nonMatchingRow;
+
+  @Setup
+  public void setup() {
+    byte[] fuzzyKey = Bytes.concat(Bytes.toBytes(42), new byte[Bytes.SIZEOF_LONG]);
+    byte[] fuzzyMask = Bytes.concat(new byte[Bytes.SIZEOF_INT], new byte[] { 1, 1, 1, 1, 1, 1, 1, 1 });
+    filter = new FuzzyRowFilter(ImmutableList.of(ImmutablePair.of(fuzzyKey, fuzzyMask)));
+
+    long now = System.currentTimeMillis();
+    matchingRow = Bytes.concat(Bytes.toBytes(42), Bytes.toBytes(now));
+    nonMatchingRow = Bytes.concat(Bytes.toBytes(41), Bytes.toBytes(now));
+  }
+
+  @Benchmark
+  public FuzzyRowFilter.ReturnCode filterMatching() {
+    return filter.filterRow(matchingRow);
+  }
+
+  @Benchmark
+  public FuzzyRowFilter.ReturnCode filterNonMatching() {
+    return filter.filterRow(nonMatchingRow);
+  }
+
+  @Benchmark
+  public byte[] nextRowHint() {
+    return filter.getNextRowHint(nonMatchingRow);
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.data.benchmark;
+
+import co.cask.cdap.data2.dataset2.lib.table.MDSKey;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for encoding and decoding {@link MDSKey}, using a key layout similar to the one of run records.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class MDSKeyBenchmark {
+
+  private static final String TYPE = "runRecordCompleted";
+  private static final String NAMESPACE = "default";
+  private static final String APP = "PurchaseHistory";
+  private static final String PROGRAM = "PurchaseHistoryWorkflow";
+  private static final long TIME = System.currentTimeMillis();
+
+  private MDSKey key;
+
+  @Setup
+  public void setup() {
+    key = encode();
+  }
+
+  @Benchmark
+  public MDSKey encode() {
+    return new MDSKey.Builder()
+      .add(TYPE)
+      .add(NAMESPACE, APP, PROGRAM)
+      .add(Long.MAX_VALUE - TIME)
+      .add(12345)
+      .build();
+  }
+
+  @Benchmark
+  public void decode(Blackhole blackhole) {
+    MDSKey.Splitter splitter = key.split();
+    blackhole.consume(splitter.getString());
+    blackhole.consume(splitter.getString());
+    blackhole.consume(splitter.getString());
+    blackhole.consume(splitter.getString());
+    blackhole.consume(splitter.getLong());
+    blackhole.consume(splitter.getInt());
+  }
+}
@@ -921,6 +921,52 @@ public abstract class StreamDataFileTestBase {
     }
   }
 
+  /**
+   * Test appendAll with large bodies, which are written without copying, mixed with small bodies
+   * and shared headers.
+   */
+  @Test
+  public void testAppendAllLargeBodies() throws IOException, InterruptedException {
+    Location dir = StreamFileTestUtils.createTempDir(getLocationFactory());
+    Location eventFile = dir.getTempFile(".dat");
+    Location indexFile = dir.getTempFile(".idx");
+
+    Map<String, String> headers = ImmutableMap.of("k1", "v1", "k2", "v2");
+    List<StreamEvent> expected = Lists.newArrayList();
+    Random random = new Random();
+    for (int i = 0; i < 20; i++) {
+      byte[] body = new byte[i % 2 == 0 ? 10 : 10000 + random.nextInt(10000)];
+      random.nextBytes(body);
+      // Use direct buffer for some of the events
+      ByteBuffer buffer = i % 4 == 1 ? ByteBuffer.allocateDirect(body.length) : ByteBuffer.allocate(body.length);
+      buffer.put(body).flip();
+      expected.add(new StreamEvent(headers, buffer, 1000 + i / 10));
+    }
+
+    try (StreamDataFileWriter writer = new StreamDataFileWriter(Locations.newOutputSupplier(eventFile),
+                                                                Locations.newOutputSupplier(indexFile),
+                                                                10000L)) {
+      writer.appendAll(expected.iterator());
+      // Mixed with append of single event
+      writer.append(new StreamEvent(ImmutableMap.of("k3", "v3"), Charsets.UTF_8.encode("last"), 1002));
+    }
+
+    try (StreamDataFileReader reader = StreamDataFileReader.create(Locations.newInputSupplier(eventFile))) {
+      List<PositionStreamEvent> events = Lists.newArrayList();
+      Assert.assertEquals(21, reader.read(events, 100, 0, TimeUnit.SECONDS));
+      for (int i = 0; i < expected.size(); i++) {
+        StreamEvent expectedEvent = expected.get(i);
+        StreamEvent event = events.get(i);
+        Assert.assertEquals(expectedEvent.getTimestamp(), event.getTimestamp());
+        Assert.assertEquals(expectedEvent.getHeaders(), event.getHeaders());
+        // The writer must not modify the buffers
+        Assert.assertEquals(expectedEvent.getBody(), event.getBody());
+      }
+      Assert.assertEquals("last", Charsets.UTF_8.decode(events.get(20).getBody()).toString());
+      Assert.assertEquals(ImmutableMap.of("k3", "v3"), events.get(20).getHeaders());
+    }
+  }
+
   /**
    * This unit test is to test the v2 file format that supports
    * defaulting values in stream event (timestamp and headers).
@@ -217,6 +217,65 @@ public abstract class StreamConsumerTestBase {
     consumer1.close();
   }
 
+  @Test
+  public void testFIFORangeClaim() throws Exception {
+    String stream = "testFIFORangeClaim";
+    Id.Stream streamId = Id.Stream.from(TEST_NAMESPACE, stream);
+    StreamAdmin streamAdmin = getStreamAdmin();
+    streamAdmin.create(streamId);
+    StreamConfig streamConfig = streamAdmin.getConfig(streamId);
+
+    // Writes 10 events
+    writeEvents(streamConfig, "Testing ", 10);
+
+    streamAdmin.configureInstances(streamId, 0L, 2);
+
+    // Use a range size that covers all events
+    long rangeSize = cConf.getLong(Constants.Stream.FIFO_CLAIM_RANGE_SIZE);
+    cConf.setLong(Constants.Stream.FIFO_CLAIM_RANGE_SIZE, 1024 * 1024);
+    try {
+      StreamConsumerFactory consumerFactory = getConsumerFactory();
+      ConsumerConfig consumerConfig0 = new ConsumerConfig(0L, 0, 2, DequeueStrategy.FIFO, null);
+      StreamConsumer consumer0 = consumerFactory.create(streamId, "fifo.range", consumerConfig0);
+      StreamConsumer consumer1 = consumerFactory.create(streamId, "fifo.range",
+                                                        new ConsumerConfig(0L, 1, 2, DequeueStrategy.FIFO, null));
+
+      // The first consumer claims the range and gets the first five events
+      TransactionContext context0 = createTxContext(consumer0);
+      context0.start();
+      DequeueResult<StreamEvent> result = consumer0.poll(5, 1, TimeUnit.SECONDS);
+      int count = 0;
+      for (StreamEvent event : result) {
+        Assert.assertEquals("Testing " + count++, Charsets.UTF_8.decode(event.getBody()).toString());
+      }
+      Assert.assertEquals(5, count);
+      context0.finish();
+
+      // The second consumer shouldn't get any event, as all events are in the range claimed by the first consumer
+      TransactionContext context1 = createTxContext(consumer1);
+      context1.start();
+      Assert.assertTrue(consumer1.poll(5, 1, TimeUnit.SECONDS).isEmpty());
+      context1.finish();
+
+      // Restart the first consumer. It should continue after the events processed in the range.
+      consumer0.close();
+      consumer0 = consumerFactory.create(streamId, "fifo.range", consumerConfig0);
+      context0 = createTxContext(consumer0);
+      context0.start();
+      result = consumer0.poll(10, 1, TimeUnit.SECONDS);
+      for (StreamEvent event : result) {
+        Assert.assertEquals("Testing " + count++, Charsets.UTF_8.decode(event.getBody()).toString());
+      }
+      Assert.assertEquals(10, count);
+      context0.finish();
+
+      consumer0.close();
+      consumer1.close();
+    } finally {
+      cConf.setLong(Constants.Stream.FIFO_CLAIM_RANGE_SIZE, rangeSize);
+    }
+  }
+
   @Test
   public void testFIFOReconfigure() throws Exception {
     String stream = "testReconfigure";
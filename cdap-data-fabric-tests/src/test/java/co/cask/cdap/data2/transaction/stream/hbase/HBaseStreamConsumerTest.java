@@ -95,6 +95,8 @@ public class HBaseStreamConsumerTest extends StreamConsumerTestBase {
     cConf.setInt(Constants.Stream.CONTAINER_INSTANCES, 1);
     cConf.set(Constants.CFG_LOCAL_DATA_DIR, TMP_FOLDER.newFolder().getAbsolutePath());
     cConf.set(Constants.Zookeeper.QUORUM, zkServer.getConnectionStr());
+    // Let FIFO consumers claim events individually, so that tests can control which consumer gets which event.
+    cConf.setLong(Constants.Stream.FIFO_CLAIM_RANGE_SIZE, 1L);
 
     Injector injector = Guice.createInjector(
       new ConfigModule(cConf, hConf),
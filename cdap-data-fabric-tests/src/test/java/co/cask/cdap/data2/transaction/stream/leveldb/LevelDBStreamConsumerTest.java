@@ -67,6 +67,8 @@ public class LevelDBStreamConsumerTest extends StreamConsumerTestBase {
   @BeforeClass
   public static void init() throws Exception {
     cConf.set(Constants.CFG_LOCAL_DATA_DIR, tmpFolder.newFolder().getAbsolutePath());
+    // Let FIFO consumers claim events individually, so that tests can control which consumer gets which event.
+    cConf.setLong(Constants.Stream.FIFO_CLAIM_RANGE_SIZE, 1L);
 
     Injector injector = Guice.createInjector(
       new ConfigModule(cConf),
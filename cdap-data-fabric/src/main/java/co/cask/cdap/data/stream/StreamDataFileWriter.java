@@ -32,10 +32,14 @@ import com.google.common.io.OutputSupplier;
 import com.google.common.primitives.Longs;
 import org.apache.hadoop.fs.Syncable;
 
+import java.io.ByteArrayOutputStream;
 import java.io.Flushable;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import javax.annotation.concurrent.NotThreadSafe;
 
@@ -79,12 +83,25 @@ public final class StreamDataFileWriter implements TimestampCloseable, Flushable
 
   private static final int BUFFER_SIZE = 256 * 1024;    // 256K
 
+  // Event bodies at least this size are not copied into the block buffer when written through appendAll
+  private static final int MIN_REFERENCED_BODY_SIZE = 4096;
+  private static final int TRANSFER_BUFFER_SIZE = 8192;
+
   private final OutputStream eventOutput;
   private final OutputStream indexOutput;
   private final long indexInterval;
   private final BufferedEncoder encoder;
   private final BufferedEncoder lengthEncoder;
 
+  // Event bodies of the current block that are written directly from the caller buffers
+  private final List<ReferencedBody> referencedBodies;
+  private long referencedBodiesSize;
+  private byte[] transferBuffer;
+
+  // Encoded form of the last immutable headers map written
+  private Map<String, String> lastHeaders;
+  private byte[] lastEncodedHeaders;
+
   // Timestamp for the current block
   private long currentTimestamp;
   private long position;
@@ -130,6 +147,7 @@ public final class StreamDataFileWriter implements TimestampCloseable, Flushable
     Function<OutputStream, Encoder> encoderFactory = createEncoderFactory();
     this.encoder = new BufferedEncoder(BUFFER_SIZE, encoderFactory);
     this.lengthEncoder = new BufferedEncoder(5, encoderFactory);
+    this.referencedBodies = new ArrayList<>();
 
     try {
       init(properties);
@@ -143,14 +161,16 @@ public final class StreamDataFileWriter implements TimestampCloseable, Flushable
 
   @Override
   public void append(StreamEvent event) throws IOException {
-    doAppend(event, BUFFER_SIZE);
+    doAppend(event, BUFFER_SIZE, false);
   }
 
   /**
    * Writes multiple events to the stream file. Events provided by the iterator must be sorted by timestamp.
    * This method guarantees events with the same timestamp are written in the same data block. Note that
    * events of the same timestamp are all buffered in memory before writing to disk, since the data block length
-   * needs to be known before it can be written to disk.
+   * needs to be known before it can be written to disk. Large event bodies are not copied; they are written
+   * directly from the buffers provided by the events, hence those buffers must not be modified before this
+   * method returns.
    *
    * @param events an {@link Iterator} that provides events to append
    * @throws IOException
@@ -158,7 +178,15 @@ public final class StreamDataFileWriter implements TimestampCloseable, Flushable
   @Override
   public void appendAll(Iterator<? extends StreamEvent> events) throws IOException {
     while (events.hasNext()) {
-      doAppend(events.next(), Integer.MAX_VALUE);
+      doAppend(events.next(), Integer.MAX_VALUE, true);
+    }
+    // Don't hold on to the event bodies after returning
+    if (!referencedBodies.isEmpty()) {
+      try {
+        flushBlock(false);
+      } catch (IOException e) {
+        throw closeWithException(e);
+      }
     }
   }
 
@@ -198,7 +226,7 @@ public final class StreamDataFileWriter implements TimestampCloseable, Flushable
     return closeTimestamp;
   }
 
-  private void doAppend(StreamEvent event, int flushLimit) throws IOException {
+  private void doAppend(StreamEvent event, int flushLimit, boolean referenceBody) throws IOException {
     if (closed) {
       throw new IOException("Writer already closed.");
     }
@@ -220,11 +248,19 @@ public final class StreamDataFileWriter implements TimestampCloseable, Flushable
         position += Bytes.SIZEOF_LONG;
       }
 
-      // Encodes the event data into buffer.
-      StreamEventDataCodec.encode(event, encoder);
+      // Encodes the event data into buffer. The encoding is the same as StreamEventDataCodec.encode.
+      ByteBuffer body = event.getBody();
+      if (referenceBody && body.remaining() >= MIN_REFERENCED_BODY_SIZE) {
+        encoder.writeInt(body.remaining());
+        referencedBodies.add(new ReferencedBody(encoder.size(), body.duplicate()));
+        referencedBodiesSize += body.remaining();
+      } else {
+        encoder.writeBytes(body);
+      }
+      encodeHeaders(event.getHeaders());
 
       // Optionally flush if already filled up the buffer.
-      if (encoder.size() >= flushLimit) {
+      if (getBlockSize() >= flushLimit) {
         flushBlock(false);
       }
 
@@ -233,6 +269,28 @@ public final class StreamDataFileWriter implements TimestampCloseable, Flushable
     }
   }
 
+  /**
+   * Encodes the event headers. Batches of events usually share the same immutable headers map,
+   * in which case the encoded headers are reused.
+   */
+  private void encodeHeaders(Map<String, String> headers) throws IOException {
+    if (!(headers instanceof ImmutableMap)) {
+      StreamEventDataCodec.encodeHeaders(headers, encoder);
+      return;
+    }
+    if (headers != lastHeaders) {
+      ByteArrayOutputStream os = new ByteArrayOutputStream();
+      StreamEventDataCodec.encodeHeaders(headers, new BinaryEncoder(os));
+      lastEncodedHeaders = os.toByteArray();
+      lastHeaders = headers;
+    }
+    encoder.writeRaw(lastEncodedHeaders);
+  }
+
+  private long getBlockSize() {
+    return encoder.size() + referencedBodiesSize;
+  }
+
   private void init(Map<String, String> properties) throws IOException {
     // Writes the header for event file
     encoder.writeRaw(StreamDataFileConstants.MAGIC_HEADER_V2);
@@ -279,15 +337,27 @@ public final class StreamDataFileWriter implements TimestampCloseable, Flushable
     }
 
     // Writes the size of the encoded event
-    lengthEncoder.writeInt(encoder.size());
+    long blockSize = getBlockSize();
+    if (blockSize > Integer.MAX_VALUE) {
+      throw new IOException("Data block too large: " + blockSize);
+    }
+    lengthEncoder.writeInt((int) blockSize);
     int size = lengthEncoder.size();
     lengthEncoder.writeTo(eventOutput);
     position += size;
 
-    // Writes all encoded data from the buffer to the output.
-    size = encoder.size();
-    encoder.writeTo(eventOutput);
-    position += size;
+    // Writes all encoded data from the buffer to the output, interleaved with the bodies that are not in the buffer.
+    int bufferPosition = 0;
+    for (ReferencedBody referencedBody : referencedBodies) {
+      encoder.writeTo(eventOutput, bufferPosition, referencedBody.bufferPosition - bufferPosition);
+      bufferPosition = referencedBody.bufferPosition;
+      writeBody(referencedBody.body);
+    }
+    referencedBodies.clear();
+    referencedBodiesSize = 0;
+    encoder.writeTo(eventOutput, bufferPosition, encoder.size() - bufferPosition);
+    encoder.reset();
+    position += blockSize;
     if (sync) {
       sync(eventOutput);
     }
@@ -310,6 +380,25 @@ public final class StreamDataFileWriter implements TimestampCloseable, Flushable
     synced = sync;
   }
 
+  /**
+   * Writes the content of the given buffer to the event output.
+   */
+  private void writeBody(ByteBuffer body) throws IOException {
+    if (body.hasArray()) {
+      eventOutput.write(body.array(), body.arrayOffset() + body.position(), body.remaining());
+      return;
+    }
+    // Copy direct buffers through a reusable buffer instead of allocating one per event
+    if (transferBuffer == null) {
+      transferBuffer = new byte[TRANSFER_BUFFER_SIZE];
+    }
+    while (body.hasRemaining()) {
+      int len = Math.min(body.remaining(), transferBuffer.length);
+      body.get(transferBuffer, 0, len);
+      eventOutput.write(transferBuffer, 0, len);
+    }
+  }
+
   private void sync(OutputStream output) throws IOException {
     if (output instanceof Syncable) {
       ((Syncable) output).hsync();
@@ -324,6 +413,7 @@ public final class StreamDataFileWriter implements TimestampCloseable, Flushable
    */
   private IOException closeWithException(IOException ex) throws IOException {
     closed = true;
+    referencedBodies.clear();
     Closeables.closeQuietly(eventOutput);
     Closeables.closeQuietly(indexOutput);
     throw ex;
@@ -337,4 +427,18 @@ public final class StreamDataFileWriter implements TimestampCloseable, Flushable
       }
     };
   }
+
+  /**
+   * An event body of the current block that is not copied into the block buffer.
+   */
+  private static final class ReferencedBody {
+    // Position in the block buffer where the body goes
+    private final int bufferPosition;
+    private final ByteBuffer body;
+
+    ReferencedBody(int bufferPosition, ByteBuffer body) {
+      this.bufferPosition = bufferPosition;
+      this.body = body;
+    }
+  }
 }
@@ -19,6 +19,9 @@ package co.cask.cdap.data.stream.service;
 import co.cask.cdap.api.flow.flowlet.StreamEvent;
 import co.cask.cdap.common.conf.CConfiguration;
 import co.cask.cdap.common.conf.Constants;
+import co.cask.cdap.common.io.BinaryEncoder;
+import co.cask.cdap.common.io.Encoder;
+import co.cask.cdap.common.stream.StreamEventDataCodec;
 import co.cask.cdap.common.stream.StreamEventTypeAdapter;
 import co.cask.cdap.common.utils.TimeMathParser;
 import co.cask.cdap.data.file.FileReader;
@@ -71,6 +74,8 @@ public final class StreamFetchHandler extends AbstractHttpHandler {
   private static final Gson GSON = StreamEventTypeAdapter.register(new GsonBuilder()).create();
   private static final int MAX_EVENTS_PER_READ = 100;
   private static final int CHUNK_SIZE = 8192;
+  private static final String FORMAT_JSON = "json";
+  private static final String FORMAT_AVRO = "avro";
 
   private final CConfiguration cConf;
   private final StreamAdmin streamAdmin;
@@ -84,20 +89,36 @@ public final class StreamFetchHandler extends AbstractHttpHandler {
   }
 
   /**
-   * Handler for the HTTP API {@code /streams/[stream_name]/events?start=[start_ts]&end=[end_ts]&limit=[event_limit]}
+   * Handler for the HTTP API
+   * {@code /streams/[stream_name]/events?start=[start_ts]&end=[end_ts]&limit=[event_limit]&format=[format]
+   * &offset=[offset]}
    * <p>
    * Responds with:
    * <ul>
+   * <li>400 if the format or the offset is invalid</li>
    * <li>404 if stream does not exist</li>
    * <li>204 if no event in the given start/end time range exists</li>
    * <li>200 if there is are one or more events</li>
    * </ul>
    * </p>
    * <p>
-   * Response body is a JSON array of the StreamEvent object.
+   * With the {@code json} format (the default), the response body is a JSON array of the StreamEvent object.
+   * With the {@code avro} format, the response body is binary, with events encoded the same way as in the stream
+   * files:
+   *
+   * <pre>
+   * response = block* 0 offset
+   * block = count event{count}
+   * event = timestamp stream_event
+   * </pre>
+   *
+   * where {@code count} and {@code timestamp} are Avro encoded int64, {@code stream_event} is encoded with the
+   * StreamData schema and {@code offset} is an Avro encoded string. The offset is opaque and can be passed to a
+   * subsequent request to resume reading after the last event returned.
    * </p>
    *
    * @see StreamEventTypeAdapter StreamEventTypeAdapter for the format of the StreamEvent object
+   * @see StreamEventDataCodec StreamEventDataCodec for the encoding of the stream event
    */
   @GET
   @Path("/{stream}/events")
@@ -106,10 +127,19 @@ public final class StreamFetchHandler extends AbstractHttpHandler {
                     @PathParam("stream") String stream,
                     @QueryParam("start") @DefaultValue("0") String start,
                     @QueryParam("end") @DefaultValue("9223372036854775807") String end,
-                    @QueryParam("limit") @DefaultValue("2147483647") int limit) throws Exception {
+                    @QueryParam("limit") @DefaultValue("2147483647") int limit,
+                    @QueryParam("format") @DefaultValue(FORMAT_JSON) String format,
+                    @QueryParam("offset") @DefaultValue("") String offset) throws Exception {
     long startTime = TimeMathParser.parseTime(start, TimeUnit.MILLISECONDS);
     long endTime = TimeMathParser.parseTime(end, TimeUnit.MILLISECONDS);
 
+    if (!FORMAT_JSON.equals(format) && !FORMAT_AVRO.equals(format)) {
+      responder.sendString(HttpResponseStatus.BAD_REQUEST,
+                           String.format("Unsupported format %s. Format must be either %s or %s",
+                                         format, FORMAT_JSON, FORMAT_AVRO));
+      return;
+    }
+
     Id.Stream streamId = Id.Stream.from(namespaceId, stream);
     if (!verifyGetEventsRequest(streamId, startTime, endTime, limit, responder)) {
       return;
@@ -120,8 +150,20 @@ public final class StreamFetchHandler extends AbstractHttpHandler {
     startTime = Math.max(startTime, now - streamConfig.getTTL());
     endTime = Math.min(endTime, now);
 
+    int generation = StreamUtils.getGeneration(streamConfig);
+    List<StreamFileOffset> resumeOffsets = null;
+    if (!offset.isEmpty()) {
+      try {
+        resumeOffsets = StreamFetchOffsetCodec.decode(offset, streamConfig.getLocation(), generation);
+      } catch (IllegalArgumentException e) {
+        responder.sendString(HttpResponseStatus.BAD_REQUEST, e.getMessage());
+        return;
+      }
+    }
+
     // Create the stream event reader
-    try (FileReader<StreamEventOffset, Iterable<StreamFileOffset>> reader = createReader(streamConfig, startTime)) {
+    try (FileReader<StreamEventOffset, Iterable<StreamFileOffset>> reader =
+           resumeOffsets == null ? createReader(streamConfig, startTime) : createReader(streamConfig, resumeOffsets)) {
       TimeRangeReadFilter readFilter = new TimeRangeReadFilter(startTime, endTime);
       List<StreamEvent> events = Lists.newArrayListWithCapacity(100);
 
@@ -135,47 +177,105 @@ public final class StreamFetchHandler extends AbstractHttpHandler {
       }
 
       // Send with chunk response, as we don't want to buffer all events in memory to determine the content-length.
-      ChunkResponder chunkResponder = responder.sendChunkStart(HttpResponseStatus.OK,
-                                                               ImmutableMultimap.of(HttpHeaders.Names.CONTENT_TYPE,
-                                                                                    "application/json; charset=utf-8"));
-      ChannelBuffer buffer = ChannelBuffers.dynamicBuffer();
-      JsonWriter jsonWriter = new JsonWriter(new OutputStreamWriter(new ChannelBufferOutputStream(buffer),
-                                                                    Charsets.UTF_8));
-      // Response is an array of stream event
-      jsonWriter.beginArray();
-      while (limit > 0 && eventsRead > 0) {
-        limit -= eventsRead;
-
-        for (StreamEvent event : events) {
-          GSON.toJson(event, StreamEvent.class, jsonWriter);
-          jsonWriter.flush();
-
-          // If exceeded chunk size limit, send a new chunk.
-          if (buffer.readableBytes() >= CHUNK_SIZE) {
-            // If the connect is closed, sendChunk will throw IOException.
-            // No need to handle the exception as it will just propagated back to the netty-http library
-            // and it will handle it.
-            // Need to copy the buffer because the buffer will get reused and send chunk is an async operation
-            chunkResponder.sendChunk(buffer.copy());
-            buffer.clear();
-          }
-        }
-        events.clear();
-
-        if (limit > 0) {
-          eventsRead = readEvents(reader, events, limit, readFilter);
-        }
+      if (FORMAT_AVRO.equals(format)) {
+        sendBinary(responder, reader, events, eventsRead, limit, readFilter, generation);
+      } else {
+        sendJson(responder, reader, events, eventsRead, limit, readFilter);
       }
-      jsonWriter.endArray();
-      jsonWriter.close();
+    }
+  }
+
+  /**
+   * Sends events as a JSON array.
+   */
+  private void sendJson(HttpResponder responder, FileReader<StreamEventOffset, Iterable<StreamFileOffset>> reader,
+                        List<StreamEvent> events, int eventsRead, int limit,
+                        TimeRangeReadFilter readFilter) throws IOException, InterruptedException {
+    ChunkResponder chunkResponder = responder.sendChunkStart(HttpResponseStatus.OK,
+                                                             ImmutableMultimap.of(HttpHeaders.Names.CONTENT_TYPE,
+                                                                                  "application/json; charset=utf-8"));
+    ChannelBuffer buffer = ChannelBuffers.dynamicBuffer();
+    JsonWriter jsonWriter = new JsonWriter(new OutputStreamWriter(new ChannelBufferOutputStream(buffer),
+                                                                  Charsets.UTF_8));
+    // Response is an array of stream event
+    jsonWriter.beginArray();
+    while (limit > 0 && eventsRead > 0) {
+      limit -= eventsRead;
+
+      for (StreamEvent event : events) {
+        GSON.toJson(event, StreamEvent.class, jsonWriter);
+        jsonWriter.flush();
+        sendChunkIfFull(chunkResponder, buffer);
+      }
+      events.clear();
 
-      // Send the last chunk that still has data
-      if (buffer.readable()) {
-        // No need to copy the last chunk, since the buffer will not be reused
-        chunkResponder.sendChunk(buffer);
+      if (limit > 0) {
+        eventsRead = readEvents(reader, events, limit, readFilter);
       }
-      Closeables.closeQuietly(chunkResponder);
     }
+    jsonWriter.endArray();
+    jsonWriter.close();
+
+    sendLastChunk(chunkResponder, buffer);
+  }
+
+  /**
+   * Sends events in the binary format, followed by the offset to resume from.
+   */
+  private void sendBinary(HttpResponder responder, FileReader<StreamEventOffset, Iterable<StreamFileOffset>> reader,
+                          List<StreamEvent> events, int eventsRead, int limit,
+                          TimeRangeReadFilter readFilter, int generation) throws IOException, InterruptedException {
+    ChunkResponder chunkResponder = responder.sendChunkStart(HttpResponseStatus.OK,
+                                                             ImmutableMultimap.of(HttpHeaders.Names.CONTENT_TYPE,
+                                                                                  "avro/binary"));
+    ChannelBuffer buffer = ChannelBuffers.dynamicBuffer();
+    Encoder encoder = new BinaryEncoder(new ChannelBufferOutputStream(buffer));
+
+    // Each batch of events read is written as one block
+    while (limit > 0 && eventsRead > 0) {
+      limit -= eventsRead;
+
+      encoder.writeLong(events.size());
+      for (StreamEvent event : events) {
+        encoder.writeLong(event.getTimestamp());
+        StreamEventDataCodec.encode(event, encoder);
+        sendChunkIfFull(chunkResponder, buffer);
+      }
+      events.clear();
+
+      if (limit > 0) {
+        eventsRead = readEvents(reader, events, limit, readFilter);
+      }
+    }
+    encoder.writeLong(0L);
+    encoder.writeString(StreamFetchOffsetCodec.encode(generation, reader.getPosition()));
+
+    sendLastChunk(chunkResponder, buffer);
+  }
+
+  /**
+   * Sends the content of the buffer as a chunk if it exceeded the chunk size limit.
+   */
+  private void sendChunkIfFull(ChunkResponder chunkResponder, ChannelBuffer buffer) throws IOException {
+    if (buffer.readableBytes() >= CHUNK_SIZE) {
+      // If the connect is closed, sendChunk will throw IOException.
+      // No need to handle the exception as it will just propagated back to the netty-http library
+      // and it will handle it.
+      // Need to copy the buffer because the buffer will get reused and send chunk is an async operation
+      chunkResponder.sendChunk(buffer.copy());
+      buffer.clear();
+    }
+  }
+
+  /**
+   * Sends the last chunk that still has data and closes the responder.
+   */
+  private void sendLastChunk(ChunkResponder chunkResponder, ChannelBuffer buffer) throws IOException {
+    if (buffer.readable()) {
+      // No need to copy the last chunk, since the buffer will not be reused
+      chunkResponder.sendChunk(buffer);
+    }
+    Closeables.closeQuietly(chunkResponder);
   }
 
   /**
@@ -281,7 +381,14 @@ public final class StreamFetchHandler extends AbstractHttpHandler {
                                                                 0, StreamFileType.EVENT);
       fileOffsets.add(new StreamFileOffset(eventLocation, 0, generation));
     }
+    return createReader(streamConfig, fileOffsets);
+  }
 
+  /**
+   * Creates a {@link FileReader} that resumes reading stream event from the given file offsets.
+   */
+  private FileReader<StreamEventOffset, Iterable<StreamFileOffset>> createReader(
+    StreamConfig streamConfig, List<StreamFileOffset> fileOffsets) throws IOException {
     MultiLiveStreamFileReader reader = new MultiLiveStreamFileReader(streamConfig, fileOffsets);
     reader.initialize();
     return reader;
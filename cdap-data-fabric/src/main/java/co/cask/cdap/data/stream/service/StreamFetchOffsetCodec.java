@@ -0,0 +1,138 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.data.stream.service;
+
+import co.cask.cdap.common.io.BinaryDecoder;
+import co.cask.cdap.common.io.BinaryEncoder;
+import co.cask.cdap.common.io.Decoder;
+import co.cask.cdap.common.io.Encoder;
+import co.cask.cdap.data.stream.StreamFileOffset;
+import co.cask.cdap.data.stream.StreamUtils;
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import org.apache.commons.codec.binary.Base64;
+import org.apache.twill.filesystem.Location;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Encodes and decodes the resume offset returned by the stream fetch API. The offset is opaque to clients.
+ * It is the URL-safe base64 encoding of:
+ *
+ * <pre>
+ * offset = version generation count file_offset{count}
+ * file_offset = partition_name file_name position
+ * </pre>
+ *
+ * where {@code version}, {@code generation} and {@code count} are Avro encoded int32, the names are Avro
+ * encoded strings and {@code position} is an Avro encoded int64. File locations are stored relative to the
+ * stream generation location so that an offset can never refer to files outside of the stream.
+ */
+final class StreamFetchOffsetCodec {
+
+  private static final int VERSION = 1;
+  // Partition and file names are single path elements, which are limited to 255 bytes by file systems
+  private static final int MAX_NAME_LENGTH = 255;
+  // A file offset is encoded with at least three bytes: the lengths of the two names and the position
+  private static final int MIN_FILE_OFFSET_LENGTH = 3;
+
+  /**
+   * Encodes the given file offsets.
+   */
+  static String encode(int generation, Iterable<StreamFileOffset> fileOffsets) throws IOException {
+    List<StreamFileOffset> offsets = Lists.newArrayList(fileOffsets);
+
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    Encoder encoder = new BinaryEncoder(os);
+    encoder.writeInt(VERSION);
+    encoder.writeInt(generation);
+    encoder.writeInt(offsets.size());
+    for (StreamFileOffset offset : offsets) {
+      encoder.writeString(StreamUtils.getPartitionName(offset.getEventLocation()));
+      encoder.writeString(offset.getEventLocation().getName());
+      encoder.writeLong(offset.getOffset());
+    }
+    return Base64.encodeBase64URLSafeString(os.toByteArray());
+  }
+
+  /**
+   * Decodes an offset created by {@link #encode(int, Iterable)}.
+   *
+   * @param offset the encoded offset
+   * @param streamLocation base location of the stream
+   * @param generation the current generation of the stream
+   * @return the list of file offsets to resume from
+   * @throws IllegalArgumentException if the offset is invalid or belongs to a different generation of the stream
+   */
+  static List<StreamFileOffset> decode(String offset, Location streamLocation, int generation) {
+    // The offset comes from the client, hence every length in it is checked before it is used
+    ByteArrayInputStream input = new ByteArrayInputStream(Base64.decodeBase64(offset));
+    Decoder decoder = new BinaryDecoder(input);
+    try {
+      if (decoder.readInt() != VERSION) {
+        throw new IllegalArgumentException("Unsupported offset " + offset);
+      }
+      if (decoder.readInt() != generation) {
+        throw new IllegalArgumentException("Offset " + offset + " refers to a truncated generation of the stream");
+      }
+      Location generationLocation = StreamUtils.createGenerationLocation(streamLocation, generation);
+
+      int size = decoder.readInt();
+      if (size < 0 || size > input.available() / MIN_FILE_OFFSET_LENGTH) {
+        throw new IllegalArgumentException("Invalid offset " + offset);
+      }
+      List<StreamFileOffset> fileOffsets = Lists.newArrayListWithCapacity(size);
+      for (int i = 0; i < size; i++) {
+        String partitionName = readName(decoder, input, offset);
+        String fileName = readName(decoder, input, offset);
+        long position = decoder.readLong();
+        if (!StreamUtils.isPartition(partitionName) || fileName.isEmpty()
+          || fileName.indexOf('/') >= 0 || fileName.startsWith(".") || position < 0) {
+          throw new IllegalArgumentException("Invalid offset " + offset);
+        }
+        fileOffsets.add(new StreamFileOffset(generationLocation.append(partitionName).append(fileName),
+                                             position, generation));
+      }
+      return fileOffsets;
+    } catch (IllegalArgumentException e) {
+      throw e;
+    } catch (IOException | RuntimeException e) {
+      throw new IllegalArgumentException("Invalid offset " + offset, e);
+    }
+  }
+
+  /**
+   * Reads a partition or file name, after checking that its length is valid and not beyond the end of the input.
+   */
+  private static String readName(Decoder decoder, ByteArrayInputStream input, String offset) throws IOException {
+    int length = decoder.readInt();
+    if (length < 0 || length > MAX_NAME_LENGTH || length > input.available()) {
+      throw new IllegalArgumentException("Invalid offset " + offset);
+    }
+    byte[] bytes = new byte[length];
+    if (input.read(bytes, 0, length) != length) {
+      throw new IllegalArgumentException("Invalid offset " + offset);
+    }
+    return new String(bytes, Charsets.UTF_8);
+  }
+
+  private StreamFetchOffsetCodec() {
+  }
+}
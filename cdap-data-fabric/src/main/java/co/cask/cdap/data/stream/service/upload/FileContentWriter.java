@@ -16,6 +16,7 @@
 
 package co.cask.cdap.data.stream.service.upload;
 
+import co.cask.cdap.api.flow.flowlet.StreamEvent;
 import co.cask.cdap.common.NotFoundException;
 import co.cask.cdap.common.io.Locations;
 import co.cask.cdap.data.stream.StreamDataFileConstants;
@@ -25,6 +26,7 @@ import co.cask.cdap.data.stream.service.MutableStreamEvent;
 import co.cask.cdap.data.stream.service.MutableStreamEventData;
 import co.cask.cdap.data2.transaction.stream.StreamConfig;
 import com.google.common.base.Throwables;
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.Maps;
 import com.google.common.io.Closeables;
 import org.apache.twill.filesystem.Location;
@@ -83,11 +85,26 @@ final class FileContentWriter implements ContentWriter {
   }
 
   @Override
-  public void appendAll(Iterator<ByteBuffer> bodies, boolean immutable) throws IOException {
-    long timestamp = System.currentTimeMillis();
-    while (bodies.hasNext()) {
-      doAppend(bodies.next(), timestamp);
+  public void appendAll(final Iterator<ByteBuffer> bodies, boolean immutable) throws IOException {
+    final long timestamp = System.currentTimeMillis();
+    if (!immutable) {
+      while (bodies.hasNext()) {
+        doAppend(bodies.next(), timestamp);
+      }
+      return;
     }
+
+    // Immutable bodies can be written by the file writer without copying
+    writer.appendAll(new AbstractIterator<StreamEvent>() {
+      @Override
+      protected StreamEvent computeNext() {
+        if (!bodies.hasNext()) {
+          return endOfData();
+        }
+        eventCount++;
+        return streamEvent.set(streamEventData.setBody(bodies.next()), timestamp);
+      }
+    });
   }
 
   @Override
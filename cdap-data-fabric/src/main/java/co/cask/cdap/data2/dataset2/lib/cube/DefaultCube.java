@@ -23,6 +23,8 @@ import co.cask.cdap.api.dataset.lib.cube.CubeExploreQuery;
 import co.cask.cdap.api.dataset.lib.cube.CubeFact;
 import co.cask.cdap.api.dataset.lib.cube.CubeQuery;
 import co.cask.cdap.api.dataset.lib.cube.DimensionValue;
+import co.cask.cdap.api.dataset.lib.cube.MeasureType;
+import co.cask.cdap.api.dataset.lib.cube.Measurement;
 import co.cask.cdap.api.dataset.lib.cube.TimeSeries;
 import co.cask.cdap.api.dataset.lib.cube.TimeValue;
 import co.cask.cdap.api.metrics.MetricsCollector;
@@ -32,8 +34,12 @@ import co.cask.cdap.data2.dataset2.lib.timeseries.FactScan;
 import co.cask.cdap.data2.dataset2.lib.timeseries.FactScanResult;
 import co.cask.cdap.data2.dataset2.lib.timeseries.FactScanner;
 import co.cask.cdap.data2.dataset2.lib.timeseries.FactTable;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -47,10 +53,13 @@ import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.SortedSet;
+import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 
 /**
@@ -64,6 +73,12 @@ public class DefaultCube implements Cube {
   private static final int MAX_RECORDS_TO_SCAN = 100 * 1000;
 
   private final Map<Integer, FactTable> resolutionToFactTable;
+  // resolutions that are not written when facts are added, but produced by rolling up the finest resolution
+  private final Set<Integer> rolledUpResolutions;
+  // the finest resolution, which is the source of roll-ups
+  private final int finestResolution;
+  // how long it may take until an interval is rolled up after it ended, in seconds
+  private final long rollUpLagSecs;
   private final Map<String, ? extends Aggregation> aggregations;
   private final Map<String, AggregationAlias> aggregationAliasMap;
 
@@ -73,12 +88,37 @@ public class DefaultCube implements Cube {
   public DefaultCube(int[] resolutions, FactTableSupplier factTableSupplier,
                      Map<String, ? extends Aggregation> aggregations,
                      Map<String, AggregationAlias> aggregationAliasMap) {
+    this(resolutions, factTableSupplier, aggregations, aggregationAliasMap, Collections.<Integer>emptySet(), 0L);
+  }
+
+  /**
+   * Creates a {@link DefaultCube} that only writes added facts into some of its resolutions. The other resolutions
+   * are filled by {@link #rollUp(int, long, long)}, which aggregates the values of the finest resolution. Queries
+   * of those resolutions read the intervals that may not be rolled up yet from the finest resolution.
+   *
+   * @param rolledUpResolutions resolutions to be filled by roll-up, each has to be a multiple of the finest resolution
+   * @param rollUpLagSecs the time in seconds after the end of an interval until it is rolled up for sure
+   */
+  public DefaultCube(int[] resolutions, FactTableSupplier factTableSupplier,
+                     Map<String, ? extends Aggregation> aggregations,
+                     Map<String, AggregationAlias> aggregationAliasMap, Set<Integer> rolledUpResolutions,
+                     long rollUpLagSecs) {
     this.aggregations = aggregations;
     this.resolutionToFactTable = Maps.newHashMap();
+    int finest = Integer.MAX_VALUE;
     for (int resolution : resolutions) {
       resolutionToFactTable.put(resolution, factTableSupplier.get(resolution, 3600));
+      finest = Math.min(finest, resolution);
+    }
+    for (int resolution : rolledUpResolutions) {
+      Preconditions.checkArgument(resolutionToFactTable.containsKey(resolution) && resolution != finest
+                                    && resolution % finest == 0,
+                                  "Resolution %s cannot be rolled up from resolution %s.", resolution, finest);
     }
     this.aggregationAliasMap = aggregationAliasMap;
+    this.rolledUpResolutions = ImmutableSet.copyOf(rolledUpResolutions);
+    this.finestResolution = finest;
+    this.rollUpLagSecs = rollUpLagSecs;
   }
 
   @Override
@@ -89,8 +129,16 @@ public class DefaultCube implements Cube {
   @Override
   public void add(Collection<? extends CubeFact> facts) {
     List<Fact> toWrite = Lists.newArrayList();
+    Set<String> gauges = Sets.newHashSet();
     int dimValuesCount = 0;
     for (CubeFact fact : facts) {
+      if (!rolledUpResolutions.isEmpty()) {
+        for (Measurement measurement : fact.getMeasurements()) {
+          if (measurement.getType() == MeasureType.GAUGE) {
+            gauges.add(measurement.getName());
+          }
+        }
+      }
       for (Map.Entry<String, ? extends Aggregation> aggEntry : aggregations.entrySet()) {
         Aggregation agg = aggEntry.getValue();
         AggregationAlias aggregationAlias = null;
@@ -112,15 +160,50 @@ public class DefaultCube implements Cube {
       }
     }
 
-    for (FactTable table : resolutionToFactTable.values()) {
-      table.add(toWrite);
+    if (!gauges.isEmpty()) {
+      resolutionToFactTable.get(finestResolution).recordGauges(gauges);
+    }
+    int tablesWritten = 0;
+    for (Map.Entry<Integer, FactTable> entry : resolutionToFactTable.entrySet()) {
+      if (!rolledUpResolutions.contains(entry.getKey())) {
+        entry.getValue().add(toWrite);
+        tablesWritten++;
+      }
     }
 
     incrementMetric("cube.cubeFact.add.request.count", 1);
     incrementMetric("cube.cubeFact.added.count", facts.size());
     incrementMetric("cube.tsFact.created.count", toWrite.size());
     incrementMetric("cube.tsFact.created.dimValues.count", dimValuesCount);
-    incrementMetric("cube.tsFact.added.count", toWrite.size() * resolutionToFactTable.size());
+    incrementMetric("cube.tsFact.added.count", toWrite.size() * tablesWritten);
+  }
+
+  /**
+   * Rolls up the values of the finest resolution in the given time range into the given resolution, which must be
+   * one of the resolutions this cube was created to roll up. The time range must cover complete intervals of the
+   * resolution. Rolling up the same range again is idempotent.
+   *
+   * @param resolution the resolution to roll up into
+   * @param startTs start of the time range, in seconds, inclusive
+   * @param endTs end of the time range, in seconds, inclusive
+   */
+  public void rollUp(int resolution, long startTs, long endTs) {
+    Preconditions.checkArgument(rolledUpResolutions.contains(resolution),
+                                "Resolution %s is not rolled up.", resolution);
+    Preconditions.checkArgument(startTs % resolution == 0 && (endTs + 1) % resolution == 0,
+                                "Time range [%s, %s] doesn't cover complete intervals of resolution %s.",
+                                startTs, endTs, resolution);
+
+    FactTable source = resolutionToFactTable.get(finestResolution);
+    FactTable target = resolutionToFactTable.get(resolution);
+    for (Aggregation agg : aggregations.values()) {
+      List<DimensionValue> dimensionValues = Lists.newArrayList();
+      for (String dimensionName : agg.getDimensionNames()) {
+        dimensionValues.add(new DimensionValue(dimensionName, null));
+      }
+      source.rollUp(new FactScan(startTs, endTs, ImmutableList.<String>of(), dimensionValues), target);
+    }
+    incrementMetric("cube.rollup." + resolution + ".count", 1);
   }
 
   @Override
@@ -207,9 +290,7 @@ public class DefaultCube implements Cube {
                                  query.getMeasurements().keySet(), dimensionValues);
 
     // 3) execute scan query
-    FactTable table = resolutionToFactTable.get(query.getResolution());
-    FactScanner scanner = table.scan(scan);
-    Table<Map<String, String>, String, Map<Long, Long>> resultMap = getTimeSeries(query, scanner);
+    Table<Map<String, String>, String, Map<Long, Long>> resultMap = getTimeSeries(query, scan(query, scan));
 
     incrementMetric("cube.query.request.success.count", 1);
     incrementMetric("cube.query.result.size", resultMap.size());
@@ -220,6 +301,48 @@ public class DefaultCube implements Cube {
     return timeSeries;
   }
 
+  /**
+   * Scans the fact table of the resolution of the given query. For a rolled up resolution, the intervals that
+   * may not be rolled up yet are read from the finest resolution and aggregated the same way as by a roll-up.
+   */
+  private Iterator<FactScanResult> scan(CubeQuery query, FactScan scan) {
+    int resolution = query.getResolution();
+    FactTable table = resolutionToFactTable.get(resolution);
+    if (!rolledUpResolutions.contains(resolution)) {
+      return table.scan(scan);
+    }
+
+    // start of the first interval that may not be rolled up yet
+    long rolledUpEnd = (getCurrentTimeSeconds() - rollUpLagSecs) / resolution * resolution;
+    if (scan.getEndTs() < rolledUpEnd) {
+      return table.scan(scan);
+    }
+
+    List<Iterator<FactScanResult>> results = Lists.newArrayList();
+    if (scan.getStartTs() < rolledUpEnd) {
+      results.add(table.scan(new FactScan(scan.getStartTs(), rolledUpEnd - 1,
+                                          scan.getMeasureNames(), scan.getDimensionValues())));
+    }
+    // Cover the complete intervals that start in the remaining time range
+    long tailStartTs = Math.max(rolledUpEnd, (scan.getStartTs() + resolution - 1) / resolution * resolution);
+    long tailEndTs = scan.getEndTs() / resolution * resolution + resolution - 1;
+    if (tailStartTs <= tailEndTs) {
+      FactTable source = resolutionToFactTable.get(finestResolution);
+      FactScanner tail = source.scan(new FactScan(tailStartTs, tailEndTs,
+                                                  scan.getMeasureNames(), scan.getDimensionValues()));
+      results.add(new RollUpIterator(Iterators.peekingIterator(tail), source, resolution));
+    }
+    return Iterators.concat(results.iterator());
+  }
+
+  /**
+   * Returns the current time in seconds, which determines the intervals that are rolled up for sure.
+   */
+  @VisibleForTesting
+  long getCurrentTimeSeconds() {
+    return TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+  }
+
   @Override
   public void delete(CubeDeleteQuery query) {
     //this may be very inefficient and its better to use TTL, this is to only support existing old functionality.
@@ -327,7 +450,8 @@ public class DefaultCube implements Cube {
     return currentBest;
   }
 
-  private Table<Map<String, String>, String, Map<Long, Long>> getTimeSeries(CubeQuery query, FactScanner scanner) {
+  private Table<Map<String, String>, String, Map<Long, Long>> getTimeSeries(CubeQuery query,
+                                                                           Iterator<FactScanResult> scanner) {
     // {dimension values, measure} -> {time -> value}s
     Table<Map<String, String>, String, Map<Long, Long>> result = HashBasedTable.create();
 
@@ -442,6 +566,65 @@ public class DefaultCube implements Cube {
     }
   }
 
+  /**
+   * Aggregates the scan results of a finer resolution into a coarser resolution, the same way as
+   * {@link FactTable#rollUp(FactScan, FactTable)} does: values of counters are summed up, while for gauges the
+   * latest value is taken. Each returned result contains a complete series.
+   */
+  private static final class RollUpIterator extends AbstractIterator<FactScanResult> {
+
+    private final PeekingIterator<FactScanResult> source;
+    private final FactTable sourceTable;
+    private final int resolution;
+    private final Map<String, Boolean> gauges;
+
+    RollUpIterator(PeekingIterator<FactScanResult> source, FactTable sourceTable, int resolution) {
+      this.source = source;
+      this.sourceTable = sourceTable;
+      this.resolution = resolution;
+      this.gauges = Maps.newHashMap();
+    }
+
+    @Override
+    protected FactScanResult computeNext() {
+      if (!source.hasNext()) {
+        return endOfData();
+      }
+      FactScanResult first = source.next();
+      Boolean gauge = gauges.get(first.getMeasureName());
+      if (gauge == null) {
+        gauge = sourceTable.isGauge(first.getMeasureName());
+        gauges.put(first.getMeasureName(), gauge);
+      }
+
+      // Results of the same series are adjacent and in time order
+      Map<Long, Long> values = Maps.newTreeMap();
+      rollUp(first, gauge, values);
+      while (source.hasNext() && first.getMeasureName().equals(source.peek().getMeasureName())
+        && first.getDimensionValues().equals(source.peek().getDimensionValues())) {
+        rollUp(source.next(), gauge, values);
+      }
+
+      List<TimeValue> timeValues = Lists.newArrayListWithCapacity(values.size());
+      for (Map.Entry<Long, Long> entry : values.entrySet()) {
+        timeValues.add(new TimeValue(entry.getKey(), entry.getValue()));
+      }
+      return new FactScanResult(first.getMeasureName(), first.getDimensionValues(), timeValues);
+    }
+
+    private void rollUp(FactScanResult result, boolean gauge, Map<Long, Long> values) {
+      for (TimeValue timeValue : result) {
+        long ts = timeValue.getTimestamp() / resolution * resolution;
+        Long value = values.get(ts);
+        if (gauge || value == null) {
+          values.put(ts, timeValue.getValue());
+        } else {
+          values.put(ts, value + timeValue.getValue());
+        }
+      }
+    }
+  }
+
   private static final class DimensionValueComparator implements Comparator<DimensionValue> {
     @Override
     public int compare(DimensionValue t1, DimensionValue t2) {
@@ -95,6 +95,22 @@ public class LevelDBTableService {
     tables.clear();
   }
 
+  /**
+   * Closes all tables opened by this service. Tables are opened again on the next access.
+   */
+  public void close() {
+    synchronized (tables) {
+      for (Map.Entry<String, DB> entry : tables.entrySet()) {
+        try {
+          entry.getValue().close();
+        } catch (IOException e) {
+          LOG.warn("Failed to close table '{}'", entry.getKey(), e);
+        }
+      }
+      tables.clear();
+    }
+  }
+
   public Collection<String> list() throws Exception {
     File baseDir = new File(basePath);
     String[] subDirs = baseDir.list();
@@ -37,6 +37,7 @@ import org.slf4j.LoggerFactory;
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -53,6 +54,11 @@ public final class FactTable implements Closeable {
   private static final Logger LOG = LoggerFactory.getLogger(FactTable.class);
   private static final int MAX_ROLL_TIME = 0xfffe;
 
+  // entity type under which the names of gauge measures are recorded, see #recordGauges
+  private static final String GAUGE_MEASURE_TYPE = "gaugeMeasure";
+  // number of rows collected in memory during roll-up before they are written
+  private static final int ROLL_UP_BATCH_ROWS = 1000;
+
   // hard limits on some ops to stay on safe side
   private static final int MAX_RECORDS_TO_SCAN_DURING_SEARCH = 10 * 1000 * 1000;
   private static final int MAX_SCANS_DURING_SEARCH = 10 * 1000;
@@ -146,6 +152,102 @@ public final class FactTable implements Closeable {
     }
   }
 
+  /**
+   * Records the names of measures of type {@link MeasureType#GAUGE}, so that their values can be rolled up
+   * into coarser resolutions correctly. See {@link #rollUp(FactScan, FactTable)}.
+   */
+  public void recordGauges(Collection<String> measureNames) {
+    for (String measureName : measureNames) {
+      // assigning an id records the name, subsequent calls are served from the entity table cache
+      entityTable.getId(GAUGE_MEASURE_TYPE, measureName);
+    }
+  }
+
+  /**
+   * Returns whether the given measure was recorded as a gauge with {@link #recordGauges(Collection)}.
+   */
+  public boolean isGauge(String measureName) {
+    return entityTable.hasId(GAUGE_MEASURE_TYPE, measureName);
+  }
+
+  /**
+   * Aggregates the values matching the given scan into the resolution of the given target table and writes the
+   * aggregated values to it. Values of counters are summed up, while for gauges the latest value is taken. Gauges
+   * are identified by the names recorded with {@link #recordGauges(Collection)}.
+   * <p>
+   * Aggregated values are written with puts, hence rolling up the same range again is idempotent. The time range
+   * of the scan must cover complete intervals of the target resolution, otherwise the values of partially covered
+   * intervals are overwritten with partial aggregates.
+   * </p>
+   *
+   * @param scan specifies the values to roll up
+   * @param target the table of the coarser resolution to write the aggregated values to
+   */
+  public void rollUp(FactScan scan, FactTable target) {
+    Preconditions.checkArgument(target.resolution > resolution && target.resolution % resolution == 0,
+                                "Resolution %s cannot be rolled up into resolution %s", resolution, target.resolution);
+
+    NavigableMap<byte[], NavigableMap<byte[], byte[]>> rolledUp = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+    Map<String, Boolean> gauges = Maps.newHashMap();
+    String lastMeasureName = null;
+    List<DimensionValue> lastDimensionValues = null;
+    int rows = 0;
+
+    try (Scanner scanner = getScanner(scan)) {
+      Row row;
+      while ((row = scanner.next()) != null) {
+        byte[] rowKey = row.getRow();
+        String measureName = codec.getMeasureName(rowKey);
+        List<DimensionValue> dimensionValues = codec.getDimensionValues(rowKey);
+
+        // Rows of the same series are adjacent. Only write at the boundary of a series, so that values
+        // of an interval are never split into multiple writes.
+        boolean newSeries = !measureName.equals(lastMeasureName) || !dimensionValues.equals(lastDimensionValues);
+        if (newSeries && rolledUp.size() >= ROLL_UP_BATCH_ROWS) {
+          target.putRolledUp(rolledUp);
+          rolledUp.clear();
+        }
+        lastMeasureName = measureName;
+        lastDimensionValues = dimensionValues;
+
+        Boolean gauge = gauges.get(measureName);
+        if (gauge == null) {
+          gauge = isGauge(measureName);
+          gauges.put(measureName, gauge);
+        }
+
+        for (Map.Entry<byte[], byte[]> column : row.getColumns().entrySet()) {
+          long ts = codec.getTimestamp(rowKey, column.getKey());
+          if (ts < scan.getStartTs() || ts > scan.getEndTs()) {
+            continue;
+          }
+          byte[] targetRowKey = target.codec.createRowKey(dimensionValues, measureName, ts);
+          byte[] targetColumn = target.codec.createColumn(ts);
+          if (gauge) {
+            // columns are in time order, hence the latest value of the interval is written last
+            set(rolledUp, targetRowKey, targetColumn, column.getValue());
+          } else {
+            inc(rolledUp, targetRowKey, targetColumn, Bytes.toLong(column.getValue()));
+          }
+        }
+        rows++;
+      }
+    }
+    target.putRolledUp(rolledUp);
+
+    LOG.trace("Rolled up {} rows of resolution {} into resolution {}", rows, resolution, target.resolution);
+  }
+
+  private void putRolledUp(NavigableMap<byte[], NavigableMap<byte[], byte[]>> rolledUp) {
+    if (rolledUp.isEmpty()) {
+      return;
+    }
+    timeSeriesTable.put(Maps.transformValues(rolledUp, TRANSFORM_MAP_BYTE_ARRAY_TO_LONG));
+    if (metrics != null) {
+      metrics.increment(putCountMetric, rolledUp.size());
+    }
+  }
+
   public FactScanner scan(FactScan scan) {
     return new FactScanner(getScanner(scan), codec, scan.getStartTs(), scan.getEndTs(), scan.getMeasureNames());
   }
@@ -0,0 +1,208 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.data2.transaction;
+
+import co.cask.cdap.api.common.Bytes;
+import co.cask.cdap.common.conf.CConfiguration;
+import co.cask.cdap.common.conf.Constants;
+import co.cask.cdap.data2.util.TableId;
+import co.cask.cdap.data2.util.hbase.HBaseTableUtil;
+import co.cask.cdap.data2.util.hbase.PruneUpperBoundTable;
+import co.cask.tephra.Transaction;
+import co.cask.tephra.TransactionSystemClient;
+import co.cask.tephra.TxConstants;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.AbstractScheduledService;
+import com.google.inject.Inject;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HRegionInfo;
+import org.apache.hadoop.hbase.HTableDescriptor;
+import org.apache.hadoop.hbase.client.HBaseAdmin;
+import org.apache.twill.common.Threads;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically removes entries from the invalid transaction list that are no longer needed. The transaction
+ * coprocessor records, for every region it major compacts, the prune upper bound of that region in the
+ * {@link PruneUpperBoundTable}. The global prune upper bound is the minimum over all regions of transactional
+ * tables, capped at the transaction id of the current time minus the maximum transaction lifetime; all invalid
+ * transactions less than or equal to it have no data left in HBase and can be removed.
+ * <p>
+ * Pruning only happens if every region of every transactional table has recorded a bound, and if there are
+ * no queue tables, since entries of invalid transactions in queues are never removed by compactions. This
+ * means that pruning is effectively disabled for deployments that run flows.
+ * </p>
+ */
+public class InvalidListPruningService extends AbstractScheduledService {
+
+  private static final Logger LOG = LoggerFactory.getLogger(InvalidListPruningService.class);
+
+  private final Configuration hConf;
+  private final HBaseTableUtil tableUtil;
+  private final TransactionSystemClient txClient;
+  private final PruneUpperBoundTable pruneTable;
+  private final long pruneIntervalSecs;
+  private final long txMaxLifetimeMillis;
+
+  private ScheduledExecutorService executor;
+  private HBaseAdmin hAdmin;
+
+  @Inject
+  public InvalidListPruningService(CConfiguration cConf, Configuration hConf,
+                                   HBaseTableUtil tableUtil, TransactionSystemClient txClient) {
+    this.hConf = hConf;
+    this.tableUtil = tableUtil;
+    this.txClient = txClient;
+    this.pruneTable = new PruneUpperBoundTable(hConf);
+    this.pruneIntervalSecs = cConf.getLong(Constants.Transaction.Prune.INTERVAL);
+    this.txMaxLifetimeMillis = TimeUnit.SECONDS.toMillis(
+      cConf.getLong(Constants.Transaction.Prune.TX_MAX_LIFETIME, Constants.Transaction.Prune.DEFAULT_TX_MAX_LIFETIME));
+  }
+
+  @Override
+  protected void startUp() throws Exception {
+    hAdmin = new HBaseAdmin(hConf);
+  }
+
+  @Override
+  protected void shutDown() throws Exception {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+    if (hAdmin != null) {
+      hAdmin.close();
+    }
+  }
+
+  @Override
+  protected void runOneIteration() throws Exception {
+    try {
+      long pruneUpperBound = computePruneUpperBound();
+      if (pruneUpperBound < 0) {
+        return;
+      }
+      pruneInvalidList(pruneUpperBound);
+    } catch (Exception e) {
+      // Don't propagate, otherwise the service would be terminated
+      LOG.warn("Failed to prune the invalid transaction list", e);
+    }
+  }
+
+  @Override
+  protected Scheduler scheduler() {
+    return Scheduler.newFixedDelaySchedule(pruneIntervalSecs, pruneIntervalSecs, TimeUnit.SECONDS);
+  }
+
+  @Override
+  protected final ScheduledExecutorService executor() {
+    executor = Executors.newSingleThreadScheduledExecutor(
+      Threads.createDaemonThreadFactory("invalid-list-pruning-service"));
+    return executor;
+  }
+
+  /**
+   * Computes the global prune upper bound from the bounds recorded by the transaction coprocessors.
+   *
+   * @return the global prune upper bound, or {@code -1} if pruning is not possible at this time
+   */
+  private long computePruneUpperBound() throws Exception {
+    String txProcessorClass = tableUtil.getTransactionDataJanitorClassForVersion().getName();
+    String queueObserverClass = tableUtil.getQueueRegionObserverClassForVersion().getName();
+
+    Map<byte[], Long> recordedBounds = pruneTable.getPruneUpperBounds(tableUtil);
+    Map<byte[], Long> regionBounds = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    Set<byte[]> staleRegions = new TreeSet<>(Bytes.BYTES_COMPARATOR);
+    staleRegions.addAll(recordedBounds.keySet());
+    boolean hasQueueTables = false;
+    // Invalid transactions that started after this may still be writing data
+    long maxPruneUpperBound = (System.currentTimeMillis() - txMaxLifetimeMillis) * TxConstants.MAX_TX_PER_MS;
+
+    for (TableId tableId : tableUtil.listTables(hAdmin)) {
+      HTableDescriptor tableDescriptor = tableUtil.getHTableDescriptor(hAdmin, tableId);
+      Map<String, HBaseTableUtil.CoprocessorInfo> coprocessors = HBaseTableUtil.getCoprocessorInfo(tableDescriptor);
+      if (coprocessors.containsKey(queueObserverClass)) {
+        hasQueueTables = true;
+      }
+      if (!coprocessors.containsKey(txProcessorClass)) {
+        continue;
+      }
+      for (HRegionInfo region : tableUtil.getTableRegions(hAdmin, tableId)) {
+        byte[] regionName = region.getRegionName();
+        staleRegions.remove(regionName);
+        Long bound = recordedBounds.get(regionName);
+        regionBounds.put(regionName, bound == null ? -1L : bound);
+      }
+    }
+
+    // Regions that no longer exist, e.g. because of splits or table deletion, are no longer relevant
+    pruneTable.deletePruneUpperBounds(tableUtil, staleRegions);
+
+    if (hasQueueTables) {
+      LOG.info("Not pruning invalid transaction list since queue tables exist.");
+      return -1L;
+    }
+    return getGlobalPruneUpperBound(regionBounds, maxPruneUpperBound);
+  }
+
+  /**
+   * Returns the minimum of the given region bounds and the given maximum bound, or {@code -1} if there are no
+   * regions or some region has not recorded a bound yet.
+   */
+  @VisibleForTesting
+  static long getGlobalPruneUpperBound(Map<byte[], Long> regionBounds, long maxPruneUpperBound) {
+    if (regionBounds.isEmpty() || maxPruneUpperBound < 0) {
+      return -1L;
+    }
+    long pruneUpperBound = maxPruneUpperBound;
+    for (Map.Entry<byte[], Long> entry : regionBounds.entrySet()) {
+      if (entry.getValue() < 0) {
+        LOG.debug("Region {} has not recorded a prune upper bound yet.", Bytes.toStringBinary(entry.getKey()));
+        return -1L;
+      }
+      pruneUpperBound = Math.min(pruneUpperBound, entry.getValue());
+    }
+    return pruneUpperBound;
+  }
+
+  private void pruneInvalidList(long pruneUpperBound) {
+    // The transaction system client does not expose the invalid list directly, but every transaction carries it
+    Transaction tx = txClient.startShort();
+    txClient.abort(tx);
+
+    Set<Long> toPrune = new HashSet<>();
+    for (long invalid : tx.getInvalids()) {
+      if (invalid <= pruneUpperBound) {
+        toPrune.add(invalid);
+      }
+    }
+    if (toPrune.isEmpty()) {
+      return;
+    }
+    LOG.info("Pruning {} invalid transactions less than or equal to {}.", toPrune.size(), pruneUpperBound);
+    txClient.truncateInvalidTx(toPrune);
+  }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.data2.transaction.coprocessor;
+
+import co.cask.cdap.api.common.Bytes;
+import co.cask.cdap.common.conf.CConfiguration;
+import co.cask.cdap.common.conf.Constants;
+import co.cask.cdap.data2.util.hbase.ConfigurationTable;
+import co.cask.cdap.data2.util.hbase.PruneUpperBoundTable;
+import co.cask.tephra.TxConstants;
+import co.cask.tephra.coprocessor.TransactionStateCache;
+import co.cask.tephra.persist.TransactionSnapshot;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.base.Throwables;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks the flushes and major compactions of a region on behalf of the transaction coprocessor, and records the
+ * prune upper bound of the region in the {@link PruneUpperBoundTable} once all of its stores have been major
+ * compacted.
+ * <p>
+ * The bound is computed from the transaction snapshot when a flush starts (or when the region is opened), and is
+ * capped at the transaction id of the snapshot time minus the maximum transaction lifetime. All invalid transactions
+ * covered by it have stopped writing before that point, hence all of their data is either in the memstore that is
+ * being flushed or in existing store files. A major compaction selected after that flush completed therefore
+ * includes all of it, and since the invalid list only grows (except for entries that are already safe to prune),
+ * the compaction removes all of it.
+ * </p>
+ */
+public class CompactionState {
+
+  // since this will be used in the coprocessor context, we use commons logging
+  private static final Log LOG = LogFactory.getLog(CompactionState.class);
+
+  private final Supplier<TransactionStateCache> cacheSupplier;
+  private final Supplier<Long> txMaxLifetimeSupplier;
+  private final PruneUpperBoundTable pruneTable;
+  private final String sysConfigTablePrefix;
+  private final byte[] regionName;
+  private final Set<byte[]> families;
+
+  // Prune upper bounds computed when a compaction was selected, keyed by family
+  private final Map<byte[], Long> selectedBounds = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+  // Prune upper bounds of the last major compaction, keyed by family
+  private final Map<byte[], Long> compactedBounds = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+
+  // Bound computed when the current flush started, and bound of the last completed flush
+  private Long flushingBound;
+  private Long flushedBound;
+  private long lastRecordedBound = -1L;
+
+  public CompactionState(Supplier<TransactionStateCache> cacheSupplier, Configuration hConf,
+                         String sysConfigTablePrefix, byte[] regionName, Set<byte[]> families) {
+    this(cacheSupplier, createTxMaxLifetimeSupplier(hConf, sysConfigTablePrefix), new PruneUpperBoundTable(hConf),
+         sysConfigTablePrefix, regionName, families);
+  }
+
+  @VisibleForTesting
+  CompactionState(Supplier<TransactionStateCache> cacheSupplier, Supplier<Long> txMaxLifetimeSupplier,
+                  PruneUpperBoundTable pruneTable, String sysConfigTablePrefix,
+                  byte[] regionName, Set<byte[]> families) {
+    this.cacheSupplier = cacheSupplier;
+    this.txMaxLifetimeSupplier = txMaxLifetimeSupplier;
+    this.pruneTable = pruneTable;
+    this.sysConfigTablePrefix = sysConfigTablePrefix;
+    this.regionName = regionName;
+    this.families = new TreeSet<>(Bytes.BYTES_COMPARATOR);
+    this.families.addAll(families);
+  }
+
+  /**
+   * Called when the region has been opened. All data of the region is in store files at that point.
+   */
+  public synchronized void recordOpen() {
+    flushedBound = computeBound();
+  }
+
+  /**
+   * Called before the region is flushed.
+   */
+  public synchronized void recordFlushStart() {
+    flushingBound = computeBound();
+  }
+
+  /**
+   * Called when the region has been flushed.
+   */
+  public synchronized void recordFlush() {
+    if (flushingBound != null) {
+      flushedBound = flushingBound;
+      flushingBound = null;
+    }
+  }
+
+  /**
+   * Called when a compaction has been selected for the given family.
+   */
+  public synchronized void recordSelection(byte[] family) {
+    if (flushedBound == null) {
+      selectedBounds.remove(family);
+      return;
+    }
+    selectedBounds.put(family, flushedBound);
+  }
+
+  /**
+   * Called when a compaction of the given family completed.
+   *
+   * @param family the family that was compacted
+   * @param major {@code true} if it was a major compaction
+   */
+  public synchronized void recordCompaction(byte[] family, boolean major) {
+    Long bound = selectedBounds.remove(family);
+    if (!major || bound == null) {
+      return;
+    }
+    compactedBounds.put(family, bound);
+    persistIfComplete();
+  }
+
+  private void persistIfComplete() {
+    long bound = Long.MAX_VALUE;
+    for (byte[] family : families) {
+      Long familyBound = compactedBounds.get(family);
+      if (familyBound == null) {
+        return;
+      }
+      bound = Math.min(bound, familyBound);
+    }
+    if (bound <= lastRecordedBound) {
+      return;
+    }
+    try {
+      pruneTable.savePruneUpperBound(sysConfigTablePrefix, regionName, bound);
+      lastRecordedBound = bound;
+      LOG.debug("Recorded prune upper bound " + bound + " for region " + Bytes.toStringBinary(regionName));
+    } catch (IOException e) {
+      // Not fatal, the bound will be recorded again after the next major compaction
+      LOG.warn("Failed to record prune upper bound for region " + Bytes.toStringBinary(regionName), e);
+    }
+  }
+
+  /**
+   * Computes the prune upper bound from the latest transaction snapshot, or returns {@code null} if it is not known.
+   */
+  private Long computeBound() {
+    TransactionSnapshot snapshot = cacheSupplier.get().getLatestState();
+    if (snapshot == null) {
+      return null;
+    }
+    try {
+      return getPruneUpperBound(snapshot, txMaxLifetimeSupplier.get());
+    } catch (RuntimeException e) {
+      LOG.warn("Failed to determine the maximum transaction lifetime for region " +
+                 Bytes.toStringBinary(regionName), e);
+      return null;
+    }
+  }
+
+  /**
+   * Returns the largest transaction id such that every transaction with an id less than or equal to it is either
+   * in the invalid list of the given snapshot or has already completed, and has started more than the
+   * given lifetime before the snapshot was taken.
+   */
+  @VisibleForTesting
+  static long getPruneUpperBound(TransactionSnapshot snapshot, long txMaxLifetimeMillis) {
+    long bound = Math.min(snapshot.getWritePointer(),
+                          (snapshot.getTimestamp() - txMaxLifetimeMillis) * TxConstants.MAX_TX_PER_MS);
+    for (long inProgress : snapshot.getInProgress().keySet()) {
+      bound = Math.min(bound, inProgress - 1);
+    }
+    return bound;
+  }
+
+  /**
+   * Creates a {@link Supplier} of the maximum transaction lifetime in milliseconds, as configured in the
+   * CDAP configuration stored in the {@link ConfigurationTable}.
+   */
+  private static Supplier<Long> createTxMaxLifetimeSupplier(final Configuration hConf,
+                                                            final String sysConfigTablePrefix) {
+    return Suppliers.memoizeWithExpiration(new Supplier<Long>() {
+      @Override
+      public Long get() {
+        CConfiguration cConf;
+        try {
+          cConf = new ConfigurationTable(hConf).read(ConfigurationTable.Type.DEFAULT, sysConfigTablePrefix);
+        } catch (IOException e) {
+          throw Throwables.propagate(e);
+        }
+        if (cConf == null) {
+          throw new IllegalStateException("CDAP configuration not found in configuration table");
+        }
+        long lifetimeSecs = cConf.getLong(Constants.Transaction.Prune.TX_MAX_LIFETIME,
+                                          Constants.Transaction.Prune.DEFAULT_TX_MAX_LIFETIME);
+        return TimeUnit.SECONDS.toMillis(lifetimeSecs);
+      }
+    }, 10, TimeUnit.MINUTES);
+  }
+}
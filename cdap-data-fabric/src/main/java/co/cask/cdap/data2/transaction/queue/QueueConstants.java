@@ -17,6 +17,8 @@ package co.cask.cdap.data2.transaction.queue;
 
 import co.cask.cdap.proto.Id;
 
+import javax.annotation.Nullable;
+
 /**
  * Constants for queue implementation in HBase.
  */
@@ -29,6 +31,7 @@ public final class QueueConstants {
     public static final String QUEUE_TABLE_COPROCESSOR_DIR = "data.queue.table.coprocessor.dir";
     public static final String QUEUE_TABLE_PRESPLITS = "data.queue.table.presplits";
     public static final String DEQUEUE_TX_PERCENT = "data.queue.dequeue.tx.percent";
+    public static final String QUEUE_TABLE_LAYOUT = "data.queue.table.layout";
   }
 
   // This is a hardcoded value for the row key distributor bucket size before CDAP-1946
@@ -45,6 +48,8 @@ public final class QueueConstants {
 
   // Key for HBase table meta that records the value of number of queue table buckets
   public static final String DISTRIBUTOR_BUCKETS = "cdap.distributor.buckets";
+  // Key for HBase table meta that records the layout of the queue entries in a sharded queue table
+  public static final String QUEUE_LAYOUT = "cdap.queue.layout";
   public static final String STATE_STORE_NAME = Id.Namespace.SYSTEM.getId() + "." + QueueType.QUEUE;
 
   /**
@@ -68,6 +73,49 @@ public final class QueueConstants {
     }
   }
 
+  /**
+   * Layout of queue entries in a sharded queue table.
+   */
+  public enum QueueLayout {
+
+    /**
+     * Every consumer group has a copy of each entry.
+     */
+    SHARDED("sharded"),
+
+    /**
+     * The payload of each entry is written once and shared by all consumer groups.
+     */
+    WRITE_ONCE("write.once");
+
+    private final String string;
+
+    QueueLayout(String string) {
+      this.string = string;
+    }
+
+    @Override
+    public String toString() {
+      return string;
+    }
+
+    /**
+     * Returns the {@link QueueLayout} represented by the given string, or {@link #SHARDED} if it is {@code null},
+     * which is the case for tables created before layouts were introduced.
+     */
+    public static QueueLayout fromString(@Nullable String string) {
+      if (string == null) {
+        return SHARDED;
+      }
+      for (QueueLayout layout : values()) {
+        if (layout.string.equals(string)) {
+          return layout;
+        }
+      }
+      throw new IllegalArgumentException("Unknown queue layout " + string);
+    }
+  }
+
   private QueueConstants() {
   }
 }
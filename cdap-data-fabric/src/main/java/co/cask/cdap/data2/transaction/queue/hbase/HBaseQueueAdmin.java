@@ -509,6 +509,13 @@ public class HBaseQueueAdmin extends AbstractQueueAdmin {
                                                                          : SaltedHBaseQueueStrategy.SALT_BYTES;
       htd.setValue(HBaseQueueAdmin.PROPERTY_PREFIX_BYTES, Integer.toString(prefixBytes));
       LOG.info("Create queue table with prefix bytes {}", htd.getValue(HBaseQueueAdmin.PROPERTY_PREFIX_BYTES));
+      if (type == QueueConstants.QueueType.SHARDED_QUEUE && htd.getValue(QueueConstants.QUEUE_LAYOUT) == null) {
+        // Validates the layout before recording it in the table
+        QueueConstants.QueueLayout layout =
+          QueueConstants.QueueLayout.fromString(cConf.get(QueueConstants.ConfigKeys.QUEUE_TABLE_LAYOUT));
+        htd.setValue(QueueConstants.QUEUE_LAYOUT, layout.toString());
+        LOG.info("Create queue table with layout {}", layout);
+      }
       tableUtil.createTableIfNotExists(getHBaseAdmin(), tableId, htd.build(), splitKeys);
     }
   }
@@ -104,9 +104,8 @@ public class HBaseQueueClientFactory implements QueueClientFactory {
       Preconditions.checkState(!groupConfigs.isEmpty(), "Missing consumer group information for queue %s", queueName);
 
       HTable hTable = createHTable(admin.getDataTableId(queueName, queueAdmin.getType()));
-      int distributorBuckets = getDistributorBuckets(hTable.getTableDescriptor());
       return createProducer(hTable, queueName, queueMetrics,
-                            new ShardedHBaseQueueStrategy(hBaseTableUtil, distributorBuckets), groupConfigs);
+                            createShardedQueueStrategy(hTable.getTableDescriptor()), groupConfigs);
     } catch (Exception e) {
       Throwables.propagateIfPossible(e);
       throw new IOException(e);
@@ -176,7 +175,7 @@ public class HBaseQueueClientFactory implements QueueClientFactory {
 
             HBaseQueueStrategy strategy = (state.getPreviousBarrier() == null)
                                           ? new SaltedHBaseQueueStrategy(hBaseTableUtil, distributorBuckets)
-                                          : new ShardedHBaseQueueStrategy(hBaseTableUtil, distributorBuckets);
+                                          : createShardedQueueStrategy(hTable.getTableDescriptor());
             consumers.add(queueUtil.getQueueConsumer(cConf, hTable, queueName, state,
                                                      admin.getConsumerStateStore(queueName),
                                                      strategy));
@@ -248,6 +247,19 @@ public class HBaseQueueClientFactory implements QueueClientFactory {
     return Integer.parseInt(value);
   }
 
+  /**
+   * Creates the {@link HBaseQueueStrategy} for a sharded queue table based on the queue layout of the table.
+   */
+  private HBaseQueueStrategy createShardedQueueStrategy(HTableDescriptor htd) {
+    int distributorBuckets = getDistributorBuckets(htd);
+    QueueConstants.QueueLayout layout = QueueConstants.QueueLayout.fromString(
+      htd.getValue(QueueConstants.QUEUE_LAYOUT));
+    if (layout == QueueConstants.QueueLayout.WRITE_ONCE) {
+      return new WriteOnceHBaseQueueStrategy(hBaseTableUtil, distributorBuckets);
+    }
+    return new ShardedHBaseQueueStrategy(hBaseTableUtil, distributorBuckets);
+  }
+
   /**
    * A {@link QueueConsumer} that delegates to a list of consumers sequentially. It also has logic to renew
    * the consumers list when all existing consumers has consumed everything in the current queue barrier.
@@ -15,6 +15,7 @@
  */
 package co.cask.cdap.data2.transaction.queue.hbase;
 
+import co.cask.cdap.api.common.Bytes;
 import co.cask.cdap.common.queue.QueueName;
 import co.cask.cdap.data2.queue.ConsumerGroupConfig;
 import co.cask.cdap.data2.queue.QueueEntry;
@@ -96,15 +97,29 @@ public class HBaseQueueProducer extends AbstractQueueProducer implements Closeab
       rollbackKeys.addAll(rowKeys);
 
       byte[] metaData = QueueEntry.serializeHashKeys(entry.getHashKeys());
+      byte[] data = entry.getData();
+
+      // If the payload is written once, the rows of the consumer groups only carry an empty data column
+      byte[] payloadRowKey = queueStrategy.getPayloadRowKey(queueRowPrefix, writePointer, count);
+      if (payloadRowKey != null) {
+        rollbackKeys.add(payloadRowKey);
+        Put put = new Put(payloadRowKey);
+        put.add(QueueEntryRow.COLUMN_FAMILY, QueueEntryRow.DATA_COLUMN, data);
+        puts.add(put);
+
+        bytes += data.length;
+        data = Bytes.EMPTY_BYTE_ARRAY;
+      }
+
       for (byte[] rowKey : rowKeys) {
         // No need to write ts=writePointer, as the row key already contains the writePointer
         Put put = new Put(rowKey);
-        put.add(QueueEntryRow.COLUMN_FAMILY, QueueEntryRow.DATA_COLUMN, entry.getData());
+        put.add(QueueEntryRow.COLUMN_FAMILY, QueueEntryRow.DATA_COLUMN, data);
         put.add(QueueEntryRow.COLUMN_FAMILY, QueueEntryRow.META_COLUMN, metaData);
 
         puts.add(put);
 
-        bytes += entry.getData().length;
+        bytes += data.length;
       }
       count++;
     }
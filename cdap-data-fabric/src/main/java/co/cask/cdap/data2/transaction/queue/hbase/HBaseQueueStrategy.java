@@ -26,6 +26,7 @@ import org.apache.hadoop.hbase.client.Scan;
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.Collection;
+import javax.annotation.Nullable;
 
 /**
  * Interface to represent the strategy being used in queue.
@@ -59,4 +60,18 @@ public interface HBaseQueueStrategy extends Closeable {
    */
   void getRowKeys(Iterable<ConsumerGroupConfig> consumerGroupConfigs, QueueEntry queueEntry, byte[] rowKeyPrefix,
                   long writePointer, int counter, Collection<byte[]> rowKeys);
+
+  /**
+   * Returns the row key of the row that stores the payload of a queue entry, if the payload is written once
+   * for all consumer groups. In that case, the rows returned by
+   * {@link #getRowKeys(Iterable, QueueEntry, byte[], long, int, Collection)} only carry the entry metadata and
+   * the consumer states.
+   *
+   * @param rowKeyPrefix Prefix for row keys
+   * @param writePointer The writer pointer of the current transaction
+   * @param counter The counter of the given entry in this transaction
+   * @return the payload row key or {@code null} if the payload is written to every row of the entry
+   */
+  @Nullable
+  byte[] getPayloadRowKey(byte[] rowKeyPrefix, long writePointer, int counter);
 }
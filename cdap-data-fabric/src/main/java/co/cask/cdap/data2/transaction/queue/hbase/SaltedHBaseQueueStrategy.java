@@ -38,6 +38,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
 
 /**
  * A {@link HBaseQueueStrategy} that scans HBase by using the {@link DistributedScanner}.
@@ -123,6 +124,13 @@ public final class SaltedHBaseQueueStrategy implements HBaseQueueStrategy {
     rowKeys.add(rowKeyDistributor.getDistributedKey(rowKey));
   }
 
+  @Nullable
+  @Override
+  public byte[] getPayloadRowKey(byte[] rowKeyPrefix, long writePointer, int counter) {
+    // There is only one row per entry, which carries the payload
+    return null;
+  }
+
   @Override
   public void close() throws IOException {
     scansExecutor.shutdownNow();
@@ -42,6 +42,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
 
 /**
  * An implementation of {@link HBaseQueueStrategy} with sharded keys.
@@ -169,21 +170,39 @@ public final class ShardedHBaseQueueStrategy implements HBaseQueueStrategy, Clos
     }
   }
 
+  @Nullable
+  @Override
+  public byte[] getPayloadRowKey(byte[] rowKeyPrefix, long writePointer, int counter) {
+    // Payload is written to the row of every consumer group
+    return null;
+  }
+
   @Override
   public void close() throws IOException {
     scansExecutor.shutdownNow();
   }
 
+  /**
+   * Returns the actual row key of the given queue entry row key in the shard identified by the given group id and
+   * shard id.
+   */
+  byte[] getActualRowKey(long groupId, int shardId, byte[] originalRowKey) {
+    return rowKeyDistributor.getDistributedKey(getShardedKey(groupId, shardId, originalRowKey));
+  }
+
   private byte[] getShardedKey(ConsumerGroupConfig groupConfig, int instanceId,
                                byte[] originalRowKey) {
+    // Default for FIFO case.
+    int shardId = groupConfig.getDequeueStrategy() == DequeueStrategy.FIFO ? -1 : instanceId;
+    return getShardedKey(groupConfig.getGroupId(), shardId, originalRowKey);
+  }
+
+  private byte[] getShardedKey(long groupId, int shardId, byte[] originalRowKey) {
     // Need to subtract the SALT_BYTES as the row key distributor will prefix the key with salted bytes
     byte[] result = new byte[PREFIX_BYTES - SaltedHBaseQueueStrategy.SALT_BYTES + originalRowKey.length];
     Bytes.putBytes(result, PREFIX_BYTES - SaltedHBaseQueueStrategy.SALT_BYTES,
                    originalRowKey, 0, originalRowKey.length);
-    Bytes.putLong(result, 0, groupConfig.getGroupId());
-
-    // Default for FIFO case.
-    int shardId = groupConfig.getDequeueStrategy() == DequeueStrategy.FIFO ? -1 : instanceId;
+    Bytes.putLong(result, 0, groupId);
     Bytes.putInt(result, Bytes.SIZEOF_LONG, shardId);
 
     return result;
@@ -0,0 +1,185 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.data2.transaction.queue.hbase;
+
+import co.cask.cdap.api.common.Bytes;
+import co.cask.cdap.common.utils.ImmutablePair;
+import co.cask.cdap.data2.queue.ConsumerConfig;
+import co.cask.cdap.data2.queue.ConsumerGroupConfig;
+import co.cask.cdap.data2.queue.QueueEntry;
+import co.cask.cdap.data2.transaction.queue.QueueEntryRow;
+import co.cask.cdap.data2.transaction.queue.QueueScanner;
+import co.cask.cdap.data2.util.hbase.HBaseTableUtil;
+import com.google.common.collect.Lists;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.HTable;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.Scan;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.annotation.Nullable;
+
+/**
+ * An implementation of {@link HBaseQueueStrategy} that writes the payload of a queue entry only once, no matter
+ * how many consumer groups consume the queue. It uses the same row key structure as
+ * {@link ShardedHBaseQueueStrategy}:
+ *
+ * <pre>
+ * {@code
+ *
+ * row_key = <shard> <queue_prefix> <write_pointer> <counter>
+ * shard = <salt> <consumer_group_id> <consumer_instance_id>
+ * }
+ * </pre>
+ *
+ * The payload of an entry is stored in the data column of a row in a reserved shard, with consumer group id
+ * {@link #PAYLOAD_GROUP_ID} and consumer instance id {@link #PAYLOAD_SHARD_ID}. Each consumer group has a row in
+ * its own shard for the entry, which has an empty data column and the meta column. Consumer groups claim and
+ * acknowledge entries by writing state columns on their own rows, the same way as with
+ * {@link ShardedHBaseQueueStrategy}. The payload is fetched from the payload rows when scanning.
+ */
+public final class WriteOnceHBaseQueueStrategy implements HBaseQueueStrategy {
+
+  /**
+   * Consumer group id of the shard that stores the entry payloads.
+   */
+  public static final long PAYLOAD_GROUP_ID = 0L;
+
+  /**
+   * Consumer instance id of the shard that stores the entry payloads. No consumer instance can have this id,
+   * as FIFO consumers use -1 and the other consumers use their instance id.
+   */
+  public static final int PAYLOAD_SHARD_ID = -2;
+
+  private final ShardedHBaseQueueStrategy shardedStrategy;
+
+  /**
+   * Constructs a new instance with the given number of buckets for distributed scan.
+   */
+  public WriteOnceHBaseQueueStrategy(HBaseTableUtil tableUtil, int distributorBuckets) {
+    this.shardedStrategy = new ShardedHBaseQueueStrategy(tableUtil, distributorBuckets);
+  }
+
+  @Override
+  public QueueScanner createScanner(ConsumerConfig consumerConfig,
+                                    HTable hTable, Scan scan, int numRows) throws IOException {
+    return new PayloadResolvingScanner(shardedStrategy.createScanner(consumerConfig, hTable, scan, numRows),
+                                       hTable, numRows);
+  }
+
+  @Override
+  public byte[] getActualRowKey(ConsumerConfig consumerConfig, byte[] originalRowKey) {
+    return shardedStrategy.getActualRowKey(consumerConfig, originalRowKey);
+  }
+
+  @Override
+  public void getRowKeys(Iterable<ConsumerGroupConfig> consumerGroupConfigs, QueueEntry queueEntry, byte[] rowKeyPrefix,
+                         long writePointer, int counter, Collection<byte[]> rowKeys) {
+    shardedStrategy.getRowKeys(consumerGroupConfigs, queueEntry, rowKeyPrefix, writePointer, counter, rowKeys);
+  }
+
+  @Override
+  public byte[] getPayloadRowKey(byte[] rowKeyPrefix, long writePointer, int counter) {
+    byte[] rowKey = new byte[rowKeyPrefix.length + Bytes.SIZEOF_LONG + Bytes.SIZEOF_INT];
+    Bytes.putBytes(rowKey, 0, rowKeyPrefix, 0, rowKeyPrefix.length);
+    Bytes.putLong(rowKey, rowKeyPrefix.length, writePointer);
+    Bytes.putInt(rowKey, rowKey.length - Bytes.SIZEOF_INT, counter);
+    return getPayloadActualRowKey(rowKey);
+  }
+
+  @Override
+  public void close() throws IOException {
+    shardedStrategy.close();
+  }
+
+  private byte[] getPayloadActualRowKey(byte[] originalRowKey) {
+    return shardedStrategy.getActualRowKey(PAYLOAD_GROUP_ID, PAYLOAD_SHARD_ID, originalRowKey);
+  }
+
+  /**
+   * A {@link QueueScanner} that replaces the data column of the rows of a consumer group with the payload,
+   * fetched from the payload rows with a multi-get per batch of rows.
+   */
+  private final class PayloadResolvingScanner implements QueueScanner {
+
+    private final QueueScanner scanner;
+    private final HTable hTable;
+    private final int batchSize;
+    private final LinkedList<ImmutablePair<byte[], Map<byte[], byte[]>>> resolved;
+    private boolean exhausted;
+
+    private PayloadResolvingScanner(QueueScanner scanner, HTable hTable, int batchSize) {
+      this.scanner = scanner;
+      this.hTable = hTable;
+      this.batchSize = batchSize;
+      this.resolved = Lists.newLinkedList();
+    }
+
+    @Nullable
+    @Override
+    public ImmutablePair<byte[], Map<byte[], byte[]>> next() throws IOException {
+      if (resolved.isEmpty() && !exhausted) {
+        resolveBatch();
+      }
+      return resolved.poll();
+    }
+
+    @Override
+    public void close() throws IOException {
+      scanner.close();
+    }
+
+    private void resolveBatch() throws IOException {
+      List<ImmutablePair<byte[], Map<byte[], byte[]>>> rows = Lists.newArrayListWithCapacity(batchSize);
+      List<Get> gets = Lists.newArrayListWithCapacity(batchSize);
+      while (rows.size() < batchSize) {
+        ImmutablePair<byte[], Map<byte[], byte[]>> row = scanner.next();
+        if (row == null) {
+          exhausted = true;
+          break;
+        }
+        rows.add(row);
+        Get get = new Get(getPayloadActualRowKey(row.getFirst()));
+        get.addColumn(QueueEntryRow.COLUMN_FAMILY, QueueEntryRow.DATA_COLUMN);
+        gets.add(get);
+      }
+      if (rows.isEmpty()) {
+        return;
+      }
+
+      Result[] payloads = hTable.get(gets);
+      for (int i = 0; i < rows.size(); i++) {
+        ImmutablePair<byte[], Map<byte[], byte[]>> row = rows.get(i);
+        Map<byte[], byte[]> columns = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+        columns.putAll(row.getSecond());
+        byte[] payload = payloads[i].getValue(QueueEntryRow.COLUMN_FAMILY, QueueEntryRow.DATA_COLUMN);
+        if (payload == null) {
+          // Payload already evicted, which only happens after all consumers have moved past the entry.
+          columns.remove(QueueEntryRow.DATA_COLUMN);
+        } else {
+          columns.put(QueueEntryRow.DATA_COLUMN, payload);
+        }
+        resolved.add(ImmutablePair.of(row.getFirst(), columns));
+      }
+    }
+  }
+}
@@ -29,7 +29,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.List;
-import java.util.NavigableSet;
+import java.util.Map;
+import java.util.NavigableMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentNavigableMap;
 import java.util.concurrent.ConcurrentSkipListMap;
@@ -65,15 +66,17 @@ public class InMemoryQueue {
 
     List<Key> keys = Lists.newArrayListWithCapacity(maxBatchSize);
     List<byte[]> datas = Lists.newArrayListWithCapacity(maxBatchSize);
-    NavigableSet<Key> keysToScan = consumerState.startKey == null ? entries.navigableKeySet() :
-      entries.tailMap(consumerState.startKey).navigableKeySet();
+    NavigableMap<Key, Item> entriesToScan = consumerState.startKey == null ? entries :
+      entries.tailMap(consumerState.startKey);
     boolean updateStartKey = true;
 
-    // navigableKeySet is immune to concurrent modification
-    for (Key key : keysToScan) {
+    // Iterate over the entries instead of the keys, so that each item is found by the same skip list traversal.
+    // The iterator is immune to concurrent modification and only returns entries that exist when it advances.
+    for (Map.Entry<Key, Item> mapEntry : entriesToScan.entrySet()) {
       if (keys.size() >= maxBatchSize) {
         break;
       }
+      Key key = mapEntry.getKey();
       if (updateStartKey && key.txId < tx.getFirstShortInProgress()) {
         // See QueueEntryRow#canCommit for reason.
         consumerState.startKey = key;
@@ -86,11 +89,7 @@ public class InMemoryQueue {
         updateStartKey = false; // next time we have to revisit this entry
         continue;
       }
-      Item item = entries.get(key);
-      if (item == null) {
-        // entry was deleted (evicted or undone) after we started iterating
-        continue;
-      }
+      Item item = mapEntry.getValue();
       // check whether this is processed already
       ConsumerEntryState state = item.getConsumerState(config.getGroupId());
       if (ConsumerEntryState.PROCESSED.equals(state)) {
@@ -25,9 +25,11 @@ import co.cask.cdap.data2.queue.QueueConsumer;
 import co.cask.tephra.Transaction;
 import co.cask.tephra.TransactionAware;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 
 import java.io.IOException;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
@@ -86,7 +88,8 @@ public class InMemoryQueueConsumer implements QueueConsumer, TransactionAware {
     if (result == null) {
       return EMPTY_RESULT;
     } else {
-      dequeuedKeys = result.getFirst();
+      // Keep a separate copy of the keys, since reclaim() may add to it
+      dequeuedKeys = Lists.newArrayList(result.getFirst());
       return new InMemoryDequeueResult(result);
     }
   }
@@ -142,8 +145,9 @@ public class InMemoryQueueConsumer implements QueueConsumer, TransactionAware {
     private final List<byte[]> data;
 
     InMemoryDequeueResult(ImmutablePair<List<InMemoryQueue.Key>, List<byte[]>> result) {
-      this.keys = ImmutableList.copyOf(result.getFirst());
-      this.data = ImmutableList.copyOf(result.getSecond());
+      // The lists are created by the queue for this dequeue only and never modified, hence no need to copy them
+      this.keys = Collections.unmodifiableList(result.getFirst());
+      this.data = Collections.unmodifiableList(result.getSecond());
     }
 
     @Override
@@ -156,7 +160,7 @@ public class InMemoryQueueConsumer implements QueueConsumer, TransactionAware {
       if (dequeuedKeys != null) {
         dequeuedKeys.addAll(keys);
       } else {
-        dequeuedKeys = keys;
+        dequeuedKeys = Lists.newArrayList(keys);
       }
     }
 
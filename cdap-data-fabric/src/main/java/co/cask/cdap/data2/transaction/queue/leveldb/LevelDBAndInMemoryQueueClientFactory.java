@@ -27,7 +27,9 @@ import com.google.inject.Inject;
 import java.io.IOException;
 
 /**
- * Factory for LevelDB queue clients.
+ * Factory for queue clients in local mode. Since all flowlets of a flow run in the same process in local mode,
+ * flowlet queues are handed off in memory through {@link InMemoryQueueClientFactory}, using the same transactional
+ * claim, acknowledge and evict protocol as the persistent queues. Only stream queues are backed by LevelDB.
  */
 public final class LevelDBAndInMemoryQueueClientFactory implements QueueClientFactory {
 
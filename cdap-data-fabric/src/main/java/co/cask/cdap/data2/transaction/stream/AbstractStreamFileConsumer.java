@@ -18,6 +18,7 @@ package co.cask.cdap.data2.transaction.stream;
 import co.cask.cdap.api.common.Bytes;
 import co.cask.cdap.api.flow.flowlet.StreamEvent;
 import co.cask.cdap.common.conf.CConfiguration;
+import co.cask.cdap.common.conf.Constants;
 import co.cask.cdap.data.file.FileReader;
 import co.cask.cdap.data.file.ReadFilter;
 import co.cask.cdap.data.file.ReadFilters;
@@ -34,6 +35,7 @@ import co.cask.tephra.Transaction;
 import co.cask.tephra.TxConstants;
 import com.google.common.base.Function;
 import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
 import com.google.common.base.Stopwatch;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
@@ -94,6 +96,20 @@ import javax.annotation.concurrent.NotThreadSafe;
  *   state = ConsumerEntryState.getState(), either CLAIMED or PROCESSED
  * }</pre>
  *
+ * FIFO consumers don't write a state row for each entry. Instead, a consumer instance claims a contiguous range of
+ * {@link Constants.Stream#FIFO_CLAIM_RANGE_SIZE} bytes of a stream file and consumes all entries in that range.
+ * There is one state row per claimed range, with the {@code offset} in the row key being the range start offset.
+ * The state value of a range records the offset of the last processed entry in the range:
+ *
+ * <pre>{@code
+ *   range_state_value = <write_pointer> <instance_id> <state> <processed_offset> <previous_processed_offset>
+ *   processed_offset = 8 bytes offset of the last entry processed by the transaction that wrote the state
+ *   previous_processed_offset = 8 bytes offset of the last entry processed by committed transactions before
+ * }</pre>
+ *
+ * The {@code processed_offset} only applies if the state is PROCESSED and the transaction that wrote it is visible,
+ * otherwise the {@code previous_processed_offset} applies. The state row of a range is deleted once the range is
+ * fully processed and the persisted states of all consumer instances of the group are beyond the range.
  */
 @NotThreadSafe
 public abstract class AbstractStreamFileConsumer implements StreamConsumer {
@@ -103,6 +119,11 @@ public abstract class AbstractStreamFileConsumer implements StreamConsumer {
 
   protected static final int MAX_SCAN_ROWS = 1000;
 
+  // Size of the state value of an entry
+  private static final int STATE_BYTES = Longs.BYTES + Ints.BYTES + 1;
+  // Size of the state value of a FIFO range, which has the processed offsets appended to the entry state value
+  private static final int FIFO_STATE_BYTES = STATE_BYTES + Longs.BYTES * 2;
+
   // Persist state at most once per second.
   private static final long STATE_PERSIST_MIN_INTERVAL = TimeUnit.SECONDS.toNanos(1);
 
@@ -146,12 +167,20 @@ public abstract class AbstractStreamFileConsumer implements StreamConsumer {
   private final StreamConsumerStateStore consumerStateStore;
   private final FileReader<StreamEventOffset, Iterable<StreamFileOffset>> reader;
   private final ReadFilter readFilter;
+  private final long fifoRangeSize;
 
   // Map from row key prefix (row key without last eight bytes offset) to a sorted map of row key to state value
   // The rows are only needed for entries that are already in the state table when this consumer start.
   private final Map<byte[], SortedMap<byte[], byte[]>> entryStates;
   private final Set<byte[]> entryStatesScanCompleted;
 
+  // Map from range row key to the FIFO range seen by this consumer, no matter claimed by this consumer or not.
+  private final SortedMap<byte[], FifoRange> fifoRanges;
+  // FIFO ranges with state updated by the current transaction
+  private final Set<FifoRange> pendingFifoRanges;
+  // FIFO ranges claimed by this consumer that are fully processed, with state rows not yet deleted
+  private final List<FifoRange> completedFifoRanges;
+
   private final StreamConsumerState consumerState;
   private final List<StreamEventOffset> eventCache;
   private Transaction transaction;
@@ -187,9 +216,14 @@ public abstract class AbstractStreamFileConsumer implements StreamConsumer {
     this.consumerStateStore = consumerStateStore;
     this.reader = reader;
     this.readFilter = createReadFilter(consumerConfig, extraFilter);
+    this.fifoRangeSize = cConf.getLong(Constants.Stream.FIFO_CLAIM_RANGE_SIZE);
+    Preconditions.checkArgument(fifoRangeSize > 0, "Invalid FIFO claim range size %s", fifoRangeSize);
 
     this.entryStates = Maps.newTreeMap(ROW_PREFIX_COMPARATOR);
     this.entryStatesScanCompleted = Sets.newTreeSet(ROW_PREFIX_COMPARATOR);
+    this.fifoRanges = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+    this.pendingFifoRanges = Sets.newHashSet();
+    this.completedFifoRanges = Lists.newArrayList();
 
     this.eventCache = Lists.newArrayList();
     this.consumerState = beginConsumerState;
@@ -203,8 +237,13 @@ public abstract class AbstractStreamFileConsumer implements StreamConsumer {
 
   protected abstract boolean claimFifoEntry(byte[] row, byte[] value, byte[] oldValue) throws IOException;
 
+  @Nullable
+  protected abstract byte[] getState(byte[] row) throws IOException;
+
   protected abstract void updateState(Iterable<byte[]> rows, int size, byte[] value) throws IOException;
 
+  protected abstract void updateStates(Map<byte[], byte[]> states) throws IOException;
+
   protected abstract void undoState(Iterable<byte[]> rows, int size) throws IOException;
 
   protected abstract StateScanner scanStates(byte[] startRow, byte[] endRow) throws IOException;
@@ -223,15 +262,9 @@ public abstract class AbstractStreamFileConsumer implements StreamConsumer {
   public final DequeueResult<StreamEvent> poll(int maxEvents, long timeout,
                                                TimeUnit timeoutUnit) throws IOException, InterruptedException {
 
-    // Only need the CLAIMED state for FIFO with group size > 1.
-    byte[] fifoStateContent = null;
-    if (consumerConfig.getDequeueStrategy() == DequeueStrategy.FIFO && consumerConfig.getGroupSize() > 1) {
-      fifoStateContent = encodeStateColumn(ConsumerEntryState.CLAIMED);
-    }
-
     // Try to read from cache if any
     if (!eventCache.isEmpty()) {
-      getEvents(eventCache, polledEvents, maxEvents, fifoStateContent);
+      getEvents(eventCache, polledEvents, maxEvents);
     }
 
     if (polledEvents.size() == maxEvents) {
@@ -260,7 +293,7 @@ public abstract class AbstractStreamFileConsumer implements StreamConsumer {
       timeoutNano -= elapsedNano;
 
       if (readCount > 0) {
-        int eventsClaimed = getEvents(eventCache, polledEvents, maxEvents - polledEvents.size(), fifoStateContent);
+        int eventsClaimed = getEvents(eventCache, polledEvents, maxEvents - polledEvents.size());
 
         // TODO: This is a quick fix for preventing backoff logic in flowlet drive kicks in too early.
         // But it doesn't entirely prevent backoff. A proper fix would have a special state in the dequeue result
@@ -296,6 +329,7 @@ public abstract class AbstractStreamFileConsumer implements StreamConsumer {
     closed = true;
     try {
       persistConsumerState();
+      deleteCompletedFifoRanges();
       doClose();
     } finally {
       try {
@@ -317,6 +351,7 @@ public abstract class AbstractStreamFileConsumer implements StreamConsumer {
     }
 
     committed = false;
+    pendingFifoRanges.clear();
   }
 
   @Override
@@ -336,9 +371,26 @@ public abstract class AbstractStreamFileConsumer implements StreamConsumer {
       return true;
     }
 
-    // For each polled events, set the state column to PROCESSED
-    updateState(Iterables.transform(polledEvents, EVENT_ROW_KEY), polledEvents.size(),
-                encodeStateColumn(ConsumerEntryState.PROCESSED));
+    if (consumerConfig.getDequeueStrategy() == DequeueStrategy.FIFO) {
+      // For each FIFO range of the polled events, set the state to PROCESSED up to the last polled event
+      for (PollStreamEvent event : polledEvents) {
+        FifoRange range = event.getFifoRange();
+        long offset = event.getStreamEventOffset().getOffset().getOffset();
+        if (pendingFifoRanges.add(range) || range.pendingOffset < offset) {
+          range.pendingOffset = offset;
+        }
+      }
+      Map<byte[], byte[]> states = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+      for (FifoRange range : pendingFifoRanges) {
+        states.put(range.row, encodeFifoState(ConsumerEntryState.PROCESSED, range.pendingOffset,
+                                              range.processedOffset));
+      }
+      updateStates(states);
+    } else {
+      // For each polled events, set the state column to PROCESSED
+      updateState(Iterables.transform(polledEvents, EVENT_ROW_KEY), polledEvents.size(),
+                  encodeStateColumn(ConsumerEntryState.PROCESSED));
+    }
 
     committed = true;
     return true;
@@ -346,12 +398,6 @@ public abstract class AbstractStreamFileConsumer implements StreamConsumer {
 
   @Override
   public void postTxCommit() {
-    long currentNano = System.nanoTime();
-    if (currentNano >= nextPersistStateTime) {
-      nextPersistStateTime = currentNano + STATE_PERSIST_MIN_INTERVAL;
-      persistConsumerState();
-    }
-
     // Cleanup the entryStates map to free up memory
     for (PollStreamEvent event : polledEvents) {
       SortedMap<byte[], byte[]> states = entryStates.get(event.getStateRow());
@@ -359,6 +405,29 @@ public abstract class AbstractStreamFileConsumer implements StreamConsumer {
         states.headMap(event.getStateRow()).clear();
       }
     }
+
+    // Compact the FIFO ranges. Ranges before a committed range of the same file won't be read again.
+    for (FifoRange range : pendingFifoRanges) {
+      range.processedOffset = range.pendingOffset;
+      byte[] fileStartRow = Arrays.copyOf(range.row, range.row.length);
+      Bytes.putLong(fileStartRow, fileStartRow.length - Longs.BYTES, 0L);
+      SortedMap<byte[], FifoRange> completed = fifoRanges.subMap(fileStartRow, range.row);
+      for (FifoRange completedRange : completed.values()) {
+        if (completedRange.claimed) {
+          completedFifoRanges.add(completedRange);
+        }
+      }
+      completed.clear();
+    }
+    pendingFifoRanges.clear();
+
+    long currentNano = System.nanoTime();
+    if (currentNano >= nextPersistStateTime) {
+      nextPersistStateTime = currentNano + STATE_PERSIST_MIN_INTERVAL;
+      persistConsumerState();
+      evictReadFifoRanges();
+      deleteCompletedFifoRanges();
+    }
   }
 
   @Override
@@ -374,26 +443,23 @@ public abstract class AbstractStreamFileConsumer implements StreamConsumer {
     // Insert all polled events back to beginning of the eventCache
     eventCache.addAll(0, Lists.transform(polledEvents, CONVERT_STREAM_EVENT_OFFSET));
 
-    // Special case for FIFO. On rollback, put the CLAIMED state into the entry states for claim entry to use.
-    byte[] fifoState = null;
-    if (consumerConfig.getDequeueStrategy() == DequeueStrategy.FIFO && consumerConfig.getGroupSize() > 1) {
-      fifoState = encodeStateColumn(ConsumerEntryState.CLAIMED);
-      for (PollStreamEvent event : polledEvents) {
-        entryStates.get(event.getStateRow()).put(event.getStateRow(), fifoState);
-      }
-    }
-
     // If committed, also need to rollback backing store.
     if (committed) {
       // Special case for FIFO.
-      // If group size > 1, need to update the rows states to CLAIMED state with this instance Id.
-      // The transaction pointer used for the entry doesn't matter.
-      if (consumerConfig.getDequeueStrategy() == DequeueStrategy.FIFO && consumerConfig.getGroupSize() > 1) {
-        updateState(Iterables.transform(polledEvents, EVENT_ROW_KEY), polledEvents.size(), fifoState);
+      // Need to update the range states back to CLAIMED state with this instance Id and the processed offset
+      // before this transaction. The ranges stay claimed by this consumer, so that it can retry the events.
+      if (consumerConfig.getDequeueStrategy() == DequeueStrategy.FIFO) {
+        Map<byte[], byte[]> states = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+        for (FifoRange range : pendingFifoRanges) {
+          states.put(range.row, encodeFifoState(ConsumerEntryState.CLAIMED, range.processedOffset,
+                                                range.processedOffset));
+        }
+        updateStates(states);
       } else {
         undoState(Iterables.transform(polledEvents, EVENT_ROW_KEY), polledEvents.size());
       }
     }
+    pendingFifoRanges.clear();
 
     return true;
   }
@@ -446,17 +512,16 @@ public abstract class AbstractStreamFileConsumer implements StreamConsumer {
   }
 
   private int getEvents(List<? extends StreamEventOffset> source,
-                         List<? super PollStreamEvent> result,
-                         int maxEvents, byte[] stateContent) throws IOException {
+                         List<? super PollStreamEvent> result, int maxEvents) throws IOException {
     Iterator<? extends StreamEventOffset> iterator = Iterators.consumingIterator(source.iterator());
     int eventsClaimed = 0;
     while (result.size() < maxEvents && iterator.hasNext()) {
       StreamEventOffset event = iterator.next();
-      byte[] stateRow = claimEntry(event.getOffset(), stateContent);
-      if (stateRow == null) {
+      PollStreamEvent pollEvent = claimEntry(event);
+      if (pollEvent == null) {
         continue;
       }
-      result.add(new PollStreamEvent(event, stateRow));
+      result.add(pollEvent);
       eventsClaimed++;
     }
     return eventsClaimed;
@@ -473,6 +538,107 @@ public abstract class AbstractStreamFileConsumer implements StreamConsumer {
     }
   }
 
+  /**
+   * Removes the FIFO ranges that this consumer has read past and that no cached event belongs to, as they won't be
+   * seen again. The claimed ones are fully processed by committed transactions, hence their state rows are
+   * deleted once all consumers of the group have read past them.
+   */
+  private void evictReadFifoRanges() {
+    if (fifoRanges.isEmpty()) {
+      return;
+    }
+    Set<byte[]> cachedRanges = Sets.newTreeSet(Bytes.BYTES_COMPARATOR);
+    for (StreamEventOffset event : eventCache) {
+      StreamFileOffset offset = event.getOffset();
+      cachedRanges.add(getFifoRangeRow(getStateRow(offset), offset.getOffset()));
+    }
+
+    Iterator<FifoRange> iterator = fifoRanges.values().iterator();
+    while (iterator.hasNext()) {
+      FifoRange range = iterator.next();
+      if (!cachedRanges.contains(range.row) && isReadPast(range, consumerState.getState())) {
+        if (range.claimed) {
+          completedFifoRanges.add(range);
+        }
+        iterator.remove();
+      }
+    }
+  }
+
+  /**
+   * Deletes the state rows of the completed FIFO ranges that all consumer instances of the group have read past,
+   * based on the persisted consumer states. Consumers never read those ranges again, not even after a restart or
+   * a reconfiguration of the group, hence the state rows are not needed anymore.
+   */
+  private void deleteCompletedFifoRanges() {
+    if (completedFifoRanges.isEmpty()) {
+      return;
+    }
+    try {
+      List<StreamConsumerState> states = Lists.newArrayList();
+      consumerStateStore.getByGroup(consumerConfig.getGroupId(), states);
+      if (states.size() < consumerConfig.getGroupSize()) {
+        return;
+      }
+
+      List<byte[]> rows = Lists.newArrayList();
+      Iterator<FifoRange> iterator = completedFifoRanges.iterator();
+      while (iterator.hasNext()) {
+        FifoRange range = iterator.next();
+        if (isReadByAll(range, states)) {
+          rows.add(range.row);
+          iterator.remove();
+        }
+      }
+      if (!rows.isEmpty()) {
+        undoState(rows, rows.size());
+      }
+    } catch (IOException e) {
+      // Not fatal, it will be retried the next time the consumer state is persisted
+      LOG.warn("Failed to delete FIFO range states for consumer {} of stream {}", consumerConfig, getStreamId(), e);
+    }
+  }
+
+  /**
+   * Returns {@code true} if all the given consumer states are beyond the end of the given FIFO range.
+   */
+  private boolean isReadByAll(FifoRange range, Iterable<StreamConsumerState> states) {
+    for (StreamConsumerState state : states) {
+      if (!isReadPast(range, state.getState())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns {@code true} if one of the given file offsets is beyond the end of the given FIFO range.
+   */
+  private boolean isReadPast(FifoRange range, Iterable<StreamFileOffset> offsets) {
+    long rangeStart = Bytes.toLong(range.row, range.row.length - Longs.BYTES);
+    byte[] rangeEndRow = Arrays.copyOf(range.row, range.row.length);
+    Bytes.putLong(rangeEndRow, rangeEndRow.length - Longs.BYTES, rangeStart + fifoRangeSize);
+
+    for (StreamFileOffset offset : offsets) {
+      // Rows of the same file name prefix are ordered by partition, sequence id and offset
+      if (offset.getNamePrefix().equals(range.namePrefix)
+        && Bytes.compareTo(getStateRow(offset), rangeEndRow) >= 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the state row key of the given stream file offset.
+   */
+  private byte[] getStateRow(StreamFileOffset offset) {
+    ByteArrayDataOutput out = ByteStreams.newDataOutput(50);
+    out.writeLong(consumerConfig.getGroupId());
+    StreamUtils.encodeOffset(out, offset);
+    return out.toByteArray();
+  }
+
   /**
    * Encodes the value for the state column with the current transaction and consumer information.
    *
@@ -481,7 +647,7 @@ public abstract class AbstractStreamFileConsumer implements StreamConsumer {
    */
   // TODO: This method is copied from AbstractQueue2Consumer. Future effort is needed to unify them.
   private byte[] encodeStateColumn(ConsumerEntryState state) {
-    byte[] stateContent = new byte[Longs.BYTES + Ints.BYTES + 1];
+    byte[] stateContent = new byte[STATE_BYTES];
 
     // State column content is encoded as (writePointer) + (instanceId) + (state)
     Bytes.putLong(stateContent, 0, transaction.getWritePointer());
@@ -492,32 +658,122 @@ public abstract class AbstractStreamFileConsumer implements StreamConsumer {
   }
 
   /**
-   * Try to claim a stream event offset.
+   * Encodes the value for the state column of a FIFO range with the current transaction and consumer information.
+   */
+  private byte[] encodeFifoState(ConsumerEntryState state, long processedOffset, long previousProcessedOffset) {
+    byte[] stateContent = Arrays.copyOf(encodeStateColumn(state), FIFO_STATE_BYTES);
+    Bytes.putLong(stateContent, STATE_BYTES, processedOffset);
+    Bytes.putLong(stateContent, STATE_BYTES + Longs.BYTES, previousProcessedOffset);
+    return stateContent;
+  }
+
+  /**
+   * Try to claim a stream event.
    *
-   * @return The row key for writing to the state table if successfully claimed or {@code null} if not claimed.
+   * @return The {@link PollStreamEvent} to return from poll if successfully claimed or {@code null} if not claimed.
    */
-  private byte[] claimEntry(StreamFileOffset offset, byte[] claimedStateContent) throws IOException {
-    ByteArrayDataOutput out = ByteStreams.newDataOutput(50);
-    out.writeLong(consumerConfig.getGroupId());
-    StreamUtils.encodeOffset(out, offset);
-    byte[] row = out.toByteArray();
+  @Nullable
+  private PollStreamEvent claimEntry(StreamEventOffset event) throws IOException {
+    StreamFileOffset offset = event.getOffset();
+    byte[] row = getStateRow(offset);
 
     SortedMap<byte[], byte[]> rowStates = getInitRowStates(row);
 
     // See if the entry should be ignored. If it is in the rowStates with null value, then it should be ignored.
-    byte[] rowState = rowStates.get(row);
-    if (rowStates.containsKey(row) && rowState == null) {
+    if (rowStates.containsKey(row) && rowStates.get(row) == null) {
       return null;
     }
 
-    // Only need to claim entry if FIFO and group size > 1
-    if (consumerConfig.getDequeueStrategy() == DequeueStrategy.FIFO && consumerConfig.getGroupSize() > 1) {
-      return claimFifoEntry(row, claimedStateContent, rowState) ? row : null;
+    // For FIFO, claim the range that the entry belongs to
+    if (consumerConfig.getDequeueStrategy() == DequeueStrategy.FIFO) {
+      FifoRange range = getFifoRange(row, offset);
+      if (!range.claimed || offset.getOffset() <= range.processedOffset) {
+        return null;
+      }
+      return new PollStreamEvent(event, range.row, range);
     }
 
-    // For Hash, RR and FIFO with group size == 1, no need to claim and check,
-    // as it's already handled by the readFilter
-    return row;
+    // For Hash and RR, no need to claim and check, as it's already handled by the readFilter
+    return new PollStreamEvent(event, row, null);
+  }
+
+  /**
+   * Returns the {@link FifoRange} that the given entry belongs to. If the range was not seen by this consumer before,
+   * it tries to claim the range.
+   *
+   * @param row the entry row key
+   * @param offset the entry offset
+   */
+  private FifoRange getFifoRange(byte[] row, StreamFileOffset offset) throws IOException {
+    byte[] rangeRow = getFifoRangeRow(row, offset.getOffset());
+    FifoRange range = fifoRanges.get(rangeRow);
+    if (range == null) {
+      range = claimFifoRange(rangeRow, offset.getNamePrefix());
+      fifoRanges.put(rangeRow, range);
+    }
+    return range;
+  }
+
+  /**
+   * Returns the row key of the FIFO range that the entry of the given row key and file offset belongs to.
+   */
+  private byte[] getFifoRangeRow(byte[] row, long offset) {
+    // Last 8 bytes are the file offset, replace it with the range start offset.
+    byte[] rangeRow = Arrays.copyOf(row, row.length);
+    Bytes.putLong(rangeRow, rangeRow.length - Longs.BYTES, offset - offset % fifoRangeSize);
+    return rangeRow;
+  }
+
+  /**
+   * Claims the FIFO range of the given range row key.
+   *
+   * @return a {@link FifoRange} representing the range, which tells if it is claimed by this consumer.
+   */
+  private FifoRange claimFifoRange(byte[] rangeRow, String namePrefix) throws IOException {
+    long rangeStart = Bytes.toLong(rangeRow, rangeRow.length - Longs.BYTES);
+    byte[] oldValue = getState(rangeRow);
+    while (true) {
+      long processedOffset = -1L;
+      if (oldValue != null) {
+        int stateInstanceId = QueueEntryRow.getStateInstanceId(oldValue);
+        boolean ownedByOther = stateInstanceId < consumerConfig.getGroupSize()
+          && stateInstanceId != consumerConfig.getInstanceId();
+        if (oldValue.length < FIFO_STATE_BYTES) {
+          // It is a state of the single entry at the range start, written before FIFO consumers claim ranges.
+          // If that entry belongs to another consumer that is still live, only skip that entry.
+          processedOffset = ownedByOther ? rangeStart : getFifoProcessedOffset(oldValue, rangeStart);
+        } else if (ownedByOther) {
+          // If the range is claimed by a consumer that is still live, and not by itself, skip the range.
+          return new FifoRange(rangeRow, namePrefix, false, -1L);
+        } else {
+          processedOffset = getFifoProcessedOffset(oldValue, rangeStart);
+        }
+      }
+
+      byte[] claimedValue = encodeFifoState(ConsumerEntryState.CLAIMED, processedOffset, processedOffset);
+      if (claimFifoEntry(rangeRow, claimedValue, oldValue)) {
+        return new FifoRange(rangeRow, namePrefix, true, processedOffset);
+      }
+      // Someone else updated the state concurrently, check again with the latest state
+      oldValue = getState(rangeRow);
+    }
+  }
+
+  /**
+   * Returns the offset of the last entry processed by committed transactions in a FIFO range.
+   *
+   * @param stateValue the state value of the range row
+   * @param rangeStart start offset of the range
+   */
+  private long getFifoProcessedOffset(byte[] stateValue, long rangeStart) {
+    boolean processed = QueueEntryRow.getState(stateValue) == ConsumerEntryState.PROCESSED
+      && transaction.isVisible(QueueEntryRow.getStateWritePointer(stateValue));
+
+    if (stateValue.length < FIFO_STATE_BYTES) {
+      // It is a state of a single entry that starts at the range start, written before FIFO consumers claim ranges
+      return processed ? rangeStart : -1L;
+    }
+    return Bytes.toLong(stateValue, processed ? STATE_BYTES : STATE_BYTES + Longs.BYTES);
   }
 
   /**
@@ -584,6 +840,11 @@ public abstract class AbstractStreamFileConsumer implements StreamConsumer {
       return false;
     }
 
+    // States of FIFO ranges are handled by the range claim logic
+    if (stateValue.length == FIFO_STATE_BYTES) {
+      return false;
+    }
+
     long offset = Bytes.toLong(row, row.length - Longs.BYTES);
     long stateWritePointer = QueueEntryRow.getStateWritePointer(stateValue);
 
@@ -640,11 +901,13 @@ public abstract class AbstractStreamFileConsumer implements StreamConsumer {
 
     private final byte[] stateRow;
     private final StreamEventOffset streamEventOffset;
+    private final FifoRange fifoRange;
 
-    protected PollStreamEvent(StreamEventOffset streamEventOffset, byte[] stateRow) {
+    protected PollStreamEvent(StreamEventOffset streamEventOffset, byte[] stateRow, @Nullable FifoRange fifoRange) {
       super(streamEventOffset);
       this.streamEventOffset = streamEventOffset;
       this.stateRow = stateRow;
+      this.fifoRange = fifoRange;
     }
 
     public StreamEventOffset getStreamEventOffset() {
@@ -661,6 +924,36 @@ public abstract class AbstractStreamFileConsumer implements StreamConsumer {
     private byte[] getStateRow() {
       return stateRow;
     }
+
+    /**
+     * Returns the {@link FifoRange} claimed for this event or {@code null} if the consumer is not FIFO.
+     */
+    @Nullable
+    private FifoRange getFifoRange() {
+      return fifoRange;
+    }
+  }
+
+  /**
+   * Represents a range of a stream file seen by a FIFO consumer.
+   */
+  private static final class FifoRange {
+
+    private final byte[] row;
+    private final String namePrefix;
+    private final boolean claimed;
+
+    // Offset of the last entry in the range processed by committed transactions.
+    private long processedOffset;
+    // Offset of the last entry in the range processed by the current transaction.
+    private long pendingOffset;
+
+    private FifoRange(byte[] row, String namePrefix, boolean claimed, long processedOffset) {
+      this.row = row;
+      this.namePrefix = namePrefix;
+      this.claimed = claimed;
+      this.processedOffset = processedOffset;
+    }
   }
 
   /**
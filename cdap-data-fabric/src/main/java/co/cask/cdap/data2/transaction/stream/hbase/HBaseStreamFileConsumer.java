@@ -33,6 +33,7 @@ import co.cask.cdap.hbase.wd.DistributedScanner;
 import co.cask.cdap.proto.Id;
 import com.google.common.collect.Lists;
 import org.apache.hadoop.hbase.client.Delete;
+import org.apache.hadoop.hbase.client.Get;
 import org.apache.hadoop.hbase.client.HTable;
 import org.apache.hadoop.hbase.client.Put;
 import org.apache.hadoop.hbase.client.Result;
@@ -42,6 +43,7 @@ import org.apache.hadoop.hbase.util.Threads;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadFactory;
@@ -90,6 +92,13 @@ public final class HBaseStreamFileConsumer extends AbstractStreamFileConsumer {
     return hTable.checkAndPut(put.getRow(), QueueEntryRow.COLUMN_FAMILY, stateColumnName, oldValue, put);
   }
 
+  @Override
+  protected byte[] getState(byte[] row) throws IOException {
+    Get get = new Get(keyDistributor.getDistributedKey(row));
+    get.addColumn(QueueEntryRow.COLUMN_FAMILY, stateColumnName);
+    return hTable.get(get).getValue(QueueEntryRow.COLUMN_FAMILY, stateColumnName);
+  }
+
   @Override
   protected void updateState(Iterable<byte[]> rows, int size, byte[] value) throws IOException {
     List<Put> puts = Lists.newArrayListWithCapacity(size);
@@ -103,6 +112,19 @@ public final class HBaseStreamFileConsumer extends AbstractStreamFileConsumer {
     hTable.flushCommits();
   }
 
+  @Override
+  protected void updateStates(Map<byte[], byte[]> states) throws IOException {
+    List<Put> puts = Lists.newArrayListWithCapacity(states.size());
+
+    for (Map.Entry<byte[], byte[]> entry : states.entrySet()) {
+      Put put = new Put(keyDistributor.getDistributedKey(entry.getKey()));
+      put.add(QueueEntryRow.COLUMN_FAMILY, stateColumnName, entry.getValue());
+      puts.add(put);
+    }
+    hTable.put(puts);
+    hTable.flushCommits();
+  }
+
   @Override
   protected void undoState(Iterable<byte[]> rows, int size) throws IOException {
     List<Delete> deletes = Lists.newArrayListWithCapacity(size);
@@ -90,6 +90,13 @@ public final class LevelDBStreamFileConsumer extends AbstractStreamFileConsumer
     }
   }
 
+  @Override
+  protected byte[] getState(byte[] row) throws IOException {
+    Map<byte[], byte[]> values =
+      tableCore.getRow(row, new byte[][] { stateColumnName }, null, null, -1, Transaction.ALL_VISIBLE_LATEST);
+    return values.get(stateColumnName);
+  }
+
   @Override
   protected void updateState(Iterable<byte[]> rows, int size, byte[] value) throws IOException {
     NavigableMap<byte[], NavigableMap<byte[], byte[]>> changes = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
@@ -101,6 +108,17 @@ public final class LevelDBStreamFileConsumer extends AbstractStreamFileConsumer
     tableCore.persist(changes, KeyValue.LATEST_TIMESTAMP);
   }
 
+  @Override
+  protected void updateStates(Map<byte[], byte[]> states) throws IOException {
+    NavigableMap<byte[], NavigableMap<byte[], byte[]>> changes = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+    for (Map.Entry<byte[], byte[]> entry : states.entrySet()) {
+      NavigableMap<byte[], byte[]> values = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+      values.put(stateColumnName, entry.getValue());
+      changes.put(entry.getKey(), values);
+    }
+    tableCore.persist(changes, KeyValue.LATEST_TIMESTAMP);
+  }
+
   @Override
   protected void undoState(Iterable<byte[]> rows, int size) throws IOException {
     NavigableMap<byte[], NavigableMap<byte[], byte[]>> changes = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
@@ -0,0 +1,149 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.data2.util.hbase;
+
+import co.cask.cdap.api.common.Bytes;
+import co.cask.cdap.data2.util.TableId;
+import co.cask.cdap.proto.Id;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HColumnDescriptor;
+import org.apache.hadoop.hbase.client.Delete;
+import org.apache.hadoop.hbase.client.HBaseAdmin;
+import org.apache.hadoop.hbase.client.HTable;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.client.Scan;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Reads and writes the per-region prune upper bounds recorded by the transaction coprocessors.  A prune upper
+ * bound for a region is the largest transaction id such that all data written by invalid transactions with
+ * ids less than or equal to it has been removed from the region by a major compaction.  Each region is stored
+ * as a single row, keyed by the region name.
+ */
+public class PruneUpperBoundTable {
+
+  // since this will be used in the coprocessor context, we use commons logging
+  private static final Log LOG = LogFactory.getLog(PruneUpperBoundTable.class);
+
+  private static final String TABLE_NAME = "tx.prune";
+  private static final byte[] FAMILY = Bytes.toBytes("f");
+  private static final byte[] PRUNE_UPPER_BOUND_COL = Bytes.toBytes("p");
+
+  private final Configuration hbaseConf;
+
+  public PruneUpperBoundTable(Configuration hbaseConf) {
+    this.hbaseConf = hbaseConf;
+  }
+
+  /**
+   * Creates the prune upper bound table if it does not exist yet.
+   *
+   * @param tableUtil the {@link HBaseTableUtil} for the running HBase version
+   * @throws IOException If an error occurs while creating the table
+   */
+  public void createTableIfNotExists(HBaseTableUtil tableUtil) throws IOException {
+    TableId tableId = TableId.from(Id.Namespace.SYSTEM, TABLE_NAME);
+    try (HBaseAdmin admin = new HBaseAdmin(hbaseConf)) {
+      HTableDescriptorBuilder htd = tableUtil.buildHTableDescriptor(tableId);
+      htd.addFamily(new HColumnDescriptor(FAMILY));
+      tableUtil.createTableIfNotExists(admin, tableId, htd.build());
+    }
+  }
+
+  /**
+   * Saves the prune upper bound of a region. This is called from the transaction coprocessors, hence the table
+   * is looked up under the given "sysConfigTablePrefix".
+   *
+   * @param sysConfigTablePrefix table prefix of the system tables. (The full table name of the configuration
+   *                             table minus the table qualifier). Example: 'cdap.system:'
+   * @param regionName name of the region
+   * @param pruneUpperBound the prune upper bound of the region
+   * @throws IOException If an error occurs while writing to the table
+   */
+  public void savePruneUpperBound(String sysConfigTablePrefix,
+                                  byte[] regionName, long pruneUpperBound) throws IOException {
+    String tableName = sysConfigTablePrefix + TABLE_NAME;
+    // tableUtil is not used to create the HTable because this code is used from coprocessors which are already HBase
+    // version specific. Because of that, the sysConfigTablePrefix parameter passed in is already version-specific.
+    HTable table = new HTable(hbaseConf, tableName);
+    try {
+      Put put = new Put(regionName);
+      put.add(FAMILY, PRUNE_UPPER_BOUND_COL, Bytes.toBytes(pruneUpperBound));
+      table.put(put);
+    } finally {
+      try {
+        table.close();
+      } catch (IOException ioe) {
+        LOG.error("Error closing HTable for " + tableName, ioe);
+      }
+    }
+  }
+
+  /**
+   * Reads the prune upper bounds of all regions that have recorded one.
+   *
+   * @param tableUtil the {@link HBaseTableUtil} for the running HBase version
+   * @return a map from region name to prune upper bound
+   * @throws IOException If an error occurs while reading the table
+   */
+  public Map<byte[], Long> getPruneUpperBounds(HBaseTableUtil tableUtil) throws IOException {
+    Map<byte[], Long> bounds = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    try (HTable table = tableUtil.createHTable(hbaseConf, TableId.from(Id.Namespace.SYSTEM, TABLE_NAME))) {
+      Scan scan = new Scan();
+      scan.addColumn(FAMILY, PRUNE_UPPER_BOUND_COL);
+      try (ResultScanner scanner = table.getScanner(scan)) {
+        for (Result result : scanner) {
+          byte[] value = result.getValue(FAMILY, PRUNE_UPPER_BOUND_COL);
+          if (value != null) {
+            bounds.put(result.getRow(), Bytes.toLong(value));
+          }
+        }
+      }
+    }
+    return bounds;
+  }
+
+  /**
+   * Removes the prune upper bounds of the given regions, e.g. for regions that no longer exist.
+   *
+   * @param tableUtil the {@link HBaseTableUtil} for the running HBase version
+   * @param regionNames names of the regions to remove
+   * @throws IOException If an error occurs while writing to the table
+   */
+  public void deletePruneUpperBounds(HBaseTableUtil tableUtil, Collection<byte[]> regionNames) throws IOException {
+    if (regionNames.isEmpty()) {
+      return;
+    }
+    List<Delete> deletes = new ArrayList<>(regionNames.size());
+    for (byte[] regionName : regionNames) {
+      deletes.add(new Delete(regionName));
+    }
+    try (HTable table = tableUtil.createHTable(hbaseConf, TableId.from(Id.Namespace.SYSTEM, TABLE_NAME))) {
+      table.delete(deletes);
+    }
+  }
+}
@@ -33,6 +33,9 @@ import org.junit.BeforeClass;
 import org.junit.ClassRule;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
@@ -830,6 +833,155 @@ public class IndexedTableTest {
       dsFrameworkUtil.deleteInstance(incrTabInstance);
     }
   }
+
+  @Test
+  public void testCoveredColumns() throws Exception {
+    Id.DatasetInstance coveredTabInstance = Id.DatasetInstance.from(DatasetFrameworkTestUtil.NAMESPACE_ID,
+                                                                    "coveredtab");
+    dsFrameworkUtil.createInstance("indexedTable", coveredTabInstance, DatasetProperties.builder()
+      .add(IndexedTable.INDEX_COLUMNS_CONF_KEY, idxColString)
+      .add(IndexedTable.COVERED_COLUMNS_CONF_KEY, Bytes.toString(valCol))
+      .build());
+    final IndexedTable iTable = dsFrameworkUtil.getInstance(coveredTabInstance);
+    final byte[] otherCol = { 'o', 't', 'h' };
+    final byte[][] colIdxValOther = { idxCol, valCol, otherCol };
+
+    try {
+      TransactionExecutor tx = dsFrameworkUtil.newTransactionExecutor(iTable);
+      tx.execute(new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          iTable.put(new Put(keyA).add(idxCol, idx1).add(valCol, valA).add(otherCol, valAA));
+          iTable.put(new Put(keyB).add(idxCol, idx1).add(valCol, valB));
+        }
+      });
+
+      tx.execute(new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          // covered read only returns the requested columns
+          Scanner scanner = iTable.readByIndex(idxCol, idx1, colIdxVal);
+          TableAssert.assertRow(scanner.next(), keyA, colIdxVal, new byte[][]{ idx1, valA });
+          TableAssert.assertRow(scanner.next(), keyB, colIdxVal, new byte[][]{ idx1, valB });
+          assertEmpty(scanner);
+          scanner.close();
+
+          // reading a column that is not covered goes to the data table
+          Row row = readFirst(iTable.readByIndex(idxCol, idx1, colIdxValOther));
+          TableAssert.assertRow(row, keyA, colIdxValOther, new byte[][]{ idx1, valA, valAA });
+        }
+      });
+
+      tx.execute(new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          // change the covered column without changing the indexed value
+          iTable.put(keyA, valCol, valC);
+          // change the covered column with compareAndSwap
+          Assert.assertTrue(iTable.compareAndSwap(keyB, valCol, valB, valD));
+        }
+      });
+
+      tx.execute(new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          Scanner scanner = iTable.scanByIndex(idxCol, idx1, idx2, new byte[][]{ valCol });
+          TableAssert.assertRow(scanner.next(), keyA, new byte[][]{ valCol }, new byte[][]{ valC });
+          TableAssert.assertRow(scanner.next(), keyB, new byte[][]{ valCol }, new byte[][]{ valD });
+          assertEmpty(scanner);
+          scanner.close();
+        }
+      });
+
+      tx.execute(new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          // change the indexed value, the new index entry must carry the covered column
+          iTable.put(keyA, idxCol, idx2);
+          // delete the covered column
+          iTable.delete(keyB, valCol);
+        }
+      });
+
+      tx.execute(new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          Row row = readFirst(iTable.readByIndex(idxCol, idx2, colIdxVal));
+          TableAssert.assertRow(row, keyA, colIdxVal, new byte[][]{ idx2, valC });
+
+          Scanner scanner = iTable.readByIndex(idxCol, idx1, colIdxVal);
+          TableAssert.assertRow(scanner.next(), keyB, new byte[][]{ idxCol }, new byte[][]{ idx1 });
+          assertEmpty(scanner);
+          scanner.close();
+
+          // read-less increment on a covered column should fail
+          try {
+            iTable.increment(keyA, valCol, 1L);
+            fail("Expected IllegalArgumentException performing increment on covered column");
+          } catch (IllegalArgumentException iae) {
+            // expected
+          }
+        }
+      });
+
+      tx.execute(new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          iTable.delete(keyA);
+          assertEmpty(iTable.readByIndex(idxCol, idx2, colIdxVal));
+        }
+      });
+    } finally {
+      dsFrameworkUtil.deleteInstance(coveredTabInstance);
+    }
+  }
+
+  @Test
+  public void testBatchPutAndScan() throws Exception {
+    Id.DatasetInstance batchTabInstance = Id.DatasetInstance.from(DatasetFrameworkTestUtil.NAMESPACE_ID, "batchtab");
+    dsFrameworkUtil.createInstance("indexedTable", batchTabInstance, DatasetProperties.builder()
+      .add(IndexedTable.INDEX_COLUMNS_CONF_KEY, idxColString)
+      .build());
+    final IndexedTable iTable = dsFrameworkUtil.getInstance(batchTabInstance);
+    // more rows than are resolved by the scanner in one batch
+    final int numRows = 250;
+
+    try {
+      TransactionExecutor tx = dsFrameworkUtil.newTransactionExecutor(iTable);
+      tx.execute(new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          List<Put> puts = new ArrayList<>();
+          for (int i = 0; i < numRows; i++) {
+            puts.add(new Put(Bytes.toBytes(i)).add(idxCol, idx1).add(valCol, Bytes.toBytes(i)));
+          }
+          // the same row twice in one batch, the second put must replace the index entry of the first
+          puts.add(new Put(keyA).add(idxCol, idx2).add(valCol, valA));
+          puts.add(new Put(keyA).add(idxCol, idx3).add(valCol, valB));
+          iTable.put(puts);
+        }
+      });
+
+      tx.execute(new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          try (Scanner scanner = iTable.readByIndex(idxCol, idx1)) {
+            for (int i = 0; i < numRows; i++) {
+              TableAssert.assertRow(scanner.next(), Bytes.toBytes(i), colIdxVal,
+                                    new byte[][]{ idx1, Bytes.toBytes(i) });
+            }
+            assertEmpty(scanner);
+          }
+          assertEmpty(iTable.readByIndex(idxCol, idx2));
+          Row row = readFirst(iTable.readByIndex(idxCol, idx3));
+          TableAssert.assertRow(row, keyA, colIdxVal, new byte[][]{ idx3, valB });
+        }
+      });
+    } finally {
+      dsFrameworkUtil.deleteInstance(batchTabInstance);
+    }
+  }
+
   /**
    * Asserts that the given scanner contains no more rows.
    */
@@ -0,0 +1,114 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.data.stream.service;
+
+import co.cask.cdap.common.io.BinaryEncoder;
+import co.cask.cdap.common.io.Encoder;
+import co.cask.cdap.data.stream.StreamFileOffset;
+import co.cask.cdap.data.stream.StreamFileType;
+import co.cask.cdap.data.stream.StreamUtils;
+import com.google.common.collect.ImmutableList;
+import org.apache.commons.codec.binary.Base64;
+import org.apache.twill.filesystem.LocalLocationFactory;
+import org.apache.twill.filesystem.Location;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for {@link StreamFetchOffsetCodec}.
+ */
+public class StreamFetchOffsetCodecTest {
+
+  private static final Location STREAM_LOCATION =
+    new LocalLocationFactory().create("/cdap/namespaces/default/streams/fetchStream");
+  private static final int GENERATION = 2;
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    Location generationLocation = StreamUtils.createGenerationLocation(STREAM_LOCATION, GENERATION);
+    long duration = TimeUnit.HOURS.toMillis(1);
+    Location partition1 = StreamUtils.createPartitionLocation(generationLocation, 0L, duration);
+    Location partition2 = StreamUtils.createPartitionLocation(generationLocation, duration, duration);
+    List<StreamFileOffset> offsets = ImmutableList.of(
+      new StreamFileOffset(StreamUtils.createStreamLocation(partition1, "file", 0, StreamFileType.EVENT),
+                           100L, GENERATION),
+      new StreamFileOffset(StreamUtils.createStreamLocation(partition2, "file", 1, StreamFileType.EVENT),
+                           0L, GENERATION));
+
+    String offset = StreamFetchOffsetCodec.encode(GENERATION, offsets);
+    List<StreamFileOffset> decoded = StreamFetchOffsetCodec.decode(offset, STREAM_LOCATION, GENERATION);
+    Assert.assertEquals(offsets.size(), decoded.size());
+    for (int i = 0; i < offsets.size(); i++) {
+      Assert.assertEquals(offsets.get(i).getEventLocation().toURI(), decoded.get(i).getEventLocation().toURI());
+      Assert.assertEquals(offsets.get(i).getOffset(), decoded.get(i).getOffset());
+    }
+
+    // Every prefix of a valid offset is invalid
+    byte[] bytes = Base64.decodeBase64(offset);
+    for (int length = 0; length < bytes.length; length++) {
+      assertInvalid(Base64.encodeBase64URLSafeString(Arrays.copyOf(bytes, length)));
+    }
+
+    // An offset of a different generation is invalid
+    assertInvalid(StreamFetchOffsetCodec.encode(GENERATION + 1, offsets));
+  }
+
+  @Test
+  public void testMalformedOffsets() throws IOException {
+    // Not base64 encoded
+    assertInvalid("!!!");
+
+    // Counts that are negative or larger than the input
+    assertInvalid(createOffset(-1));
+    assertInvalid(createOffset(Integer.MAX_VALUE));
+
+    // Name lengths that are negative, larger than the input or larger than a name can be
+    assertInvalid(createOffset(1, -1, 0, 0, 0));
+    assertInvalid(createOffset(1, Integer.MAX_VALUE, 0, 0, 0));
+    assertInvalid(createOffset(1, 1000, 1000, 1000, 1000, 1000, 1000));
+  }
+
+  /**
+   * Creates an offset of the current generation with the given count, followed by the given ints.
+   */
+  private String createOffset(int count, int...ints) throws IOException {
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    Encoder encoder = new BinaryEncoder(os);
+    encoder.writeInt(1);
+    encoder.writeInt(GENERATION);
+    encoder.writeInt(count);
+    for (int i : ints) {
+      encoder.writeInt(i);
+    }
+    return Base64.encodeBase64URLSafeString(os.toByteArray());
+  }
+
+  private void assertInvalid(String offset) {
+    try {
+      StreamFetchOffsetCodec.decode(offset, STREAM_LOCATION, GENERATION);
+      Assert.fail("Expected offset " + offset + " to be invalid");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+}
@@ -16,13 +16,21 @@
 
 package co.cask.cdap.data2.dataset2.lib.cube;
 
+import co.cask.cdap.api.dataset.lib.cube.AggregationFunction;
 import co.cask.cdap.api.dataset.lib.cube.Cube;
+import co.cask.cdap.api.dataset.lib.cube.TimeSeries;
 import co.cask.cdap.data2.dataset2.lib.table.inmemory.InMemoryMetricsTable;
 import co.cask.cdap.data2.dataset2.lib.table.inmemory.InMemoryTableService;
 import co.cask.cdap.data2.dataset2.lib.timeseries.EntityTable;
 import co.cask.cdap.data2.dataset2.lib.timeseries.FactTable;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Assert;
+import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -32,7 +40,107 @@ public class DefaultCubeTest extends AbstractCubeTest {
 
   @Override
   protected Cube getCube(final String name, int[] resolutions, Map<String, ? extends Aggregation> aggregations) {
-    FactTableSupplier supplier = new FactTableSupplier() {
+    return new DefaultCube(resolutions, getFactTableSupplier(name), aggregations,
+                           ImmutableMap.<String, AggregationAlias>of());
+  }
+
+  @Test
+  public void testRollUp() throws Exception {
+    Aggregation agg1 = new DefaultAggregation(ImmutableList.of("dim1"));
+    int res1 = 1;
+    int res100 = 100;
+    DefaultCube cube = new DefaultCube(new int[] {res1, res100}, getFactTableSupplier("myRollUpCube"),
+                                       ImmutableMap.of("agg1", agg1), ImmutableMap.<String, AggregationAlias>of(),
+                                       ImmutableSet.of(res100), 0L);
+
+    writeInc(cube, "count", 1, 1, "1");
+    writeInc(cube, "count", 50, 2, "1");
+    writeInc(cube, "count", 150, 3, "1");
+    writeInc(cube, "count", 250, 4, "1");
+    writeGauge(cube, "gauge", 1, 5, "1");
+    writeGauge(cube, "gauge", 60, 6, "1");
+    writeGauge(cube, "gauge", 120, 7, "1");
+
+    // only the finest resolution is written
+    verifyCountQuery(cube, 0, 300, res1, "count", AggregationFunction.SUM,
+                     ImmutableMap.of("dim1", "1"), new ArrayList<String>(),
+                     ImmutableList.of(new TimeSeries("count", new HashMap<String, String>(),
+                                                     timeValues(1, 1, 50, 2, 150, 3, 250, 4))));
+    verifyCountQuery(cube, 0, 300, res100, "count", AggregationFunction.SUM,
+                     ImmutableMap.of("dim1", "1"), new ArrayList<String>(), ImmutableList.<TimeSeries>of());
+
+    // counters are summed up, gauges take the latest value. Rolling up again doesn't change the result.
+    cube.rollUp(res100, 0, 199);
+    cube.rollUp(res100, 0, 199);
+    verifyCountQuery(cube, 0, 300, res100, "count", AggregationFunction.SUM,
+                     ImmutableMap.of("dim1", "1"), new ArrayList<String>(),
+                     ImmutableList.of(new TimeSeries("count", new HashMap<String, String>(),
+                                                     timeValues(0, 3, 100, 3))));
+    verifyCountQuery(cube, 0, 300, res100, "gauge", AggregationFunction.LATEST,
+                     ImmutableMap.of("dim1", "1"), new ArrayList<String>(),
+                     ImmutableList.of(new TimeSeries("gauge", new HashMap<String, String>(),
+                                                     timeValues(0, 6, 100, 7))));
+
+    // only complete intervals can be rolled up
+    try {
+      cube.rollUp(res100, 0, 250);
+      Assert.fail("Expected roll-up of an incomplete interval to fail");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testRollUpQueryFallback() throws Exception {
+    Aggregation agg1 = new DefaultAggregation(ImmutableList.of("dim1"));
+    int res1 = 1;
+    int res100 = 100;
+    // at time 260 with a lag of 50, intervals before 200 are rolled up, the later ones may not be
+    DefaultCube cube = new DefaultCube(new int[] {res1, res100}, getFactTableSupplier("myRollUpFallbackCube"),
+                                       ImmutableMap.of("agg1", agg1), ImmutableMap.<String, AggregationAlias>of(),
+                                       ImmutableSet.of(res100), 50L) {
+      @Override
+      long getCurrentTimeSeconds() {
+        return 260L;
+      }
+    };
+
+    writeInc(cube, "count", 1, 1, "1");
+    writeInc(cube, "count", 150, 3, "1");
+    writeInc(cube, "count", 210, 4, "1");
+    writeInc(cube, "count", 250, 5, "1");
+    writeGauge(cube, "gauge", 60, 6, "1");
+    writeGauge(cube, "gauge", 230, 8, "1");
+    writeGauge(cube, "gauge", 240, 9, "1");
+
+    // the interval that may not be rolled up yet is read from the finest resolution
+    verifyCountQuery(cube, 0, 300, res100, "count", AggregationFunction.SUM,
+                     ImmutableMap.of("dim1", "1"), new ArrayList<String>(),
+                     ImmutableList.of(new TimeSeries("count", new HashMap<String, String>(), timeValues(200, 9))));
+    // gauges take the latest value of the interval, also when the values are summed up by the query
+    verifyCountQuery(cube, 0, 300, res100, "gauge", AggregationFunction.SUM,
+                     ImmutableMap.of("dim1", "1"), new ArrayList<String>(),
+                     ImmutableList.of(new TimeSeries("gauge", new HashMap<String, String>(), timeValues(200, 9))));
+
+    // rolled up intervals are read from their resolution
+    cube.rollUp(res100, 0, 199);
+    verifyCountQuery(cube, 0, 300, res100, "count", AggregationFunction.SUM,
+                     ImmutableMap.of("dim1", "1"), new ArrayList<String>(),
+                     ImmutableList.of(new TimeSeries("count", new HashMap<String, String>(),
+                                                     timeValues(0, 1, 100, 3, 200, 9))));
+    verifyCountQuery(cube, 0, 300, res100, "gauge", AggregationFunction.SUM,
+                     ImmutableMap.of("dim1", "1"), new ArrayList<String>(),
+                     ImmutableList.of(new TimeSeries("gauge", new HashMap<String, String>(),
+                                                     timeValues(0, 6, 200, 9))));
+    // a query that ends before the interval that may not be rolled up yet only reads the rolled up values
+    verifyCountQuery(cube, 0, 150, res100, "count", AggregationFunction.SUM,
+                     ImmutableMap.of("dim1", "1"), new ArrayList<String>(),
+                     ImmutableList.of(new TimeSeries("count", new HashMap<String, String>(),
+                                                     timeValues(0, 1, 100, 3))));
+  }
+
+  private FactTableSupplier getFactTableSupplier(final String name) {
+    return new FactTableSupplier() {
       @Override
       public FactTable get(int resolution, int rollTime) {
         String entityTableName = "EntityTable-" + name;
@@ -45,7 +153,5 @@ public class DefaultCubeTest extends AbstractCubeTest {
 
       }
     };
-
-    return new DefaultCube(resolutions, supplier, aggregations, ImmutableMap.<String, AggregationAlias>of());
   }
 }
@@ -0,0 +1,195 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.data2.transaction.coprocessor;
+
+import co.cask.cdap.api.common.Bytes;
+import co.cask.cdap.data2.util.hbase.PruneUpperBoundTable;
+import co.cask.tephra.ChangeId;
+import co.cask.tephra.TransactionManager;
+import co.cask.tephra.TxConstants;
+import co.cask.tephra.coprocessor.TransactionStateCache;
+import co.cask.tephra.persist.TransactionSnapshot;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import org.apache.hadoop.conf.Configuration;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Tests for {@link CompactionState}.
+ */
+public class CompactionStateTest {
+
+  private static final byte[] REGION = Bytes.toBytes("region");
+  private static final byte[] FAMILY1 = Bytes.toBytes("f1");
+  private static final byte[] FAMILY2 = Bytes.toBytes("f2");
+  // Transaction ids in the tests are much smaller than the ids derived from this timestamp
+  private static final long TIMESTAMP = System.currentTimeMillis();
+
+  @Test
+  public void testPruneUpperBound() {
+    // no in progress transactions, everything up to the write pointer is either committed or invalid
+    Assert.assertEquals(20L, CompactionState.getPruneUpperBound(createSnapshot(20L, ImmutableList.of(5L, 7L)), 0L));
+    // bound by the first in progress transaction
+    Assert.assertEquals(15L, CompactionState.getPruneUpperBound(createSnapshot(20L, ImmutableList.of(5L, 7L),
+                                                                               16L, 18L), 0L));
+    long maxLifetimeMs = 100L;
+    // bound by the first in progress transaction if it is below the bound given by the max lifetime
+    long inProgress = 16L;
+    TransactionSnapshot snapshot = createSnapshot(1000L * TxConstants.MAX_TX_PER_MS, ImmutableList.of(5L), inProgress);
+    Assert.assertEquals(inProgress - 1, CompactionState.getPruneUpperBound(snapshot, maxLifetimeMs));
+    // bound by the transactions started within the max lifetime before the snapshot
+    Assert.assertEquals((TIMESTAMP - maxLifetimeMs) * TxConstants.MAX_TX_PER_MS,
+                        CompactionState.getPruneUpperBound(createSnapshot(Long.MAX_VALUE, ImmutableList.of(5L)),
+                                                           maxLifetimeMs));
+  }
+
+  @Test
+  public void testRecordAfterAllFamiliesCompacted() {
+    SnapshotSupplier snapshots = new SnapshotSupplier();
+    RecordingPruneTable pruneTable = new RecordingPruneTable();
+    CompactionState state = new CompactionState(snapshots, Suppliers.ofInstance(0L), pruneTable, "prefix:", REGION,
+                                                ImmutableSet.of(FAMILY1, FAMILY2));
+
+    snapshots.snapshot = createSnapshot(20L, ImmutableList.of(5L));
+    state.recordOpen();
+    state.recordSelection(FAMILY1);
+    state.recordCompaction(FAMILY1, true);
+    // Not recorded since the second family has not been compacted yet
+    Assert.assertTrue(pruneTable.bounds.isEmpty());
+
+    // A minor compaction doesn't count
+    state.recordSelection(FAMILY2);
+    state.recordCompaction(FAMILY2, false);
+    Assert.assertTrue(pruneTable.bounds.isEmpty());
+
+    state.recordSelection(FAMILY2);
+    state.recordCompaction(FAMILY2, true);
+    Assert.assertEquals(ImmutableList.of(20L), pruneTable.bounds);
+  }
+
+  @Test
+  public void testBoundFromLastFlush() {
+    SnapshotSupplier snapshots = new SnapshotSupplier();
+    RecordingPruneTable pruneTable = new RecordingPruneTable();
+    CompactionState state = new CompactionState(snapshots, Suppliers.ofInstance(0L), pruneTable, "prefix:", REGION,
+                                                ImmutableSet.of(FAMILY1));
+
+    // Nothing is known about the data in the memstore before the first flush or open
+    snapshots.snapshot = createSnapshot(20L, ImmutableList.of(5L));
+    state.recordSelection(FAMILY1);
+    state.recordCompaction(FAMILY1, true);
+    Assert.assertTrue(pruneTable.bounds.isEmpty());
+
+    // A compaction selected while the flush is still running cannot use the bound of that flush
+    state.recordFlushStart();
+    snapshots.snapshot = createSnapshot(30L, ImmutableList.of(5L, 25L));
+    state.recordSelection(FAMILY1);
+    state.recordCompaction(FAMILY1, true);
+    Assert.assertTrue(pruneTable.bounds.isEmpty());
+
+    // Once the flush completed, the bound computed when it started is used
+    state.recordFlush();
+    state.recordSelection(FAMILY1);
+    state.recordCompaction(FAMILY1, true);
+    Assert.assertEquals(ImmutableList.of(20L), pruneTable.bounds);
+
+    // Same bound is not recorded again
+    state.recordSelection(FAMILY1);
+    state.recordCompaction(FAMILY1, true);
+    Assert.assertEquals(ImmutableList.of(20L), pruneTable.bounds);
+
+    state.recordFlushStart();
+    state.recordFlush();
+    state.recordSelection(FAMILY1);
+    state.recordCompaction(FAMILY1, true);
+    Assert.assertEquals(ImmutableList.of(20L, 30L), pruneTable.bounds);
+
+    // No snapshot available when the flush started, the bound of the previous flush is kept
+    snapshots.snapshot = null;
+    state.recordFlushStart();
+    state.recordFlush();
+    snapshots.snapshot = createSnapshot(40L, ImmutableList.of(5L));
+    state.recordSelection(FAMILY1);
+    state.recordCompaction(FAMILY1, true);
+    Assert.assertEquals(ImmutableList.of(20L, 30L), pruneTable.bounds);
+  }
+
+  @Test
+  public void testMaxLifetimeUnavailable() {
+    SnapshotSupplier snapshots = new SnapshotSupplier();
+    RecordingPruneTable pruneTable = new RecordingPruneTable();
+    CompactionState state = new CompactionState(snapshots, new Supplier<Long>() {
+      @Override
+      public Long get() {
+        throw new IllegalStateException("Configuration not available");
+      }
+    }, pruneTable, "prefix:", REGION, ImmutableSet.of(FAMILY1));
+
+    snapshots.snapshot = createSnapshot(20L, ImmutableList.of(5L));
+    state.recordOpen();
+    state.recordSelection(FAMILY1);
+    state.recordCompaction(FAMILY1, true);
+    Assert.assertTrue(pruneTable.bounds.isEmpty());
+  }
+
+  private TransactionSnapshot createSnapshot(long writePointer, Collection<Long> invalid, long...inProgress) {
+    TreeMap<Long, TransactionManager.InProgressTx> inProgressMap = Maps.newTreeMap();
+    for (long tx : inProgress) {
+      inProgressMap.put(tx, new TransactionManager.InProgressTx(tx - 1, Long.MAX_VALUE));
+    }
+    return new TransactionSnapshot(TIMESTAMP, writePointer - 1, writePointer, invalid, inProgressMap,
+                                   ImmutableMap.<Long, Set<ChangeId>>of(), ImmutableMap.<Long, Set<ChangeId>>of());
+  }
+
+  private static final class SnapshotSupplier implements Supplier<TransactionStateCache> {
+    private TransactionSnapshot snapshot;
+
+    @Override
+    public TransactionStateCache get() {
+      return new TransactionStateCache() {
+        @Override
+        public TransactionSnapshot getLatestState() {
+          return snapshot;
+        }
+      };
+    }
+  }
+
+  private static final class RecordingPruneTable extends PruneUpperBoundTable {
+    private final List<Long> bounds = new ArrayList<>();
+
+    RecordingPruneTable() {
+      super(new Configuration());
+    }
+
+    @Override
+    public void savePruneUpperBound(String sysConfigTablePrefix, byte[] regionName, long pruneUpperBound) {
+      bounds.add(pruneUpperBound);
+    }
+  }
+}
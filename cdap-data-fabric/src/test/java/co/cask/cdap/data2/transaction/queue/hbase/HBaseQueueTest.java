@@ -103,7 +103,9 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Properties;
 
 /**
  * HBase queue tests.
@@ -495,6 +497,53 @@ public abstract class HBaseQueueTest extends QueueTest {
     verifyQueueIsEmpty(queueName, ImmutableList.of(consumerConfig));
   }
 
+  @Test (timeout = 30000L)
+  public void testWriteOnceLayout() throws Exception {
+    final QueueName queueName = QueueName.fromFlowlet(Id.Namespace.DEFAULT.getId(), "app",
+                                                      "writeOnceFlow", "flowlet", "out");
+    Properties properties = new Properties();
+    properties.setProperty(QueueConstants.QUEUE_LAYOUT, QueueConstants.QueueLayout.WRITE_ONCE.toString());
+    queueAdmin.create(queueName, properties);
+
+    final List<ConsumerConfig> consumerConfigs = ImmutableList.of(
+      new ConsumerConfig(0L, 0, 1, DequeueStrategy.FIFO, null),
+      new ConsumerConfig(1L, 0, 1, DequeueStrategy.HASH, "key")
+    );
+    List<ConsumerGroupConfig> groupConfigs = Lists.newArrayList();
+    for (ConsumerConfig consumerConfig : consumerConfigs) {
+      groupConfigs.add(new ConsumerGroupConfig(consumerConfig));
+    }
+    configureGroups(queueName, groupConfigs);
+
+    createEnqueueRunnable(queueName, 10, 1, null).run();
+
+    // One payload row per entry, plus one row without payload per entry and consumer group
+    TableId tableId = ((HBaseQueueAdmin) queueAdmin).getDataTableId(queueName);
+    Assert.assertEquals(30, countRows(tableId));
+
+    // Each consumer group should see all the entries
+    for (ConsumerConfig consumerConfig : consumerConfigs) {
+      final List<Integer> values = Lists.newArrayList();
+      try (final QueueConsumer consumer = queueClientFactory.createConsumer(queueName, consumerConfig, 2)) {
+        while (values.size() != 10) {
+          Transactions.createTransactionExecutor(executorFactory, (TransactionAware) consumer)
+            .execute(new TransactionExecutor.Subroutine() {
+              @Override
+              public void apply() throws Exception {
+                for (byte[] data : consumer.dequeue(10)) {
+                  values.add(Bytes.toInt(data));
+                }
+              }
+            });
+        }
+      }
+      Collections.sort(values);
+      Assert.assertEquals(ImmutableList.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), values);
+    }
+
+    verifyQueueIsEmpty(queueName, consumerConfigs);
+  }
+
   @Test (timeout = 30000L)
   public void testReconfigure() throws Exception {
     final QueueName queueName = QueueName.fromFlowlet(Id.Namespace.DEFAULT.getId(),
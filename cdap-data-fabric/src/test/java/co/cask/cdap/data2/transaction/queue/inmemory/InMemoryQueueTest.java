@@ -15,9 +15,11 @@
  */
 package co.cask.cdap.data2.transaction.queue.inmemory;
 
+import co.cask.cdap.api.common.Bytes;
 import co.cask.cdap.common.guice.ConfigModule;
 import co.cask.cdap.common.guice.DiscoveryRuntimeModule;
 import co.cask.cdap.common.guice.LocationUnitTestModule;
+import co.cask.cdap.common.queue.QueueName;
 import co.cask.cdap.data.runtime.DataFabricModules;
 import co.cask.cdap.data.runtime.DataSetsModules;
 import co.cask.cdap.data.runtime.SystemDatasetRuntimeModule;
@@ -26,25 +28,49 @@ import co.cask.cdap.data.stream.StreamAdminModules;
 import co.cask.cdap.data.stream.service.InMemoryStreamMetaStore;
 import co.cask.cdap.data.stream.service.StreamMetaStore;
 import co.cask.cdap.data.view.ViewAdminModules;
+import co.cask.cdap.data2.queue.ConsumerConfig;
+import co.cask.cdap.data2.queue.DequeueResult;
+import co.cask.cdap.data2.queue.DequeueStrategy;
 import co.cask.cdap.data2.queue.QueueClientFactory;
+import co.cask.cdap.data2.queue.QueueEntry;
 import co.cask.cdap.data2.transaction.queue.QueueAdmin;
 import co.cask.cdap.data2.transaction.queue.QueueTest;
 import co.cask.cdap.data2.transaction.stream.StreamAdmin;
 import co.cask.cdap.explore.guice.ExploreClientModule;
+import co.cask.tephra.Transaction;
 import co.cask.tephra.TransactionExecutorFactory;
 import co.cask.tephra.TransactionManager;
 import co.cask.tephra.TransactionSystemClient;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 import com.google.inject.util.Modules;
+import org.junit.Assert;
 import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * In-memory queue tests.
  */
 public class InMemoryQueueTest extends QueueTest {
 
+  private static final long TIMEOUT_MS = 2 * 60 * 1000L;
+
   private static Injector injector;
 
   @BeforeClass
@@ -77,4 +103,122 @@ public class InMemoryQueueTest extends QueueTest {
     queueAdmin = injector.getInstance(QueueAdmin.class);
     executorFactory = injector.getInstance(TransactionExecutorFactory.class);
   }
+
+  @Test
+  public void testDequeueReclaimDequeue() throws Exception {
+    QueueName queueName = QueueName.fromFlowlet(NAMESPACE_ID.getId(), "app", "flow", "flowlet", "reclaim");
+    InMemoryQueueService queueService = injector.getInstance(InMemoryQueueService.class);
+    InMemoryQueue queue = queueService.getQueue(queueName);
+    for (int i = 0; i < 4; i++) {
+      queue.enqueue(1L, i, new QueueEntry(Bytes.toBytes(i)));
+    }
+
+    InMemoryQueueConsumer consumer =
+      new InMemoryQueueConsumer(queueName, new ConsumerConfig(0L, 0, 1, DequeueStrategy.FIFO, null), 1, queueService);
+
+    // Dequeue two entries and fail the transaction
+    consumer.startTx(createTx(2L));
+    DequeueResult<byte[]> result = consumer.dequeue(2);
+    Assert.assertEquals(ImmutableList.of(0, 1), toInts(result));
+    Assert.assertTrue(consumer.rollbackTx());
+
+    // The result cannot be modified
+    Iterator<byte[]> iterator = result.iterator();
+    iterator.next();
+    try {
+      iterator.remove();
+      Assert.fail("Expected the dequeue result to be unmodifiable");
+    } catch (UnsupportedOperationException e) {
+      // expected
+    }
+
+    // Reclaim the entries in a new transaction and process them
+    consumer.startTx(createTx(3L));
+    result.reclaim();
+    Assert.assertTrue(consumer.commitTx());
+    consumer.postTxCommit();
+    // Reclaiming doesn't change the result
+    Assert.assertEquals(ImmutableList.of(0, 1), toInts(result));
+    Assert.assertEquals(2, queue.getSize());
+
+    // The next dequeue returns the remaining entries only
+    consumer.startTx(createTx(4L));
+    result = consumer.dequeue(4);
+    Assert.assertEquals(ImmutableList.of(2, 3), toInts(result));
+    Assert.assertTrue(consumer.commitTx());
+    consumer.postTxCommit();
+    Assert.assertEquals(0, queue.getSize());
+
+    consumer.startTx(createTx(5L));
+    Assert.assertTrue(consumer.dequeue(4).isEmpty());
+    Assert.assertTrue(consumer.commitTx());
+  }
+
+  @Test(timeout = TIMEOUT_MS)
+  public void testEvictDuringDequeue() throws Exception {
+    final QueueName queueName = QueueName.fromFlowlet(NAMESPACE_ID.getId(), "app", "flow", "flowlet", "evict");
+    final InMemoryQueueService queueService = injector.getInstance(InMemoryQueueService.class);
+    InMemoryQueue queue = queueService.getQueue(queueName);
+    final int numEntries = 5000;
+    for (int i = 0; i < numEntries; i++) {
+      queue.enqueue(1L, i, new QueueEntry(Bytes.toBytes(i)));
+    }
+
+    // Two consumers of a FIFO group, each evicting the entries it processed while the other one dequeues
+    final int numConsumers = 2;
+    final AtomicLong txIds = new AtomicLong(1L);
+    final AtomicInteger processed = new AtomicInteger();
+    final Set<Integer> seen = Collections.newSetFromMap(new ConcurrentHashMap<Integer, Boolean>());
+    ExecutorService executor = Executors.newFixedThreadPool(numConsumers);
+    try {
+      List<Future<Integer>> futures = Lists.newArrayList();
+      for (int i = 0; i < numConsumers; i++) {
+        final ConsumerConfig config = new ConsumerConfig(0L, i, numConsumers, DequeueStrategy.FIFO, null);
+        futures.add(executor.submit(new Callable<Integer>() {
+          @Override
+          public Integer call() throws Exception {
+            InMemoryQueueConsumer consumer = new InMemoryQueueConsumer(queueName, config, 1, queueService);
+            int duplicates = 0;
+            while (processed.get() < numEntries) {
+              consumer.startTx(createTx(txIds.incrementAndGet()));
+              DequeueResult<byte[]> result = consumer.dequeue(10);
+              for (int value : toInts(result)) {
+                if (!seen.add(value)) {
+                  duplicates++;
+                }
+              }
+              consumer.commitTx();
+              consumer.postTxCommit();
+              processed.addAndGet(result.size());
+            }
+            return duplicates;
+          }
+        }));
+      }
+      for (Future<Integer> future : futures) {
+        Assert.assertEquals(0, future.get(TIMEOUT_MS, TimeUnit.MILLISECONDS).intValue());
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    Assert.assertEquals(numEntries, processed.get());
+    Assert.assertEquals(numEntries, seen.size());
+    Assert.assertEquals(0, queue.getSize());
+  }
+
+  /**
+   * Creates a transaction that can read the entries enqueued by transaction 1, with no other transaction in progress.
+   */
+  private static Transaction createTx(long txId) {
+    return new Transaction(1L, txId, new long[0], new long[0], Long.MAX_VALUE);
+  }
+
+  private static List<Integer> toInts(DequeueResult<byte[]> result) {
+    List<Integer> values = Lists.newArrayList();
+    for (byte[] data : result) {
+      values.add(Bytes.toInt(data));
+    }
+    return values;
+  }
 }
@@ -21,6 +21,9 @@ import co.cask.cdap.api.data.format.Formats;
 import co.cask.cdap.api.data.schema.Schema;
 import co.cask.cdap.api.flow.flowlet.StreamEvent;
 import co.cask.cdap.common.conf.Constants;
+import co.cask.cdap.common.io.BinaryDecoder;
+import co.cask.cdap.common.io.Decoder;
+import co.cask.cdap.common.stream.StreamEventDataCodec;
 import co.cask.cdap.common.stream.StreamEventTypeAdapter;
 import co.cask.cdap.common.utils.Tasks;
 import co.cask.cdap.data2.transaction.stream.StreamConfig;
@@ -53,6 +56,7 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
@@ -204,6 +208,63 @@ public class StreamHandlerTest extends GatewayTestBase {
     urlConn.disconnect();
   }
 
+  @Test
+  public void testBinaryFetchWithOffset() throws Exception {
+    // Create new stream.
+    HttpURLConnection urlConn = openURL(createURL("streams/test_stream_binary_fetch"), HttpMethod.PUT);
+    Assert.assertEquals(HttpResponseStatus.OK.getCode(), urlConn.getResponseCode());
+    urlConn.disconnect();
+
+    // Enqueue 10 entries
+    for (int i = 0; i < 10; ++i) {
+      urlConn = openURL(createURL("streams/test_stream_binary_fetch"), HttpMethod.POST);
+      urlConn.setDoOutput(true);
+      urlConn.addRequestProperty("test_stream_binary_fetch.header1", Integer.toString(i));
+      urlConn.getOutputStream().write(Integer.toString(i).getBytes(Charsets.UTF_8));
+      Assert.assertEquals(HttpResponseStatus.OK.getCode(), urlConn.getResponseCode());
+      urlConn.disconnect();
+    }
+
+    // Invalid format
+    urlConn = openURL(createURL("streams/test_stream_binary_fetch/events?format=xml"), HttpMethod.GET);
+    Assert.assertEquals(HttpResponseStatus.BAD_REQUEST.getCode(), urlConn.getResponseCode());
+    urlConn.disconnect();
+
+    // Invalid offset
+    urlConn = openURL(createURL("streams/test_stream_binary_fetch/events?format=avro&offset=abc"), HttpMethod.GET);
+    Assert.assertEquals(HttpResponseStatus.BAD_REQUEST.getCode(), urlConn.getResponseCode());
+    urlConn.disconnect();
+
+    // Fetch the first 4 entries
+    List<StreamEvent> events = Lists.newArrayList();
+    urlConn = openURL(createURL("streams/test_stream_binary_fetch/events?format=avro&limit=4"), HttpMethod.GET);
+    Assert.assertEquals(HttpResponseStatus.OK.getCode(), urlConn.getResponseCode());
+    String offset = decodeBinaryEvents(urlConn.getInputStream(), events);
+    urlConn.disconnect();
+    Assert.assertEquals(4, events.size());
+
+    // Resume from the offset to fetch the rest
+    urlConn = openURL(createURL("streams/test_stream_binary_fetch/events?format=avro&offset=" + offset),
+                      HttpMethod.GET);
+    Assert.assertEquals(HttpResponseStatus.OK.getCode(), urlConn.getResponseCode());
+    offset = decodeBinaryEvents(urlConn.getInputStream(), events);
+    urlConn.disconnect();
+
+    Assert.assertEquals(10, events.size());
+    for (int i = 0; i < 10; i++) {
+      StreamEvent event = events.get(i);
+      int actual = Integer.parseInt(Charsets.UTF_8.decode(event.getBody()).toString());
+      Assert.assertEquals(i, actual);
+      Assert.assertEquals(Integer.toString(i), event.getHeaders().get("header1"));
+    }
+
+    // Nothing left after the last offset
+    urlConn = openURL(createURL("streams/test_stream_binary_fetch/events?format=avro&offset=" + offset),
+                      HttpMethod.GET);
+    Assert.assertEquals(HttpResponseStatus.NO_CONTENT.getCode(), urlConn.getResponseCode());
+    urlConn.disconnect();
+  }
+
   @Test
   public void testStreamInfo() throws Exception {
     // Now, create the new stream.
@@ -412,6 +473,22 @@ public class StreamHandlerTest extends GatewayTestBase {
     Assert.assertEquals(200, response.getResponseCode());
   }
 
+  /**
+   * Decodes stream events in the binary fetch format and returns the resume offset.
+   */
+  private String decodeBinaryEvents(InputStream input, List<StreamEvent> events) throws IOException {
+    Decoder decoder = new BinaryDecoder(input);
+    long count = decoder.readLong();
+    while (count > 0) {
+      for (long i = 0; i < count; i++) {
+        long timestamp = decoder.readLong();
+        events.add(new StreamEvent(StreamEventDataCodec.decode(decoder), timestamp));
+      }
+      count = decoder.readLong();
+    }
+    return decoder.readString();
+  }
+
   private List<String> fetchEvents(Id.Stream streamId) throws Exception {
     URL url = createURL(streamId.getNamespaceId(), "streams/" + streamId.getId() + "/events");
     HttpRequest request = HttpRequest.get(url).build();
@@ -17,6 +17,7 @@
 package co.cask.cdap.data2.transaction.coprocessor.hbase10cdh550;
 
 import co.cask.cdap.data2.increment.hbase10cdh550.IncrementTxFilter;
+import co.cask.cdap.data2.transaction.coprocessor.CompactionState;
 import co.cask.cdap.data2.transaction.coprocessor.DefaultTransactionStateCacheSupplier;
 import co.cask.cdap.data2.util.hbase.HTable10CDH550NameConverter;
 import co.cask.tephra.Transaction;
@@ -24,21 +25,44 @@ import co.cask.tephra.coprocessor.TransactionStateCache;
 import co.cask.tephra.hbase10cdh.coprocessor.CellSkipFilter;
 import co.cask.tephra.hbase10cdh.coprocessor.TransactionProcessor;
 import com.google.common.base.Supplier;
+import org.apache.hadoop.hbase.CoprocessorEnvironment;
+import org.apache.hadoop.hbase.coprocessor.ObserverContext;
 import org.apache.hadoop.hbase.coprocessor.RegionCoprocessorEnvironment;
 import org.apache.hadoop.hbase.filter.Filter;
 import org.apache.hadoop.hbase.regionserver.ScanType;
+import org.apache.hadoop.hbase.regionserver.Store;
+import org.apache.hadoop.hbase.regionserver.StoreFile;
+import org.apache.hadoop.hbase.regionserver.compactions.CompactionRequest;
+
+import java.io.IOException;
+import java.util.List;
 
 /**
  * Implementation of the {@link co.cask.tephra.hbase10cdh.coprocessor.TransactionProcessor}
  * coprocessor that uses {@link co.cask.cdap.data2.transaction.coprocessor.DefaultTransactionStateCache}
- * to automatically refresh transaction state.
+ * to automatically refresh transaction state, and that records the prune upper bound of the region
+ * after major compactions through {@link CompactionState}.
  */
 public class DefaultTransactionProcessor extends TransactionProcessor {
+
+  private CompactionState compactionState;
+
+  @Override
+  public void start(CoprocessorEnvironment e) throws IOException {
+    super.start(e);
+    if (e instanceof RegionCoprocessorEnvironment) {
+      RegionCoprocessorEnvironment env = (RegionCoprocessorEnvironment) e;
+      compactionState = new CompactionState(getTransactionStateCacheSupplier(env),
+                                            env.getConfiguration(),
+                                            getSysConfigTablePrefix(env),
+                                            env.getRegion().getRegionInfo().getRegionName(),
+                                            env.getRegion().getTableDesc().getFamiliesKeys());
+    }
+  }
+
   @Override
   protected Supplier<TransactionStateCache> getTransactionStateCacheSupplier(RegionCoprocessorEnvironment env) {
-    String sysConfigTablePrefix =
-        new HTable10CDH550NameConverter().getSysConfigTablePrefix(env.getRegion().getTableDesc());
-    return new DefaultTransactionStateCacheSupplier(sysConfigTablePrefix, env.getConfiguration());
+    return new DefaultTransactionStateCacheSupplier(getSysConfigTablePrefix(env), env.getConfiguration());
   }
 
   @Override
@@ -46,4 +70,50 @@ public class DefaultTransactionProcessor extends TransactionProcessor {
     IncrementTxFilter incrementTxFilter = new IncrementTxFilter(tx, ttlByFamily, allowEmptyValues, scanType, filter);
     return new CellSkipFilter(incrementTxFilter);
   }
+
+  @Override
+  public void preCompactSelection(ObserverContext<RegionCoprocessorEnvironment> c, Store store,
+                                  List<StoreFile> candidates, CompactionRequest request) throws IOException {
+    super.preCompactSelection(c, store, candidates, request);
+    if (compactionState != null) {
+      compactionState.recordSelection(store.getFamily().getName());
+    }
+  }
+
+  @Override
+  public void postCompact(ObserverContext<RegionCoprocessorEnvironment> e, Store store, StoreFile resultFile,
+                          CompactionRequest request) throws IOException {
+    super.postCompact(e, store, resultFile, request);
+    if (compactionState != null && request != null) {
+      compactionState.recordCompaction(store.getFamily().getName(), request.isMajor());
+    }
+  }
+
+  @Override
+  public void postOpen(ObserverContext<RegionCoprocessorEnvironment> e) {
+    super.postOpen(e);
+    if (compactionState != null) {
+      compactionState.recordOpen();
+    }
+  }
+
+  @Override
+  public void preFlush(ObserverContext<RegionCoprocessorEnvironment> e) throws IOException {
+    super.preFlush(e);
+    if (compactionState != null) {
+      compactionState.recordFlushStart();
+    }
+  }
+
+  @Override
+  public void postFlush(ObserverContext<RegionCoprocessorEnvironment> e) throws IOException {
+    super.postFlush(e);
+    if (compactionState != null) {
+      compactionState.recordFlush();
+    }
+  }
+
+  private String getSysConfigTablePrefix(RegionCoprocessorEnvironment env) {
+    return new HTable10CDH550NameConverter().getSysConfigTablePrefix(env.getRegion().getTableDesc());
+  }
 }
@@ -21,6 +21,8 @@ import co.cask.cdap.data2.transaction.queue.ConsumerEntryState;
 import co.cask.cdap.data2.transaction.queue.QueueEntryRow;
 import co.cask.cdap.data2.transaction.queue.hbase.HBaseQueueAdmin;
 import co.cask.cdap.data2.transaction.queue.hbase.SaltedHBaseQueueStrategy;
+import co.cask.cdap.data2.transaction.queue.hbase.ShardedHBaseQueueStrategy;
+import co.cask.cdap.data2.transaction.queue.hbase.WriteOnceHBaseQueueStrategy;
 import co.cask.cdap.data2.transaction.queue.hbase.coprocessor.CConfigurationReader;
 import co.cask.cdap.data2.transaction.queue.hbase.coprocessor.ConsumerConfigCache;
 import co.cask.cdap.data2.transaction.queue.hbase.coprocessor.ConsumerInstance;
@@ -267,6 +269,14 @@ public final class HBaseQueueRegionObserver extends BaseRegionObserver {
         return false;
       }
 
+      // Payload rows of the write once queue layout have no consumer state. They can be evicted once all consumers
+      // have moved past them.
+      Cell firstCell = result.get(0);
+      if (isPayloadRow(firstCell)) {
+        byte[] smallestStartRow = consumerConfig.getSmallestStartRow();
+        return smallestStartRow != null && compareRowKey(firstCell, smallestStartRow) < 0;
+      }
+
       // TODO (terence): Right now we can only evict if we see all the data columns.
       // It's because it's possible that in some previous flush, only the data columns are flush,
       // then consumer writes the state columns. In the next flush, it'll only see the state columns and those
@@ -324,6 +334,21 @@ public final class HBaseQueueRegionObserver extends BaseRegionObserver {
         || compareRowKey(result.get(0), consumerConfig.getSmallestStartRow()) < 0;
     }
 
+    /**
+     * Returns {@code true} if the given {@link Cell} belongs to a payload row of the write once queue layout.
+     */
+    private boolean isPayloadRow(Cell cell) {
+      if (prefixBytes != ShardedHBaseQueueStrategy.PREFIX_BYTES || cell.getRowLength() < prefixBytes) {
+        return false;
+      }
+      // Shard is <salt> <consumer_group_id> <consumer_instance_id>
+      int shardOffset = cell.getRowOffset() + SaltedHBaseQueueStrategy.SALT_BYTES;
+      int shardId = Bytes.toInt(cell.getRowArray(), shardOffset + Bytes.SIZEOF_LONG);
+      long groupId = Bytes.toLong(cell.getRowArray(), shardOffset);
+      return shardId == WriteOnceHBaseQueueStrategy.PAYLOAD_SHARD_ID
+        && groupId == WriteOnceHBaseQueueStrategy.PAYLOAD_GROUP_ID;
+    }
+
     private int compareRowKey(Cell cell, byte[] row) {
       return Bytes.compareTo(cell.getRowArray(), cell.getRowOffset() + prefixBytes,
                              cell.getRowLength() - prefixBytes, row, 0, row.length);
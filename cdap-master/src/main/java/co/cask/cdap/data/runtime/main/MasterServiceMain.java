@@ -46,9 +46,11 @@ import co.cask.cdap.data.stream.StreamAdminModules;
 import co.cask.cdap.data.view.ViewAdminModules;
 import co.cask.cdap.data2.audit.AuditModule;
 import co.cask.cdap.data2.datafabric.dataset.service.DatasetService;
+import co.cask.cdap.data2.transaction.InvalidListPruningService;
 import co.cask.cdap.data2.util.hbase.ConfigurationTable;
 import co.cask.cdap.data2.util.hbase.HBaseTableUtil;
 import co.cask.cdap.data2.util.hbase.HBaseTableUtilFactory;
+import co.cask.cdap.data2.util.hbase.PruneUpperBoundTable;
 import co.cask.cdap.explore.client.ExploreClient;
 import co.cask.cdap.explore.guice.ExploreClientModule;
 import co.cask.cdap.explore.service.ExploreServiceUtils;
@@ -212,6 +214,7 @@ public class MasterServiceMain extends DaemonMain {
 
     createSystemHBaseNamespace();
     updateConfigurationTable();
+    createPruneUpperBoundTable();
 
     zkClient.startAndWait();
     // Tries to create the ZK root node (which can be namespaced through the zk connection string)
@@ -389,6 +392,18 @@ public class MasterServiceMain extends DaemonMain {
     }
   }
 
+  /**
+   * The transaction coprocessors record the prune upper bounds of regions after major compactions, which are
+   * used by the {@link InvalidListPruningService} to remove entries from the invalid transaction list.
+   */
+  private void createPruneUpperBoundTable() {
+    try {
+      new PruneUpperBoundTable(hConf).createTableIfNotExists(new HBaseTableUtilFactory(cConf).get());
+    } catch (IOException ioe) {
+      throw Throwables.propagate(ioe);
+    }
+  }
+
   /**
    * Creates a guice {@link Injector} used by this master service process.
    */
@@ -509,6 +524,9 @@ public class MasterServiceMain extends DaemonMain {
         }
       }, RetryStrategies.exponentialDelay(200, 5000, TimeUnit.MILLISECONDS)));
       services.add(injector.getInstance(AppFabricServer.class));
+      if (cConf.getBoolean(Constants.Transaction.Prune.ENABLE)) {
+        services.add(injector.getInstance(InvalidListPruningService.class));
+      }
 
       executor = Executors.newSingleThreadScheduledExecutor(Threads.createDaemonThreadFactory("master-runner"));
 
@@ -19,16 +19,26 @@ package co.cask.cdap.notifications.service.kafka;
 import com.google.common.base.Objects;
 import com.google.gson.JsonElement;
 
+import javax.annotation.Nullable;
+
 /**
  * Message sent to Kafka that contains a serialized notification.
  */
 class KafkaMessage {
   private final String messageKey;
   private final JsonElement notificationJson;
+  // Messages from older versions don't carry a publisher id
+  @Nullable
+  private final String publisherId;
 
   public KafkaMessage(String messageKey, JsonElement notificationJson) {
+    this(messageKey, notificationJson, null);
+  }
+
+  public KafkaMessage(String messageKey, JsonElement notificationJson, @Nullable String publisherId) {
     this.messageKey = messageKey;
     this.notificationJson = notificationJson;
+    this.publisherId = publisherId;
   }
 
   public String getMessageKey() {
@@ -39,11 +49,20 @@ class KafkaMessage {
     return notificationJson;
   }
 
+  /**
+   * Returns the id of the notification service instance that published this message, or {@code null} if unknown.
+   */
+  @Nullable
+  public String getPublisherId() {
+    return publisherId;
+  }
+
   @Override
   public String toString() {
     return Objects.toStringHelper(this)
       .add("messageKey", messageKey)
       .add("notificationJson", notificationJson)
+      .add("publisherId", publisherId)
       .toString();
   }
 }
@@ -28,10 +28,11 @@ import co.cask.cdap.notifications.service.NotificationException;
 import co.cask.cdap.notifications.service.NotificationHandler;
 import co.cask.cdap.notifications.service.NotificationService;
 import co.cask.cdap.proto.Id;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.util.concurrent.ListenableFuture;
-import com.google.common.util.concurrent.ListeningExecutorService;
-import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.gson.JsonElement;
 import com.google.inject.Inject;
 import org.apache.twill.common.Cancellable;
 import org.apache.twill.common.Threads;
@@ -48,14 +49,27 @@ import java.io.IOException;
 import java.lang.reflect.Type;
 import java.nio.ByteBuffer;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.Callable;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Kafka implementation of the {@link NotificationService}.
+ * <p>
+ * Published notifications are queued and sent to Kafka in batches by a single publishing thread. A batch is sent
+ * once it reaches the configured size, or once the linger time after its first notification elapsed. After a
+ * batch has been sent, the publish futures are completed and the notifications are delivered to the subscribers
+ * of this service by a separate delivery thread, so that slow subscribers don't hold up publishing. The copies
+ * later consumed from Kafka are ignored.
+ * </p>
  */
 public class KafkaNotificationService extends AbstractNotificationService {
   private static final Logger LOG = LoggerFactory.getLogger(KafkaNotificationService.class);
@@ -68,9 +82,17 @@ public class KafkaNotificationService extends AbstractNotificationService {
   private KafkaPublisher kafkaPublisher;
   private final int nbPartitions;
   private final String notificationTopic;
+  private final int publishBatchSize;
+  private final long publishLingerMs;
 
-  // Executor to publish notifications to Kafka
-  private ListeningExecutorService publishingExecutor;
+  // Identifies the notifications published by this service instance
+  private final String publisherId;
+  private final BlockingQueue<PendingNotification<?>> pendingNotifications;
+
+  // Executor running the loop that publishes notifications to Kafka
+  private ExecutorService publishingExecutor;
+  // Executor delivering published notifications to the subscribers of this service, in publishing order
+  private ExecutorService deliveryExecutor;
 
   @Inject
   KafkaNotificationService(CConfiguration cConf, KafkaClient kafkaClient, DatasetFramework dsFramework,
@@ -82,21 +104,43 @@ public class KafkaNotificationService extends AbstractNotificationService {
     this.ack = KafkaPublisher.Ack.LEADER_RECEIVED;
     this.nbPartitions = cConf.getInt("kafka.num.partitions");
     this.notificationTopic = cConf.get(Constants.Notification.KAFKA_TOPIC);
+    this.publishBatchSize = cConf.getInt(Constants.Notification.KAFKA_PUBLISH_BATCH_SIZE);
+    this.publishLingerMs = cConf.getLong(Constants.Notification.KAFKA_PUBLISH_LINGER_MS);
     this.kafkaCallbacks = Maps.newHashMap();
-
+    this.publisherId = UUID.randomUUID().toString();
+    this.pendingNotifications = new LinkedBlockingQueue<>();
   }
 
   @Override
   protected void startUp() throws Exception {
     super.startUp();
     kafkaPublisher = kafkaClient.getPublisher(ack, Compression.SNAPPY);
-    publishingExecutor = MoreExecutors.listeningDecorator(
-      Executors.newSingleThreadExecutor(Threads.createDaemonThreadFactory("notification-publisher-%d")));
+    publishingExecutor = Executors.newSingleThreadExecutor(
+      Threads.createDaemonThreadFactory("notification-publisher-%d"));
+    deliveryExecutor = Executors.newSingleThreadExecutor(
+      Threads.createDaemonThreadFactory("notification-delivery-%d"));
+    publishingExecutor.execute(new Runnable() {
+      @Override
+      public void run() {
+        publishNotifications();
+      }
+    });
   }
 
   @Override
   protected void shutDown() throws Exception {
     publishingExecutor.shutdownNow();
+    publishingExecutor.awaitTermination(5, TimeUnit.SECONDS);
+    // Let the subscribers process what has already been published
+    deliveryExecutor.shutdown();
+    deliveryExecutor.awaitTermination(5, TimeUnit.SECONDS);
+
+    // Fail whatever has not been published
+    List<PendingNotification<?>> remaining = Lists.newArrayList();
+    pendingNotifications.drainTo(remaining);
+    for (PendingNotification<?> notification : remaining) {
+      notification.future.setException(new CancellationException("Notification service stopped."));
+    }
     super.shutDown();
   }
 
@@ -105,26 +149,114 @@ public class KafkaNotificationService extends AbstractNotificationService {
                                          final Type notificationType)
     throws NotificationException {
     LOG.trace("Publishing on notification feed [{}]: {}", feed, notification);
-    return publishingExecutor.submit(new Callable<N>() {
-      @Override
-      public N call() throws Exception {
+    JsonElement notificationJson = createGson().toJsonTree(notification, notificationType);
+    KafkaMessage message = new KafkaMessage(KafkaNotificationUtils.getMessageKey(feed), notificationJson, publisherId);
+    ByteBuffer payload;
+    try {
+      payload = KafkaMessageCodec.encode(message);
+    } catch (IOException e) {
+      throw new NotificationException(e);
+    }
+
+    PendingNotification<N> pending = new PendingNotification<>(feed, notification, message, payload);
+    pendingNotifications.add(pending);
+    return pending.future;
+  }
+
+  /**
+   * Publishes the queued notifications in batches until the publishing thread is interrupted.
+   */
+  private void publishNotifications() {
+    List<PendingNotification<?>> batch = Lists.newArrayList();
+    try {
+      while (!Thread.currentThread().isInterrupted()) {
+        batch.add(pendingNotifications.take());
+
+        // Wait for more notifications, up to the batch size or the linger time
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(publishLingerMs);
+        while (batch.size() < publishBatchSize) {
+          long waitNanos = deadline - System.nanoTime();
+          PendingNotification<?> next = waitNanos > 0
+            ? pendingNotifications.poll(waitNanos, TimeUnit.NANOSECONDS)
+            : pendingNotifications.poll();
+          if (next == null) {
+            break;
+          }
+          batch.add(next);
+        }
+
         try {
-          KafkaMessage message = new KafkaMessage(KafkaNotificationUtils.getMessageKey(feed),
-                                                  createGson().toJsonTree(notification, notificationType));
-          ByteBuffer bb = KafkaMessageCodec.encode(message);
+          publishBatch(batch);
+        } catch (InterruptedException e) {
+          throw e;
+        } catch (Throwable t) {
+          // Futures that already completed are not affected
+          for (PendingNotification<?> notification : batch) {
+            notification.future.setException(new NotificationException(t));
+          }
+        }
+        batch.clear();
+      }
+    } catch (InterruptedException e) {
+      // Interrupted by shutdown
+      for (PendingNotification<?> notification : batch) {
+        notification.future.setException(e);
+      }
+    }
+  }
 
-          TopicPartition topicPartition = KafkaNotificationUtils.getKafkaTopicPartition(notificationTopic, feed);
-          KafkaPublisher.Preparer preparer = kafkaPublisher.prepare(topicPartition.getTopic());
-          preparer.add(bb, message.getMessageKey());
+  /**
+   * Publishes a batch of notifications, with one Kafka request per topic.
+   */
+  private void publishBatch(List<PendingNotification<?>> batch) throws InterruptedException {
+    Map<String, List<PendingNotification<?>>> notificationsByTopic = Maps.newHashMap();
+    for (PendingNotification<?> notification : batch) {
+      String topic = KafkaNotificationUtils.getKafkaTopicPartition(notificationTopic, notification.feed).getTopic();
+      List<PendingNotification<?>> notifications = notificationsByTopic.get(topic);
+      if (notifications == null) {
+        notifications = Lists.newArrayList();
+        notificationsByTopic.put(topic, notifications);
+      }
+      notifications.add(notification);
+    }
+
+    for (Map.Entry<String, List<PendingNotification<?>>> entry : notificationsByTopic.entrySet()) {
+      KafkaPublisher.Preparer preparer = kafkaPublisher.prepare(entry.getKey());
+      for (PendingNotification<?> notification : entry.getValue()) {
+        preparer.add(notification.payload, notification.message.getMessageKey());
+      }
+
+      try {
+        preparer.send().get();
+      } catch (ExecutionException e) {
+        for (PendingNotification<?> notification : entry.getValue()) {
+          notification.future.setException(new NotificationException(e.getCause()));
+        }
+        continue;
+      }
 
+      LOG.trace("Published {} notifications to topic {}", entry.getValue().size(), entry.getKey());
+      for (PendingNotification<?> notification : entry.getValue()) {
+        notification.published();
+      }
+      deliver(entry.getValue());
+    }
+  }
+
+  /**
+   * Delivers published notifications to the subscribers of this service without waiting for the messages
+   * to come back from Kafka.
+   */
+  private void deliver(final List<PendingNotification<?>> notifications) {
+    deliveryExecutor.execute(new Runnable() {
+      @Override
+      public void run() {
+        for (PendingNotification<?> notification : notifications) {
           try {
-            preparer.send().get();
-            return notification;
-          } catch (ExecutionException e) {
-            throw new NotificationException(e.getCause());
+            notificationReceived(notification.feed, notification.message.getNotificationJson());
+          } catch (Throwable t) {
+            LOG.warn("Error while processing notification {}", notification.message.getNotificationJson(), t);
           }
-        } catch (IOException e) {
-          throw new NotificationException(e);
         }
       }
     });
@@ -216,6 +348,10 @@ public class KafkaNotificationService extends AbstractNotificationService {
 
         try {
           KafkaMessage decodedMessage = KafkaMessageCodec.decode(payload);
+          if (publisherId.equals(decodedMessage.getPublisherId())) {
+            // Already delivered when it was published
+            continue;
+          }
           try {
             LOG.trace("Decoded notification from Kafka: {}", decodedMessage);
             notificationReceived(KafkaNotificationUtils.getMessageFeed(decodedMessage.getMessageKey()),
@@ -236,4 +372,29 @@ public class KafkaNotificationService extends AbstractNotificationService {
       LOG.info("Subscription to topic partition {} finished.", topicPartition);
     }
   }
+
+  /**
+   * A notification waiting to be published to Kafka.
+   *
+   * @param <N> Type of the notification
+   */
+  private static final class PendingNotification<N> {
+    private final Id.NotificationFeed feed;
+    private final N notification;
+    private final KafkaMessage message;
+    private final ByteBuffer payload;
+    private final SettableFuture<N> future;
+
+    private PendingNotification(Id.NotificationFeed feed, N notification, KafkaMessage message, ByteBuffer payload) {
+      this.feed = feed;
+      this.notification = notification;
+      this.message = message;
+      this.payload = payload;
+      this.future = SettableFuture.create();
+    }
+
+    private void published() {
+      future.set(notification);
+    }
+  }
 }
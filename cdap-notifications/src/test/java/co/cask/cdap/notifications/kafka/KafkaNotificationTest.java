@@ -22,14 +22,27 @@ import co.cask.cdap.kafka.KafkaTester;
 import co.cask.cdap.notifications.NotificationTest;
 import co.cask.cdap.notifications.feeds.guice.NotificationFeedServiceRuntimeModule;
 import co.cask.cdap.notifications.guice.NotificationServiceRuntimeModule;
+import co.cask.cdap.notifications.service.NotificationContext;
+import co.cask.cdap.notifications.service.NotificationHandler;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import org.apache.twill.common.Cancellable;
 import org.junit.AfterClass;
+import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.ClassRule;
+import org.junit.Test;
 
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Queue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -39,7 +52,8 @@ public class KafkaNotificationTest extends NotificationTest {
 
   @ClassRule
   public static final KafkaTester KAFKA_TESTER = new KafkaTester(
-    ImmutableMap.of(Constants.Notification.TRANSPORT_SYSTEM, "kafka"),
+    ImmutableMap.of(Constants.Notification.TRANSPORT_SYSTEM, "kafka",
+                    Constants.Notification.KAFKA_PUBLISH_BATCH_SIZE, "10"),
     Iterables.concat(
       getCommonModules(),
       ImmutableList.of(
@@ -91,4 +105,94 @@ public class KafkaNotificationTest extends NotificationTest {
   public static void shutDown() throws Exception {
     stopServices();
   }
+
+  @Test
+  public void testBatchedPublish() throws Exception {
+    Assert.assertTrue(feedManager.createFeed(FEED1));
+    try {
+      final Queue<String> received = new ConcurrentLinkedQueue<>();
+      final CountDownLatch latch = new CountDownLatch(25);
+      Cancellable cancellable = getNotificationService().subscribe(FEED1, new NotificationHandler<String>() {
+        @Override
+        public Type getNotificationType() {
+          return String.class;
+        }
+
+        @Override
+        public void received(String notification, NotificationContext notificationContext) {
+          received.add(notification);
+          latch.countDown();
+        }
+      });
+      try {
+        // Give the subscriber some time to prepare for published messages before publishing
+        TimeUnit.MILLISECONDS.sleep(500);
+
+        // Publish more notifications than the batch size without waiting for them to be published
+        List<String> published = Lists.newArrayList();
+        List<ListenableFuture<String>> futures = Lists.newArrayList();
+        for (int i = 0; i < 25; i++) {
+          String notification = "batch-" + i;
+          published.add(notification);
+          futures.add(getNotificationService().publish(FEED1, notification));
+        }
+        Assert.assertEquals(published, Futures.allAsList(futures).get(10, TimeUnit.SECONDS));
+
+        // Every notification is delivered exactly once, in publishing order
+        Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+        TimeUnit.MILLISECONDS.sleep(500);
+        Assert.assertEquals(published, ImmutableList.copyOf(received));
+      } finally {
+        cancellable.cancel();
+      }
+    } finally {
+      feedManager.deleteFeed(FEED1);
+    }
+  }
+
+  @Test
+  public void testBlockedSubscriberDoesNotBlockPublish() throws Exception {
+    Assert.assertTrue(feedManager.createFeed(FEED1));
+    try {
+      final CountDownLatch blocked = new CountDownLatch(1);
+      final CountDownLatch release = new CountDownLatch(1);
+      final CountDownLatch latch = new CountDownLatch(2);
+      // Subscribe with the same thread executor, and block when receiving the first notification
+      Cancellable cancellable = getNotificationService().subscribe(FEED1, new NotificationHandler<String>() {
+        @Override
+        public Type getNotificationType() {
+          return String.class;
+        }
+
+        @Override
+        public void received(String notification, NotificationContext notificationContext) {
+          blocked.countDown();
+          try {
+            release.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          latch.countDown();
+        }
+      });
+      try {
+        TimeUnit.MILLISECONDS.sleep(500);
+
+        getNotificationService().publish(FEED1, "first").get(10, TimeUnit.SECONDS);
+        Assert.assertTrue(blocked.await(10, TimeUnit.SECONDS));
+
+        // Publishing completes while the subscriber is still blocked
+        Assert.assertEquals("second", getNotificationService().publish(FEED1, "second").get(10, TimeUnit.SECONDS));
+        Assert.assertEquals(2, latch.getCount());
+
+        release.countDown();
+        Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+      } finally {
+        release.countDown();
+        cancellable.cancel();
+      }
+    } finally {
+      feedManager.deleteFeed(FEED1);
+    }
+  }
 }
@@ -22,6 +22,7 @@ import co.cask.cdap.app.program.DefaultProgram;
 import co.cask.cdap.app.program.Program;
 import co.cask.cdap.app.program.ProgramDescriptor;
 import co.cask.cdap.common.conf.CConfiguration;
+import co.cask.cdap.common.internal.remote.RemoteOpsQueue;
 import co.cask.cdap.common.io.Locations;
 import co.cask.cdap.common.lang.ClassLoaders;
 import co.cask.cdap.common.lang.FilterClassLoader;
@@ -125,18 +126,20 @@ public final class SparkRuntimeContextProvider {
       final KafkaClientService kafkaClientService = injector.getInstance(KafkaClientService.class);
       final MetricsCollectionService metricsCollectionService = injector.getInstance(MetricsCollectionService.class);
       final StreamCoordinatorClient streamCoordinatorClient = injector.getInstance(StreamCoordinatorClient.class);
+      final RemoteOpsQueue remoteOpsQueue = injector.getInstance(RemoteOpsQueue.class);
 
       // Use the shutdown hook to shutdown services, since this class should only be loaded from System classloader
       // of the spark executor, hence there should be exactly one instance only.
       // The problem with not shutting down nicely is that some logs/metrics might be lost
       Services.chainStart(logAppenderService, zkClientService,
-                          kafkaClientService, metricsCollectionService, streamCoordinatorClient);
+                          kafkaClientService, metricsCollectionService, streamCoordinatorClient, remoteOpsQueue);
       Runtime.getRuntime().addShutdownHook(new Thread() {
         @Override
         public void run() {
           // The logger may already been shutdown. Use System.out/err instead
           System.out.println("Shutting SparkClassLoader services");
           Future<List<ListenableFuture<Service.State>>> future = Services.chainStop(logAppenderService,
+                                                                                    remoteOpsQueue,
                                                                                     streamCoordinatorClient,
                                                                                     metricsCollectionService,
                                                                                     kafkaClientService,
@@ -23,6 +23,7 @@ import co.cask.cdap.logging.serialize.LoggingEvent;
 import com.google.common.base.Throwables;
 import kafka.utils.VerifiableProperties;
 import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
 import org.apache.avro.generic.GenericDatumReader;
 import org.apache.avro.generic.GenericDatumWriter;
 import org.apache.avro.generic.GenericRecord;
@@ -31,19 +32,43 @@ import org.apache.avro.io.BinaryEncoder;
 import org.apache.avro.io.DecoderFactory;
 import org.apache.avro.io.EncoderFactory;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import javax.annotation.Nullable;
 
 /**
- * Avro serializer for ILoggingEvent.
+ * Avro serializer for ILoggingEvent. The buffers, encoders, decoders and records used for serialization are kept
+ * per thread and reused for every event, so that serializing an event only allocates the resulting byte array,
+ * and deserializing an event only allocates the resulting {@link ILoggingEvent}.
  */
 public final class LoggingEventSerializer {
+
+  // Buffers that grew larger than this for an exceptionally large event are not kept for reuse
+  private static final int MAX_RETAINED_BUFFER_SIZE = 64 * 1024;
+
   private final LogSchema logSchema;
+  private final GenericDatumWriter<GenericRecord> datumWriter;
+  private final GenericDatumReader<GenericRecord> datumReader;
+  private final ThreadLocal<EncodeState> encodeState;
+  private final ThreadLocal<DecodeState> decodeState;
 
   public LoggingEventSerializer() throws IOException {
     this.logSchema = new LogSchema();
+    this.datumWriter = new GenericDatumWriter<>(logSchema.getAvroSchema());
+    this.datumReader = new GenericDatumReader<>(logSchema.getAvroSchema());
+    this.encodeState = new ThreadLocal<EncodeState>() {
+      @Override
+      protected EncodeState initialValue() {
+        return new EncodeState(logSchema.getAvroSchema());
+      }
+    };
+    this.decodeState = new ThreadLocal<DecodeState>() {
+      @Override
+      protected DecodeState initialValue() {
+        return new DecodeState();
+      }
+    };
   }
 
   public LoggingEventSerializer(VerifiableProperties props) throws IOException {
@@ -55,35 +80,50 @@ public final class LoggingEventSerializer {
   }
 
   public byte[] toBytes(ILoggingEvent loggingEvent, LoggingContext loggingContext) {
-    ByteArrayOutputStream out = new ByteArrayOutputStream();
-    BinaryEncoder encoder = EncoderFactory.get().directBinaryEncoder(out, null);
-    GenericDatumWriter<GenericRecord> writer = new GenericDatumWriter<>(logSchema.getAvroSchema());
+    EncodeState state = encodeState.get();
     try {
-      writer.write(LoggingEvent.encode(logSchema.getAvroSchema(), loggingEvent, loggingContext), encoder);
+      state.record = LoggingEvent.encode(logSchema.getAvroSchema(), loggingEvent, loggingContext, state.record);
+      datumWriter.write(state.record, state.encoder);
+      state.encoder.flush();
+      return state.buffer.toByteArray();
     } catch (IOException e) {
       throw Throwables.propagate(e);
+    } finally {
+      state.reset();
     }
-    return out.toByteArray();
   }
 
   public ILoggingEvent fromBytes(ByteBuffer buffer) {
-    return LoggingEvent.decode(toGenericRecord(buffer));
+    // The decoded record is only used for creating the event, hence it can be reused
+    DecodeState state = decodeState.get();
+    state.record = toGenericRecord(buffer, state.record);
+    return LoggingEvent.decode(state.record);
   }
 
   public GenericRecord toGenericRecord(ByteBuffer buffer) {
-    ByteArrayInputStream in;
+    return toGenericRecord(buffer, null);
+  }
+
+  /**
+   * Decodes the remaining bytes of the given buffer, without changing the position of the buffer.
+   *
+   * @param buffer the encoded event
+   * @param reuse a record to decode into, or {@code null} to decode into a new record
+   * @return the decoded record
+   */
+  public GenericRecord toGenericRecord(ByteBuffer buffer, @Nullable GenericRecord reuse) {
+    DecodeState state = decodeState.get();
     if (buffer.hasArray()) {
-      in = new ByteArrayInputStream(buffer.array(), buffer.arrayOffset(), buffer.limit());
+      state.decoder = DecoderFactory.get().binaryDecoder(buffer.array(), buffer.arrayOffset() + buffer.position(),
+                                                         buffer.remaining(), state.decoder);
     } else {
-      byte [] bytes = new byte[buffer.limit()];
-      buffer.get(bytes);
-      in = new ByteArrayInputStream(bytes);
+      byte[] bytes = new byte[buffer.remaining()];
+      buffer.duplicate().get(bytes);
+      state.decoder = DecoderFactory.get().binaryDecoder(bytes, state.decoder);
     }
 
-    BinaryDecoder decoder = DecoderFactory.get().directBinaryDecoder(in, null);
-    GenericDatumReader<GenericRecord> reader = new GenericDatumReader<>(logSchema.getAvroSchema());
     try {
-      return reader.read(null, decoder);
+      return datumReader.read(reuse, state.decoder);
     } catch (IOException e) {
       throw Throwables.propagate(e);
     }
@@ -92,4 +132,36 @@ public final class LoggingEventSerializer {
   public ILoggingEvent fromGenericRecord(GenericRecord datum) {
     return LoggingEvent.decode(datum);
   }
+
+  /**
+   * Per thread state for encoding events.
+   */
+  private static final class EncodeState {
+    private ByteArrayOutputStream buffer;
+    private BinaryEncoder encoder;
+    private GenericRecord record;
+
+    private EncodeState(Schema schema) {
+      this.buffer = new ByteArrayOutputStream();
+      this.encoder = EncoderFactory.get().directBinaryEncoder(buffer, null);
+      this.record = new GenericData.Record(schema);
+    }
+
+    private void reset() {
+      if (buffer.size() > MAX_RETAINED_BUFFER_SIZE) {
+        buffer = new ByteArrayOutputStream();
+        encoder = EncoderFactory.get().directBinaryEncoder(buffer, encoder);
+      } else {
+        buffer.reset();
+      }
+    }
+  }
+
+  /**
+   * Per thread state for decoding events.
+   */
+  private static final class DecodeState {
+    private BinaryDecoder decoder;
+    private GenericRecord record;
+  }
 }
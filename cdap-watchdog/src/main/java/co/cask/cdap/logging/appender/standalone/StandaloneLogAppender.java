@@ -62,7 +62,7 @@ public class StandaloneLogAppender extends LogAppender {
   }
 
   private KafkaLogEvent getKafkaLogEvent(LogMessage message) {
-    // Create a Kafkalog event based on ILoggingEvent, dummy values for GenericRecord, partition and offset.
+    // Create a Kafkalog event based on ILoggingEvent, dummy values for payload, partition and offset.
     return new KafkaLogEvent(null, message, message.getLoggingContext(), 0, -1);
   }
 }
@@ -42,6 +42,10 @@ public class AndFilter implements Filter {
     return true;
   }
 
+  List<? extends Filter> getExpressions() {
+    return expressions;
+  }
+
   @Override
   public String toString() {
     return Objects.toStringHelper(this)
@@ -0,0 +1,119 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.logging.filter;
+
+import ch.qos.logback.classic.Level;
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.collect.Lists;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.util.Utf8;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Evaluates a {@link Filter} on the Avro record of a logging event, so that records that can't match the filter
+ * are skipped without decoding them into {@code ILoggingEvent}s. Only {@link LogLevelExpression},
+ * {@link MdcExpression}, {@link AndFilter} and {@link OrFilter} are evaluated on the record, any other filter is
+ * assumed to match. Hence a record that passes has to be matched against the filter after decoding.
+ */
+public final class RecordFilters {
+
+  /**
+   * Returns a predicate that is {@code false} for the records of events that don't match the given filter.
+   */
+  public static Predicate<GenericRecord> fromFilter(Filter filter) {
+    if (filter instanceof LogLevelExpression) {
+      return new LevelPredicate(((LogLevelExpression) filter).getLevel());
+    }
+    if (filter instanceof MdcExpression) {
+      MdcExpression expression = (MdcExpression) filter;
+      return new MdcPredicate(expression.getKey(), expression.getValue());
+    }
+    if (filter instanceof AndFilter) {
+      List<Predicate<GenericRecord>> predicates = Lists.newArrayList();
+      for (Filter expression : ((AndFilter) filter).getExpressions()) {
+        Predicate<GenericRecord> predicate = fromFilter(expression);
+        if (predicate != Predicates.<GenericRecord>alwaysTrue()) {
+          predicates.add(predicate);
+        }
+      }
+      return predicates.isEmpty() ? Predicates.<GenericRecord>alwaysTrue() : Predicates.and(predicates);
+    }
+    if (filter instanceof OrFilter) {
+      List<Predicate<GenericRecord>> predicates = Lists.newArrayList();
+      for (Filter expression : ((OrFilter) filter).getExpressions()) {
+        Predicate<GenericRecord> predicate = fromFilter(expression);
+        if (predicate == Predicates.<GenericRecord>alwaysTrue()) {
+          // Any record may match
+          return predicate;
+        }
+        predicates.add(predicate);
+      }
+      return Predicates.or(predicates);
+    }
+    return Predicates.alwaysTrue();
+  }
+
+  /**
+   * Matches the level field of records.
+   */
+  private static final class LevelPredicate implements Predicate<GenericRecord> {
+    private final Level level;
+
+    private LevelPredicate(Level level) {
+      this.level = level;
+    }
+
+    @Override
+    public boolean apply(GenericRecord record) {
+      return Level.toLevel((Integer) record.get("level")).isGreaterOrEqual(level);
+    }
+  }
+
+  /**
+   * Matches an entry of the mdc field of records. The map read from Avro files has {@link Utf8} keys and values.
+   */
+  private static final class MdcPredicate implements Predicate<GenericRecord> {
+    private final String key;
+    private final Utf8 utf8Key;
+    private final String value;
+
+    private MdcPredicate(String key, String value) {
+      this.key = key;
+      this.utf8Key = new Utf8(key);
+      this.value = value;
+    }
+
+    @Override
+    public boolean apply(GenericRecord record) {
+      Map<?, ?> mdc = (Map<?, ?>) record.get("mdc");
+      if (mdc == null) {
+        return false;
+      }
+      Object recordValue = mdc.get(utf8Key);
+      if (recordValue == null) {
+        recordValue = mdc.get(key);
+      }
+      return recordValue != null && recordValue.toString().equals(value);
+    }
+  }
+
+  private RecordFilters() {
+  }
+}
@@ -19,7 +19,8 @@ package co.cask.cdap.logging.kafka;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import co.cask.cdap.common.logging.LoggingContext;
 import co.cask.cdap.logging.write.LogWriteEvent;
-import org.apache.avro.generic.GenericRecord;
+
+import java.nio.ByteBuffer;
 
 /**
  * Represents a log event fetched from Kafka.
@@ -28,9 +29,12 @@ public final class KafkaLogEvent extends LogWriteEvent {
   private final int partition;
   private final long nextOffset;
 
-  public KafkaLogEvent(GenericRecord genericRecord, ILoggingEvent logEvent, LoggingContext loggingContext,
+  /**
+   * Creates an event with the given Kafka message payload, which is the event encoded with the logging schema.
+   */
+  public KafkaLogEvent(ByteBuffer payload, ILoggingEvent logEvent, LoggingContext loggingContext,
                        int partition, long nextOffset) {
-    super(genericRecord, logEvent, loggingContext);
+    super(payload, logEvent, loggingContext);
     this.partition = partition;
     this.nextOffset = nextOffset;
   }
@@ -20,7 +20,9 @@ import ch.qos.logback.classic.spi.ILoggingEvent;
 import co.cask.cdap.common.io.Locations;
 import co.cask.cdap.common.io.SeekableInputStream;
 import co.cask.cdap.logging.filter.Filter;
+import co.cask.cdap.logging.filter.RecordFilters;
 import co.cask.cdap.logging.serialize.LoggingEvent;
+import com.google.common.base.Predicate;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
@@ -35,6 +37,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.ClosedByInterruptException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -57,22 +61,23 @@ public class AvroFileReader {
     try {
       DataFileReader<GenericRecord> dataFileReader = createReader(file);
       try {
-        ILoggingEvent loggingEvent;
+        // Only events of records that pass the record filter are decoded
+        Predicate<GenericRecord> recordFilter = RecordFilters.fromFilter(logFilter);
         GenericRecord datum;
         if (dataFileReader.hasNext()) {
           datum = dataFileReader.next();
-          loggingEvent = LoggingEvent.decode(datum);
+          long timestamp = getTimestamp(datum);
           long prevPrevSyncPos = 0;
           long prevSyncPos = 0;
           // Seek to time fromTimeMs
-          while (loggingEvent.getTimeStamp() < fromTimeMs && dataFileReader.hasNext()) {
+          while (timestamp < fromTimeMs && dataFileReader.hasNext()) {
             // Seek to the next sync point
             long curPos = dataFileReader.tell();
             prevPrevSyncPos = prevSyncPos;
             prevSyncPos = dataFileReader.previousSync();
             dataFileReader.sync(curPos);
             if (dataFileReader.hasNext()) {
-              loggingEvent = LoggingEvent.decode(dataFileReader.next(datum));
+              timestamp = getTimestamp(dataFileReader.next(datum));
             }
           }
 
@@ -83,17 +88,20 @@ public class AvroFileReader {
           int count = 0;
           long prevTimestamp = -1;
           while (dataFileReader.hasNext()) {
-            loggingEvent = LoggingEvent.decode(dataFileReader.next(datum));
-            if (loggingEvent.getTimeStamp() >= fromTimeMs && logFilter.match(loggingEvent)) {
-              ++count;
-              if ((count > maxEvents || loggingEvent.getTimeStamp() >= toTimeMs)
-                && loggingEvent.getTimeStamp() != prevTimestamp) {
-                break;
+            datum = dataFileReader.next(datum);
+            timestamp = getTimestamp(datum);
+            if (timestamp >= fromTimeMs && recordFilter.apply(datum)) {
+              ILoggingEvent loggingEvent = LoggingEvent.decode(datum);
+              if (logFilter.match(loggingEvent)) {
+                ++count;
+                if ((count > maxEvents || timestamp >= toTimeMs) && timestamp != prevTimestamp) {
+                  break;
+                }
+                callback.handle(new LogEvent(loggingEvent,
+                                             new LogOffset(LogOffset.INVALID_KAFKA_OFFSET, timestamp)));
               }
-              callback.handle(new LogEvent(loggingEvent,
-                                           new LogOffset(LogOffset.INVALID_KAFKA_OFFSET, loggingEvent.getTimeStamp())));
             }
-            prevTimestamp = loggingEvent.getTimeStamp();
+            prevTimestamp = timestamp;
           }
         }
       } finally {
@@ -104,7 +112,12 @@ public class AvroFileReader {
         }
       }
     } catch (Exception e) {
-      LOG.error("Got exception while reading log file {}", file, e);
+      if (isInterrupted(e)) {
+        // The read was cancelled, for example because the consumer of the events failed
+        LOG.debug("Interrupted while reading log file {}", file, e);
+      } else {
+        LOG.error("Got exception while reading log file {}", file, e);
+      }
       throw Throwables.propagate(e);
     }
   }
@@ -183,22 +196,25 @@ public class AvroFileReader {
                                                long fromTimeMs, long endSyncPosition) throws IOException {
 
     List<LogEvent> logSegment = new ArrayList<>();
+    Predicate<GenericRecord> recordFilter = RecordFilters.fromFilter(logFilter);
     GenericRecord datum = null;
     long currentSyncPosition = dataFileReader.previousSync();
     // Read till the end if endSyncPosition is not known (in case of open file)
     // or read until endSyncPosition has reached
     while (dataFileReader.hasNext() && (endSyncPosition == -1 || (currentSyncPosition < endSyncPosition))) {
       datum = dataFileReader.next(datum);
-      ILoggingEvent loggingEvent = LoggingEvent.decode(datum);
+      long timestamp = getTimestamp(datum);
 
       // Stop when reached fromTimeMs
-      if (loggingEvent.getTimeStamp() > fromTimeMs) {
+      if (timestamp > fromTimeMs) {
         break;
       }
 
-      if (logFilter.match(loggingEvent)) {
-        logSegment.add(new LogEvent(loggingEvent,
-                                    new LogOffset(LogOffset.INVALID_KAFKA_OFFSET, loggingEvent.getTimeStamp())));
+      if (recordFilter.apply(datum)) {
+        ILoggingEvent loggingEvent = LoggingEvent.decode(datum);
+        if (logFilter.match(loggingEvent)) {
+          logSegment.add(new LogEvent(loggingEvent, new LogOffset(LogOffset.INVALID_KAFKA_OFFSET, timestamp)));
+        }
       }
       currentSyncPosition = dataFileReader.previousSync();
     }
@@ -222,6 +238,26 @@ public class AvroFileReader {
     return startPosition;
   }
 
+  /**
+   * Returns {@code true} if the current thread is interrupted or if the given exception is caused by an interruption.
+   */
+  private static boolean isInterrupted(Throwable t) {
+    if (Thread.currentThread().isInterrupted()) {
+      return true;
+    }
+    for (Throwable cause : Throwables.getCausalChain(t)) {
+      if (cause instanceof InterruptedException || cause instanceof InterruptedIOException
+        || cause instanceof ClosedByInterruptException) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static long getTimestamp(GenericRecord datum) {
+    return (Long) datum.get("timestamp");
+  }
+
   private DataFileReader<GenericRecord> createReader(Location location) throws IOException {
     return new DataFileReader<>(new LocationSeekableInput(location),
                                 new GenericDatumReader<GenericRecord>(schema));
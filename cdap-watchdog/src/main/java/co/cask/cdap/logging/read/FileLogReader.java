@@ -32,13 +32,22 @@ import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 import org.apache.avro.Schema;
+import org.apache.twill.common.Threads;
 import org.apache.twill.filesystem.Location;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.NavigableMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Reads log events from a file.
@@ -46,14 +55,23 @@ import java.util.NavigableMap;
 public class FileLogReader implements LogReader {
   private static final Logger LOG = LoggerFactory.getLogger(FileLogReader.class);
 
+  // Maximum number of events read ahead from a file that are not yet passed to the callback
+  private static final int READ_AHEAD_EVENTS = 1000;
+  private static final Object END_OF_FILE = new Object();
+
   private final FileMetaDataManager fileMetaDataManager;
   private final Schema schema;
+  private final int readParallelism;
 
   @Inject
   public FileLogReader(CConfiguration cConf, FileMetaDataManager fileMetaDataManager) {
     String baseDir = cConf.get(LoggingConfiguration.LOG_BASE_DIR);
     Preconditions.checkNotNull(baseDir, "Log base dir cannot be null");
 
+    this.readParallelism = cConf.getInt(LoggingConfiguration.LOG_READ_PARALLELISM,
+                                        LoggingConfiguration.DEFAULT_LOG_READ_PARALLELISM);
+    Preconditions.checkArgument(readParallelism > 0, "Log read parallelism is invalid: %s", readParallelism);
+
     try {
       this.schema = new LogSchema().getAvroSchema();
       this.fileMetaDataManager = fileMetaDataManager;
@@ -154,17 +172,64 @@ public class FileLogReader implements LogReader {
       }
 
       List<Location> filesInRange = getFilesInRange(sortedFiles, fromTimeMs, toTimeMs);
+      readFiles(filesInRange, logFilter, fromTimeMs, toTimeMs, callback);
+    } catch (Throwable e) {
+      LOG.error("Got exception: ", e);
+      throw  Throwables.propagate(e);
+    }
+  }
+
+  /**
+   * Reads all events in the given time range from the given files. Up to {@link #readParallelism} files are read
+   * in parallel. The files of a logging context don't overlap in time, hence merging the events of the files in
+   * order only requires passing the events of each file to the callback in the order of the files. Events are
+   * passed to the callback as soon as they are read. The reading threads only live for the duration of the call.
+   */
+  private void readFiles(List<Location> files, Filter logFilter, long fromTimeMs, long toTimeMs,
+                         Callback callback) throws InterruptedException {
+    if (files.size() <= 1 || readParallelism == 1) {
       AvroFileReader avroFileReader = new AvroFileReader(schema);
-      for (Location file : filesInRange) {
+      for (Location file : files) {
         LOG.trace("Reading file {}", file);
         avroFileReader.readLog(file, logFilter, fromTimeMs, toTimeMs, Integer.MAX_VALUE, callback);
       }
-    } catch (Throwable e) {
-      LOG.error("Got exception: ", e);
-      throw  Throwables.propagate(e);
+      return;
+    }
+
+    ExecutorService readExecutor =
+      Executors.newCachedThreadPool(Threads.createDaemonThreadFactory("log-file-reader-%d"));
+    Iterator<Location> fileIterator = files.iterator();
+    Deque<FileReadTask> tasks = new LinkedList<>();
+    try {
+      while (tasks.size() < readParallelism && fileIterator.hasNext()) {
+        tasks.add(startRead(readExecutor, fileIterator.next(), logFilter, fromTimeMs, toTimeMs));
+      }
+      while (!tasks.isEmpty()) {
+        // The task stays in the queue till it is drained, so that it gets cancelled if the callback fails
+        tasks.peek().drainTo(callback);
+        tasks.poll();
+        // Only start the next read once a read is done, so that at most readParallelism reads are in flight
+        if (fileIterator.hasNext()) {
+          tasks.add(startRead(readExecutor, fileIterator.next(), logFilter, fromTimeMs, toTimeMs));
+        }
+      }
+    } finally {
+      // Only non-empty if reading failed
+      for (FileReadTask task : tasks) {
+        task.cancel();
+      }
+      readExecutor.shutdownNow();
     }
   }
 
+  private FileReadTask startRead(ExecutorService readExecutor, Location file, Filter logFilter,
+                                 long fromTimeMs, long toTimeMs) {
+    LOG.trace("Reading file {}", file);
+    FileReadTask task = new FileReadTask(file, logFilter, fromTimeMs, toTimeMs);
+    task.future = readExecutor.submit(task);
+    return task;
+  }
+
   @VisibleForTesting
   static List<Location> getFilesInRange(NavigableMap<Long, Location> sortedFiles, long fromTimeMs, long toTimeMs) {
     // Get a list of files to read based on fromMillis and toMillis.
@@ -184,4 +249,91 @@ public class FileLogReader implements LogReader {
     }
     return ImmutableList.copyOf(sortedFiles.subMap(start, toTimeMs).values());
   }
+
+  /**
+   * Reads the events of a file into a bounded queue, from which they are passed to the callback of the read.
+   */
+  private final class FileReadTask implements Runnable {
+    private final Location file;
+    private final Filter logFilter;
+    private final long fromTimeMs;
+    private final long toTimeMs;
+    // Contains the events, followed by either END_OF_FILE or the failure of the read
+    private final BlockingQueue<Object> queue;
+    private Future<?> future;
+
+    private FileReadTask(Location file, Filter logFilter, long fromTimeMs, long toTimeMs) {
+      this.file = file;
+      this.logFilter = logFilter;
+      this.fromTimeMs = fromTimeMs;
+      this.toTimeMs = toTimeMs;
+      this.queue = new ArrayBlockingQueue<>(READ_AHEAD_EVENTS);
+    }
+
+    @Override
+    public void run() {
+      try {
+        new AvroFileReader(schema).readLog(file, logFilter, fromTimeMs, toTimeMs, Integer.MAX_VALUE, new Callback() {
+          private int count;
+
+          @Override
+          public void init() {
+            // no-op
+          }
+
+          @Override
+          public void handle(LogEvent event) {
+            try {
+              queue.put(event);
+              count++;
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+              throw Throwables.propagate(e);
+            }
+          }
+
+          @Override
+          public int getCount() {
+            return count;
+          }
+
+          @Override
+          public void close() {
+            // no-op
+          }
+        });
+        queue.put(END_OF_FILE);
+      } catch (Throwable t) {
+        if (Thread.currentThread().isInterrupted()) {
+          // The read was cancelled, nobody is waiting for the result
+          return;
+        }
+        try {
+          queue.put(t);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+
+    /**
+     * Passes the events of the file to the given callback as they are read, till the end of the file.
+     */
+    private void drainTo(Callback callback) throws InterruptedException {
+      while (true) {
+        Object item = queue.take();
+        if (item == END_OF_FILE) {
+          return;
+        }
+        if (item instanceof Throwable) {
+          throw Throwables.propagate((Throwable) item);
+        }
+        callback.handle((LogEvent) item);
+      }
+    }
+
+    private void cancel() {
+      future.cancel(true);
+    }
+  }
 }
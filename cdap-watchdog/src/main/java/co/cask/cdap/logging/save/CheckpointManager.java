@@ -23,13 +23,14 @@ import co.cask.cdap.data2.transaction.Transactions;
 import co.cask.tephra.TransactionAware;
 import co.cask.tephra.TransactionExecutor;
 import co.cask.tephra.TransactionExecutorFactory;
-import com.google.common.collect.ImmutableMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Manages reading/writing of checkpoint information for a topic and partition.
@@ -43,14 +44,14 @@ public final class CheckpointManager {
   private final byte [] rowKeyPrefix;
   private final LogSaverTableUtil tableUtil;
   private final TransactionExecutorFactory transactionExecutorFactory;
-  private Map<Integer, Checkpoint> lastCheckpoint;
+  private final ConcurrentMap<Integer, Checkpoint> lastCheckpoint;
 
   public CheckpointManager(final LogSaverTableUtil tableUtil,
                            TransactionExecutorFactory txExecutorFactory, String topic, int prefix) {
     this.rowKeyPrefix = Bytes.add(Bytes.toBytes(prefix), Bytes.toBytes(topic));
     this.tableUtil = tableUtil;
     this.transactionExecutorFactory = txExecutorFactory;
-    this.lastCheckpoint = new HashMap<>();
+    this.lastCheckpoint = new ConcurrentHashMap<>();
   }
 
   private <T> T execute(TransactionExecutor.Function<Table, T> func) {
@@ -87,26 +88,35 @@ public final class CheckpointManager {
     }
   }
 
-  public void saveCheckpoint(final Map<Integer, Checkpoint> checkpoints) throws Exception {
-    // if the checkpoints have not changed, we skip writing to table and return.
-    if (lastCheckpoint.equals(checkpoints)) {
+  /**
+   * Saves the given checkpoints. This method can be called concurrently for different partitions.
+   */
+  public void saveCheckpoint(Map<Integer, Checkpoint> checkpoints) throws Exception {
+    // only write the checkpoints that have changed since they were last saved
+    final Map<Integer, Checkpoint> changed = new HashMap<>();
+    for (Map.Entry<Integer, Checkpoint> entry : checkpoints.entrySet()) {
+      if (!entry.getValue().equals(lastCheckpoint.get(entry.getKey()))) {
+        changed.put(entry.getKey(), entry.getValue());
+      }
+    }
+    if (changed.isEmpty()) {
       return;
     }
 
     execute(new TransactionExecutor.Procedure<Table>() {
       @Override
       public void apply(Table table) throws Exception {
-        for (Map.Entry<Integer, Checkpoint> entry : checkpoints.entrySet()) {
+        for (Map.Entry<Integer, Checkpoint> entry : changed.entrySet()) {
           byte[] key = Bytes.add(rowKeyPrefix, Bytes.toBytes(entry.getKey()));
           Checkpoint checkpoint = entry.getValue();
           table.put(key, OFFSET_COLNAME, Bytes.toBytes(checkpoint.getNextOffset()));
           table.put(key, MAX_TIME_COLNAME, Bytes.toBytes(checkpoint.getMaxEventTime()));
         }
-        // update last checkpoint
-        lastCheckpoint = ImmutableMap.copyOf(checkpoints);
       }
     });
-    LOG.trace("Saving checkpoints for partitions {}", checkpoints);
+    // update last checkpoint
+    lastCheckpoint.putAll(changed);
+    LOG.trace("Saving checkpoints for partitions {}", changed);
   }
 
   public Map<Integer, Checkpoint> getCheckpoint(final Set<Integer> partitions) throws Exception {
@@ -30,6 +30,7 @@ import co.cask.cdap.logging.write.LogFileWriter;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.RowSortedTable;
 import com.google.common.collect.TreeBasedTable;
@@ -51,18 +52,25 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 /**
- * Plugin that writes the log data.
+ * Plugin that writes the log data. Every Kafka partition has its own buffer of events and its own writer thread,
+ * so that partitions are written and checkpointed independently of each other. Since the Kafka partition of an
+ * event is determined by its logging context, a log file is only ever written by a single partition writer.
  */
 public class KafkaLogWriterPlugin extends AbstractKafkaLogProcessor {
   private static final Logger LOG = LoggerFactory.getLogger(KafkaLogWriterPlugin.class);
 
   public static final int CHECKPOINT_ROW_KEY_PREFIX = 100;
 
-  private static final long SLEEP_TIME_MS = 100;
+  private static final long MAX_WAIT_TIME_MS = 100;
 
+  private final CConfiguration cConf;
+  private final FileMetaDataManager fileMetaDataManager;
+  private final LocationFactory locationFactory;
   private final String logBaseDir;
-  private final LogFileWriter<KafkaLogEvent> logFileWriter;
-  private final RowSortedTable<Long, String, Map.Entry<Long, List<KafkaLogEvent>>> messageTable;
+  private final long maxLogFileSizeBytes;
+  private final int syncIntervalBytes;
+  private final long checkpointIntervalMs;
+  private final long inactiveIntervalMs;
   private final long eventBucketIntervalMs;
   private final int logCleanupIntervalMins;
   private final long maxNumberOfBucketsInTable;
@@ -70,6 +78,7 @@ public class KafkaLogWriterPlugin extends AbstractKafkaLogProcessor {
   private final LogCleanup logCleanup;
   private final CheckpointManager checkpointManager;
 
+  private volatile Map<Integer, PartitionBuffer> partitionBuffers = ImmutableMap.of();
   private ListeningScheduledExecutorService scheduledExecutor;
   private CountDownLatch countDownLatch;
 
@@ -78,8 +87,10 @@ public class KafkaLogWriterPlugin extends AbstractKafkaLogProcessor {
                        LocationFactory locationFactory, CheckpointManagerFactory checkpointManagerFactory)
     throws Exception {
 
+    this.cConf = cConf;
+    this.fileMetaDataManager = fileMetaDataManager;
+    this.locationFactory = locationFactory;
     this.serializer = new LoggingEventSerializer();
-    this.messageTable = TreeBasedTable.create();
 
     this.logBaseDir = cConf.get(LoggingConfiguration.LOG_BASE_DIR);
     Preconditions.checkNotNull(this.logBaseDir, "Log base dir cannot be null");
@@ -90,20 +101,20 @@ public class KafkaLogWriterPlugin extends AbstractKafkaLogProcessor {
     Preconditions.checkArgument(retentionDurationDays > 0,
                                 "Log file retention duration is invalid: %s", retentionDurationDays);
 
-    long maxLogFileSizeBytes = cConf.getLong(LoggingConfiguration.LOG_MAX_FILE_SIZE_BYTES, 20 * 1024 * 1024);
+    this.maxLogFileSizeBytes = cConf.getLong(LoggingConfiguration.LOG_MAX_FILE_SIZE_BYTES, 20 * 1024 * 1024);
     Preconditions.checkArgument(maxLogFileSizeBytes > 0,
                                 "Max log file size is invalid: %s", maxLogFileSizeBytes);
 
-    int syncIntervalBytes = cConf.getInt(LoggingConfiguration.LOG_FILE_SYNC_INTERVAL_BYTES, 50 * 1024);
+    this.syncIntervalBytes = cConf.getInt(LoggingConfiguration.LOG_FILE_SYNC_INTERVAL_BYTES, 50 * 1024);
     Preconditions.checkArgument(syncIntervalBytes > 0,
                                 "Log file sync interval is invalid: %s", syncIntervalBytes);
 
-    long checkpointIntervalMs = cConf.getLong(LoggingConfiguration.LOG_SAVER_CHECKPOINT_INTERVAL_MS,
+    this.checkpointIntervalMs = cConf.getLong(LoggingConfiguration.LOG_SAVER_CHECKPOINT_INTERVAL_MS,
                                                 LoggingConfiguration.DEFAULT_LOG_SAVER_CHECKPOINT_INTERVAL_MS);
     Preconditions.checkArgument(checkpointIntervalMs > 0,
                                 "Checkpoint interval is invalid: %s", checkpointIntervalMs);
 
-    long inactiveIntervalMs = cConf.getLong(LoggingConfiguration.LOG_SAVER_INACTIVE_FILE_INTERVAL_MS,
+    this.inactiveIntervalMs = cConf.getLong(LoggingConfiguration.LOG_SAVER_INACTIVE_FILE_INTERVAL_MS,
                                               LoggingConfiguration.DEFAULT_LOG_SAVER_INACTIVE_FILE_INTERVAL_MS);
     Preconditions.checkArgument(inactiveIntervalMs > 0,
                                 "Inactive interval is invalid: %s", inactiveIntervalMs);
@@ -130,15 +141,9 @@ public class KafkaLogWriterPlugin extends AbstractKafkaLogProcessor {
     Preconditions.checkArgument(logCleanupIntervalMins > 0,
                                 "Log cleanup run interval is invalid: %s", logCleanupIntervalMins);
 
-    AvroFileWriter avroFileWriter = new AvroFileWriter(fileMetaDataManager, cConf, locationFactory.create(""),
-                                                       logBaseDir, serializer.getAvroSchema(), maxLogFileSizeBytes,
-                                                       syncIntervalBytes, inactiveIntervalMs);
-
     checkpointManager = checkpointManagerFactory.create(cConf.get(Constants.Logging.KAFKA_TOPIC),
                                                         CHECKPOINT_ROW_KEY_PREFIX);
 
-    this.logFileWriter = new CheckpointingLogFileWriter(avroFileWriter, checkpointManager, checkpointIntervalMs);
-
     String namespacesDir = cConf.get(Constants.Namespace.NAMESPACES_DIR);
     long retentionDurationMs = TimeUnit.MILLISECONDS.convert(retentionDurationDays, TimeUnit.DAYS);
     this.logCleanup = new LogCleanup(fileMetaDataManager, locationFactory.create(""), namespacesDir,
@@ -147,15 +152,28 @@ public class KafkaLogWriterPlugin extends AbstractKafkaLogProcessor {
 
   @Override
   public void init(Set<Integer> partitions) {
+    // Stop the writers of a previous initialization, if any
+    stopWriters();
     super.init(partitions, checkpointManager);
 
-    scheduledExecutor = MoreExecutors.listeningDecorator(Executors.newSingleThreadScheduledExecutor(
-      Threads.createDaemonThreadFactory("log-saver-log-processor")));
-
-    LogWriter logWriter = new LogWriter(logFileWriter, messageTable,
-                                        eventBucketIntervalMs, maxNumberOfBucketsInTable);
-    scheduledExecutor.scheduleWithFixedDelay(logWriter, 100, 200, TimeUnit.MILLISECONDS);
+    // One thread per partition writer, and one for the cleanup
+    scheduledExecutor = MoreExecutors.listeningDecorator(Executors.newScheduledThreadPool(
+      partitions.size() + 1, Threads.createDaemonThreadFactory("log-saver-log-processor-%d")));
+
+    ImmutableMap.Builder<Integer, PartitionBuffer> buffers = ImmutableMap.builder();
+    for (int partition : partitions) {
+      AvroFileWriter avroFileWriter = new AvroFileWriter(fileMetaDataManager, cConf, locationFactory.create(""),
+                                                         logBaseDir, serializer.getAvroSchema(), maxLogFileSizeBytes,
+                                                         syncIntervalBytes, inactiveIntervalMs);
+      PartitionBuffer buffer = new PartitionBuffer(
+        new CheckpointingLogFileWriter(avroFileWriter, checkpointManager, checkpointIntervalMs));
+      LogWriter logWriter = new LogWriter(buffer.logFileWriter, buffer.messageTable,
+                                          eventBucketIntervalMs, maxNumberOfBucketsInTable);
+      scheduledExecutor.scheduleWithFixedDelay(logWriter, 100, 200, TimeUnit.MILLISECONDS);
+      buffers.put(partition, buffer);
+    }
     countDownLatch = new CountDownLatch(1);
+    partitionBuffers = buffers.build();
 
     if (partitions.contains(0)) {
       LOG.info("Scheduling cleanup task");
@@ -168,55 +186,49 @@ public class KafkaLogWriterPlugin extends AbstractKafkaLogProcessor {
 
     LoggingContext loggingContext = event.getLoggingContext();
     ILoggingEvent logEvent = event.getLogEvent();
+    PartitionBuffer buffer = partitionBuffers.get(event.getPartition());
+    if (buffer == null) {
+      LOG.warn("Skipping message with nextOffset {} from partition {}, which is not handled by this log saver.",
+               event.getNextOffset(), event.getPartition());
+      return;
+    }
+
+    RowSortedTable<Long, String, Map.Entry<Long, List<KafkaLogEvent>>> messageTable = buffer.messageTable;
     try {
       // Compute the bucket number for the current event
       long key = logEvent.getTimeStamp() / eventBucketIntervalMs;
+      String pathFragment = loggingContext.getLogPathFragment(logBaseDir);
 
-      // Sleep while we can add the entry
-      while (true) {
-        // Get the oldest bucket in the table
-        long oldestBucketKey;
-        synchronized (messageTable) {
-          SortedSet<Long> rowKeySet = messageTable.rowKeySet();
-          if (rowKeySet.isEmpty()) {
-            // Table is empty so go ahead and add the current event in the table
-            break;
-          }
-          oldestBucketKey = rowKeySet.first();
-        }
-
-        // If the current event falls in the bucket number which is not in window [oldestBucketKey, oldestBucketKey+8]
-        // sleep for the time duration till event falls in the window
-        if (key > (oldestBucketKey + maxNumberOfBucketsInTable)) {
-          LOG.trace("key={}, oldestBucketKey={}, maxNumberOfBucketsInTable={}. Sleeping for {} ms.",
-                    key, oldestBucketKey, maxNumberOfBucketsInTable, SLEEP_TIME_MS);
-
-          if (countDownLatch.await(SLEEP_TIME_MS, TimeUnit.MILLISECONDS)) {
-            // if count down occurred return
+      synchronized (messageTable) {
+        // If the current event falls in a bucket which is not in window [oldestBucketKey, oldestBucketKey+8],
+        // wait till the writer of the partition has written the oldest buckets.
+        // Only the consumer and the writer of this partition use the table.
+        SortedSet<Long> rowKeySet = messageTable.rowKeySet();
+        while (!rowKeySet.isEmpty() && key > rowKeySet.first() + maxNumberOfBucketsInTable) {
+          if (countDownLatch.getCount() == 0) {
             LOG.debug("Returning since callback is cancelled");
             return;
           }
-
-        } else {
-          break;
+          LOG.trace("key={}, oldestBucketKey={}, maxNumberOfBucketsInTable={}. Waiting for partition {} writer.",
+                    key, rowKeySet.first(), maxNumberOfBucketsInTable, event.getPartition());
+          messageTable.wait(MAX_WAIT_TIME_MS);
         }
-      }
 
-      synchronized (messageTable) {
-        Map.Entry<Long, List<KafkaLogEvent>> entry = messageTable.get(key,
-                                                                      loggingContext.getLogPathFragment(logBaseDir));
+        Map.Entry<Long, List<KafkaLogEvent>> entry = messageTable.get(key, pathFragment);
         List<KafkaLogEvent> msgList;
         if (entry == null) {
           long eventArrivalBucketKey = System.currentTimeMillis() / eventBucketIntervalMs;
           msgList = Lists.newArrayList();
-          messageTable.put(key, loggingContext.getLogPathFragment(logBaseDir),
-                           new AbstractMap.SimpleEntry<>(eventArrivalBucketKey, msgList));
+          messageTable.put(key, pathFragment, new AbstractMap.SimpleEntry<>(eventArrivalBucketKey, msgList));
         } else {
-          msgList = messageTable.get(key, loggingContext.getLogPathFragment(logBaseDir)).getValue();
+          msgList = entry.getValue();
         }
-        msgList.add(new KafkaLogEvent(event.getGenericRecord(), event.getLogEvent(), loggingContext,
+        msgList.add(new KafkaLogEvent(event.getEncodedRecord(), event.getLogEvent(), loggingContext,
                                       event.getPartition(), event.getNextOffset()));
       }
+    } catch (InterruptedException e) {
+      LOG.debug("Interrupted while waiting to process message with nextOffset {}.", event.getNextOffset());
+      Thread.currentThread().interrupt();
     } catch (Throwable th) {
       LOG.warn("Exception while processing message with nextOffset {}. Skipping it.", event.getNextOffset(), th);
     }
@@ -224,23 +236,7 @@ public class KafkaLogWriterPlugin extends AbstractKafkaLogProcessor {
 
   @Override
   public void stop() {
-    try {
-      if (countDownLatch != null) {
-        countDownLatch.countDown();
-      }
-
-      if (scheduledExecutor != null) {
-        scheduledExecutor.shutdown();
-        scheduledExecutor.awaitTermination(5, TimeUnit.MINUTES);
-      }
-
-      logFileWriter.flush();
-      logFileWriter.close();
-
-    } catch (Exception e) {
-      LOG.error("Caught exception while closing logWriter {}", e.getMessage(), e);
-    }
-    messageTable.clear();
+    stopWriters();
   }
 
   @Override
@@ -256,4 +252,49 @@ public class KafkaLogWriterPlugin extends AbstractKafkaLogProcessor {
   CheckpointManager getCheckPointManager() {
     return this.checkpointManager;
   }
+
+  private void stopWriters() {
+    Map<Integer, PartitionBuffer> buffers = partitionBuffers;
+    partitionBuffers = ImmutableMap.of();
+    try {
+      if (countDownLatch != null) {
+        countDownLatch.countDown();
+      }
+
+      if (scheduledExecutor != null) {
+        scheduledExecutor.shutdown();
+        scheduledExecutor.awaitTermination(5, TimeUnit.MINUTES);
+      }
+    } catch (InterruptedException e) {
+      LOG.error("Interrupted while stopping log writers", e);
+      Thread.currentThread().interrupt();
+    }
+
+    for (Map.Entry<Integer, PartitionBuffer> entry : buffers.entrySet()) {
+      PartitionBuffer buffer = entry.getValue();
+      try {
+        buffer.logFileWriter.flush();
+        buffer.logFileWriter.close();
+      } catch (Exception e) {
+        LOG.error("Caught exception while closing logWriter of partition {}: {}", entry.getKey(), e.getMessage(), e);
+      }
+      synchronized (buffer.messageTable) {
+        buffer.messageTable.clear();
+      }
+    }
+  }
+
+  /**
+   * Events of a partition that are yet to be written, bucketed by event time and log path, and the writer
+   * of the partition.
+   */
+  private static final class PartitionBuffer {
+    private final RowSortedTable<Long, String, Map.Entry<Long, List<KafkaLogEvent>>> messageTable;
+    private final LogFileWriter<KafkaLogEvent> logFileWriter;
+
+    private PartitionBuffer(LogFileWriter<KafkaLogEvent> logFileWriter) {
+      this.messageTable = TreeBasedTable.create();
+      this.logFileWriter = logFileWriter;
+    }
+  }
 }
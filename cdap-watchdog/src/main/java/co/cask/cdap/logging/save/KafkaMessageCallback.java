@@ -23,12 +23,12 @@ import co.cask.cdap.common.logging.LoggingContext;
 import co.cask.cdap.logging.appender.kafka.LoggingEventSerializer;
 import co.cask.cdap.logging.context.LoggingContextHelper;
 import co.cask.cdap.logging.kafka.KafkaLogEvent;
-import org.apache.avro.generic.GenericRecord;
 import org.apache.twill.kafka.client.FetchedMessage;
 import org.apache.twill.kafka.client.KafkaConsumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.ByteBuffer;
 import java.util.Iterator;
 import java.util.Set;
 import java.util.concurrent.CountDownLatch;
@@ -70,16 +70,19 @@ public class KafkaMessageCallback implements KafkaConsumer.MessageCallback {
     }
 
     int count = 0;
+    int partition = -1;
 
     long oldestProcessed = Long.MAX_VALUE;
     while (messages.hasNext()) {
       FetchedMessage message = messages.next();
+      partition = message.getTopicPartition().getPartition();
       try {
-        GenericRecord genericRecord = serializer.toGenericRecord(message.getPayload());
-        ILoggingEvent event = serializer.fromGenericRecord(genericRecord);
+        // The payload is kept for writing to log files as is, instead of keeping the decoded record
+        ByteBuffer payload = message.getPayload();
+        ILoggingEvent event = serializer.fromBytes(payload);
 
         LoggingContext loggingContext = LoggingContextHelper.getLoggingContext(event.getMDCPropertyMap());
-        KafkaLogEvent logEvent = new KafkaLogEvent(genericRecord, event, loggingContext,
+        KafkaLogEvent logEvent = new KafkaLogEvent(payload, event, loggingContext,
                                                    message.getTopicPartition().getPartition(),
                                                    message.getNextOffset());
 
@@ -106,7 +109,10 @@ public class KafkaMessageCallback implements KafkaConsumer.MessageCallback {
 
     if (count > 0) {
       // todo: use hostogram when available (CDAP-3120)
-      metricsContext.gauge(Constants.Metrics.Name.Log.PROCESS_DELAY, System.currentTimeMillis() - oldestProcessed);
+      long delay = System.currentTimeMillis() - oldestProcessed;
+      metricsContext.gauge(Constants.Metrics.Name.Log.PROCESS_DELAY, delay);
+      // All messages of a callback are from the same partition, since there is a callback per partition
+      metricsContext.gauge(Constants.Metrics.Name.Log.PARTITION_PROCESS_DELAY_PREFIX + partition, delay);
       metricsContext.increment(Constants.Metrics.Name.Log.PROCESS_MESSAGES_COUNT, count);
     }
 
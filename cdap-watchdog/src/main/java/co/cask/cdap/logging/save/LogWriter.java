@@ -33,7 +33,8 @@ import java.util.Map.Entry;
 import java.util.SortedSet;
 
 /**
- * Persists bucketized logs stored by {@link KafkaMessageCallback}.
+ * Persists bucketized logs stored by {@link KafkaMessageCallback}. There is one writer per Kafka partition, which
+ * notifies the waiting consumer of the partition when it takes events from the table.
  */
 public class LogWriter implements Runnable {
   private static final Logger LOG = LoggerFactory.getLogger(LogWriter.class);
@@ -78,6 +79,10 @@ public class LogWriter implements Runnable {
               messages += mapEntry.getValue().getValue().size();
               it.remove();
             }
+            if (messages > 0) {
+              // Wake up the consumer waiting for old buckets to be written
+              messageTable.notifyAll();
+            }
           }
         }
 
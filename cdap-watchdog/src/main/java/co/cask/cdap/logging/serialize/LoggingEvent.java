@@ -172,10 +172,19 @@ public final class LoggingEvent implements ILoggingEvent {
   }
 
   public static GenericRecord encode(Schema schema, ILoggingEvent event, LoggingContext loggingContext) {
+    return encode(schema, event, loggingContext, null);
+  }
+
+  /**
+   * Encodes the given event into the given record, or into a new record if the given record is {@code null}.
+   * Every field of the record is set, so that a record can be reused for encoding multiple events.
+   */
+  public static GenericRecord encode(Schema schema, ILoggingEvent event, LoggingContext loggingContext,
+                                     GenericRecord reuse) {
     event.prepareForDeferredProcessing();
 
     LoggingEvent loggingEvent = new LoggingEvent(event);
-    GenericRecord datum = new GenericData.Record(schema);
+    GenericRecord datum = reuse == null ? new GenericData.Record(schema) : reuse;
     datum.put("threadName", loggingEvent.threadName);
     datum.put("level", loggingEvent.level);
     datum.put("message", loggingEvent.message);
@@ -186,6 +195,8 @@ public final class LoggingEvent implements ILoggingEvent {
                                     schema.getField("argumentArray").schema().getTypes().get(1));
       Collections.addAll(argArray, loggingEvent.argumentArray);
       datum.put("argumentArray", argArray);
+    } else {
+      datum.put("argumentArray", null);
     }
 
     datum.put("formattedMessage", loggingEvent.formattedMessage);
@@ -197,6 +208,8 @@ public final class LoggingEvent implements ILoggingEvent {
     if (loggingEvent.hasCallerData) {
       datum.put("callerData", CallerDataSerializer.encode(schema.getField("callerData").schema(),
                                                                  loggingEvent.callerData));
+    } else {
+      datum.put("callerData", null);
     }
     datum.put("hasCallerData", loggingEvent.hasCallerData);
     //datum.put("marker", marker);
@@ -32,6 +32,7 @@ import org.slf4j.LoggerFactory;
 import java.io.Closeable;
 import java.io.Flushable;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Iterator;
@@ -244,7 +245,13 @@ public final class AvroFileWriter implements Closeable, Flushable {
     }
 
     public void append(LogWriteEvent event) throws IOException {
-      dataFileWriter.append(event.getGenericRecord());
+      ByteBuffer encodedRecord = event.getEncodedRecord();
+      if (encodedRecord != null) {
+        // The record is already encoded with the schema of the file
+        dataFileWriter.appendEncoded(encodedRecord.duplicate());
+      } else {
+        dataFileWriter.append(event.getGenericRecord());
+      }
       lastModifiedTs = System.currentTimeMillis();
     }
 
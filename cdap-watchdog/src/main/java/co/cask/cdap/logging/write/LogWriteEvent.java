@@ -21,25 +21,53 @@ import co.cask.cdap.common.logging.LoggingContext;
 import com.google.common.primitives.Longs;
 import org.apache.avro.generic.GenericRecord;
 
+import java.nio.ByteBuffer;
+import javax.annotation.Nullable;
+
 /**
  * Represents a log event that can be written to avro file.
  */
 public class LogWriteEvent implements Comparable<LogWriteEvent> {
 
   protected final GenericRecord  genericRecord;
+  protected final ByteBuffer encodedRecord;
   protected final ILoggingEvent logEvent;
   protected final LoggingContext loggingContext;
 
   public LogWriteEvent(GenericRecord genericRecord, ILoggingEvent logEvent, LoggingContext loggingContext) {
+    this(genericRecord, null, logEvent, loggingContext);
+  }
+
+  /**
+   * Creates an event with the record already encoded with the logging schema, which can be written to avro files
+   * without encoding it again.
+   */
+  public LogWriteEvent(ByteBuffer encodedRecord, ILoggingEvent logEvent, LoggingContext loggingContext) {
+    this(null, encodedRecord, logEvent, loggingContext);
+  }
+
+  private LogWriteEvent(@Nullable GenericRecord genericRecord, @Nullable ByteBuffer encodedRecord,
+                        ILoggingEvent logEvent, LoggingContext loggingContext) {
     this.genericRecord = genericRecord;
+    this.encodedRecord = encodedRecord;
     this.logEvent = logEvent;
     this.loggingContext = loggingContext;
   }
 
+  @Nullable
   public GenericRecord getGenericRecord() {
     return genericRecord;
   }
 
+  /**
+   * Returns the record encoded with the logging schema, or {@code null} if the event only has a
+   * {@link #getGenericRecord() generic record}.
+   */
+  @Nullable
+  public ByteBuffer getEncodedRecord() {
+    return encodedRecord;
+  }
+
   public ILoggingEvent getLogEvent() {
     return logEvent;
   }
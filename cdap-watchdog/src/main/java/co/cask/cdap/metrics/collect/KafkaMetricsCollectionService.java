@@ -16,10 +16,13 @@
 package co.cask.cdap.metrics.collect;
 
 import co.cask.cdap.api.metrics.MetricValues;
+import co.cask.cdap.common.conf.CConfiguration;
 import co.cask.cdap.common.conf.Constants;
 import co.cask.cdap.common.io.BinaryEncoder;
 import co.cask.cdap.common.io.Encoder;
 import co.cask.cdap.internal.io.DatumWriter;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.google.inject.name.Named;
@@ -33,37 +36,69 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 
 /**
  * A {@link AggregatedMetricsCollectionService} that publish {@link co.cask.cdap.api.metrics.MetricValues} to kafka.
  * The partition is determined by the metric context.
+ * <p>
+ * By default, each record is written as an individual message with the given {@link DatumWriter}. If the compact
+ * format is enabled, which is opt-in through {@link Constants.Metrics#KAFKA_COMPACT_FORMAT_ENABLED}, the metrics of
+ * a publish round are grouped by partition and written in the compact format of {@link MetricsMessageCodec}, with
+ * up to {@link #MAX_RECORDS_PER_MESSAGE} records per message.
+ * </p>
  */
 @Singleton
 public class KafkaMetricsCollectionService extends AggregatedMetricsCollectionService {
   private static final Logger LOG = LoggerFactory.getLogger(KafkaMetricsCollectionService.class);
 
+  /**
+   * Maximum number of {@link MetricValues} in one message of the compact format.
+   */
+  static final int MAX_RECORDS_PER_MESSAGE = 500;
+
   private final KafkaClient kafkaClient;
   private final String topicPrefix;
   private final KafkaPublisher.Ack ack;
   private final DatumWriter<MetricValues> recordWriter;
+  private final boolean compactFormat;
+  private final int partitionSize;
   private final ByteArrayOutputStream encoderOutputStream;
   private final Encoder encoder;
 
   private KafkaPublisher publisher;
 
   @Inject
-  public KafkaMetricsCollectionService(KafkaClient kafkaClient,
+  public KafkaMetricsCollectionService(CConfiguration cConf, KafkaClient kafkaClient,
                                        @Named(Constants.Metrics.KAFKA_TOPIC_PREFIX) String topicPrefix,
                                        DatumWriter<MetricValues> recordWriter) {
-    this(kafkaClient, topicPrefix, KafkaPublisher.Ack.FIRE_AND_FORGET, recordWriter);
+    this(kafkaClient, topicPrefix, KafkaPublisher.Ack.FIRE_AND_FORGET, recordWriter,
+         cConf.getBoolean(Constants.Metrics.KAFKA_COMPACT_FORMAT_ENABLED),
+         cConf.getInt(Constants.Metrics.KAFKA_PARTITION_SIZE, Constants.Metrics.DEFAULT_KAFKA_PARTITION_SIZE));
   }
 
   public KafkaMetricsCollectionService(KafkaClient kafkaClient, String topicPrefix,
                                        KafkaPublisher.Ack ack, DatumWriter<MetricValues> recordWriter) {
+    this(kafkaClient, topicPrefix, ack, recordWriter, false, 1);
+  }
+
+  /**
+   * Creates an instance that optionally publishes in the compact format.
+   *
+   * @param compactFormat {@code true} to publish in the format of {@link MetricsMessageCodec}
+   * @param partitionSize number of partitions of the metrics topic, used to group records by partition
+   *                      when publishing in the compact format
+   */
+  public KafkaMetricsCollectionService(KafkaClient kafkaClient, String topicPrefix,
+                                       KafkaPublisher.Ack ack, DatumWriter<MetricValues> recordWriter,
+                                       boolean compactFormat, int partitionSize) {
     this.kafkaClient = kafkaClient;
     this.topicPrefix = topicPrefix;
     this.ack = ack;
     this.recordWriter = recordWriter;
+    this.compactFormat = compactFormat;
+    this.partitionSize = Math.max(1, partitionSize);
 
     // Parent guarantees the publish method would not get called concurrently, hence safe to reuse the same instances.
     this.encoderOutputStream = new ByteArrayOutputStream(1024);
@@ -85,13 +120,48 @@ public class KafkaMetricsCollectionService extends AggregatedMetricsCollectionSe
     encoderOutputStream.reset();
 
     KafkaPublisher.Preparer preparer = publisher.prepare(topicPrefix);
+    if (compactFormat) {
+      publishCompact(preparer, metrics);
+    } else {
+      while (metrics.hasNext()) {
+        // Encode each MetricRecord into bytes and make it an individual kafka message in a message set.
+        MetricValues value = metrics.next();
+        publishMetric(preparer, value);
+      }
+    }
+
+    preparer.send();
+  }
+
+  private void publishCompact(KafkaPublisher.Preparer preparer, Iterator<MetricValues> metrics) throws IOException {
+    // Group by the partition the records would have been sent to individually, to keep the same partitioning
+    Map<Integer, List<MetricValues>> partitions = Maps.newHashMap();
     while (metrics.hasNext()) {
-      // Encode each MetricRecord into bytes and make it an individual kafka message in a message set.
       MetricValues value = metrics.next();
-      publishMetric(preparer, value);
+      Integer partition = Math.abs(getPartitionKey(value) % partitionSize);
+      List<MetricValues> records = partitions.get(partition);
+      if (records == null) {
+        records = Lists.newArrayList();
+        partitions.put(partition, records);
+      }
+      records.add(value);
+      if (records.size() >= MAX_RECORDS_PER_MESSAGE) {
+        publishMessage(preparer, records, partition);
+        records.clear();
+      }
+    }
+    for (Map.Entry<Integer, List<MetricValues>> entry : partitions.entrySet()) {
+      if (!entry.getValue().isEmpty()) {
+        publishMessage(preparer, entry.getValue(), entry.getKey());
+      }
     }
+  }
 
-    preparer.send();
+  private void publishMessage(KafkaPublisher.Preparer preparer,
+                              List<MetricValues> records, Integer partition) throws IOException {
+    MetricsMessageCodec.encode(records, encoderOutputStream);
+    preparer.add(ByteBuffer.wrap(encoderOutputStream.toByteArray()), partition);
+    encoderOutputStream.reset();
   }
 
   private void publishMetric(KafkaPublisher.Preparer preparer, MetricValues value) throws IOException {
@@ -19,12 +19,16 @@ import co.cask.cdap.api.metrics.MetricStore;
 import co.cask.cdap.api.metrics.MetricValues;
 import co.cask.cdap.common.conf.CConfiguration;
 import co.cask.cdap.common.conf.Constants;
+import co.cask.cdap.metrics.store.DefaultMetricStore;
+import co.cask.cdap.metrics.store.MetricsRollup;
 import co.cask.cdap.proto.Id;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableMap;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import org.apache.twill.common.Threads;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.Iterator;
 import java.util.concurrent.Executors;
@@ -33,7 +37,8 @@ import java.util.concurrent.TimeUnit;
 
 /**
  * A {@link co.cask.cdap.api.metrics.MetricsCollectionService} that writes to MetricsTable directly.
- * It also has a scheduling job that clean up old metrics periodically.
+ * It also has a scheduling job that clean up old metrics periodically, and one that rolls up metrics into the
+ * coarser resolutions if roll-up is enabled.
  */
 @Singleton
 public final class LocalMetricsCollectionService extends AggregatedMetricsCollectionService {
@@ -42,6 +47,8 @@ public final class LocalMetricsCollectionService extends AggregatedMetricsCollec
     ImmutableMap.of(Constants.Metrics.Tag.NAMESPACE, Id.Namespace.SYSTEM.getId(),
                     Constants.Metrics.Tag.COMPONENT, Constants.Service.METRICS_PROCESSOR);
 
+  private static final Logger LOG = LoggerFactory.getLogger(LocalMetricsCollectionService.class);
+
   private final CConfiguration cConf;
   private final MetricStore metricStore;
   private ScheduledExecutorService scheduler;
@@ -70,6 +77,13 @@ public final class LocalMetricsCollectionService extends AggregatedMetricsCollec
 
     // Try right away if there's anything to cleanup, then we'll schedule to do that periodically
     scheduler.schedule(createCleanupTask(retentionSecs), 1, TimeUnit.SECONDS);
+
+    // With roll-up enabled, the store only writes the finest resolution, the others are rolled up periodically
+    if (MetricsRollup.isEnabled(cConf) && metricStore instanceof DefaultMetricStore) {
+      long intervalSecs = cConf.getLong(Constants.Metrics.ROLLUP_INTERVAL_SECONDS);
+      scheduler.scheduleWithFixedDelay(createRollupTask(new MetricsRollup(cConf, (DefaultMetricStore) metricStore)),
+                                       intervalSecs, intervalSecs, TimeUnit.SECONDS);
+    }
   }
 
   @Override
@@ -101,4 +115,21 @@ public final class LocalMetricsCollectionService extends AggregatedMetricsCollec
       }
     };
   }
+
+  /**
+   * Creates a task for rolling up metrics into the coarser resolutions.
+   */
+  private Runnable createRollupTask(final MetricsRollup rollup) {
+    return new Runnable() {
+      @Override
+      public void run() {
+        try {
+          rollup.rollUp(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()));
+        } catch (Exception e) {
+          // Don't propagate, otherwise no further roll-ups would be scheduled
+          LOG.warn("Failed to roll up metrics.", e);
+        }
+      }
+    };
+  }
 }
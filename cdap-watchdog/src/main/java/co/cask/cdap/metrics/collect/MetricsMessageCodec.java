@@ -0,0 +1,220 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.metrics.collect;
+
+import co.cask.cdap.api.metrics.MetricType;
+import co.cask.cdap.api.metrics.MetricValue;
+import co.cask.cdap.api.metrics.MetricValues;
+import co.cask.cdap.common.io.BinaryDecoder;
+import co.cask.cdap.common.io.BinaryEncoder;
+import co.cask.cdap.common.io.Decoder;
+import co.cask.cdap.common.io.Encoder;
+import co.cask.common.io.ByteBufferInputStream;
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes and decodes the compact format of metrics Kafka messages. A message carries a batch of
+ * {@link MetricValues} together with a dictionary of all the tag names, tag values and metric names used by them:
+ *
+ * <pre>
+ * {@code
+ *
+ * message = marker string_count string{string_count} base_timestamp record_count record{record_count}
+ * record = tag_count (tag_name_id tag_value_id){tag_count} timestamp_delta metric_count metric{metric_count}
+ * metric = metric_name_id metric_type value
+ * }
+ * </pre>
+ *
+ * where {@code marker} is a single byte and everything else is Avro encoded. Strings are referenced by their index
+ * in the dictionary, and timestamps are stored as the difference to {@code base_timestamp}, so that each string
+ * and timestamp costs one to two bytes per record instead of being repeated in full. The {@code metric_type} is
+ * {@code 0} for a counter and {@code 1} for a gauge.
+ * <p>
+ * The marker is always odd. Messages of the legacy format, which contain a single {@link MetricValues} encoded
+ * with the reflection based datum writer, always start with an even byte, since the first field of the record is
+ * encoded as a non-negative Avro varint. This makes it possible to consume topics that contain both formats.
+ * </p>
+ */
+public final class MetricsMessageCodec {
+
+  private static final int VERSION = 1;
+  private static final int MARKER = (VERSION << 1) | 1;
+  // Stable codes of the metric types on the wire, independent of the order of the MetricType constants
+  private static final int COUNTER_CODE = 0;
+  private static final int GAUGE_CODE = 1;
+  // Minimum number of bytes taken by a string, a record, a tag and a metric, used to validate the counts of a message
+  private static final int MIN_STRING_BYTES = 1;
+  private static final int MIN_RECORD_BYTES = 3;
+  private static final int MIN_TAG_BYTES = 2;
+  private static final int MIN_METRIC_BYTES = 3;
+
+  /**
+   * Returns {@code true} if the given message payload is in the compact format.
+   */
+  public static boolean isCompact(ByteBuffer payload) {
+    return payload.remaining() > 0 && (payload.get(payload.position()) & 1) == 1;
+  }
+
+  /**
+   * Encodes the given metrics as one message to the given {@link OutputStream}.
+   */
+  public static void encode(Collection<MetricValues> records, OutputStream os) throws IOException {
+    Map<String, Integer> dictionary = Maps.newLinkedHashMap();
+    long baseTimestamp = Long.MAX_VALUE;
+    for (MetricValues record : records) {
+      for (Map.Entry<String, String> tag : record.getTags().entrySet()) {
+        addToDictionary(dictionary, tag.getKey());
+        addToDictionary(dictionary, tag.getValue());
+      }
+      for (MetricValue metric : record.getMetrics()) {
+        addToDictionary(dictionary, metric.getName());
+      }
+      baseTimestamp = Math.min(baseTimestamp, record.getTimestamp());
+    }
+
+    os.write(MARKER);
+    Encoder encoder = new BinaryEncoder(os);
+    encoder.writeInt(dictionary.size());
+    for (String str : dictionary.keySet()) {
+      encoder.writeString(str);
+    }
+    encoder.writeLong(records.isEmpty() ? 0L : baseTimestamp);
+    encoder.writeInt(records.size());
+    for (MetricValues record : records) {
+      encoder.writeInt(record.getTags().size());
+      for (Map.Entry<String, String> tag : record.getTags().entrySet()) {
+        encoder.writeInt(dictionary.get(tag.getKey()));
+        encoder.writeInt(dictionary.get(tag.getValue()));
+      }
+      encoder.writeLong(record.getTimestamp() - baseTimestamp);
+      encoder.writeInt(record.getMetrics().size());
+      for (MetricValue metric : record.getMetrics()) {
+        encoder.writeInt(dictionary.get(metric.getName()));
+        encoder.writeInt(encodeType(metric.getType()));
+        encoder.writeLong(metric.getValue());
+      }
+    }
+  }
+
+  /**
+   * Decodes a message created by {@link #encode(Collection, OutputStream)}.
+   *
+   * @throws IOException if the payload is not a valid message of the compact format
+   */
+  public static List<MetricValues> decode(ByteBuffer payload) throws IOException {
+    ByteBuffer buffer = payload.slice();
+    if (!buffer.hasRemaining() || buffer.get() != MARKER) {
+      throw new IOException("Unsupported metrics message format");
+    }
+    Decoder decoder = new BinaryDecoder(new ByteBufferInputStream(buffer));
+
+    String[] dictionary = new String[readCount(decoder, buffer, MIN_STRING_BYTES)];
+    for (int i = 0; i < dictionary.length; i++) {
+      dictionary[i] = readString(decoder, buffer);
+    }
+    long baseTimestamp = decoder.readLong();
+
+    int recordCount = readCount(decoder, buffer, MIN_RECORD_BYTES);
+    List<MetricValues> records = Lists.newArrayListWithCapacity(recordCount);
+    for (int i = 0; i < recordCount; i++) {
+      int tagCount = readCount(decoder, buffer, MIN_TAG_BYTES);
+      Map<String, String> tags = Maps.newHashMapWithExpectedSize(tagCount);
+      for (int j = 0; j < tagCount; j++) {
+        tags.put(lookup(dictionary, decoder.readInt()), lookup(dictionary, decoder.readInt()));
+      }
+      long timestamp = baseTimestamp + decoder.readLong();
+      int metricCount = readCount(decoder, buffer, MIN_METRIC_BYTES);
+      List<MetricValue> metrics = Lists.newArrayListWithCapacity(metricCount);
+      for (int j = 0; j < metricCount; j++) {
+        String name = lookup(dictionary, decoder.readInt());
+        MetricType type = decodeType(decoder.readInt());
+        metrics.add(new MetricValue(name, type, decoder.readLong()));
+      }
+      records.add(new MetricValues(tags, timestamp, metrics));
+    }
+    return records;
+  }
+
+  /**
+   * Reads the number of items that follow in the given buffer, which the given decoder reads from.
+   *
+   * @throws IOException if the count is negative, or if the buffer is too short to contain that many items
+   */
+  private static int readCount(Decoder decoder, ByteBuffer buffer, int minItemBytes) throws IOException {
+    int count = decoder.readInt();
+    if (count < 0 || count > buffer.remaining() / minItemBytes) {
+      throw new IOException("Invalid count " + count + " with " + buffer.remaining() + " bytes remaining");
+    }
+    return count;
+  }
+
+  /**
+   * Reads a string from the given buffer, which the given decoder reads from, validating its length.
+   */
+  private static String readString(Decoder decoder, ByteBuffer buffer) throws IOException {
+    byte[] bytes = new byte[readCount(decoder, buffer, 1)];
+    buffer.get(bytes);
+    return new String(bytes, Charsets.UTF_8);
+  }
+
+  private static int encodeType(MetricType type) {
+    switch (type) {
+      case COUNTER:
+        return COUNTER_CODE;
+      case GAUGE:
+        return GAUGE_CODE;
+      default:
+        throw new IllegalArgumentException("Unsupported metric type " + type);
+    }
+  }
+
+  private static MetricType decodeType(int code) throws IOException {
+    switch (code) {
+      case COUNTER_CODE:
+        return MetricType.COUNTER;
+      case GAUGE_CODE:
+        return MetricType.GAUGE;
+      default:
+        throw new IOException("Invalid metric type " + code);
+    }
+  }
+
+  private static void addToDictionary(Map<String, Integer> dictionary, String str) {
+    if (!dictionary.containsKey(str)) {
+      dictionary.put(str, dictionary.size());
+    }
+  }
+
+  private static String lookup(String[] dictionary, int id) throws IOException {
+    if (id < 0 || id >= dictionary.length) {
+      throw new IOException("Invalid string id " + id);
+    }
+    return dictionary[id];
+  }
+
+  private MetricsMessageCodec() {
+  }
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.metrics.process;
+
+import co.cask.cdap.api.metrics.MetricStore;
+import co.cask.cdap.api.metrics.MetricType;
+import co.cask.cdap.api.metrics.MetricValue;
+import co.cask.cdap.api.metrics.MetricValues;
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.apache.twill.common.Threads;
+import org.apache.twill.kafka.client.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Buffers {@link MetricValues} in memory before writing them to a {@link MetricStore}. Values of the same metric with
+ * the same tags and timestamp are merged: counters are summed up and the latest value of a gauge is kept. Many
+ * containers usually report metrics of the same context every second, hence this reduces the writes significantly.
+ * <p>
+ * The buffer is written when it holds the given number of distinct tags and timestamp combinations, or when its oldest
+ * values have been buffered for the given time. The Kafka offsets of the buffered messages are persisted to the
+ * {@link KafkaConsumerMetaTable} only after the values have been written, so that no metrics are lost on failure.
+ * While the buffer is full and cannot be written, adding to it blocks and retries the write, so that the memory used
+ * by the buffer stays bounded when the store is unavailable.
+ * </p>
+ */
+public final class CoalescingMetricsBuffer implements Closeable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(CoalescingMetricsBuffer.class);
+  private static final long MIN_RETRY_DELAY_MS = 100L;
+  private static final long MAX_RETRY_DELAY_MS = 10000L;
+  private static final int CLOSE_FLUSH_ATTEMPTS = 3;
+
+  private final MetricStore metricStore;
+  private final KafkaConsumerMetaTable metaTable;
+  private final int maxSize;
+  private final long maxDelayMillis;
+  private final Map<MetricsKey, Map<String, MetricValue>> buffer;
+  private final Map<TopicPartition, Long> offsets;
+  private final ScheduledExecutorService executor;
+  private long firstAddTime;
+  private boolean closed;
+
+  /**
+   * Creates a buffer and starts a thread that writes it when its oldest values are due.
+   *
+   * @param metricStore the store to write metrics to
+   * @param metaTable the table to persist Kafka offsets to
+   * @param maxSize maximum number of distinct tags and timestamp combinations to buffer
+   * @param maxDelayMillis maximum time in milliseconds to buffer values for
+   */
+  public CoalescingMetricsBuffer(MetricStore metricStore, KafkaConsumerMetaTable metaTable,
+                                 int maxSize, long maxDelayMillis) {
+    this.metricStore = metricStore;
+    this.metaTable = metaTable;
+    this.maxSize = maxSize;
+    this.maxDelayMillis = maxDelayMillis;
+    this.buffer = Maps.newHashMap();
+    this.offsets = Maps.newHashMap();
+    this.executor = Executors.newSingleThreadScheduledExecutor(
+      Threads.createDaemonThreadFactory("metrics-buffer-flush"));
+
+    long checkInterval = Math.max(1L, maxDelayMillis / 2);
+    executor.scheduleWithFixedDelay(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          flushIfDue();
+        } catch (Exception e) {
+          // Values stay in the buffer and are written with the next flush
+          LOG.warn("Failed to write buffered metrics. Will retry.", e);
+        }
+      }
+    }, checkInterval, checkInterval, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Adds metrics to the buffer, writing the buffer if it is full. If the full buffer cannot be written, this method
+   * blocks and retries the write until it succeeds.
+   *
+   * @param records the metrics to add
+   * @param consumedOffsets the next offsets to consume for the Kafka partitions the metrics were fetched from
+   * @throws RuntimeException if the full buffer cannot be written and the buffer is closed or the thread interrupted
+   */
+  public synchronized void add(Collection<MetricValues> records, Map<TopicPartition, Long> consumedOffsets) {
+    if (buffer.isEmpty()) {
+      firstAddTime = System.currentTimeMillis();
+    }
+    for (MetricValues record : records) {
+      MetricsKey key = new MetricsKey(record.getTags(), record.getTimestamp());
+      Map<String, MetricValue> values = buffer.get(key);
+      if (values == null) {
+        values = Maps.newHashMap();
+        buffer.put(key, values);
+      }
+      for (MetricValue value : record.getMetrics()) {
+        MetricValue existing = values.get(value.getName());
+        if (existing != null && value.getType() == MetricType.COUNTER && existing.getType() == MetricType.COUNTER) {
+          value = new MetricValue(value.getName(), MetricType.COUNTER, existing.getValue() + value.getValue());
+        }
+        values.put(value.getName(), value);
+      }
+    }
+    offsets.putAll(consumedOffsets);
+
+    long retryDelay = MIN_RETRY_DELAY_MS;
+    while (buffer.size() >= maxSize) {
+      try {
+        flush();
+      } catch (RuntimeException e) {
+        if (closed) {
+          throw e;
+        }
+        LOG.warn("Failed to write full metrics buffer. Retrying in {} ms.", retryDelay, e);
+        try {
+          // Releases the lock while waiting, so that the periodic flush can write the buffer too
+          wait(retryDelay);
+        } catch (InterruptedException ie) {
+          Thread.currentThread().interrupt();
+          throw e;
+        }
+        retryDelay = Math.min(retryDelay * 2, MAX_RETRY_DELAY_MS);
+      }
+    }
+  }
+
+  /**
+   * Writes the buffer if its oldest values have been buffered for the maximum time.
+   */
+  public synchronized void flushIfDue() {
+    if (!buffer.isEmpty() && System.currentTimeMillis() - firstAddTime >= maxDelayMillis) {
+      flush();
+    }
+  }
+
+  /**
+   * Writes all buffered values to the store and persists the offsets of the buffered messages afterwards.
+   * If writing to the store fails, the values stay in the buffer.
+   */
+  public synchronized void flush() {
+    if (!buffer.isEmpty()) {
+      List<MetricValues> records = Lists.newArrayListWithCapacity(buffer.size());
+      for (Map.Entry<MetricsKey, Map<String, MetricValue>> entry : buffer.entrySet()) {
+        records.add(new MetricValues(entry.getKey().tags, entry.getKey().timestamp, entry.getValue().values()));
+      }
+      try {
+        metricStore.add(records);
+      } catch (Exception e) {
+        throw new RuntimeException("Failed to add metrics data to a store", e);
+      }
+      buffer.clear();
+    }
+
+    if (!offsets.isEmpty()) {
+      try {
+        metaTable.save(ImmutableMap.copyOf(offsets));
+      } catch (Exception e) {
+        // Simple log and ignore the error, the offsets are persisted again with the next flush
+        LOG.error("Failed to persist consumed message offset. {}", e.getMessage(), e);
+        return;
+      }
+      offsets.clear();
+    }
+  }
+
+  /**
+   * Stops writing the buffer periodically and writes it a last time, retrying a few times on failure. Values that
+   * still cannot be written are not written, but their offsets are not persisted either, hence they are processed
+   * again when the consumer restarts.
+   */
+  @Override
+  public void close() {
+    // Let a periodic flush in progress complete, instead of interrupting it
+    executor.shutdown();
+    try {
+      executor.awaitTermination(MAX_RETRY_DELAY_MS, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    flushOnClose();
+  }
+
+  private synchronized void flushOnClose() {
+    closed = true;
+    long retryDelay = MIN_RETRY_DELAY_MS;
+    for (int attempt = 1; ; attempt++) {
+      try {
+        flush();
+        return;
+      } catch (RuntimeException e) {
+        if (attempt >= CLOSE_FLUSH_ATTEMPTS || Thread.currentThread().isInterrupted()) {
+          LOG.error("Failed to write {} buffered metrics contexts on close. Their Kafka offsets are not persisted, " +
+                      "hence they are processed again on restart.", buffer.size(), e);
+          return;
+        }
+        LOG.warn("Failed to write buffered metrics on close. Retrying in {} ms.", retryDelay, e);
+        try {
+          wait(retryDelay);
+        } catch (InterruptedException ie) {
+          Thread.currentThread().interrupt();
+        }
+        retryDelay = Math.min(retryDelay * 2, MAX_RETRY_DELAY_MS);
+      }
+    }
+  }
+
+  /**
+   * Key of the buffered values, which are merged if they have the same tags and timestamp.
+   */
+  private static final class MetricsKey {
+    private final Map<String, String> tags;
+    private final long timestamp;
+
+    private MetricsKey(Map<String, String> tags, long timestamp) {
+      this.tags = tags;
+      this.timestamp = timestamp;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      MetricsKey other = (MetricsKey) o;
+      return timestamp == other.timestamp && tags.equals(other.tags);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(tags, timestamp);
+    }
+  }
+}
@@ -17,8 +17,11 @@
 package co.cask.cdap.metrics.process;
 
 import co.cask.cdap.api.metrics.MetricsContext;
+import co.cask.cdap.common.conf.CConfiguration;
 import co.cask.cdap.common.conf.Constants;
+import co.cask.cdap.metrics.store.DefaultMetricStore;
 import co.cask.cdap.metrics.store.MetricDatasetFactory;
+import co.cask.cdap.metrics.store.MetricsRollup;
 import com.google.common.util.concurrent.AbstractExecutionThreadService;
 import com.google.inject.Inject;
 import com.google.inject.assistedinject.Assisted;
@@ -55,8 +58,14 @@ public final class KafkaMetricsProcessorService extends AbstractExecutionThreadS
 
   private KafkaConsumerMetaTable metaTable;
 
+  // Roll-up of metrics into the coarser resolutions, done by the processor of the first partition only
+  @Nullable
+  private final MetricsRollup rollup;
+  private final long rollupIntervalMillis;
+
   @Inject
-  public KafkaMetricsProcessorService(KafkaClientService kafkaClient,
+  public KafkaMetricsProcessorService(CConfiguration cConf,
+                                      KafkaClientService kafkaClient,
                                       MetricDatasetFactory metricDatasetFactory,
                                       MessageCallbackFactory callbackFactory,
                                       @Named(Constants.Metrics.KAFKA_TOPIC_PREFIX) String topicPrefix,
@@ -66,6 +75,9 @@ public final class KafkaMetricsProcessorService extends AbstractExecutionThreadS
     this.topicPrefix = topicPrefix;
     this.partitions = partitions;
     this.metricDatasetFactory = metricDatasetFactory;
+    this.rollup = MetricsRollup.isEnabled(cConf) && partitions.contains(0)
+      ? new MetricsRollup(cConf, new DefaultMetricStore(metricDatasetFactory, cConf)) : null;
+    this.rollupIntervalMillis = TimeUnit.SECONDS.toMillis(cConf.getLong(Constants.Metrics.ROLLUP_INTERVAL_SECONDS));
   }
 
   public void setMetricsContext(MetricsContext metricsContext) {
@@ -85,7 +97,16 @@ public final class KafkaMetricsProcessorService extends AbstractExecutionThreadS
     }
     LOG.info("Metrics Processing Service started for partitions {}.", partitions);
 
+    long nextRollup = System.currentTimeMillis() + rollupIntervalMillis;
     while (isRunning()) {
+      if (rollup != null && System.currentTimeMillis() >= nextRollup) {
+        try {
+          rollup.rollUp(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()));
+        } catch (Exception e) {
+          LOG.warn("Failed to roll up metrics.", e);
+        }
+        nextRollup = System.currentTimeMillis() + rollupIntervalMillis;
+      }
       try {
         TimeUnit.SECONDS.sleep(1);
       } catch (InterruptedException e) {
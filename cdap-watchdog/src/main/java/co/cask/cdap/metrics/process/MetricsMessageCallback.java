@@ -23,15 +23,19 @@ import co.cask.cdap.api.metrics.MetricValues;
 import co.cask.cdap.api.metrics.MetricsContext;
 import co.cask.cdap.common.io.BinaryDecoder;
 import co.cask.cdap.internal.io.DatumReader;
+import co.cask.cdap.metrics.collect.MetricsMessageCodec;
 import co.cask.common.io.ByteBufferInputStream;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import org.apache.twill.kafka.client.FetchedMessage;
 import org.apache.twill.kafka.client.KafkaConsumer;
+import org.apache.twill.kafka.client.TopicPartition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
@@ -40,8 +44,9 @@ import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 
 /**
- * A {@link KafkaConsumer.MessageCallback} that decodes message into {@link co.cask.cdap.api.metrics.MetricValues}
- * and stores it in {@link MetricStore}.
+ * A {@link KafkaConsumer.MessageCallback} that decodes message into {@link co.cask.cdap.api.metrics.MetricValues},
+ * from either the compact format of {@link MetricsMessageCodec} or the per-record format, and stores it in
+ * {@link MetricStore}, either directly or through a {@link CoalescingMetricsBuffer}.
  */
 public final class MetricsMessageCallback implements KafkaConsumer.MessageCallback {
 
@@ -52,16 +57,33 @@ public final class MetricsMessageCallback implements KafkaConsumer.MessageCallba
   private long recordProcessed;
   private final MetricStore metricStore;
   private final Map<String, String> metricsContext;
+  @Nullable
+  private final CoalescingMetricsBuffer buffer;
 
   public MetricsMessageCallback(DatumReader<MetricValues> recordReader,
                                 Schema recordSchema,
                                 MetricStore metricStore,
                                 @Nullable
                                 MetricsContext metricsContext) {
+    this(recordReader, recordSchema, metricStore, metricsContext, null);
+  }
+
+  /**
+   * Creates a callback that adds the metrics to the given {@link CoalescingMetricsBuffer}, which also persists
+   * the offsets of the consumed messages.
+   */
+  public MetricsMessageCallback(DatumReader<MetricValues> recordReader,
+                                Schema recordSchema,
+                                MetricStore metricStore,
+                                @Nullable
+                                MetricsContext metricsContext,
+                                @Nullable
+                                CoalescingMetricsBuffer buffer) {
     this.recordReader = recordReader;
     this.recordSchema = recordSchema;
     this.metricStore = metricStore;
     this.metricsContext = metricsContext == null ? Collections.<String, String>emptyMap() : metricsContext.getTags();
+    this.buffer = buffer;
   }
 
   @Override
@@ -69,12 +91,18 @@ public final class MetricsMessageCallback implements KafkaConsumer.MessageCallba
     // Decode the metrics records.
     final ByteBufferInputStream is = new ByteBufferInputStream(null);
     List<MetricValues> records = Lists.newArrayList();
+    Map<TopicPartition, Long> offsets = Maps.newHashMap();
 
     while (messages.hasNext()) {
       FetchedMessage input = messages.next();
+      offsets.put(input.getTopicPartition(), input.getNextOffset());
       try {
-        MetricValues metricValues = recordReader.read(new BinaryDecoder(is.reset(input.getPayload())), recordSchema);
-        records.add(metricValues);
+        ByteBuffer payload = input.getPayload();
+        if (MetricsMessageCodec.isCompact(payload)) {
+          records.addAll(MetricsMessageCodec.decode(payload));
+        } else {
+          records.add(recordReader.read(new BinaryDecoder(is.reset(payload)), recordSchema));
+        }
       } catch (IOException e) {
         LOG.info("Failed to decode message to MetricValue. Skipped. {}", e.getMessage());
       }
@@ -82,12 +110,19 @@ public final class MetricsMessageCallback implements KafkaConsumer.MessageCallba
 
     if (records.isEmpty()) {
       LOG.info("No records to process.");
+      if (buffer != null) {
+        buffer.add(records, offsets);
+      }
       return;
     }
 
     try {
       addProcessingStats(records);
-      metricStore.add(records);
+      if (buffer != null) {
+        buffer.add(records, offsets);
+      } else {
+        metricStore.add(records);
+      }
     } catch (Exception e) {
       String msg = "Failed to add metrics data to a store";
       LOG.error(msg);
@@ -117,7 +152,9 @@ public final class MetricsMessageCallback implements KafkaConsumer.MessageCallba
 
   @Override
   public void finished() {
-    // Just log
+    if (buffer != null) {
+      buffer.close();
+    }
     LOG.info("Metrics MessageCallback completed.");
   }
 }
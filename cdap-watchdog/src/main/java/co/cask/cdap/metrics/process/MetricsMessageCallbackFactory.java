@@ -20,6 +20,7 @@ import co.cask.cdap.api.data.schema.UnsupportedTypeException;
 import co.cask.cdap.api.metrics.MetricStore;
 import co.cask.cdap.api.metrics.MetricValues;
 import co.cask.cdap.api.metrics.MetricsContext;
+import co.cask.cdap.common.conf.CConfiguration;
 import co.cask.cdap.common.conf.Constants;
 import co.cask.cdap.internal.io.DatumReader;
 import co.cask.cdap.internal.io.DatumReaderFactory;
@@ -40,9 +41,12 @@ public final class MetricsMessageCallbackFactory implements MessageCallbackFacto
   private final Schema recordSchema;
   private final MetricStore metricStore;
   private final int persistThreshold;
+  private final int bufferSize;
+  private final long bufferFlushIntervalMillis;
 
   @Inject
-  public MetricsMessageCallbackFactory(SchemaGenerator schemaGenerator, DatumReaderFactory readerFactory,
+  public MetricsMessageCallbackFactory(CConfiguration cConf,
+                                       SchemaGenerator schemaGenerator, DatumReaderFactory readerFactory,
                                        MetricStore metricStore,
                                        @Named(Constants.Metrics.KAFKA_CONSUMER_PERSIST_THRESHOLD)
                                        int persistThreshold) {
@@ -51,6 +55,8 @@ public final class MetricsMessageCallbackFactory implements MessageCallbackFacto
       this.datumReader = readerFactory.create(TypeToken.of(MetricValues.class), recordSchema);
       this.metricStore = metricStore;
       this.persistThreshold = persistThreshold;
+      this.bufferSize = cConf.getInt(Constants.Metrics.PROCESSOR_BUFFER_SIZE);
+      this.bufferFlushIntervalMillis = cConf.getLong(Constants.Metrics.PROCESSOR_BUFFER_FLUSH_INTERVAL_MS);
 
     } catch (UnsupportedTypeException e) {
       throw Throwables.propagate(e);
@@ -60,6 +66,12 @@ public final class MetricsMessageCallbackFactory implements MessageCallbackFacto
   @Override
   public KafkaConsumer.MessageCallback create(KafkaConsumerMetaTable metaTable, MetricsContext metricsContext) {
     metricStore.setMetricsContext(metricsContext);
+    if (bufferSize > 0) {
+      // The buffer persists the offsets once the metrics of the consumed messages are written
+      CoalescingMetricsBuffer buffer = new CoalescingMetricsBuffer(metricStore, metaTable,
+                                                                   bufferSize, bufferFlushIntervalMillis);
+      return new MetricsMessageCallback(datumReader, recordSchema, metricStore, metricsContext, buffer);
+    }
     return new PersistedMessageCallback(
       new MetricsMessageCallback(datumReader, recordSchema, metricStore, metricsContext), metaTable, persistThreshold);
   }
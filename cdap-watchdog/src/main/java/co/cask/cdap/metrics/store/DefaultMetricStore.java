@@ -16,7 +16,6 @@
 
 package co.cask.cdap.metrics.store;
 
-import co.cask.cdap.api.dataset.lib.cube.Cube;
 import co.cask.cdap.api.dataset.lib.cube.CubeDeleteQuery;
 import co.cask.cdap.api.dataset.lib.cube.CubeExploreQuery;
 import co.cask.cdap.api.dataset.lib.cube.CubeFact;
@@ -35,6 +34,7 @@ import co.cask.cdap.api.metrics.MetricValue;
 import co.cask.cdap.api.metrics.MetricValues;
 import co.cask.cdap.api.metrics.MetricsContext;
 import co.cask.cdap.api.metrics.TagValue;
+import co.cask.cdap.common.conf.CConfiguration;
 import co.cask.cdap.common.conf.Constants;
 import co.cask.cdap.data2.dataset2.lib.cube.Aggregation;
 import co.cask.cdap.data2.dataset2.lib.cube.AggregationAlias;
@@ -85,7 +85,8 @@ public class DefaultMetricStore implements MetricStore {
                                                          Constants.Metrics.Tag.WORKFLOW_RUN_ID)));
 
   private final int resolutions[];
-  private final Supplier<Cube> cube;
+  private final Set<Integer> rolledUpResolutions;
+  private final Supplier<DefaultCube> cube;
   private MetricsContext metricsContext;
 
 
@@ -197,15 +198,32 @@ public class DefaultMetricStore implements MetricStore {
     AGGREGATIONS = Collections.unmodifiableMap(aggs);
   }
 
-  @Inject
-  public DefaultMetricStore(final MetricDatasetFactory dsFactory) {
+  public DefaultMetricStore(MetricDatasetFactory dsFactory) {
     // 1 sec, 1 min, 1 hour and "all time totals"
-    this(dsFactory, new int[] {1, 60, 3600, TOTALS_RESOLUTION});
+    this(dsFactory, new int[] {1, 60, 3600, TOTALS_RESOLUTION}, ImmutableSet.<Integer>of(), 0L);
+  }
+
+  @Inject
+  public DefaultMetricStore(MetricDatasetFactory dsFactory, CConfiguration cConf) {
+    // 1 sec, 1 min, 1 hour and "all time totals". With roll-up, the 1 min and 1 hour resolutions are produced from
+    // the 1 sec resolution by MetricsRollup. Totals cannot be recomputed from the expiring 1 sec resolution, hence
+    // are always written. Queries read the intervals that may not be rolled up yet from the 1 sec resolution.
+    this(dsFactory, new int[] {1, 60, 3600, TOTALS_RESOLUTION},
+         cConf.getBoolean(Constants.Metrics.ROLLUP_ENABLED, false) ? ImmutableSet.of(60, 3600)
+                                                                    : ImmutableSet.<Integer>of(),
+         cConf.getLong(Constants.Metrics.ROLLUP_DELAY_SECONDS)
+           + cConf.getLong(Constants.Metrics.ROLLUP_INTERVAL_SECONDS));
   }
 
   // NOTE: should never be used apart from data migration during cdap upgrade
-  public DefaultMetricStore(final MetricDatasetFactory dsFactory, final int resolutions[]) {
+  public DefaultMetricStore(MetricDatasetFactory dsFactory, int resolutions[]) {
+    this(dsFactory, resolutions, ImmutableSet.<Integer>of(), 0L);
+  }
+
+  private DefaultMetricStore(final MetricDatasetFactory dsFactory, final int resolutions[],
+                             final Set<Integer> rolledUpResolutions, final long rollUpLagSecs) {
     this.resolutions = resolutions;
+    this.rolledUpResolutions = rolledUpResolutions;
     final FactTableSupplier factTableSupplier = new FactTableSupplier() {
       @Override
       public FactTable get(int resolution, int ignoredRollTime) {
@@ -213,16 +231,33 @@ public class DefaultMetricStore implements MetricStore {
         return dsFactory.getOrCreateFactTable(resolution);
       }
     };
-    this.cube = Suppliers.memoize(new Supplier<Cube>() {
+    this.cube = Suppliers.memoize(new Supplier<DefaultCube>() {
       @Override
-      public Cube get() {
-        DefaultCube cube = new DefaultCube(resolutions, factTableSupplier, AGGREGATIONS, AGGREGATIONS_ALIAS_DIMENSIONS);
+      public DefaultCube get() {
+        DefaultCube cube = new DefaultCube(resolutions, factTableSupplier, AGGREGATIONS, AGGREGATIONS_ALIAS_DIMENSIONS,
+                                           rolledUpResolutions, rollUpLagSecs);
         cube.setMetricsCollector(metricsContext);
         return cube;
       }
     });
   }
 
+  /**
+   * Returns the resolutions that are produced by {@link #rollUp(int, long, long)} instead of being written
+   * when metrics are added.
+   */
+  Set<Integer> getRolledUpResolutions() {
+    return rolledUpResolutions;
+  }
+
+  /**
+   * Rolls up the 1 sec resolution values in the given time range into the given resolution.
+   * See {@link DefaultCube#rollUp(int, long, long)}.
+   */
+  void rollUp(int resolution, long startTs, long endTs) {
+    cube.get().rollUp(resolution, startTs, endTs);
+  }
+
   @Override
   public void setMetricsContext(MetricsContext metricsContext) {
     this.metricsContext = metricsContext;
@@ -0,0 +1,86 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.metrics.store;
+
+import co.cask.cdap.common.conf.CConfiguration;
+import co.cask.cdap.common.conf.Constants;
+import com.google.common.collect.Maps;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rolls up the 1 sec resolution of a {@link DefaultMetricStore} into its coarser resolutions, if roll-up is enabled
+ * with {@link Constants.Metrics#ROLLUP_ENABLED}. Each call to {@link #rollUp(long)} rolls up the intervals that ended
+ * at least {@link Constants.Metrics#ROLLUP_DELAY_SECONDS} ago and were not rolled up yet.
+ * <p>
+ * Progress is only kept in memory. Since rolling up is idempotent, the first roll-up after a restart starts again
+ * from the earliest interval that is still completely retained in the 1 sec resolution.
+ * </p>
+ */
+public final class MetricsRollup {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MetricsRollup.class);
+  private static final int SOURCE_RESOLUTION = 1;
+
+  private final DefaultMetricStore metricStore;
+  private final long delaySecs;
+  private final long sourceRetentionSecs;
+  // resolution -> start of the next interval to roll up
+  private final Map<Integer, Long> nextStartTs;
+
+  public MetricsRollup(CConfiguration cConf, DefaultMetricStore metricStore) {
+    this.metricStore = metricStore;
+    this.delaySecs = cConf.getLong(Constants.Metrics.ROLLUP_DELAY_SECONDS);
+    this.sourceRetentionSecs = cConf.getLong(
+      Constants.Metrics.RETENTION_SECONDS + "." + SOURCE_RESOLUTION + ".seconds",
+      TimeUnit.HOURS.toSeconds(Constants.Metrics.DEFAULT_RETENTION_HOURS));
+    this.nextStartTs = Maps.newHashMap();
+  }
+
+  /**
+   * Returns whether roll-up of metrics is enabled in the given configuration.
+   */
+  public static boolean isEnabled(CConfiguration cConf) {
+    return cConf.getBoolean(Constants.Metrics.ROLLUP_ENABLED, false);
+  }
+
+  /**
+   * Rolls up all completed intervals that are due.
+   *
+   * @param currentTime the current time, in seconds
+   */
+  public void rollUp(long currentTime) {
+    for (int resolution : metricStore.getRolledUpResolutions()) {
+      // Skip intervals that started before the retention of the source resolution, they are partially expired
+      long startTs = ((currentTime - sourceRetentionSecs) / resolution + 1) * resolution;
+      Long nextStart = nextStartTs.get(resolution);
+      if (nextStart != null) {
+        startTs = Math.max(startTs, nextStart);
+      }
+      long endTs = (currentTime - delaySecs) / resolution * resolution;
+      if (endTs <= startTs) {
+        continue;
+      }
+      LOG.debug("Rolling up metrics into resolution {} for time range [{}, {}).", resolution, startTs, endTs);
+      metricStore.rollUp(resolution, startTs, endTs - 1);
+      nextStartTs.put(resolution, endTs);
+    }
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.logging.filter;
+
+import ch.qos.logback.classic.Level;
+import co.cask.cdap.logging.serialize.LogSchema;
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.util.Utf8;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests for {@link RecordFilters}.
+ */
+public class RecordFiltersTest {
+
+  private static Schema schema;
+
+  @BeforeClass
+  public static void init() throws Exception {
+    schema = new LogSchema().getAvroSchema();
+  }
+
+  @Test
+  public void testLevelAndMdc() {
+    GenericRecord warn = createRecord(Level.WARN, "app", "app1");
+    GenericRecord debug = createRecord(Level.DEBUG, "app", "app2");
+
+    Predicate<GenericRecord> level = RecordFilters.fromFilter(new LogLevelExpression("INFO"));
+    Assert.assertTrue(level.apply(warn));
+    Assert.assertFalse(level.apply(debug));
+
+    Predicate<GenericRecord> mdc = RecordFilters.fromFilter(new MdcExpression("app", "app2"));
+    Assert.assertFalse(mdc.apply(warn));
+    Assert.assertTrue(mdc.apply(debug));
+    Assert.assertFalse(RecordFilters.fromFilter(new MdcExpression("flow", "app2")).apply(debug));
+
+    Predicate<GenericRecord> and = RecordFilters.fromFilter(
+      new AndFilter(ImmutableList.of(new LogLevelExpression("DEBUG"), new MdcExpression("app", "app1"))));
+    Assert.assertTrue(and.apply(warn));
+    Assert.assertFalse(and.apply(debug));
+
+    Predicate<GenericRecord> or = RecordFilters.fromFilter(
+      new OrFilter(ImmutableList.of(new LogLevelExpression("ERROR"), new MdcExpression("app", "app2"))));
+    Assert.assertFalse(or.apply(warn));
+    Assert.assertTrue(or.apply(debug));
+  }
+
+  @Test
+  public void testUnknownFilter() {
+    GenericRecord debug = createRecord(Level.DEBUG, "app", "app1");
+
+    // Filters that can't be evaluated on the record must not skip it
+    Assert.assertTrue(RecordFilters.fromFilter(Filter.EMPTY_FILTER).apply(debug));
+    Assert.assertTrue(RecordFilters.fromFilter(
+      new AndFilter(ImmutableList.of(Filter.EMPTY_FILTER, new MdcExpression("app", "app1")))).apply(debug));
+    Assert.assertTrue(RecordFilters.fromFilter(
+      new OrFilter(ImmutableList.of(Filter.EMPTY_FILTER, new MdcExpression("app", "app2")))).apply(debug));
+  }
+
+  private GenericRecord createRecord(Level level, String mdcKey, String mdcValue) {
+    GenericRecord record = new GenericData.Record(schema);
+    record.put("level", level.toInt());
+    record.put("mdc", ImmutableMap.of(new Utf8(mdcKey), new Utf8(mdcValue)));
+    return record;
+  }
+}
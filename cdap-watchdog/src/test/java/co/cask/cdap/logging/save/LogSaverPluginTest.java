@@ -16,6 +16,7 @@
 
 package co.cask.cdap.logging.save;
 
+import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.LoggerContext;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.util.StatusPrinter;
@@ -44,10 +45,12 @@ import co.cask.cdap.logging.appender.kafka.LoggingEventSerializer;
 import co.cask.cdap.logging.context.FlowletLoggingContext;
 import co.cask.cdap.logging.context.LoggingContextHelper;
 import co.cask.cdap.logging.filter.Filter;
+import co.cask.cdap.logging.kafka.KafkaLogEvent;
 import co.cask.cdap.logging.read.AvroFileReader;
 import co.cask.cdap.logging.read.FileLogReader;
 import co.cask.cdap.logging.read.LogEvent;
 import co.cask.cdap.logging.serialize.LogSchema;
+import co.cask.cdap.logging.write.FileMetaDataManager;
 import co.cask.cdap.test.SlowTests;
 import co.cask.tephra.TransactionManager;
 import com.google.common.base.Function;
@@ -84,6 +87,7 @@ import org.slf4j.LoggerFactory;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.ByteBuffer;
 import java.text.SimpleDateFormat;
 import java.util.Collection;
 import java.util.Date;
@@ -208,6 +212,91 @@ public class LogSaverPluginTest extends KafkaTestBase {
     }
   }
 
+  @Test
+  public void testMultiplePartitions() throws Exception {
+    // Use a separate topic, so that the checkpoints of this test don't interfere with the ones of the log saver
+    CConfiguration cConf = CConfiguration.copy(KAFKA_TESTER.getCConf());
+    cConf.set(Constants.Logging.KAFKA_TOPIC, "multi-partition-logs");
+    cConf.setLong(LoggingConfiguration.LOG_SAVER_CHECKPOINT_INTERVAL_MS, 100);
+
+    LocationFactory locationFactory = injector.getInstance(LocationFactory.class);
+    final KafkaLogWriterPlugin plugin = new KafkaLogWriterPlugin(cConf,
+                                                                 injector.getInstance(FileMetaDataManager.class),
+                                                                 locationFactory,
+                                                                 injector.getInstance(CheckpointManagerFactory.class));
+    plugin.init(ImmutableSet.of(0, 1));
+
+    LoggingEventSerializer serializer = new LoggingEventSerializer();
+    LoggingContext context0 = new FlowletLoggingContext("NS_2", "APP_P0", "FLOW_1", "FLOWLET_1", "RUN1", "INSTANCE1");
+    LoggingContext context1 = new FlowletLoggingContext("NS_2", "APP_P1", "FLOW_1", "FLOWLET_1", "RUN1", "INSTANCE1");
+    LoggingContext context2 = new FlowletLoggingContext("NS_2", "APP_P2", "FLOW_1", "FLOWLET_1", "RUN1", "INSTANCE1");
+    long now = System.currentTimeMillis();
+    try {
+      // Interleave the events of the two partitions, with different offsets for each partition
+      for (int i = 0; i < 20; i++) {
+        plugin.process(createKafkaLogEvent(serializer, context0, 0, i + 1, now + i, "Partition 0 message " + i));
+        plugin.process(createKafkaLogEvent(serializer, context1, 1, i + 101, now + i, "Partition 1 message " + i));
+      }
+      // Events of a partition that is not handled by the plugin are skipped
+      plugin.process(createKafkaLogEvent(serializer, context2, 2, 1, now, "Partition 2 message"));
+
+      // Each partition writer checkpoints the offsets of its own partition
+      Tasks.waitFor(20L, new Callable<Long>() {
+        @Override
+        public Long call() throws Exception {
+          return plugin.getCheckpoint(0).getNextOffset();
+        }
+      }, 30, TimeUnit.SECONDS);
+      Tasks.waitFor(120L, new Callable<Long>() {
+        @Override
+        public Long call() throws Exception {
+          return plugin.getCheckpoint(1).getNextOffset();
+        }
+      }, 30, TimeUnit.SECONDS);
+    } finally {
+      plugin.stop();
+    }
+
+    Assert.assertEquals(20, plugin.getCheckpoint(0).getNextOffset());
+    Assert.assertEquals(120, plugin.getCheckpoint(1).getNextOffset());
+    Assert.assertEquals(-1, plugin.getCheckpoint(2).getNextOffset());
+
+    // The events of each partition are written to the log files of their own logging context
+    FileLogReader logReader = injector.getInstance(FileLogReader.class);
+    verifyPartitionLogs(logReader, context0, "Partition 0 message ");
+    verifyPartitionLogs(logReader, context1, "Partition 1 message ");
+
+    LogCallback callback2 = new LogCallback();
+    logReader.getLog(context2, 0, Long.MAX_VALUE, Filter.EMPTY_FILTER, callback2);
+    Assert.assertTrue(callback2.getEvents().isEmpty());
+    Location ns2LogBaseDir = locationFactory.create(namespaceDir).append("NS_2").append(logBaseDir);
+    Assert.assertFalse(ns2LogBaseDir.append("APP_P2").exists());
+  }
+
+  private static KafkaLogEvent createKafkaLogEvent(LoggingEventSerializer serializer, LoggingContext loggingContext,
+                                                   int partition, long nextOffset, long timestamp, String message) {
+    ch.qos.logback.classic.spi.LoggingEvent event = new ch.qos.logback.classic.spi.LoggingEvent();
+    event.setLevel(Level.WARN);
+    event.setThreadName("thread-1");
+    event.setLoggerName(LogSaverPluginTest.class.getName());
+    event.setMessage(message);
+    event.setTimeStamp(timestamp);
+    event.setMDCPropertyMap(ImmutableMap.<String, String>of());
+    return new KafkaLogEvent(ByteBuffer.wrap(serializer.toBytes(event, loggingContext)), event, loggingContext,
+                             partition, nextOffset);
+  }
+
+  private static void verifyPartitionLogs(FileLogReader logReader, LoggingContext loggingContext,
+                                          String messagePrefix) {
+    LogCallback logCallback = new LogCallback();
+    logReader.getLog(loggingContext, 0, Long.MAX_VALUE, Filter.EMPTY_FILTER, logCallback);
+    List<LogEvent> events = logCallback.getEvents();
+    Assert.assertEquals(20, events.size());
+    for (int i = 0; i < 20; i++) {
+      Assert.assertEquals(messagePrefix + i, events.get(i).getLoggingEvent().getFormattedMessage());
+    }
+  }
+
   private void verifyMetricsPlugin() throws Exception {
     final long timeInSecs = System.currentTimeMillis() / 1000;
     final Map<String, String> sliceByTags = new HashMap<>();
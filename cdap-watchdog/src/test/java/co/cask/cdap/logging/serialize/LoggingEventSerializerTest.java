@@ -140,6 +140,48 @@ public class LoggingEventSerializerTest {
     assertLoggingEventEquals(iLoggingEvent, actualEvent);
   }
 
+  @Test
+  public void testSerializerReuse() throws Exception {
+    // The same serializer encodes and decodes events with and without optional fields,
+    // which must not leak into each other through the reused records
+    LoggingEventSerializer serializer = new LoggingEventSerializer(new VerifiableProperties());
+    ch.qos.logback.classic.spi.LoggingEvent fullEvent = new ch.qos.logback.classic.spi.LoggingEvent();
+    fullEvent.setThreadName("thread-1");
+    fullEvent.setLevel(Level.WARN);
+    fullEvent.setMessage("message {}");
+    fullEvent.setArgumentArray(new Object[]{"arg1"});
+    fullEvent.setLoggerName("loggerName1");
+    fullEvent.setThrowableProxy(new ThrowableProxy(new Exception("Test Exception")));
+    fullEvent.setCallerData(new StackTraceElement[]{
+      new StackTraceElement("com.Class1", "methodName1", "fileName1", 10)
+    });
+    fullEvent.setTimeStamp(1234567890L);
+
+    ch.qos.logback.classic.spi.LoggingEvent emptyEvent = new ch.qos.logback.classic.spi.LoggingEvent();
+    emptyEvent.setLevel(Level.DEBUG);
+    emptyEvent.setThreadName("thread-2");
+    emptyEvent.setMessage("message");
+    emptyEvent.setTimeStamp(1234567891L);
+
+    byte[] fullBytes = serializer.toBytes(new LoggingEvent(fullEvent), LoggingContextAccessor.getLoggingContext());
+    byte[] emptyBytes = serializer.toBytes(new LoggingEvent(emptyEvent), LoggingContextAccessor.getLoggingContext());
+
+    // Decode from a buffer that doesn't start at the beginning of its array
+    ByteBuffer buffer = ByteBuffer.allocate(emptyBytes.length + 10);
+    buffer.position(10);
+    buffer.put(emptyBytes);
+    buffer.position(10);
+    ByteBuffer emptyBuffer = buffer.slice();
+    ILoggingEvent actualFullEvent = serializer.fromBytes(ByteBuffer.wrap(fullBytes));
+    ILoggingEvent actualEmptyEvent = serializer.fromBytes(emptyBuffer);
+    Assert.assertEquals(0, emptyBuffer.position());
+
+    assertLoggingEventEquals(fullEvent, actualFullEvent);
+    assertLoggingEventEquals(emptyEvent, actualEmptyEvent);
+    Assert.assertNull(actualEmptyEvent.getArgumentArray());
+    Assert.assertNull(actualEmptyEvent.getThrowableProxy());
+  }
+
   public static void assertLoggingEventEquals(ILoggingEvent expected, ILoggingEvent actual) {
     expected.getMDCPropertyMap().putAll(
       ImmutableMap.of(".namespaceId", "TEST_ACCT_ID1", ".applicationId", "TEST_APP_ID1", ".runId", "RUN1",
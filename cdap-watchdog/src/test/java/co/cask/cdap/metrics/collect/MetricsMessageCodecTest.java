@@ -0,0 +1,146 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.metrics.collect;
+
+import co.cask.cdap.api.data.schema.Schema;
+import co.cask.cdap.api.metrics.MetricType;
+import co.cask.cdap.api.metrics.MetricValue;
+import co.cask.cdap.api.metrics.MetricValues;
+import co.cask.cdap.common.io.BinaryEncoder;
+import co.cask.cdap.internal.io.ASMDatumWriterFactory;
+import co.cask.cdap.internal.io.ASMFieldAccessorFactory;
+import co.cask.cdap.internal.io.DatumWriter;
+import co.cask.cdap.internal.io.ReflectionSchemaGenerator;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.reflect.TypeToken;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Tests for {@link MetricsMessageCodec}.
+ */
+public class MetricsMessageCodecTest {
+
+  @Test
+  public void testEncodeDecode() throws IOException {
+    List<MetricValues> records = ImmutableList.of(
+      new MetricValues(ImmutableMap.of("ns", "default", "app", "app1"), 1000L,
+                       ImmutableList.of(new MetricValue("reads", MetricType.COUNTER, 10L),
+                                        new MetricValue("queue.size", MetricType.GAUGE, -5L))),
+      new MetricValues(ImmutableMap.of("ns", "default", "app", "app2"), "reads", 998L, 3L, MetricType.COUNTER),
+      new MetricValues(ImmutableMap.<String, String>of(), 1002L, ImmutableList.<MetricValue>of()));
+
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    MetricsMessageCodec.encode(records, os);
+    ByteBuffer payload = ByteBuffer.wrap(os.toByteArray());
+    Assert.assertTrue(MetricsMessageCodec.isCompact(payload));
+
+    List<MetricValues> decoded = MetricsMessageCodec.decode(payload);
+    // Decoding must not consume the payload
+    Assert.assertEquals(os.size(), payload.remaining());
+    Assert.assertEquals(records.size(), decoded.size());
+    for (int i = 0; i < records.size(); i++) {
+      MetricValues expected = records.get(i);
+      MetricValues actual = decoded.get(i);
+      Assert.assertEquals(expected.getTags(), actual.getTags());
+      Assert.assertEquals(expected.getTimestamp(), actual.getTimestamp());
+      Assert.assertEquals(expected.getMetrics().size(), actual.getMetrics().size());
+      Iterator<MetricValue> actualMetrics = actual.getMetrics().iterator();
+      for (MetricValue expectedMetric : expected.getMetrics()) {
+        MetricValue actualMetric = actualMetrics.next();
+        Assert.assertEquals(expectedMetric.getName(), actualMetric.getName());
+        Assert.assertEquals(expectedMetric.getType(), actualMetric.getType());
+        Assert.assertEquals(expectedMetric.getValue(), actualMetric.getValue());
+      }
+    }
+  }
+
+  @Test
+  public void testLegacyFormat() throws Exception {
+    TypeToken<MetricValues> type = TypeToken.of(MetricValues.class);
+    Schema schema = new ReflectionSchemaGenerator().generate(type.getType());
+    DatumWriter<MetricValues> writer = new ASMDatumWriterFactory(new ASMFieldAccessorFactory()).create(type, schema);
+
+    // Records of the per-record format are never mistaken for the compact format
+    for (MetricValues record : ImmutableList.of(
+      new MetricValues(ImmutableMap.of("tag", "value"), "metric", 1000L, 1L, MetricType.COUNTER),
+      new MetricValues(ImmutableMap.<String, String>of(), 1000L, ImmutableList.<MetricValue>of()))) {
+      ByteArrayOutputStream os = new ByteArrayOutputStream();
+      writer.encode(record, new BinaryEncoder(os));
+      Assert.assertFalse(MetricsMessageCodec.isCompact(ByteBuffer.wrap(os.toByteArray())));
+    }
+  }
+
+  @Test
+  public void testMetricTypeCodes() throws IOException {
+    // The metric types are encoded with stable codes, counter as 0 and gauge as 1
+    for (MetricType type : MetricType.values()) {
+      ByteArrayOutputStream os = new ByteArrayOutputStream();
+      MetricsMessageCodec.encode(ImmutableList.of(
+        new MetricValues(ImmutableMap.<String, String>of(), "m", 5L, 7L, type)), os);
+      byte code = type == MetricType.COUNTER ? (byte) 0x00 : (byte) 0x02;
+      // marker, dictionary of "m", base timestamp, one record without tags and with one metric
+      Assert.assertArrayEquals(new byte[] { 0x03, 0x02, 0x02, 'm', 0x0a, 0x02, 0x00, 0x00, 0x02, 0x00, code, 0x0e },
+                               os.toByteArray());
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testInvalidMessage() throws IOException {
+    MetricsMessageCodec.decode(ByteBuffer.wrap(new byte[] { 0x03, 0x02 }));
+  }
+
+  @Test
+  public void testInvalidCounts() throws IOException {
+    // negative and too large dictionary sizes, string lengths, record, tag and metric counts
+    assertInvalid(new byte[] { 0x03, 0x01 });
+    assertInvalid(new byte[] { 0x03, 0x7e, 0x00 });
+    assertInvalid(new byte[] { 0x03, 0x02, 0x01, 'm' });
+    assertInvalid(new byte[] { 0x03, 0x02, 0x04, 'm' });
+    assertInvalid(new byte[] { 0x03, 0x00, 0x0a, 0x01 });
+    assertInvalid(new byte[] { 0x03, 0x00, 0x0a, 0x02, 0x00, 0x00 });
+    assertInvalid(new byte[] { 0x03, 0x00, 0x0a, 0x02, 0x01, 0x00, 0x00 });
+    assertInvalid(new byte[] { 0x03, 0x00, 0x0a, 0x02, 0x00, 0x00, 0x01 });
+    assertInvalid(new byte[] { 0x03, 0x00, 0x0a, 0x02, 0x00, 0x00, 0x02, 0x00, 0x00 });
+
+    // every truncation of a valid message
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    MetricsMessageCodec.encode(ImmutableList.of(
+      new MetricValues(ImmutableMap.of("ns", "default"), "m", 5L, 7L, MetricType.COUNTER)), os);
+    byte[] message = os.toByteArray();
+    for (int i = 0; i < message.length; i++) {
+      assertInvalid(Arrays.copyOf(message, i));
+    }
+  }
+
+  private void assertInvalid(byte[] payload) {
+    try {
+      MetricsMessageCodec.decode(ByteBuffer.wrap(payload));
+      Assert.fail("Expected IOException for " + Arrays.toString(payload));
+    } catch (IOException e) {
+      // expected
+    }
+  }
+}
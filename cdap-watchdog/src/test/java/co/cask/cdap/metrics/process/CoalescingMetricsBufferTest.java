@@ -0,0 +1,287 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.metrics.process;
+
+import co.cask.cdap.api.metrics.MetricDataQuery;
+import co.cask.cdap.api.metrics.MetricDeleteQuery;
+import co.cask.cdap.api.metrics.MetricSearchQuery;
+import co.cask.cdap.api.metrics.MetricStore;
+import co.cask.cdap.api.metrics.MetricTimeSeries;
+import co.cask.cdap.api.metrics.MetricType;
+import co.cask.cdap.api.metrics.MetricValue;
+import co.cask.cdap.api.metrics.MetricValues;
+import co.cask.cdap.api.metrics.MetricsContext;
+import co.cask.cdap.api.metrics.TagValue;
+import co.cask.cdap.common.utils.Tasks;
+import co.cask.cdap.data2.dataset2.lib.table.inmemory.InMemoryMetricsTable;
+import co.cask.cdap.data2.dataset2.lib.table.inmemory.InMemoryTableService;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.apache.twill.kafka.client.TopicPartition;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests for {@link CoalescingMetricsBuffer}.
+ */
+public class CoalescingMetricsBufferTest {
+
+  private static final TopicPartition PARTITION = new TopicPartition("metrics", 0);
+  private static final Map<String, String> TAGS1 = ImmutableMap.of("namespace", "ns1");
+  private static final Map<String, String> TAGS2 = ImmutableMap.of("namespace", "ns2");
+
+  @Test
+  public void testCoalescing() throws Exception {
+    RecordingMetricStore metricStore = new RecordingMetricStore();
+    KafkaConsumerMetaTable metaTable = createMetaTable("testCoalescing");
+    CoalescingMetricsBuffer buffer = new CoalescingMetricsBuffer(metricStore, metaTable, 100,
+                                                                 TimeUnit.HOURS.toMillis(1));
+    try {
+      buffer.add(ImmutableList.of(metricValues(TAGS1, 1, counter("count", 1), gauge("gauge", 5)),
+                                  metricValues(TAGS1, 1, counter("count", 2), gauge("gauge", 7)),
+                                  metricValues(TAGS1, 2, counter("count", 3)),
+                                  metricValues(TAGS2, 1, counter("count", 4))),
+                 ImmutableMap.of(PARTITION, 10L));
+      Assert.assertTrue(metricStore.getBatches().isEmpty());
+
+      buffer.flush();
+      // Values with the same tags, timestamp and name are merged: counters are summed, gauges take the latest value
+      List<MetricValues> batch = Iterables.getOnlyElement(metricStore.getBatches());
+      Assert.assertEquals(3, batch.size());
+      Map<String, Long> values = toMap(batch);
+      Assert.assertEquals(ImmutableMap.of("ns1.1.count", 3L, "ns1.1.gauge", 7L, "ns1.2.count", 3L, "ns2.1.count", 4L),
+                          values);
+      Assert.assertEquals(10L, metaTable.get(PARTITION));
+    } finally {
+      buffer.close();
+    }
+  }
+
+  @Test
+  public void testFlushOnSize() throws Exception {
+    RecordingMetricStore metricStore = new RecordingMetricStore();
+    KafkaConsumerMetaTable metaTable = createMetaTable("testFlushOnSize");
+    CoalescingMetricsBuffer buffer = new CoalescingMetricsBuffer(metricStore, metaTable, 2, TimeUnit.HOURS.toMillis(1));
+    try {
+      buffer.add(ImmutableList.of(metricValues(TAGS1, 1, counter("count", 1))), ImmutableMap.of(PARTITION, 1L));
+      // The same tags and timestamp don't grow the buffer
+      buffer.add(ImmutableList.of(metricValues(TAGS1, 1, counter("count", 2))), ImmutableMap.of(PARTITION, 2L));
+      Assert.assertTrue(metricStore.getBatches().isEmpty());
+      Assert.assertEquals(-1L, metaTable.get(PARTITION));
+
+      // The buffer is written once it is full
+      buffer.add(ImmutableList.of(metricValues(TAGS1, 2, counter("count", 4))), ImmutableMap.of(PARTITION, 3L));
+      Assert.assertEquals(ImmutableMap.of("ns1.1.count", 3L, "ns1.2.count", 4L),
+                          toMap(Iterables.getOnlyElement(metricStore.getBatches())));
+      Assert.assertEquals(3L, metaTable.get(PARTITION));
+    } finally {
+      buffer.close();
+    }
+  }
+
+  @Test
+  public void testFlushOnTime() throws Exception {
+    final RecordingMetricStore metricStore = new RecordingMetricStore();
+    KafkaConsumerMetaTable metaTable = createMetaTable("testFlushOnTime");
+    CoalescingMetricsBuffer buffer = new CoalescingMetricsBuffer(metricStore, metaTable, 100, 100L);
+    try {
+      buffer.add(ImmutableList.of(metricValues(TAGS1, 1, counter("count", 1))), ImmutableMap.of(PARTITION, 5L));
+
+      // The buffer is written once its oldest values are due
+      Tasks.waitFor(1, new Callable<Integer>() {
+        @Override
+        public Integer call() throws Exception {
+          return metricStore.getBatches().size();
+        }
+      }, 10, TimeUnit.SECONDS);
+      Assert.assertEquals(ImmutableMap.of("ns1.1.count", 1L), toMap(metricStore.getBatches().get(0)));
+      Assert.assertEquals(5L, metaTable.get(PARTITION));
+    } finally {
+      buffer.close();
+    }
+  }
+
+  @Test
+  public void testStoreFailure() throws Exception {
+    final RecordingMetricStore metricStore = new RecordingMetricStore();
+    KafkaConsumerMetaTable metaTable = createMetaTable("testStoreFailure");
+    final CoalescingMetricsBuffer buffer = new CoalescingMetricsBuffer(metricStore, metaTable, 1,
+                                                                       TimeUnit.HOURS.toMillis(1));
+    try {
+      metricStore.setFailing(true);
+
+      // Adding to a full buffer that cannot be written blocks until it is written
+      Thread adder = new Thread() {
+        @Override
+        public void run() {
+          buffer.add(ImmutableList.of(metricValues(TAGS1, 1, counter("count", 1))), ImmutableMap.of(PARTITION, 7L));
+        }
+      };
+      adder.start();
+      Tasks.waitFor(true, new Callable<Boolean>() {
+        @Override
+        public Boolean call() throws Exception {
+          return metricStore.getFailures() >= 2;
+        }
+      }, 10, TimeUnit.SECONDS);
+      Assert.assertTrue(adder.isAlive());
+      Assert.assertTrue(metricStore.getBatches().isEmpty());
+      // Offsets are not persisted while the values are not written
+      Assert.assertEquals(-1L, metaTable.get(PARTITION));
+
+      metricStore.setFailing(false);
+      adder.join(TimeUnit.SECONDS.toMillis(10));
+      Assert.assertFalse(adder.isAlive());
+      Assert.assertEquals(ImmutableMap.of("ns1.1.count", 1L),
+                          toMap(Iterables.getOnlyElement(metricStore.getBatches())));
+      Assert.assertEquals(7L, metaTable.get(PARTITION));
+    } finally {
+      buffer.close();
+    }
+  }
+
+  @Test
+  public void testStoreFailureOnClose() throws Exception {
+    RecordingMetricStore metricStore = new RecordingMetricStore();
+    KafkaConsumerMetaTable metaTable = createMetaTable("testStoreFailureOnClose");
+    CoalescingMetricsBuffer buffer = new CoalescingMetricsBuffer(metricStore, metaTable, 100,
+                                                                 TimeUnit.HOURS.toMillis(1));
+    buffer.add(ImmutableList.of(metricValues(TAGS1, 1, counter("count", 1))), ImmutableMap.of(PARTITION, 9L));
+    metricStore.setFailing(true);
+
+    // Closing retries the write, and doesn't persist the offsets of values that cannot be written
+    buffer.close();
+    Assert.assertTrue(metricStore.getFailures() > 1);
+    Assert.assertTrue(metricStore.getBatches().isEmpty());
+    Assert.assertEquals(-1L, metaTable.get(PARTITION));
+  }
+
+  private KafkaConsumerMetaTable createMetaTable(String name) {
+    InMemoryTableService.create(name);
+    return new KafkaConsumerMetaTable(new InMemoryMetricsTable(name));
+  }
+
+  private static MetricValues metricValues(Map<String, String> tags, long timestamp, MetricValue... values) {
+    return new MetricValues(tags, timestamp, ImmutableList.copyOf(values));
+  }
+
+  private static MetricValue counter(String name, long value) {
+    return new MetricValue(name, MetricType.COUNTER, value);
+  }
+
+  private static MetricValue gauge(String name, long value) {
+    return new MetricValue(name, MetricType.GAUGE, value);
+  }
+
+  /**
+   * Returns the values of the given metrics by namespace, timestamp and name.
+   */
+  private static Map<String, Long> toMap(Collection<MetricValues> records) {
+    Map<String, Long> result = Maps.newHashMap();
+    for (MetricValues record : records) {
+      for (MetricValue value : record.getMetrics()) {
+        String key = record.getTags().get("namespace") + "." + record.getTimestamp() + "." + value.getName();
+        Assert.assertNull("Values are not merged for " + key, result.put(key, value.getValue()));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * A {@link MetricStore} that records the batches of metrics added to it, and that fails if it is set to.
+   */
+  private static final class RecordingMetricStore implements MetricStore {
+
+    private final List<List<MetricValues>> batches = Collections.synchronizedList(
+      Lists.<List<MetricValues>>newArrayList());
+    private final AtomicInteger failures = new AtomicInteger();
+    private volatile boolean failing;
+
+    List<List<MetricValues>> getBatches() {
+      return batches;
+    }
+
+    int getFailures() {
+      return failures.get();
+    }
+
+    void setFailing(boolean failing) {
+      this.failing = failing;
+    }
+
+    @Override
+    public void setMetricsContext(MetricsContext metricsContext) {
+      // no-op
+    }
+
+    @Override
+    public void add(MetricValues metricValues) throws Exception {
+      add(ImmutableList.of(metricValues));
+    }
+
+    @Override
+    public void add(Collection<? extends MetricValues> metricValues) throws Exception {
+      if (failing) {
+        failures.incrementAndGet();
+        throw new IOException("Metric store unavailable");
+      }
+      batches.add(ImmutableList.copyOf(metricValues));
+    }
+
+    @Override
+    public Collection<MetricTimeSeries> query(MetricDataQuery query) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void deleteBefore(long timestamp) throws Exception {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void delete(MetricDeleteQuery query) throws Exception {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void deleteAll() throws Exception {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Collection<TagValue> findNextAvailableTags(MetricSearchQuery query) throws Exception {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Collection<String> findMetricNames(MetricSearchQuery query) throws Exception {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.metrics.store;
+
+import co.cask.cdap.api.dataset.lib.cube.AggregationFunction;
+import co.cask.cdap.api.dataset.lib.cube.TimeValue;
+import co.cask.cdap.api.metrics.MetricDataQuery;
+import co.cask.cdap.api.metrics.MetricTimeSeries;
+import co.cask.cdap.api.metrics.MetricType;
+import co.cask.cdap.api.metrics.MetricValues;
+import co.cask.cdap.common.conf.CConfiguration;
+import co.cask.cdap.common.conf.Constants;
+import co.cask.cdap.data2.dataset2.lib.table.inmemory.InMemoryMetricsTable;
+import co.cask.cdap.data2.dataset2.lib.table.inmemory.InMemoryTableService;
+import co.cask.cdap.data2.dataset2.lib.timeseries.EntityTable;
+import co.cask.cdap.data2.dataset2.lib.timeseries.FactTable;
+import co.cask.cdap.metrics.process.KafkaConsumerMetaTable;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for {@link MetricsRollup}.
+ */
+public class MetricsRollupTest {
+
+  private static final Map<String, String> TAGS = ImmutableMap.of(Constants.Metrics.Tag.NAMESPACE, "rollupns");
+
+  @Test
+  public void testRollUp() throws Exception {
+    CConfiguration cConf = CConfiguration.create();
+    cConf.setBoolean(Constants.Metrics.ROLLUP_ENABLED, true);
+    cConf.setLong(Constants.Metrics.ROLLUP_DELAY_SECONDS, 10L);
+    cConf.setLong(Constants.Metrics.ROLLUP_INTERVAL_SECONDS, 60L);
+    DefaultMetricStore metricStore = new DefaultMetricStore(new InMemoryMetricDatasetFactory("testRollUp"), cConf);
+    MetricsRollup rollup = new MetricsRollup(cConf, metricStore);
+
+    long now = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+    long[] timestamps = new long[] {now - 200, now - 190, now - 2, now - 1};
+    long[] counts = new long[] {1, 2, 4, 8};
+    long[] gauges = new long[] {5, 6, 7, 9};
+    for (int i = 0; i < timestamps.length; i++) {
+      metricStore.add(new MetricValues(TAGS, "count", timestamps[i], counts[i], MetricType.COUNTER));
+      metricStore.add(new MetricValues(TAGS, "gauge", timestamps[i], gauges[i], MetricType.GAUGE));
+    }
+
+    for (int resolution : new int[] {60, 3600}) {
+      // The latest interval is not rolled up yet, it is read from the 1 sec resolution
+      long latestInterval = timestamps[3] / resolution * resolution;
+      Assert.assertEquals(rollUp(timestamps, counts, resolution, false).get(latestInterval),
+                          query(metricStore, "system.count", resolution, now).get(latestInterval));
+      Assert.assertEquals(rollUp(timestamps, gauges, resolution, true).get(latestInterval),
+                          query(metricStore, "system.gauge", resolution, now).get(latestInterval));
+    }
+    // The old interval of the 1 min resolution is only available once it is rolled up
+    Assert.assertFalse(query(metricStore, "system.count", 60, now).containsKey(timestamps[0] / 60 * 60));
+
+    rollup.rollUp(now);
+
+    for (int resolution : new int[] {60, 3600}) {
+      Assert.assertEquals(rollUp(timestamps, counts, resolution, false),
+                          query(metricStore, "system.count", resolution, now));
+      Assert.assertEquals(rollUp(timestamps, gauges, resolution, true),
+                          query(metricStore, "system.gauge", resolution, now));
+    }
+
+    // Rolling up again doesn't change the values
+    rollup.rollUp(now);
+    Assert.assertEquals(rollUp(timestamps, counts, 60, false), query(metricStore, "system.count", 60, now));
+  }
+
+  /**
+   * Returns the values of the given metric, aggregated the same way the metrics system does for a metric query.
+   */
+  private Map<Long, Long> query(DefaultMetricStore metricStore, String metric, int resolution, long now) {
+    Collection<MetricTimeSeries> result = metricStore.query(
+      new MetricDataQuery(now - TimeUnit.HOURS.toSeconds(2), now + resolution, resolution, metric,
+                          AggregationFunction.SUM, TAGS, ImmutableList.<String>of()));
+    Map<Long, Long> values = Maps.newHashMap();
+    for (TimeValue timeValue : Iterables.getOnlyElement(result).getTimeValues()) {
+      values.put(timeValue.getTimestamp(), timeValue.getValue());
+    }
+    return values;
+  }
+
+  /**
+   * Returns the expected values of the given resolution: counters are summed up, gauges take the latest value.
+   */
+  private Map<Long, Long> rollUp(long[] timestamps, long[] values, int resolution, boolean gauge) {
+    Map<Long, Long> result = Maps.newHashMap();
+    for (int i = 0; i < timestamps.length; i++) {
+      long ts = timestamps[i] / resolution * resolution;
+      Long value = result.get(ts);
+      result.put(ts, gauge || value == null ? values[i] : value + values[i]);
+    }
+    return result;
+  }
+
+  private static final class InMemoryMetricDatasetFactory implements MetricDatasetFactory {
+
+    private final String name;
+
+    private InMemoryMetricDatasetFactory(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public FactTable getOrCreateFactTable(int resolution) {
+      String entityTableName = "EntityTable-" + name;
+      InMemoryTableService.create(entityTableName);
+      String dataTableName = "DataTable-" + name + "-" + resolution;
+      InMemoryTableService.create(dataTableName);
+      return new FactTable(new InMemoryMetricsTable(dataTableName),
+                           new EntityTable(new InMemoryMetricsTable(entityTableName)), resolution, 3600);
+    }
+
+    @Override
+    public KafkaConsumerMetaTable createKafkaConsumerMeta() {
+      throw new UnsupportedOperationException();
+    }
+  }
+}